@@ -10,7 +10,10 @@ package edu.ncsu.csc216.business.list_utils;
  */
 public class SimpleArrayList<E> implements SimpleList<E> {
 
-	/** Doubles the size if the array reaches capacity */
+	/**
+	 * Least number of slots added when the array reaches capacity, which otherwise
+	 * doubles in size
+	 */
 	private static final int RESIZE = 12;
 
 	/** Objects actually contained in the ArrayList */
@@ -58,16 +61,7 @@ public class SimpleArrayList<E> implements SimpleList<E> {
 	 */
 	@Override
 	public boolean isEmpty() {
-		int counter = 0;
-		for (int i = 0; i < list.length; i++) {
-			if (list[i] != null) {
-				counter++;
-			}
-		}
-		if (counter != 0) {
-			return false;
-		}
-		return true;
+		return size == 0;
 	}
 
 	/**
@@ -107,7 +101,7 @@ public class SimpleArrayList<E> implements SimpleList<E> {
 		try {
 			if (this.size() == list.length) {
 				// resize array
-				Object[] newList = new Object[list.length + RESIZE];
+				Object[] newList = new Object[list.length + Math.max(RESIZE, list.length)];
 				for (int i = 0; i < list.length; i++) {
 					newList[i] = list[i];
 				}
@@ -121,6 +115,38 @@ public class SimpleArrayList<E> implements SimpleList<E> {
 		}
 	}
 
+	/**
+	 * Appends a range of elements to the end of the list, without searching the
+	 * list for them. Meant for building a list from trusted input, such as the
+	 * leases of a client read from a file, in constant time per element. The
+	 * array grows at most once, and the list is left unchanged if an element is
+	 * null.
+	 * 
+	 * @param elements array holding the elements, none already in the list
+	 * @param from     position of the first element to append
+	 * @param to       position just after the last element to append
+	 * @throws NullPointerException      if an element is null
+	 * @throws IndexOutOfBoundsException if the range is outside the array
+	 */
+	public void appendAll(E[] elements, int from, int to) {
+		if (from < 0 || to > elements.length || from > to) {
+			throw new IndexOutOfBoundsException("range is out of bounds");
+		}
+		for (int i = from; i < to; i++) {
+			if (elements[i] == null) {
+				throw new NullPointerException("Null element");
+			}
+		}
+		int needed = size + to - from;
+		if (needed > list.length) {
+			Object[] newList = new Object[Math.max(needed, list.length + Math.max(RESIZE, list.length))];
+			System.arraycopy(list, 0, newList, 0, size);
+			list = newList;
+		}
+		System.arraycopy(elements, from, list, size, to - from);
+		size = needed;
+	}
+
 	/**
 	 * Adds the given element to a certain position in the list
 	 * 
@@ -149,7 +175,7 @@ public class SimpleArrayList<E> implements SimpleList<E> {
 				// check if adding element will overflow array
 				if (this.size() + 1 > list.length) {
 					// resize array
-					Object[] newList = new Object[list.length * RESIZE];
+					Object[] newList = new Object[list.length + Math.max(RESIZE, list.length)];
 					for (int i = 0; i < list.length; i++) {
 						newList[i] = list[i];
 					}
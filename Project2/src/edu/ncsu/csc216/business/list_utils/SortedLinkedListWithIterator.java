@@ -10,20 +10,34 @@ import java.util.*;
  * use comparable when sorting the list. Tailored for the storage and sorting of
  * leases and clients.
  * 
+ * The list keeps its last node and its size, so an element that sorts after
+ * every element already in the list is appended without walking the list, and
+ * building a list from elements in sorted order takes constant time per
+ * element. Elements that are equal always compare as equal, so such an element
+ * cannot be a duplicate.
+ * 
  * @param <E> the type of list element
  * 
  * @author Anton
  */
 public class SortedLinkedListWithIterator<E extends Comparable<E>> implements SortedList<E> {
 
-	/** The first node in the list */
+	/** The first node in the list, null if the list is empty */
 	private Node<E> head;
 
+	/** The last node in the list, null if the list is empty */
+	private Node<E> tail;
+
+	/** The number of elements in the list */
+	private int size;
+
 	/**
 	 * Method constructor
 	 */
 	public SortedLinkedListWithIterator() {
-		head = new Node<E>(null, null);
+		head = null;
+		tail = null;
+		size = 0;
 	}
 
 	/**
@@ -31,17 +45,8 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	 * 
 	 * @return the size of the list
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public int size() {
-		int size = 0;
-		Cursor current = new Cursor();
-		if (!this.isEmpty()) {
-			while (current.hasNext()) {
-				size++;
-				current.next();
-			}
-		}
 		return size;
 	}
 
@@ -52,10 +57,7 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	 */
 	@Override
 	public boolean isEmpty() {
-		if (head == null || head.value == null) {
-			return true;
-		}
-		return false;
+		return size == 0;
 	}
 
 	/**
@@ -66,22 +68,13 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	 */
 	@Override
 	public boolean contains(E e) {
-		Cursor current = new Cursor();
-		if (!this.isEmpty()) {
-			if (head.value.equals(e)) {
-				return true;
-			}
-			while (current.hasNextInternal()) {
-				if (current.nextInternal().equals(e)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return indexOf(e) != -1;
 	}
 
 	/**
-	 * Adds element to the list in a sorted order
+	 * Adds element to the list in a sorted order, after any elements that compare
+	 * as equal to it. An element that sorts after the last element is appended
+	 * right away.
 	 * 
 	 * @param e The element to be added
 	 * @return true if the element was added successfully
@@ -89,65 +82,79 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	 * @throws IllegalArgumentException if list already contains the element being
 	 *                                  added
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public boolean add(E e) {
 		if (e == null) {
 			throw new NullPointerException("Null element can not be added");
 		}
+		if (tail != null && e.compareTo(tail.value) > 0) { // in order, so not a duplicate
+			append(e);
+			return true;
+		}
 		if (this.contains(e)) {
 			throw new IllegalArgumentException("Element already contained in the list");
 		}
-		try {
-			if (this.isEmpty()) { // empty list
-				this.head = new Node<E>(e, null);
-				return true;
-			} else if (this.size() == 1) {
-				if (e.compareTo(head.value) < 0) {
-					head = new Node<E>(e, head);
-				} else {
-					head.next = new Node<E>(e, null);
-				}
-				return true;
-			} else {
-				Cursor current = new Cursor();
-				Node<E> temp = null;
-				Cursor prev = null;
-				int counter = 0;
-				while (current.hasNextInternal()) {
-					temp = current.traveler;
-					if (e.compareTo(temp.value) < 0) { // e comes before current element
-						if (counter == 0) {
-							head = new Node<E>(e, temp);
-							break;
-						} else {
-							current.traveler = new Node<E>(e, temp);
-							prev.traveler.next = current.traveler;
-							break;
-						}
-					}
-					current.nextInternal();
-					if (counter == 0) {
-						prev = new Cursor();
-					} else {
-						prev.nextInternal();
-					}
-					counter++;
-				}
-				if (counter == this.size() - 1) {// adding to the back
-					temp = current.traveler;
-					if (e.compareTo(current.traveler.value) < 0) {
-						current.traveler = new Node<E>(e, temp);
-						prev.traveler.next = current.traveler;
-					} else {
-						current.traveler.next = new Node<E>(e, null);
-					}
-				}
-				return true;
+		if (head == null || e.compareTo(head.value) < 0) { // adding to the front
+			head = new Node<E>(e, head);
+			if (tail == null) {
+				tail = head;
+			}
+		} else {
+			Node<E> prev = head;
+			while (prev.next != null && e.compareTo(prev.next.value) >= 0) {
+				prev = prev.next;
+			}
+			prev.next = new Node<E>(e, prev.next);
+			if (prev == tail) {
+				tail = prev.next;
+			}
+		}
+		size++;
+		return true;
+	}
+
+	/**
+	 * Appends elements that are already sorted to the end of the list, without
+	 * searching the list for them. Meant for building a list from trusted input,
+	 * such as the leases of a rental unit sorted all at once, in constant time
+	 * per element. Each element is only compared with the one before it, and the
+	 * list is left unchanged if they are out of order.
+	 * 
+	 * @param elements the elements, in sorted order and none already in the list
+	 * @throws NullPointerException     if an element is null
+	 * @throws IllegalArgumentException if an element sorts before the element
+	 *                                  before it
+	 */
+	public void appendSorted(E[] elements) {
+		E last = tail == null ? null : tail.value;
+		for (E e : elements) {
+			if (e == null) {
+				throw new NullPointerException("Null element can not be added");
+			}
+			if (last != null && e.compareTo(last) < 0) {
+				throw new IllegalArgumentException("Elements are not in sorted order");
 			}
-		} catch (Exception exp) {
-			return false;
+			last = e;
+		}
+		for (E e : elements) {
+			append(e);
+		}
+	}
+
+	/**
+	 * Private helper method that links an element after the last node
+	 * 
+	 * @param e the element
+	 */
+	private void append(E e) {
+		Node<E> node = new Node<E>(e, null);
+		if (tail == null) {
+			head = node;
+		} else {
+			tail.next = node;
 		}
+		tail = node;
+		size++;
 	}
 
 	/**
@@ -156,6 +163,8 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	@Override
 	public void clear() {
 		head = null;
+		tail = null;
+		size = 0;
 	}
 
 	/**
@@ -167,15 +176,13 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	 */
 	@Override
 	public E get(int index) {
-		if (index < 0 || index >= this.size()) {
+		if (index < 0 || index >= size) {
 			throw new IndexOutOfBoundsException("index is outside of list");
 		}
-		Cursor current = new Cursor();
-		E ret = current.traveler.value;
-		for (int i = 1; i <= index; i++) {
-			ret = current.nextInternal();
+		if (index == size - 1) {
+			return tail.value;
 		}
-		return ret;
+		return nodeAt(index).value;
 	}
 
 	/**
@@ -187,33 +194,42 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	 */
 	@Override
 	public E remove(int index) {
-		if (index < 0 || index >= this.size()) {
+		if (index < 0 || index >= size) {
 			throw new IndexOutOfBoundsException("index is outside of list");
 		}
-		Cursor current = new Cursor();
-		// find value at given index
-		E ret = this.get(index);
-
+		E ret;
 		if (index == 0) { // removal from front of list
+			ret = head.value;
 			head = head.next;
+			if (head == null) {
+				tail = null;
+			}
 		} else {
-			// shift elements to the left after removal point
-			for (int i = 1; i <= index; i++) {
-				if (i == this.size() - 1) {// removal from end of list
-					current.traveler.next = null;
-					break;
-				}
-				if (i < index) { // before the removal point
-					current.nextInternal();
-				}
-				if (i == index) {
-					current.traveler.next = current.traveler.next.next;
-				}
+			Node<E> prev = nodeAt(index - 1);
+			ret = prev.next.value;
+			prev.next = prev.next.next;
+			if (prev.next == null) { // removal from end of list
+				tail = prev;
 			}
 		}
+		size--;
 		return ret;
 	}
 
+	/**
+	 * Private helper method that walks to the node at the given position
+	 * 
+	 * @param index the position, within the list
+	 * @return the node
+	 */
+	private Node<E> nodeAt(int index) {
+		Node<E> current = head;
+		for (int i = 0; i < index; i++) {
+			current = current.next;
+		}
+		return current;
+	}
+
 	/**
 	 * Converts list to a string
 	 * 
@@ -221,25 +237,19 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	 */
 	@Override
 	public String toString() {
-		String ret = "";
-		ret += "[";
-		if (this.size() == 1) {
-			ret += this.get(0).toString();
-		} else {
-			for (int i = 0; i < this.size(); i++) {
-				if (i == 0) {
-					ret += this.get(i).toString();
-				} else {
-					ret += ", " + this.get(i).toString();
-				}
+		StringBuilder ret = new StringBuilder("[");
+		for (Node<E> current = head; current != null; current = current.next) {
+			if (current != head) {
+				ret.append(", ");
 			}
+			ret.append(current.value.toString());
 		}
-		ret += "]";
-		return ret;
+		return ret.append("]").toString();
 	}
 
 	/**
-	 * Truncates the list starting at the given index and returns the tail
+	 * Truncates the list starting at the given index and returns the tail. The
+	 * nodes from the index on are handed over to the returned list as they are.
 	 * 
 	 * @param start the index to start the truncation at
 	 * @return the truncated tail as a SortedList
@@ -247,38 +257,24 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	 */
 	@Override
 	public SortedList<E> truncate(int start) {
-		if (start < 0 || start > this.size()) {
+		if (start < 0 || start > size) {
 			throw new IllegalArgumentException("index is outside of list");
 		}
-		Cursor current = new Cursor();
-		SortedList<E> returnedList = new SortedLinkedListWithIterator<E>();
-		if (start == this.size()) {// start point right after list end return an empty list
+		SortedLinkedListWithIterator<E> returnedList = new SortedLinkedListWithIterator<E>();
+		if (start == size) {// start point right after list end return an empty list
 			return returnedList;
 		}
-		// fills up the returned list
-		for (int i = 0; i < this.size(); i++) {
-			if (i < start) {
-				current.nextInternal();
-			} else {
-				returnedList.add(current.traveler.value);
-				if (current.hasNextInternal()) {// moves pointer if there is a next value
-					current.nextInternal();
-				}
-			}
-		}
-
-		// truncates list
+		returnedList.tail = tail;
+		returnedList.size = size - start;
 		if (start == 0) { // if truncation starts at idx 0
+			returnedList.head = head;
 			this.clear();
 		} else {
-			current = new Cursor();
-			for (int i = 1; i <= start; i++) {
-				if (i < start) {
-					current.nextInternal();
-				} else {
-					current.traveler.next = null;
-				}
-			}
+			Node<E> last = nodeAt(start - 1);
+			returnedList.head = last.next;
+			last.next = null;
+			tail = last;
+			size = start;
 		}
 		return returnedList;
 	}
@@ -292,24 +288,14 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 	 */
 	@Override
 	public int indexOf(E e) {
-		int ret = -1;
-		Cursor current = new Cursor();
-		if (this.contains(e)) {
-			ret = 0;
-			if (current.traveler.value.equals(e)) {
-				return ret;
-			}
-			while (current.hasNextInternal()) {
-				current.nextInternal();
-				ret++;
-				// increases current index counter and checks if the value at this index is
-				// equal to e
-				if (current.traveler.value.equals(e)) {
-					return ret;
-				}
+		int index = 0;
+		for (Node<E> current = head; current != null; current = current.next) {
+			if (current.value.equals(e)) {
+				return index;
 			}
+			index++;
 		}
-		return ret;
+		return -1;
 	}
 
 	/**
@@ -377,21 +363,7 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 		 */
 		@Override
 		public boolean hasNext() {
-			if (traveler == null || traveler.value == null) {
-				return false;
-			}
-			return true;
-		}
-
-		private boolean hasNextInternal() {
-			if (traveler == null) {
-				return false;
-			} else {
-				if (traveler.next == null) {
-					return false;
-				}
-				return true;
-			}
+			return traveler != null;
 		}
 
 		/**
@@ -401,7 +373,6 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 		 * @throws NoSuchElementException if the list has already been traversed and
 		 *                                there is no element next.
 		 */
-		@SuppressWarnings("unused")
 		@Override
 		public E next() {
 			if (!this.hasNext()) {
@@ -411,16 +382,5 @@ public class SortedLinkedListWithIterator<E extends Comparable<E>> implements So
 			traveler = traveler.next;
 			return ret;
 		}
-
-		@SuppressWarnings("unchecked")
-		private E nextInternal() {
-			if (!this.hasNextInternal()) {
-				throw new NoSuchElementException();
-			}
-			traveler = traveler.next;
-			E ret = traveler.value;
-			return ret;
-		}
-
 	}
 }
@@ -0,0 +1,201 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.contracts;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hands out confirmation numbers without locking. A bitmap records the numbers
+ * held by live leases, and a cursor gives the number to try next. Numbers are
+ * handed out in order from the cursor, skipping any that are still held, so
+ * after wrapping around a number is only reused once it has been released.
+ * Every change is made with compare and set, so any number of threads can
+ * allocate, claim and release numbers at the same time.
+ *
+ * @author Anton
+ */
+public class ConfirmationNumberAllocator {
+
+	/** Number of bits in a word of the bitmap */
+	private static final int WORD_BITS = 64;
+
+	/** Amount of numbers that can be handed out, from 0 to capacity - 1 */
+	private final int capacity;
+
+	/** One bit for each number, set while the number is in use */
+	private final AtomicLongArray inUse;
+
+	/** Next number to try */
+	private final AtomicInteger cursor = new AtomicInteger();
+
+	/**
+	 * Constructor for an allocator with every number free
+	 *
+	 * @param capacity amount of numbers, which are 0 to capacity - 1
+	 * @throws IllegalArgumentException if capacity is not positive
+	 */
+	public ConfirmationNumberAllocator(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.capacity = capacity;
+		this.inUse = new AtomicLongArray((capacity + WORD_BITS - 1) / WORD_BITS);
+	}
+
+	/**
+	 * Hands out the first free number at or after the cursor, wrapping around to
+	 * 0 after the last number, and marks it as in use.
+	 *
+	 * @return the number
+	 * @throws IllegalStateException if every number is in use
+	 */
+	public int allocate() {
+		while (true) {
+			int start = cursor.get();
+			int number = nextFree(start);
+			if (number < 0) {
+				throw new IllegalStateException("no confirmation numbers left");
+			}
+			if (trySet(number)) {
+				// losing this race only means another thread moved the cursor on
+				cursor.compareAndSet(start, after(number));
+				return number;
+			}
+		}
+	}
+
+	/**
+	 * Marks a number given from outside, such as one read from a file, as in use.
+	 * If the number is at or after the cursor, the cursor moves past it so that
+	 * numbering continues after it. Claiming a number already in use is allowed.
+	 *
+	 * @param number the number
+	 * @throws IllegalArgumentException if the number is out of range
+	 */
+	public void claim(int number) {
+		checkRange(number);
+		trySet(number);
+		while (true) {
+			int current = cursor.get();
+			if (number < current || cursor.compareAndSet(current, after(number))) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Marks a number as free so that it can be handed out again. Releasing a free
+	 * number does nothing.
+	 *
+	 * @param number the number
+	 * @throws IllegalArgumentException if the number is out of range
+	 */
+	public void release(int number) {
+		checkRange(number);
+		int word = number / WORD_BITS;
+		long mask = 1L << number;
+		while (true) {
+			long bits = inUse.get(word);
+			if ((bits & mask) == 0 || inUse.compareAndSet(word, bits, bits & ~mask)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Determines if a number is in use
+	 *
+	 * @param number the number
+	 * @return true if the number is in use
+	 * @throws IllegalArgumentException if the number is out of range
+	 */
+	public boolean isInUse(int number) {
+		checkRange(number);
+		return (inUse.get(number / WORD_BITS) & (1L << number)) != 0;
+	}
+
+	/**
+	 * Frees every number and restarts numbering at the given number. Only meant
+	 * for when every lease is being discarded, as no number stays reserved.
+	 *
+	 * @param number the next number to hand out
+	 * @throws IllegalArgumentException if the number is out of range
+	 */
+	public void reset(int number) {
+		checkRange(number);
+		for (int i = 0; i < inUse.length(); i++) {
+			inUse.set(i, 0L);
+		}
+		cursor.set(number);
+	}
+
+	/**
+	 * Private helper method that finds the first free number at or after the
+	 * given one, wrapping around once.
+	 *
+	 * @param from number to start looking at
+	 * @return the free number, or -1 if there is none
+	 */
+	private int nextFree(int from) {
+		int words = inUse.length();
+		int word = from / WORD_BITS;
+		// bits before from in the first word are looked at again after wrapping
+		long bits = ~inUse.get(word) & (-1L << from);
+		for (int i = 0; i <= words; i++) {
+			if (bits != 0) {
+				int number = word * WORD_BITS + Long.numberOfTrailingZeros(bits);
+				if (number < capacity) {
+					return number;
+				}
+			}
+			word = (word + 1) % words;
+			bits = ~inUse.get(word);
+		}
+		return -1;
+	}
+
+	/**
+	 * Private helper method that sets the bit of a number
+	 *
+	 * @param number the number
+	 * @return true if this call set the bit, false if it was already set
+	 */
+	private boolean trySet(int number) {
+		int word = number / WORD_BITS;
+		long mask = 1L << number;
+		while (true) {
+			long bits = inUse.get(word);
+			if ((bits & mask) != 0) {
+				return false;
+			}
+			if (inUse.compareAndSet(word, bits, bits | mask)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Private helper method that gives the number after the given one, wrapping
+	 * around to 0 after the last number
+	 *
+	 * @param number the number
+	 * @return the following number
+	 */
+	private int after(int number) {
+		return number + 1 == capacity ? 0 : number + 1;
+	}
+
+	/**
+	 * Private helper method that checks that a number is in range
+	 *
+	 * @param number the number
+	 * @throws IllegalArgumentException if the number is out of range
+	 */
+	private void checkRange(int number) {
+		if (number < 0 || number >= capacity) {
+			throw new IllegalArgumentException();
+		}
+	}
+}
@@ -5,7 +5,8 @@ package edu.ncsu.csc216.business.model.contracts;
 
 import java.time.LocalDate;
 
-import edu.ncsu.csc216.business.model.properties.*;
+import edu.ncsu.csc216.business.model.io.RowFormatter;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
 import edu.ncsu.csc216.business.model.stakeholders.Client;
 
 /**
@@ -15,20 +16,20 @@ import edu.ncsu.csc216.business.model.stakeholders.Client;
  */
 public class Lease implements Comparable<Lease> {
 
-	/** Field used to keep track of confirmation number growth */
-	private static int confirmationCounter = 0;
+	/** The maximum allowed confirmation number */
+	private static final int MAX_CONF_NUM = 999999;
+
+	/** Keeps track of the confirmation numbers in use and the next to hand out */
+	private static final ConfirmationNumberAllocator NUMBERS = new ConfirmationNumberAllocator(MAX_CONF_NUM + 1);
 
 	/** Leases confirmation Number */
 	private int confirmationNumber;
 
-	/** The maximum allowed confirmation number */
-	private static final int MAX_CONF_NUM = 999999;
-
-	/** Starting date of the lease */
-	private LocalDate startDate;
+	/** Starting date of the lease, in days since 1970-01-01 */
+	private int startDay;
 
-	/** Date that the lease ends */
-	private LocalDate endDate;
+	/** Date that the lease ends, in days since 1970-01-01 */
+	private int endDay;
 
 	/** Amount of occupants the lease is intended for */
 	private int numOccupants;
@@ -39,8 +40,15 @@ public class Lease implements Comparable<Lease> {
 	/** Rental Unit that is being leased out */
 	private RentalUnit property;
 
+	/** Cached row describing this lease in a client's list of leases */
+	private volatile String clientRow;
+
+	/** Cached row describing this lease in a rental unit's list of leases */
+	private volatile String unitRow;
+
 	/**
-	 * Lease constructor without confirmation number.
+	 * Lease constructor without confirmation number. The lease gets the next
+	 * confirmation number that is not in use.
 	 * 
 	 * @param client    client making the lease
 	 * @param rental    rental unit that is being leased out
@@ -49,7 +57,7 @@ public class Lease implements Comparable<Lease> {
 	 * @param occupants number of occupants intended for the lease
 	 */
 	public Lease(Client client, RentalUnit rental, LocalDate startDate, LocalDate endDate, int occupants) {
-		this(confirmationCounter, client, rental, startDate, endDate, occupants);
+		this(NUMBERS.allocate(), client, rental, startDate, endDate, occupants);
 	}
 
 	/**
@@ -64,18 +72,47 @@ public class Lease implements Comparable<Lease> {
 	 */
 	public Lease(int confNumber, Client client, RentalUnit rental, LocalDate startDate, LocalDate endDate,
 			int occupants) {
-		if (confNumber >= confirmationCounter) {
-			if (confNumber == MAX_CONF_NUM) {
-				resetConfirmationNumbering(0);
-			} else {
-				resetConfirmationNumbering(1 + confNumber);
-			}
+		this(confNumber, client, rental, (int) startDate.toEpochDay(), (int) endDate.toEpochDay(), occupants);
+	}
+
+	/**
+	 * Lease constructor without confirmation number, taking the dates as day
+	 * numbers. The lease gets the next confirmation number that is not in use.
+	 * 
+	 * @param client    client making the lease
+	 * @param rental    rental unit that is being leased out
+	 * @param startDay  lease start date, in days since 1970-01-01
+	 * @param endDay    lease end date, in days since 1970-01-01
+	 * @param occupants number of occupants intended for the lease
+	 */
+	public Lease(Client client, RentalUnit rental, int startDay, int endDay, int occupants) {
+		this(NUMBERS.allocate(), client, rental, startDay, endDay, occupants);
+	}
+
+	/**
+	 * Lease constructor with confirmation number, taking the dates as day numbers.
+	 * The confirmation number is only checked here. It is marked as in use by
+	 * claimConfirmationNumber once the lease has been added, so a lease that is
+	 * rejected does not keep its number.
+	 * 
+	 * @param confNumber the lease confirmation number
+	 * @param client     client making the lease
+	 * @param rental     rental unit that is being leased out
+	 * @param startDay   lease start date, in days since 1970-01-01
+	 * @param endDay     lease end date, in days since 1970-01-01
+	 * @param occupants  number of occupants intended for the lease
+	 * @throws IllegalArgumentException if the confirmation number is not between
+	 *                                  0-999999
+	 */
+	public Lease(int confNumber, Client client, RentalUnit rental, int startDay, int endDay, int occupants) {
+		if (confNumber < 0 || confNumber > MAX_CONF_NUM) {
+			throw new IllegalArgumentException();
 		}
 		this.confirmationNumber = confNumber;
 		this.owner = client;
 		this.property = rental;
-		this.startDate = startDate;
-		this.endDate = endDate;
+		this.startDay = startDay;
+		this.endDay = endDay;
 		this.numOccupants = occupants;
 	}
 
@@ -112,7 +149,17 @@ public class Lease implements Comparable<Lease> {
 	 * @return lease start date
 	 */
 	public LocalDate getStart() {
-		return this.startDate;
+		return LocalDate.ofEpochDay(this.startDay);
+	}
+
+	/**
+	 * Getter method for the lease start date as a day number, which avoids
+	 * creating a LocalDate.
+	 * 
+	 * @return lease start date in days since 1970-01-01
+	 */
+	public int getStartDay() {
+		return this.startDay;
 	}
 
 	/**
@@ -121,7 +168,17 @@ public class Lease implements Comparable<Lease> {
 	 * @return lease end date
 	 */
 	public LocalDate getEnd() {
-		return this.endDate;
+		return LocalDate.ofEpochDay(this.endDay);
+	}
+
+	/**
+	 * Getter method for the lease end date as a day number, which avoids creating a
+	 * LocalDate.
+	 * 
+	 * @return lease end date in days since 1970-01-01
+	 */
+	public int getEndDay() {
+		return this.endDay;
 	}
 
 	/**
@@ -141,26 +198,52 @@ public class Lease implements Comparable<Lease> {
 	 *                                  start date
 	 */
 	public void setEndDateEarlier(LocalDate newEndDate) {
-		if (newEndDate.isBefore(this.startDate)) {
+		int newEndDay = (int) newEndDate.toEpochDay();
+		if (newEndDay < this.startDay) {
 			throw new IllegalArgumentException();
 		}
-		if (newEndDate.isAfter(this.endDate)) {
+		if (newEndDay > this.endDay) {
 			throw new IllegalArgumentException();
 		}
-		this.endDate = newEndDate;
+		this.endDay = newEndDay;
+		// the dates are part of both rows
+		this.clientRow = null;
+		this.unitRow = null;
 	}
 
 	/**
-	 * Method used to reset the confirmationCounter to a new number
+	 * Method used to restart confirmation numbering at a new number. Every number
+	 * is treated as free afterwards, so this is only meant for when all leases
+	 * are being discarded.
 	 * 
-	 * @param newNumber new number to be assigned to the confirmationCounter
+	 * @param newNumber next confirmation number to hand out
 	 * @throws IllegalArgumentException if the new number is not between 0-999999
 	 */
 	public static void resetConfirmationNumbering(int newNumber) {
-		if (newNumber < 0 || newNumber > MAX_CONF_NUM) {
-			throw new IllegalArgumentException();
-		}
-		confirmationCounter = newNumber;
+		NUMBERS.reset(newNumber);
+	}
+
+	/**
+	 * Marks the confirmation number of a lease given its number, such as one read
+	 * from a file, as in use once the lease has been added. Numbering continues
+	 * after it if it is not behind the next number to hand out.
+	 * 
+	 * @param confNumber the confirmation number
+	 * @throws IllegalArgumentException if the number is not between 0-999999
+	 */
+	public static void claimConfirmationNumber(int confNumber) {
+		NUMBERS.claim(confNumber);
+	}
+
+	/**
+	 * Frees the confirmation number of a lease that has been cancelled, so that
+	 * it can be handed out again once numbering wraps around.
+	 * 
+	 * @param confNumber the confirmation number
+	 * @throws IllegalArgumentException if the number is not between 0-999999
+	 */
+	public static void releaseConfirmationNumber(int confNumber) {
+		NUMBERS.release(confNumber);
 	}
 
 	/**
@@ -172,9 +255,9 @@ public class Lease implements Comparable<Lease> {
 	 *         order, and a positive integer if its greater than l.
 	 */
 	public int compareTo(Lease l) {
-		int ret = startDate.compareTo(l.getStart());
+		int ret = startDay - l.startDay;
 		if (ret == 0) {
-			ret = confirmationNumber - l.getConfirmationNumber();
+			ret = confirmationNumber - l.confirmationNumber;
 		}
 		return ret;
 	}
@@ -186,24 +269,44 @@ public class Lease implements Comparable<Lease> {
 	 */
 	public String[] leaseData() {
 		String[] retArr = new String[6];
-		String confStr = Integer.toString(this.getConfirmationNumber());
-		int max = 6 - confStr.length();
-		for (int j = 0; j < max; j++) {// adds necessary amount of zeroes to start of confirmation
-										// number
-			confStr = 0 + confStr;
+		retArr[0] = RowFormatter.confirmationNumber(this.confirmationNumber);
+		retArr[1] = getStart().toString() + " to " + getEnd().toString();
+		retArr[2] = Integer.toString(this.numOccupants);
+		retArr[3] = RowFormatter.unitTag(this.property);
+		retArr[4] = this.owner.getName();
+		retArr[5] = this.owner.getId();
+		return retArr;
+	}
+
+	/**
+	 * Returns this lease as a row of a client's list of leases, ex: 000607 |
+	 * 2020-02-01 to 2020-06-30 | 6 | Office: 5-10. The row is built once and
+	 * cached until the end date changes.
+	 * 
+	 * @return the lease as a String for a client's listing
+	 */
+	public String getClientRow() {
+		String row = clientRow;
+		if (row == null) {
+			row = RowFormatter.clientRow(this);
+			clientRow = row;
 		}
-		retArr[0] = confStr;
-		retArr[1] = startDate.toString() + " to " + endDate.toString();
-		retArr[2] = Integer.toString(this.getNumOccupants());
-		if (this.property instanceof Office) {
-			retArr[3] = String.format("Office:         %7s", this.property.getFloor() + "-" + this.property.getRoom());
-		} else if (this.property instanceof HotelSuite) {
-			retArr[3] = String.format("Hotel Suite:    %7s", this.property.getFloor() + "-" + this.property.getRoom());
-		} else if (this.property instanceof ConferenceRoom) {
-			retArr[3] = String.format("Conference Room:%7s", this.property.getFloor() + "-" + this.property.getRoom());
+		return row;
+	}
+
+	/**
+	 * Returns this lease as a row of a rental unit's list of leases, ex: 000607 |
+	 * 2020-02-01 to 2020-06-30 | 6 | James Tetterton (jc1012). The row is built
+	 * once and cached until the end date changes.
+	 * 
+	 * @return the lease as a String for a rental unit's listing
+	 */
+	public String getUnitRow() {
+		String row = unitRow;
+		if (row == null) {
+			row = RowFormatter.unitRow(this);
+			unitRow = row;
 		}
-		retArr[4] = this.getClient().getName();
-		retArr[5] = this.getClient().getId();
-		return retArr;
+		return row;
 	}
 }
@@ -0,0 +1,604 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Block-compressed rental data files, which RentalReader, RentalWriter and
+ * RentalSnapshot read and write alongside plain ones. A file is told to be
+ * compressed by its first bytes, whatever its name, so a compressed text file
+ * keeps its .md name and a compressed snapshot its .wrs name. Files compressed
+ * with gzip are read as well, although only from start to end.
+ *
+ * The data is cut into blocks of at most a megabyte and each block is deflated
+ * on its own, so blocks can be inflated at the same time on the threads of a
+ * pool. Text is cut at line breaks, so every block but a line longer than a
+ * block holds whole lines and can be parsed as soon as it is inflated. A
+ * compressed file is laid out as, with all numbers big-endian:
+ * <ul>
+ * <li>magic number, "WRZB", as an int</li>
+ * <li>for each block: the number of bytes it inflates to, the number of bytes
+ * it was deflated to and the CRC-32 checksum of the inflated bytes, as ints,
+ * followed by the deflated bytes</li>
+ * <li>end: a block header of three zeros</li>
+ * </ul>
+ *
+ * @author Anton
+ */
+final class BlockCompression {
+
+	/** Format of a file that is not compressed */
+	static final int RAW = 0;
+
+	/** Format of a block-compressed file */
+	static final int BLOCKS = 1;
+
+	/** Format of a file compressed with gzip */
+	static final int GZIP = 2;
+
+	/** First four bytes of every block-compressed file, "WRZB" */
+	private static final int MAGIC = 0x57525A42;
+
+	/** First two bytes of every gzip file */
+	private static final int GZIP_MAGIC = 0x1F8B;
+
+	/** Most bytes in a block before it is deflated */
+	static final int BLOCK_SIZE = 1 << 20;
+
+	/** Bytes in the header of a block */
+	private static final int HEADER_BYTES = 12;
+
+	/** Size of the buffer gzip files are read through */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Private constructor, as the class only has static methods and classes
+	 */
+	private BlockCompression() {
+	}
+
+	/**
+	 * Tells how a file is compressed by its first bytes.
+	 *
+	 * @param path the file
+	 * @return RAW, BLOCKS or GZIP
+	 * @throws IOException if the file cannot be read
+	 */
+	static int detect(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return detect(channel);
+		}
+	}
+
+	/**
+	 * Tells how a file is compressed by its first bytes, which are read without
+	 * moving the position of the channel.
+	 *
+	 * @param channel the file
+	 * @return RAW, BLOCKS or GZIP
+	 * @throws IOException if the file cannot be read
+	 */
+	static int detect(FileChannel channel) throws IOException {
+		ByteBuffer start = ByteBuffer.allocate(4);
+		while (start.hasRemaining() && channel.read(start, start.position()) > 0) {
+			// reads until the buffer is full or the file ends
+		}
+		if (start.position() == 4 && start.getInt(0) == MAGIC) {
+			return BLOCKS;
+		}
+		if (start.position() >= 2 && (start.getShort(0) & 0xFFFF) == GZIP_MAGIC) {
+			return GZIP;
+		}
+		return RAW;
+	}
+
+	/**
+	 * Opens a file as a stream of its bytes, inflating them if the file is
+	 * compressed. Blocks are inflated ahead of the reader on the common pool.
+	 *
+	 * @param path the file
+	 * @return the stream of the file's bytes
+	 * @throws IOException if the file cannot be read
+	 */
+	static InputStream open(Path path) throws IOException {
+		int format = detect(path);
+		if (format == BLOCKS) {
+			return new BlockInputStream(new BlockReader(path, ForkJoinPool.commonPool()));
+		}
+		InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+		return format == GZIP ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+	}
+
+	/**
+	 * Inflates the blocks of a block-compressed file at the same time on the
+	 * threads of a pool, each block straight into its place in one array.
+	 *
+	 * @param path     the file
+	 * @param pool     runs the inflating of the blocks
+	 * @param maxBytes most bytes to inflate
+	 * @return the inflated bytes, or null if there would be more than maxBytes
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not block-compressed or is
+	 *                                  damaged
+	 */
+	static ByteBuffer readAll(Path path, ForkJoinPool pool, int maxBytes) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (detect(channel) != BLOCKS) {
+				throw new IllegalArgumentException("not compressed");
+			}
+			List<long[]> blocks = new ArrayList<long[]>();
+			long position = 4;
+			long total = 0;
+			while (true) {
+				ByteBuffer header = readHeader(channel, position);
+				int raw = header.getInt(0);
+				if (raw == 0) {
+					break;
+				}
+				blocks.add(new long[] { position + HEADER_BYTES, raw, header.getInt(4), header.getInt(8), total });
+				position += HEADER_BYTES + header.getInt(4);
+				total += raw;
+				if (total > maxBytes) {
+					return null;
+				}
+			}
+			byte[] data = new byte[(int) total];
+			List<ForkJoinTask<?>> inflating = new ArrayList<ForkJoinTask<?>>();
+			for (long[] block : blocks) {
+				inflating.add(pool.submit(() -> {
+					byte[] packed = readFully(channel, block[0], (int) block[2]);
+					inflate(packed, data, (int) block[4], (int) block[1], (int) block[3]);
+					return null;
+				}));
+			}
+			for (ForkJoinTask<?> task : inflating) {
+				task.join();
+			}
+			return ByteBuffer.wrap(data);
+		}
+	}
+
+	/**
+	 * Private helper method that reads and checks the header of a block
+	 *
+	 * @param channel  the file
+	 * @param position where the header starts
+	 * @return the header, with the checked sizes and the checksum
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if the file ends or the sizes are not valid
+	 */
+	private static ByteBuffer readHeader(FileChannel channel, long position) throws IOException {
+		ByteBuffer header = ByteBuffer.wrap(readFully(channel, position, HEADER_BYTES));
+		int raw = header.getInt(0);
+		int packed = header.getInt(4);
+		if (raw < 0 || raw > BLOCK_SIZE || packed < 0 || packed > deflateBound(BLOCK_SIZE)
+				|| (raw == 0) != (packed == 0)) {
+			throw new IllegalArgumentException("damaged block");
+		}
+		return header;
+	}
+
+	/**
+	 * Private helper method that reads bytes from a given position of a file,
+	 * without moving the position of the channel so threads can read at once
+	 *
+	 * @param channel  the file
+	 * @param position where to start reading
+	 * @param count    number of bytes to read
+	 * @return the bytes
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if the file ends first
+	 */
+	private static byte[] readFully(FileChannel channel, long position, int count) throws IOException {
+		byte[] bytes = new byte[count];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IllegalArgumentException("file cut short");
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Private helper method that inflates a block and checks it against its
+	 * header
+	 *
+	 * @param packed the deflated bytes
+	 * @param to     array the inflated bytes are put in
+	 * @param offset where in the array they go
+	 * @param raw    number of bytes the block inflates to
+	 * @param crc    checksum of the inflated bytes
+	 * @throws IllegalArgumentException if the block is damaged
+	 */
+	private static void inflate(byte[] packed, byte[] to, int offset, int raw, int crc) {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(packed);
+			int done = 0;
+			while (done < raw && !inflater.finished()) {
+				int n = inflater.inflate(to, offset + done, raw - done);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				done += n;
+			}
+			if (done != raw || !inflater.finished()) {
+				throw new IllegalArgumentException("damaged block");
+			}
+		} catch (DataFormatException e) {
+			throw new IllegalArgumentException("damaged block");
+		} finally {
+			inflater.end();
+		}
+		CRC32 check = new CRC32();
+		check.update(to, offset, raw);
+		if ((int) check.getValue() != crc) {
+			throw new IllegalArgumentException("checksum mismatch");
+		}
+	}
+
+	/**
+	 * Private helper method that gives the most bytes a block can deflate to
+	 *
+	 * @param raw bytes in the block
+	 * @return the most bytes deflating can give
+	 */
+	private static int deflateBound(int raw) {
+		return raw + (raw >> 3) + 64;
+	}
+
+	/**
+	 * Reads the blocks of a block-compressed file in order, inflating the next
+	 * blocks on the threads of a pool while the caller works on the block it was
+	 * given. Reading the file, inflating it and parsing it thus go on at the same
+	 * time, with a few blocks in flight for each thread of the pool.
+	 *
+	 * @author Anton
+	 */
+	static final class BlockReader implements Closeable {
+
+		/** The file */
+		private final FileChannel channel;
+
+		/** Runs the inflating of the blocks */
+		private final ForkJoinPool pool;
+
+		/** The blocks being inflated, in order */
+		private final ArrayDeque<ForkJoinTask<byte[]>> ahead = new ArrayDeque<ForkJoinTask<byte[]>>();
+
+		/** Most blocks inflated ahead of the caller */
+		private final int depth;
+
+		/** Where the next block header starts */
+		private long position = 4;
+
+		/** Whether the end of the blocks has been read */
+		private boolean ended;
+
+		/**
+		 * Constructor for a reader of a file
+		 *
+		 * @param path the file
+		 * @param pool runs the inflating of the blocks
+		 * @throws IOException              if the file cannot be read
+		 * @throws IllegalArgumentException if the file is not block-compressed
+		 */
+		BlockReader(Path path, ForkJoinPool pool) throws IOException {
+			this.channel = FileChannel.open(path, StandardOpenOption.READ);
+			this.pool = pool;
+			this.depth = pool.getParallelism() + 1;
+			if (detect(channel) != BLOCKS) {
+				channel.close();
+				throw new IllegalArgumentException("not compressed");
+			}
+		}
+
+		/**
+		 * Gives the next block, inflated.
+		 *
+		 * @return the bytes of the block, or null after the last block
+		 * @throws IOException              if the file cannot be read
+		 * @throws IllegalArgumentException if the file is damaged
+		 */
+		ByteBuffer next() throws IOException {
+			while (!ended && ahead.size() < depth) {
+				ByteBuffer header = readHeader(channel, position);
+				int raw = header.getInt(0);
+				int packedSize = header.getInt(4);
+				int crc = header.getInt(8);
+				if (raw == 0) {
+					ended = true;
+				} else {
+					byte[] packed = readFully(channel, position + HEADER_BYTES, packedSize);
+					ahead.add(pool.submit(() -> {
+						byte[] block = new byte[raw];
+						inflate(packed, block, 0, raw, crc);
+						return block;
+					}));
+					position += HEADER_BYTES + packedSize;
+				}
+			}
+			ForkJoinTask<byte[]> task = ahead.poll();
+			return task == null ? null : ByteBuffer.wrap(task.join());
+		}
+
+		/**
+		 * Stops inflating ahead and closes the file.
+		 *
+		 * @throws IOException if the file cannot be closed
+		 */
+		@Override
+		public void close() throws IOException {
+			for (ForkJoinTask<byte[]> task : ahead) {
+				task.cancel(false);
+			}
+			ahead.clear();
+			channel.close();
+		}
+	}
+
+	/**
+	 * Deflates the bytes written to it a block at a time onto another channel,
+	 * which it leaves open when closed.
+	 *
+	 * @author Anton
+	 */
+	static final class BlockWriter implements WritableByteChannel {
+
+		/** The channel the blocks are written to */
+		private final WritableByteChannel out;
+
+		/** Whether blocks are cut at line breaks */
+		private final boolean lines;
+
+		/** Bytes of the block being filled */
+		private final byte[] raw = new byte[BLOCK_SIZE];
+
+		/** Number of bytes in the block being filled */
+		private int count;
+
+		/** The deflated block */
+		private byte[] packed = new byte[deflateBound(BLOCK_SIZE)];
+
+		/** Deflates the blocks */
+		private final Deflater deflater = new Deflater();
+
+		/** Checksum of the bytes of a block */
+		private final CRC32 crc = new CRC32();
+
+		/** Whether the writer is still open */
+		private boolean open = true;
+
+		/**
+		 * Constructor for a writer, which writes the magic number at once
+		 *
+		 * @param out   the channel the blocks are written to
+		 * @param lines true to cut blocks at line breaks, for text
+		 * @throws IOException if the channel cannot be written to
+		 */
+		BlockWriter(WritableByteChannel out, boolean lines) throws IOException {
+			this.out = out;
+			this.lines = lines;
+			ByteBuffer magic = ByteBuffer.allocate(4).putInt(0, MAGIC);
+			writeFully(magic);
+		}
+
+		/**
+		 * Adds bytes to the blocks, deflating each block as it fills.
+		 *
+		 * @param src the bytes
+		 * @return number of bytes taken, all of them
+		 * @throws IOException if the channel cannot be written to
+		 */
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			if (!open) {
+				throw new ClosedChannelException();
+			}
+			int taken = src.remaining();
+			while (src.hasRemaining()) {
+				int n = Math.min(src.remaining(), raw.length - count);
+				src.get(raw, count, n);
+				count += n;
+				if (count == raw.length) {
+					writeBlock(lines ? lastLineEnd() : count);
+				}
+			}
+			return taken;
+		}
+
+		/**
+		 * Tells whether the writer is still open.
+		 *
+		 * @return true if it is open
+		 */
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		/**
+		 * Deflates the last block and writes the end of the blocks. The channel
+		 * written to is left open.
+		 *
+		 * @throws IOException if the channel cannot be written to
+		 */
+		@Override
+		public void close() throws IOException {
+			if (!open) {
+				return;
+			}
+			open = false;
+			try {
+				if (count > 0) {
+					writeBlock(count);
+				}
+				writeFully(ByteBuffer.allocate(HEADER_BYTES));
+			} finally {
+				deflater.end();
+			}
+		}
+
+		/**
+		 * Private helper method that finds where the last whole line of the full
+		 * block ends
+		 *
+		 * @return number of bytes up to and with the last line break, or the whole
+		 *         block if it has no line break
+		 */
+		private int lastLineEnd() {
+			for (int i = count - 1; i >= 0; i--) {
+				if (raw[i] == '\n') {
+					return i + 1;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Private helper method that deflates and writes the first bytes of the
+		 * block being filled, keeping the rest for the next block
+		 *
+		 * @param length number of bytes to write as a block
+		 * @throws IOException if the channel cannot be written to
+		 */
+		private void writeBlock(int length) throws IOException {
+			deflater.reset();
+			deflater.setInput(raw, 0, length);
+			deflater.finish();
+			int size = 0;
+			while (!deflater.finished()) {
+				if (size == packed.length) {
+					byte[] grown = new byte[packed.length * 2];
+					System.arraycopy(packed, 0, grown, 0, size);
+					packed = grown;
+				}
+				size += deflater.deflate(packed, size, packed.length - size);
+			}
+			crc.reset();
+			crc.update(raw, 0, length);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			header.putInt(length).putInt(size).putInt((int) crc.getValue()).flip();
+			writeFully(header);
+			writeFully(ByteBuffer.wrap(packed, 0, size));
+			System.arraycopy(raw, length, raw, 0, count - length);
+			count -= length;
+		}
+
+		/**
+		 * Private helper method that writes all the bytes of a buffer
+		 *
+		 * @param buffer the bytes
+		 * @throws IOException if the channel cannot be written to
+		 */
+		private void writeFully(ByteBuffer buffer) throws IOException {
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * The bytes of a block-compressed file as a stream, read a block at a time
+	 * from a BlockReader.
+	 *
+	 * @author Anton
+	 */
+	private static final class BlockInputStream extends InputStream {
+
+		/** The blocks */
+		private final BlockReader blocks;
+
+		/** The block being read, or null after the last block */
+		private ByteBuffer block = ByteBuffer.allocate(0);
+
+		/**
+		 * Constructor for the stream
+		 *
+		 * @param blocks the blocks
+		 */
+		BlockInputStream(BlockReader blocks) {
+			this.blocks = blocks;
+		}
+
+		/**
+		 * Reads the next byte.
+		 *
+		 * @return the byte, or -1 at the end of the file
+		 * @throws IOException if the file cannot be read
+		 */
+		@Override
+		public int read() throws IOException {
+			return nextBlock() ? block.get() & 0xFF : -1;
+		}
+
+		/**
+		 * Reads bytes into an array.
+		 *
+		 * @param b   the array
+		 * @param off where in the array to put the bytes
+		 * @param len most bytes to read
+		 * @return number of bytes read, or -1 at the end of the file
+		 * @throws IOException if the file cannot be read
+		 */
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!nextBlock()) {
+				return -1;
+			}
+			int n = Math.min(len, block.remaining());
+			block.get(b, off, n);
+			return n;
+		}
+
+		/**
+		 * Closes the file.
+		 *
+		 * @throws IOException if the file cannot be closed
+		 */
+		@Override
+		public void close() throws IOException {
+			blocks.close();
+		}
+
+		/**
+		 * Private helper method that moves on to the next block with bytes left
+		 * once the current one is used up
+		 *
+		 * @return false at the end of the file
+		 * @throws IOException if the file cannot be read
+		 */
+		private boolean nextBlock() throws IOException {
+			while (block != null && !block.hasRemaining()) {
+				block = blocks.next();
+			}
+			return block != null;
+		}
+	}
+}
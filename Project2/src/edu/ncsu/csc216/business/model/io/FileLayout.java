@@ -0,0 +1,275 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import edu.ncsu.csc216.business.model.stakeholders.Client;
+import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
+
+/**
+ * What the last rental data file loaded or saved held: the versions of the
+ * rental units and of each client's leases at the time, and where each client's
+ * block of lines starts in the file. Comparing the versions with those of the
+ * PropertyManager tells which parts of the file are out of date, so a save can
+ * copy the rest of the file as it is and only the rental units section and the
+ * changed client blocks are written anew. The file's size and time of last
+ * change are kept as well, so a file changed by anything else is rewritten in
+ * full.
+ *
+ * @author Anton
+ */
+final class FileLayout {
+
+	/** Size of the buffer a file is scanned through */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Layout of the last file loaded or saved, or null if there is none */
+	private static volatile FileLayout current;
+
+	/** The file */
+	private final Path path;
+
+	/** Size of the file in bytes */
+	private final long size;
+
+	/** Time the file was last changed, in milliseconds */
+	private final long modified;
+
+	/** Version of the rental units the file holds */
+	private final int unitsVersion;
+
+	/** The clients the file holds, in order */
+	private final Client[] clients;
+
+	/** Version of the leases of each client the file holds */
+	private final int[] versions;
+
+	/**
+	 * Where the client section starts, followed by where each client's block
+	 * ends, in bytes; null until the file is scanned for them
+	 */
+	private long[] offsets;
+
+	/**
+	 * Constructor for the layout of data not yet in a file
+	 *
+	 * @param unitsVersion version of the rental units the data holds
+	 * @param clients      the clients the data holds, in order
+	 * @param versions     version of the leases of each client
+	 * @param offsets      where the client section starts and each client block
+	 *                     ends, or null if not known
+	 */
+	FileLayout(int unitsVersion, Client[] clients, int[] versions, long[] offsets) {
+		this(null, -1, -1, unitsVersion, clients, versions, offsets);
+	}
+
+	/**
+	 * Private constructor for a layout
+	 *
+	 * @param path         the file, or null for data not yet in a file
+	 * @param size         size of the file in bytes
+	 * @param modified     time the file was last changed, in milliseconds
+	 * @param unitsVersion version of the rental units the file holds
+	 * @param clients      the clients the file holds, in order
+	 * @param versions     version of the leases of each client
+	 * @param offsets      where the client section starts and each client block
+	 *                     ends, or null if not known
+	 */
+	private FileLayout(Path path, long size, long modified, int unitsVersion, Client[] clients, int[] versions,
+			long[] offsets) {
+		this.path = path;
+		this.size = size;
+		this.modified = modified;
+		this.unitsVersion = unitsVersion;
+		this.clients = clients;
+		this.versions = versions;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Takes down the versions of the data the PropertyManager holds now, before
+	 * the data is saved. Each version is read before the data it versions, so a
+	 * change made while saving makes the data look changed afterwards.
+	 *
+	 * @param manager the PropertyManager
+	 * @return the layout, not yet of any file
+	 */
+	static FileLayout capture(PropertyManager manager) {
+		int unitsVersion = manager.getUnitsVersion();
+		List<Client> list = manager.getClients();
+		Client[] clients = list.toArray(new Client[list.size()]);
+		int[] versions = new int[clients.length];
+		for (int i = 0; i < clients.length; i++) {
+			versions[i] = clients[i].getLeaseVersion();
+		}
+		return new FileLayout(unitsVersion, clients, versions, null);
+	}
+
+	/**
+	 * Remembers a file that was just loaded into the PropertyManager, or saved
+	 * from it with the versions taken down beforehand. Where the client blocks
+	 * start is found later, if the file is saved over.
+	 *
+	 * @param filename the file
+	 * @param layout   the versions the file holds
+	 */
+	static void remember(String filename, FileLayout layout) {
+		try {
+			current = layout.moveTo(Paths.get(filename));
+		} catch (IOException e) {
+			current = null;
+		}
+	}
+
+	/**
+	 * Remembers a layout as that of the last file loaded or saved.
+	 *
+	 * @param layout the layout
+	 */
+	static void remember(FileLayout layout) {
+		current = layout;
+	}
+
+	/**
+	 * Gives the layout of the last file loaded or saved.
+	 *
+	 * @return the layout, or null if there is none
+	 */
+	static FileLayout current() {
+		return current;
+	}
+
+	/**
+	 * Gives this layout as that of the file at a path, such as the file it was
+	 * written as before being moved there.
+	 *
+	 * @param file the file
+	 * @return the layout of the file
+	 * @throws IOException if the size or time of last change cannot be read
+	 */
+	FileLayout moveTo(Path file) throws IOException {
+		return new FileLayout(file.toAbsolutePath(), Files.size(file), Files.getLastModifiedTime(file).toMillis(),
+				unitsVersion, clients, versions, offsets);
+	}
+
+	/**
+	 * Tells whether the PropertyManager holds exactly what the file holds.
+	 *
+	 * @param manager the PropertyManager
+	 * @return true if nothing has changed since the file was loaded or saved
+	 */
+	boolean matches(PropertyManager manager) {
+		if (manager.getUnitsVersion() != unitsVersion) {
+			return false;
+		}
+		List<Client> now = manager.getClients();
+		if (now.size() != clients.length) {
+			return false;
+		}
+		for (int i = 0; i < clients.length; i++) {
+			if (!isClean(i, now.get(i), now.get(i).getLeaseVersion())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Tells whether this is the layout of the given file as it is now.
+	 *
+	 * @param file the file
+	 * @return true if it is the same file, unchanged since it was loaded or saved
+	 */
+	boolean isOf(Path file) {
+		try {
+			return file.toAbsolutePath().equals(path) && Files.size(file) == size
+					&& Files.getLastModifiedTime(file).toMillis() == modified;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Gives the version of the rental units the file holds.
+	 *
+	 * @return the version
+	 */
+	int getUnitsVersion() {
+		return unitsVersion;
+	}
+
+	/**
+	 * Tells whether the block of the client at a position of the file is still up
+	 * to date.
+	 *
+	 * @param index   position of the client
+	 * @param client  the client at that position now
+	 * @param version version of the client's leases now
+	 * @return true if it is the same client and its leases have not changed
+	 */
+	boolean isClean(int index, Client client, int version) {
+		return index < clients.length && clients[index] == client && versions[index] == version;
+	}
+
+	/**
+	 * Gives where the client section starts, followed by where each client's
+	 * block ends, scanning the file for them the first time.
+	 *
+	 * @param in the file, open for reading
+	 * @return the offsets in bytes, or null if the file does not have a block for
+	 *         each client
+	 * @throws IOException if the file cannot be read
+	 */
+	long[] getOffsets(FileChannel in) throws IOException {
+		if (offsets == null) {
+			offsets = scan(in);
+		}
+		return offsets;
+	}
+
+	/**
+	 * Private helper method that finds the lines starting with '#', each of which
+	 * starts a client's block
+	 *
+	 * @param in the file
+	 * @return where the client section starts and each client block ends, or null
+	 *         if the number of blocks does not match the number of clients
+	 * @throws IOException if the file cannot be read
+	 */
+	private long[] scan(FileChannel in) throws IOException {
+		long[] found = new long[clients.length + 1];
+		int count = 0;
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		long at = 0;
+		boolean lineStart = true;
+		while (in.read(buffer, at) > 0) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				byte b = buffer.get();
+				if (lineStart && b == '#') {
+					if (count == clients.length) {
+						return null;
+					}
+					found[count++] = at;
+				}
+				lineStart = b == '\n';
+				at++;
+			}
+			buffer.clear();
+		}
+		// a last line without its line break cannot be followed by new lines
+		if (count != clients.length || at != size || !lineStart) {
+			return null;
+		}
+		found[count] = size;
+		return found;
+	}
+}
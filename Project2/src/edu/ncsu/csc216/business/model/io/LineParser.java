@@ -0,0 +1,165 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+/**
+ * Parses the lines of a rental data file one at a time and hands each record to
+ * a RentalFileVisitor, keeping track of which section of the file it is in and
+ * whether there is a client for the leases that follow. A parser with a
+ * LoadReport records a line that cannot be parsed or that the visitor rejects
+ * and goes on with the next line; otherwise the failure is thrown.
+ *
+ * @author Anton
+ */
+final class LineParser {
+
+	/** Receives the records */
+	private final RentalFileVisitor visitor;
+
+	/** Report of the lines skipped, null if any bad line stops the parse */
+	private final LoadReport report;
+
+	/** Tokenizer reading the current line */
+	private final LineTokenizer tokens = new LineTokenizer();
+
+	/** Set once the first client is read, after which no rental units follow */
+	private boolean finishedUnits;
+
+	/** Set while the last client line was taken by the visitor */
+	private boolean hasClient;
+
+	/** Number of the line being parsed, starting at 1 */
+	private int lineNumber;
+
+	/**
+	 * Constructor for a parser that stops at the first bad line
+	 *
+	 * @param visitor receives the records
+	 */
+	LineParser(RentalFileVisitor visitor) {
+		this(visitor, null);
+	}
+
+	/**
+	 * Constructor for a parser
+	 *
+	 * @param visitor receives the records
+	 * @param report  report of the lines skipped, or null if any bad line stops
+	 *                the parse
+	 */
+	LineParser(RentalFileVisitor visitor, LoadReport report) {
+		this.visitor = visitor;
+		this.report = report;
+	}
+
+	/**
+	 * Parses the next line of the file. Blank lines are passed over.
+	 *
+	 * @param line the line
+	 * @throws IllegalArgumentException if the line is not valid or the visitor
+	 *                                  rejects it, and the parser keeps no report
+	 */
+	void parse(CharSequence line) {
+		lineNumber++;
+		tokens.reset(line);
+		if (tokens.atEnd()) {// checks if line is empty
+			return;
+		}
+		if (report == null) {
+			parseTokens();
+			return;
+		}
+		try {
+			parseTokens();
+			report.loaded();
+		} catch (RuntimeException e) {
+			String cause = e.getMessage() == null ? "invalid line" : e.getMessage();
+			report.skipped(new LoadDiagnostic(lineNumber, cause, line.toString()));
+		}
+	}
+
+	/**
+	 * Private helper method that parses the line the tokenizer is reading. A
+	 * client line that cannot be parsed or is rejected leaves no client for the
+	 * leases following it.
+	 *
+	 * @throws IllegalArgumentException if the line is not valid or the visitor
+	 *                                  rejects it
+	 */
+	private void parseTokens() {
+		if (tokens.peek() == '#') {// customer reader
+			finishedUnits = true; // confirms that rental units have already been recorded
+			hasClient = false;
+			parseClient();
+			hasClient = true;
+		} else if (finishedUnits) { // lease reader
+			if (!hasClient) {
+				throw new IllegalArgumentException("no client for lease");
+			}
+			parseLease();
+		} else {// rental units reader
+			parseUnit();
+		}
+	}
+
+	/**
+	 * Private helper method that parses a rental unit line, such as
+	 * "Office: 1-28 | 100 Unavailable"
+	 *
+	 * @throws IllegalArgumentException if the line is not a valid rental unit
+	 */
+	private void parseUnit() {
+		String kind = tokens.nextUntil(':');
+		String location = tokens.nextUntil('|');
+		int capacity = tokens.nextInt();
+		boolean inService = true;
+		while (!tokens.atEnd()) {
+			if (tokens.nextWord().equalsIgnoreCase("unavailable")) {
+				inService = false;
+			}
+		}
+		visitor.onUnit(kind, location, capacity, inService);
+	}
+
+	/**
+	 * Private helper method that parses a client line, such as
+	 * "#Anton Nikulsin (AN@123)"
+	 *
+	 * @throws IllegalArgumentException if the line is not a valid client
+	 */
+	private void parseClient() {
+		tokens.expect('#');
+		String name = tokens.nextUntil('(');
+		String id = tokens.nextUntil(')');
+		if (!tokens.atEnd()) {
+			throw new IllegalArgumentException();
+		}
+		visitor.onClient(name, id);
+	}
+
+	/**
+	 * Private helper method that parses a lease line, such as
+	 * "000000 | 2020-03-20 to 2020-03-25 | 13 | Conference Room: 2-30"
+	 *
+	 * @throws IllegalArgumentException if the line is not a valid lease
+	 */
+	private void parseLease() {
+		int confNum = tokens.nextInt();
+		tokens.expect('|');
+		int startDay = tokens.nextDay();
+		tokens.expectWord("to");
+		int endDay = tokens.nextDay();
+		tokens.expect('|');
+		int occupants = tokens.nextInt();
+		tokens.expect('|');
+		tokens.skipPast(':'); // the kind is known from the rental unit
+		int floor = tokens.nextInt();
+		tokens.expect('-');
+		int room = tokens.nextInt();
+		if (!tokens.atEnd()) {
+			throw new IllegalArgumentException();
+		}
+		visitor.onLease(confNum, startDay, endDay, occupants, floor, room);
+	}
+}
@@ -0,0 +1,273 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import java.time.LocalDate;
+
+/**
+ * Reads the fields of one line of a rental data file in place, without
+ * splitting the line or using regular expressions. Blanks around fields are
+ * skipped. Every method throws IllegalArgumentException when the line does not
+ * have the expected shape.
+ *
+ * @author Anton
+ */
+final class LineTokenizer {
+
+	/** The line being read */
+	private CharSequence line;
+
+	/** Position of the next character to read */
+	private int pos;
+
+	/** Position just after the last character that is not a blank */
+	private int end;
+
+	/**
+	 * Starts reading a new line, ignoring blanks at either end of it.
+	 *
+	 * @param text the line
+	 */
+	void reset(CharSequence text) {
+		this.line = text;
+		this.pos = 0;
+		this.end = text.length();
+		while (end > 0 && isBlank(text.charAt(end - 1))) {
+			end--;
+		}
+		skipBlanks();
+	}
+
+	/**
+	 * Determines whether everything on the line has been read.
+	 *
+	 * @return true if only blanks are left
+	 */
+	boolean atEnd() {
+		return pos >= end;
+	}
+
+	/**
+	 * Gets the next character without reading it.
+	 *
+	 * @return the next character
+	 * @throws IllegalArgumentException if the line has been read
+	 */
+	char peek() {
+		if (pos >= end) {
+			throw new IllegalArgumentException("unexpected end of line");
+		}
+		return line.charAt(pos);
+	}
+
+	/**
+	 * Reads the given character, after any blanks.
+	 *
+	 * @param c the expected character
+	 * @throws IllegalArgumentException if the next character is a different one
+	 */
+	void expect(char c) {
+		skipBlanks();
+		if (peek() != c) {
+			throw new IllegalArgumentException("expected " + c);
+		}
+		pos++;
+		skipBlanks();
+	}
+
+	/**
+	 * Reads the given word, after any blanks.
+	 *
+	 * @param word the expected word
+	 * @throws IllegalArgumentException if the next characters are not the word
+	 */
+	void expectWord(String word) {
+		skipBlanks();
+		for (int i = 0; i < word.length(); i++) {
+			if (peek() != word.charAt(i)) {
+				throw new IllegalArgumentException("expected " + word);
+			}
+			pos++;
+		}
+		skipBlanks();
+	}
+
+	/**
+	 * Reads a whole number that is not negative.
+	 *
+	 * @return the number
+	 * @throws IllegalArgumentException if there is no number or it is too large
+	 */
+	int nextInt() {
+		skipBlanks();
+		int start = pos;
+		long value = 0;
+		while (pos < end && isDigit(line.charAt(pos))) {
+			value = value * 10 + (line.charAt(pos) - '0');
+			if (value > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("number too large");
+			}
+			pos++;
+		}
+		if (pos == start) {
+			throw new IllegalArgumentException("expected a number");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Reads a date of the form yyyy-mm-dd.
+	 *
+	 * @return the date, in days since 1970-01-01
+	 * @throws IllegalArgumentException if there is no valid date
+	 */
+	int nextDay() {
+		skipBlanks();
+		int year = fixedDigits(4);
+		expectNow('-');
+		int month = fixedDigits(2);
+		expectNow('-');
+		int day = fixedDigits(2);
+		try {
+			return (int) LocalDate.of(year, month, day).toEpochDay();
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("invalid date");
+		}
+	}
+
+	/**
+	 * Reads the text up to the given character, and the character itself.
+	 *
+	 * @param c character ending the text
+	 * @return the text, without blanks at either end
+	 * @throws IllegalArgumentException if the character is not on the rest of
+	 *                                  the line
+	 */
+	String nextUntil(char c) {
+		int start = pos;
+		while (pos < end && line.charAt(pos) != c) {
+			pos++;
+		}
+		if (pos >= end) {
+			throw new IllegalArgumentException("expected " + c);
+		}
+		int stop = pos;
+		while (stop > start && isBlank(line.charAt(stop - 1))) {
+			stop--;
+		}
+		pos++;
+		skipBlanks();
+		return line.subSequence(start, stop).toString();
+	}
+
+	/**
+	 * Skips the text up to the given character, and the character itself.
+	 *
+	 * @param c character ending the text
+	 * @throws IllegalArgumentException if the character is not on the rest of
+	 *                                  the line
+	 */
+	void skipPast(char c) {
+		while (pos < end && line.charAt(pos) != c) {
+			pos++;
+		}
+		if (pos >= end) {
+			throw new IllegalArgumentException("expected " + c);
+		}
+		pos++;
+		skipBlanks();
+	}
+
+	/**
+	 * Reads the next word, which ends at a blank or the end of the line.
+	 *
+	 * @return the word
+	 * @throws IllegalArgumentException if the line has been read
+	 */
+	String nextWord() {
+		skipBlanks();
+		int start = pos;
+		while (pos < end && !isBlank(line.charAt(pos))) {
+			pos++;
+		}
+		if (pos == start) {
+			throw new IllegalArgumentException("unexpected end of line");
+		}
+		return line.subSequence(start, pos).toString();
+	}
+
+	/**
+	 * Reads the rest of the line.
+	 *
+	 * @return the rest of the line, without blanks at either end
+	 */
+	String rest() {
+		String ret = line.subSequence(Math.min(pos, end), end).toString();
+		pos = end;
+		return ret;
+	}
+
+	/**
+	 * Private helper method that reads exactly the given number of digits
+	 *
+	 * @param count number of digits
+	 * @return the number they make
+	 * @throws IllegalArgumentException if there are fewer digits
+	 */
+	private int fixedDigits(int count) {
+		int value = 0;
+		for (int i = 0; i < count; i++) {
+			char c = peek();
+			if (!isDigit(c)) {
+				throw new IllegalArgumentException("expected a digit");
+			}
+			value = value * 10 + (c - '0');
+			pos++;
+		}
+		return value;
+	}
+
+	/**
+	 * Private helper method that reads the given character with no blanks before
+	 * it
+	 *
+	 * @param c the expected character
+	 * @throws IllegalArgumentException if the next character is a different one
+	 */
+	private void expectNow(char c) {
+		if (peek() != c) {
+			throw new IllegalArgumentException("expected " + c);
+		}
+		pos++;
+	}
+
+	/**
+	 * Private helper method that skips blanks
+	 */
+	private void skipBlanks() {
+		while (pos < end && isBlank(line.charAt(pos))) {
+			pos++;
+		}
+	}
+
+	/**
+	 * Private helper method that determines if a character is a blank
+	 *
+	 * @param c the character
+	 * @return true for a space or tab
+	 */
+	private static boolean isBlank(char c) {
+		return c == ' ' || c == '\t' || c == '\r';
+	}
+
+	/**
+	 * Private helper method that determines if a character is a digit
+	 *
+	 * @param c the character
+	 * @return true for 0 through 9
+	 */
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+/**
+ * A line of a rental data file that could not be loaded: where it is, why it
+ * was skipped and what it said.
+ *
+ * @author Anton
+ */
+public final class LoadDiagnostic {
+
+	/** Number of the line in the file, starting at 1 */
+	private final int lineNumber;
+
+	/** Why the line was skipped */
+	private final String cause;
+
+	/** Text of the line */
+	private final String text;
+
+	/**
+	 * Constructor for a diagnostic
+	 *
+	 * @param lineNumber number of the line in the file, starting at 1
+	 * @param cause      why the line was skipped
+	 * @param text       text of the line
+	 */
+	public LoadDiagnostic(int lineNumber, String cause, String text) {
+		this.lineNumber = lineNumber;
+		this.cause = cause;
+		this.text = text;
+	}
+
+	/**
+	 * Gets the number of the line in the file
+	 *
+	 * @return the line number, starting at 1
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Gets why the line was skipped
+	 *
+	 * @return the cause
+	 */
+	public String getCause() {
+		return cause;
+	}
+
+	/**
+	 * Gets the text of the line
+	 *
+	 * @return the text
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Describes the diagnostic, ex: line 12: invalid date: 000004 | 2020-13-30 to
+	 * 2020-06-03 | 4 | Conference Room: 38-67
+	 *
+	 * @return the diagnostic as a String
+	 */
+	@Override
+	public String toString() {
+		return "line " + lineNumber + ": " + cause + ": " + text.trim();
+	}
+}
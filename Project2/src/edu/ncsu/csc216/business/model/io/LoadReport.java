@@ -0,0 +1,87 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What a tolerant load of a rental data file did: how many lines were loaded,
+ * which lines were skipped and why, and which loaded leases conflict with
+ * others or are over capacity.
+ *
+ * @author Anton
+ */
+public final class LoadReport {
+
+	/** Lines that were skipped, in file order */
+	private final List<LoadDiagnostic> diagnostics = new ArrayList<LoadDiagnostic>();
+
+	/** Descriptions of loaded leases that conflict or are over capacity */
+	private String[] leaseProblems = new String[0];
+
+	/** Number of lines that were loaded, not counting blank lines */
+	private int linesLoaded;
+
+	/**
+	 * Records a line that was skipped.
+	 *
+	 * @param diagnostic the line and why it was skipped
+	 */
+	void skipped(LoadDiagnostic diagnostic) {
+		diagnostics.add(diagnostic);
+	}
+
+	/**
+	 * Records a line that was loaded.
+	 */
+	void loaded() {
+		linesLoaded++;
+	}
+
+	/**
+	 * Records the loaded leases that conflict or are over capacity.
+	 *
+	 * @param problems descriptions of the leases
+	 */
+	void setLeaseProblems(String[] problems) {
+		leaseProblems = problems;
+	}
+
+	/**
+	 * Gets the lines that were skipped, in file order.
+	 *
+	 * @return the diagnostics
+	 */
+	public LoadDiagnostic[] getDiagnostics() {
+		return diagnostics.toArray(new LoadDiagnostic[diagnostics.size()]);
+	}
+
+	/**
+	 * Gets the loaded leases that conflict with others or are over capacity.
+	 *
+	 * @return descriptions of the leases
+	 */
+	public String[] getLeaseProblems() {
+		return leaseProblems.clone();
+	}
+
+	/**
+	 * Gets the number of lines that were loaded, not counting blank lines.
+	 *
+	 * @return number of lines loaded
+	 */
+	public int getLinesLoaded() {
+		return linesLoaded;
+	}
+
+	/**
+	 * Determines whether every line was loaded and no lease has a problem.
+	 *
+	 * @return true if there is nothing to report
+	 */
+	public boolean isClean() {
+		return diagnostics.isEmpty() && leaseProblems.length == 0;
+	}
+}
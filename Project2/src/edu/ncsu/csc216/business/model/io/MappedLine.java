@@ -0,0 +1,120 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A line of a memory-mapped rental data file, read as characters straight out
+ * of the mapped bytes. Nothing is copied until toString is called, which only
+ * happens for the text that is kept, such as names and ids. Every character
+ * the format gives a meaning to is ASCII, so the bytes of other characters are
+ * only ever part of such text, which toString decodes with the platform's
+ * default charset, the same one RentalWriter encodes with and FileReader
+ * decodes with.
+ *
+ * @author Anton
+ */
+final class MappedLine implements CharSequence {
+
+	/** The mapped bytes */
+	private final ByteBuffer bytes;
+
+	/** Position of the first byte of the line */
+	private int start;
+
+	/** Number of bytes in the line */
+	private int length;
+
+	/**
+	 * Constructor for a line over the given bytes
+	 *
+	 * @param bytes the mapped bytes
+	 */
+	MappedLine(ByteBuffer bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Constructor for a part of a line
+	 *
+	 * @param bytes  the mapped bytes
+	 * @param start  position of the first byte
+	 * @param length number of bytes
+	 */
+	private MappedLine(ByteBuffer bytes, int start, int length) {
+		this.bytes = bytes;
+		this.start = start;
+		this.length = length;
+	}
+
+	/**
+	 * Moves this line to other bytes of the buffer.
+	 *
+	 * @param from position of the first byte of the line
+	 * @param to   position just after the last byte of the line
+	 * @return this line
+	 */
+	MappedLine set(int from, int to) {
+		this.start = from;
+		this.length = to - from;
+		return this;
+	}
+
+	/**
+	 * Gets the number of bytes in the line.
+	 *
+	 * @return the length
+	 */
+	@Override
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Gets the byte at the given position of the line as a character.
+	 *
+	 * @param index position in the line
+	 * @return the character
+	 * @throws IndexOutOfBoundsException if index is not within the line
+	 */
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException();
+		}
+		return (char) (bytes.get(start + index) & 0xff);
+	}
+
+	/**
+	 * Gets a part of the line, still backed by the mapped bytes.
+	 *
+	 * @param from position of the first character of the part
+	 * @param to   position just after the last character of the part
+	 * @return the part
+	 * @throws IndexOutOfBoundsException if the part is not within the line
+	 */
+	@Override
+	public CharSequence subSequence(int from, int to) {
+		if (from < 0 || to > length || from > to) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new MappedLine(bytes, start + from, to - from);
+	}
+
+	/**
+	 * Copies the line out of the mapped bytes.
+	 *
+	 * @return the line as a String
+	 */
+	@Override
+	public String toString() {
+		byte[] copy = new byte[length];
+		for (int i = 0; i < length; i++) {
+			copy[i] = bytes.get(start + i);
+		}
+		return new String(copy, Charset.defaultCharset());
+	}
+}
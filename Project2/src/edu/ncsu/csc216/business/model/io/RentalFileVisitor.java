@@ -0,0 +1,52 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+/**
+ * Receives the records of a rental data file in the order they appear in it,
+ * as RentalReader.visitRentalData parses the file a line at a time. Nothing is
+ * kept by the parser between lines, so a visitor that keeps nothing itself
+ * reads a file of any size in constant memory, and the PropertyManager is never
+ * touched unless the visitor does so. A visitor may reject a record by throwing
+ * an IllegalArgumentException, which stops the parse.
+ *
+ * @author Anton
+ */
+public interface RentalFileVisitor {
+
+	/**
+	 * Receives a rental unit line, such as "Office: 1-28 | 100 Unavailable".
+	 *
+	 * @param kind      kind of the rental unit, such as "Office"
+	 * @param location  location of the rental unit, in the form FF-RR
+	 * @param capacity  capacity of the rental unit
+	 * @param inService false if the line marks the rental unit as unavailable
+	 * @throws IllegalArgumentException to reject the rental unit
+	 */
+	void onUnit(String kind, String location, int capacity, boolean inService);
+
+	/**
+	 * Receives a client line, such as "#Anton Nikulsin (AN@123)". The leases
+	 * that follow belong to this client.
+	 *
+	 * @param name name of the client
+	 * @param id   id of the client
+	 * @throws IllegalArgumentException to reject the client
+	 */
+	void onClient(String name, String id);
+
+	/**
+	 * Receives a lease line of the last client, such as "000000 | 2020-03-20 to
+	 * 2020-03-25 | 13 | Conference Room: 2-30".
+	 *
+	 * @param confirmationNumber confirmation number of the lease
+	 * @param startDay           first day of the lease, in days since 1970-01-01
+	 * @param endDay             last day of the lease, in days since 1970-01-01
+	 * @param occupants          number of occupants
+	 * @param floor              floor of the rental unit
+	 * @param room               room of the rental unit
+	 * @throws IllegalArgumentException to reject the lease
+	 */
+	void onLease(int confirmationNumber, int startDay, int endDay, int occupants, int floor, int room);
+}
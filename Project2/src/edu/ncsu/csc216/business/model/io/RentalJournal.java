@@ -0,0 +1,789 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+import edu.ncsu.csc216.business.model.stakeholders.Client;
+import edu.ncsu.csc216.business.model.stakeholders.DuplicateClientException;
+import edu.ncsu.csc216.business.model.stakeholders.DuplicateRoomException;
+import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
+import edu.ncsu.csc216.business.model.stakeholders.RentalChangeListener;
+
+/**
+ * Keeps the data of the PropertyManager in a directory as a snapshot and a
+ * journal of the changes made since, so that nothing has to be saved by hand
+ * and a crash loses at most the changes not yet forced to the disk. Opening the
+ * journal loads the snapshot and applies the journal on top, and from then on
+ * every change heard from the PropertyManager is appended to the journal as a
+ * small record, so the cost of keeping the data grows with the changes made
+ * rather than with the size of the data.
+ *
+ * Records are appended to a buffer in memory while the change still holds its
+ * locks, and a writer thread hands whatever has piled up to the file and forces
+ * it to the disk in one go. Changes made while the disk is busy are therefore
+ * committed together by the next force. Once the journal passes a size limit it
+ * is compacted: the data is written as a new snapshot with every change paused,
+ * and an empty journal is started beside it.
+ *
+ * The directory holds snapshot-N.wrs and journal-N.wrj for the current
+ * generation N, and a new generation only counts once its snapshot has been
+ * renamed into place, so a crash during compaction leaves the last generation
+ * whole. A journal record is its byte count, the record, and its CRC-32
+ * checksum; a record cut short by a crash fails its checksum and is dropped,
+ * along with anything after it, when the journal is opened again. Only one
+ * journal is kept at a time, and opening another stops the first from hearing
+ * changes.
+ *
+ * @author Anton
+ */
+public final class RentalJournal implements RentalChangeListener, AutoCloseable {
+
+	/** Size in bytes past which the journal is compacted, by default */
+	public static final long DEFAULT_COMPACT_BYTES = 16L << 20;
+
+	/** First four bytes of every journal, "WRJN" */
+	private static final int MAGIC = 0x57524A4E;
+
+	/** Version of the record layout written */
+	private static final int VERSION = 1;
+
+	/** Bytes in the header of a journal */
+	private static final int HEADER_BYTES = 8;
+
+	/** Bytes around each record, for its byte count and checksum */
+	private static final int FRAME_BYTES = 8;
+
+	/** Record of an added client: name and id */
+	private static final byte CLIENT = 1;
+
+	/** Record of an added rental unit: kind, floor, room and capacity */
+	private static final byte UNIT = 2;
+
+	/**
+	 * Record of an added lease: confirmation number, client id, floor, room,
+	 * first and last day, and occupants
+	 */
+	private static final byte LEASE = 3;
+
+	/** Record of a cancelled lease: client id and confirmation number */
+	private static final byte CANCEL = 4;
+
+	/** Record of a rental unit removed from service: floor, room and start day */
+	private static final byte REMOVE = 5;
+
+	/** Record of a closed rental unit: floor and room */
+	private static final byte CLOSE = 6;
+
+	/** Record of a change of service: floor, room and whether in service */
+	private static final byte SERVICE = 7;
+
+	/** Record of all data being removed */
+	private static final byte FLUSH = 8;
+
+	/** Start of the name of a snapshot */
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+	/** Start of the name of a snapshot still being written */
+	private static final String PARTIAL_PREFIX = "partial-";
+
+	/** Start of the name of a journal */
+	private static final String JOURNAL_PREFIX = "journal-";
+
+	/** Extension of journal files */
+	private static final String EXTENSION = ".wrj";
+
+	/** The PropertyManager being kept */
+	private final PropertyManager manager;
+
+	/** Directory the files are kept in */
+	private final Path directory;
+
+	/** Size in bytes past which the journal is compacted */
+	private final long compactBytes;
+
+	/** Thread handing records to the file */
+	private final Thread writer;
+
+	/** Current generation of the files */
+	private int generation;
+
+	/** The current journal file */
+	private FileChannel channel;
+
+	/** Bytes in the current journal file */
+	private long journalBytes;
+
+	/** Records waiting for the writer */
+	private RecordBuffer pending = new RecordBuffer();
+
+	/** Emptied buffer to swap in while the writer has the other one */
+	private RecordBuffer spare = new RecordBuffer();
+
+	/** Record being put together */
+	private final RecordBuffer record = new RecordBuffer();
+
+	/** Writes the fields of the record being put together */
+	private final DataOutputStream recordOut = new DataOutputStream(record);
+
+	/** Number of records appended */
+	private long appended;
+
+	/** Number of records appended that are on the disk */
+	private long durable;
+
+	/** Whether the writer is handing records to the file */
+	private boolean writing;
+
+	/** Set once close has been called */
+	private boolean closed;
+
+	/** The error that stopped the writer, if any */
+	private IOException failure;
+
+	/**
+	 * Constructor for a journal whose files are already open and applied
+	 *
+	 * @param manager      the PropertyManager being kept
+	 * @param directory    directory the files are kept in
+	 * @param generation   current generation of the files
+	 * @param channel      the current journal file, positioned at its end
+	 * @param compactBytes size in bytes past which the journal is compacted
+	 * @throws IOException if the position of the journal file cannot be read
+	 */
+	private RentalJournal(PropertyManager manager, Path directory, int generation, FileChannel channel,
+			long compactBytes) throws IOException {
+		this.manager = manager;
+		this.directory = directory;
+		this.generation = generation;
+		this.channel = channel;
+		this.journalBytes = channel.position();
+		this.compactBytes = compactBytes;
+		this.writer = new Thread(this::runWriter, "rental-journal");
+		this.writer.setDaemon(true);
+	}
+
+	/**
+	 * Opens the journal kept in a directory, compacting it past the default size.
+	 *
+	 * @param directory directory the files are kept in, made if missing
+	 * @return the open journal
+	 * @throws IllegalArgumentException if the files cannot be read or applied
+	 */
+	public static RentalJournal open(String directory) {
+		return open(directory, DEFAULT_COMPACT_BYTES);
+	}
+
+	/**
+	 * Opens the journal kept in a directory. The PropertyManager is loaded from
+	 * the latest snapshot, or emptied if there is none, and the changes in the
+	 * journal are applied on top. Every change made from then on is kept.
+	 *
+	 * @param directory    directory the files are kept in, made if missing
+	 * @param compactBytes size in bytes past which the journal is compacted
+	 * @return the open journal
+	 * @throws IllegalArgumentException if directory is null, compactBytes is not
+	 *                                  positive, or the files cannot be read or
+	 *                                  applied
+	 */
+	public static RentalJournal open(String directory, long compactBytes) {
+		if (directory == null || compactBytes <= 0) {
+			throw new IllegalArgumentException();
+		}
+		try {
+			Path dir = Paths.get(directory);
+			Files.createDirectories(dir);
+			PropertyManager manager = PropertyManager.getInstance();
+			manager.setChangeListener(null);
+			int generation = latestGeneration(dir);
+			Path snapshot = dir.resolve(SNAPSHOT_PREFIX + generation + RentalSnapshot.EXTENSION);
+			if (Files.exists(snapshot)) {
+				RentalSnapshot.read(snapshot.toString());
+			} else {
+				manager.flushAllData();
+			}
+			FileChannel channel = FileChannel.open(dir.resolve(JOURNAL_PREFIX + generation + EXTENSION),
+					StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				replay(channel, manager);
+			} catch (IOException | RuntimeException e) {
+				channel.close();
+				throw e;
+			}
+			RentalJournal journal = new RentalJournal(manager, dir, generation, channel, compactBytes);
+			manager.setChangeListener(journal);
+			journal.writer.start();
+			return journal;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unable to open journal");
+		}
+	}
+
+	/**
+	 * Waits until every change heard so far is on the disk.
+	 *
+	 * @throws InterruptedException  if interrupted while waiting
+	 * @throws IllegalStateException if the journal could not be written
+	 */
+	public synchronized void sync() throws InterruptedException {
+		long target = appended;
+		while (durable < target && failure == null) {
+			wait();
+		}
+		if (failure != null) {
+			throw new IllegalStateException("journal failed");
+		}
+	}
+
+	/**
+	 * Writes the data as a new snapshot with every change paused, and starts an
+	 * empty journal beside it. The files of the previous generation are deleted.
+	 *
+	 * @throws IllegalStateException    if the journal is closed or could not be
+	 *                                  written
+	 * @throws IllegalArgumentException if the new files cannot be written
+	 */
+	public void compact() {
+		manager.runWithChangesPaused(this::compactPaused);
+	}
+
+	/**
+	 * Gives the current generation of the files, which goes up by one with each
+	 * compaction.
+	 *
+	 * @return the current generation
+	 */
+	public synchronized int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Stops keeping changes, waits for every change heard to reach the disk and
+	 * closes the journal file. The journal is marked closed with every change
+	 * paused, so a change that heard of the journal before it stopped listening
+	 * has appended its record by then. If interrupted, the wait for the disk is
+	 * cut short and the interrupt is kept.
+	 */
+	@Override
+	public void close() {
+		manager.setChangeListener(null);
+		manager.runWithChangesPaused(this::markClosed);
+		boolean interrupted = false;
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			interrupted = true;
+		}
+		synchronized (this) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Private helper method that marks the journal closed and wakes the writer to
+	 * hand over the last records
+	 */
+	private synchronized void markClosed() {
+		closed = true;
+		notifyAll();
+	}
+
+	/**
+	 * Appends a record of the added client.
+	 *
+	 * @param client the new client
+	 */
+	@Override
+	public void clientAdded(Client client) {
+		append(CLIENT, out -> {
+			out.writeUTF(client.getName());
+			out.writeUTF(client.getId());
+		});
+	}
+
+	/**
+	 * Appends a record of the added rental unit.
+	 *
+	 * @param unit the new rental unit
+	 */
+	@Override
+	public void unitAdded(RentalUnit unit) {
+		append(UNIT, out -> {
+			out.writeByte(RowFormatter.kindLabel(unit).charAt(0));
+			writeLocation(out, unit);
+			out.writeInt(unit.getCapacity());
+		});
+	}
+
+	/**
+	 * Appends a record of the added lease.
+	 *
+	 * @param lease the new lease
+	 */
+	@Override
+	public void leaseAdded(Lease lease) {
+		append(LEASE, out -> {
+			out.writeInt(lease.getConfirmationNumber());
+			out.writeUTF(lease.getClient().getId());
+			writeLocation(out, lease.getProperty());
+			out.writeInt(lease.getStartDay());
+			out.writeInt(lease.getEndDay());
+			out.writeInt(lease.getNumOccupants());
+		});
+	}
+
+	/**
+	 * Appends a record of the cancelled lease.
+	 *
+	 * @param lease the cancelled lease
+	 */
+	@Override
+	public void leaseCancelled(Lease lease) {
+		append(CANCEL, out -> {
+			out.writeUTF(lease.getClient().getId());
+			out.writeInt(lease.getConfirmationNumber());
+		});
+	}
+
+	/**
+	 * Appends a record of the rental unit being removed from service.
+	 *
+	 * @param unit  the rental unit
+	 * @param start date cancellations started from
+	 */
+	@Override
+	public void removedFromService(RentalUnit unit, LocalDate start) {
+		append(REMOVE, out -> {
+			writeLocation(out, unit);
+			out.writeInt((int) start.toEpochDay());
+		});
+	}
+
+	/**
+	 * Appends a record of the closed rental unit.
+	 *
+	 * @param unit the closed rental unit
+	 */
+	@Override
+	public void unitClosed(RentalUnit unit) {
+		append(CLOSE, out -> writeLocation(out, unit));
+	}
+
+	/**
+	 * Appends a record of the rental unit's change of service.
+	 *
+	 * @param unit      the rental unit
+	 * @param inService true if it was returned to service
+	 */
+	@Override
+	public void serviceChanged(RentalUnit unit, boolean inService) {
+		append(SERVICE, out -> {
+			writeLocation(out, unit);
+			out.writeBoolean(inService);
+		});
+	}
+
+	/**
+	 * Appends a record of all data being removed.
+	 */
+	@Override
+	public void dataFlushed() {
+		append(FLUSH, out -> {
+			// nothing but the type
+		});
+	}
+
+	/**
+	 * Private helper method that puts a record together and appends it to the
+	 * records waiting for the writer. Nothing is appended once the journal is
+	 * closed or has failed.
+	 *
+	 * @param type   type of the record
+	 * @param fields writes the fields of the record
+	 */
+	private synchronized void append(byte type, Fields fields) {
+		if (closed || failure != null) {
+			return;
+		}
+		record.reset();
+		try {
+			recordOut.writeByte(type);
+			fields.writeTo(recordOut);
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // not thrown by a buffer in memory
+		}
+		CRC32 crc = new CRC32();
+		crc.update(record.bytes(), 0, record.size());
+		pending.writeInt(record.size());
+		pending.write(record.bytes(), 0, record.size());
+		pending.writeInt((int) crc.getValue());
+		appended++;
+		notifyAll();
+	}
+
+	/**
+	 * Private helper method run by the writer thread. Hands the records that have
+	 * piled up to the file and forces them to the disk together, until the
+	 * journal is closed and every record is written.
+	 */
+	private void runWriter() {
+		while (true) {
+			RecordBuffer batch;
+			FileChannel out;
+			long target;
+			synchronized (this) {
+				while (pending.size() == 0 && !closed) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						continue; // only close stops the writer
+					}
+				}
+				if (pending.size() == 0 || failure != null) {
+					return;
+				}
+				batch = pending;
+				pending = spare;
+				target = appended;
+				out = channel;
+				writing = true;
+			}
+			IOException error = null;
+			try {
+				ByteBuffer bytes = ByteBuffer.wrap(batch.bytes(), 0, batch.size());
+				while (bytes.hasRemaining()) {
+					out.write(bytes);
+				}
+				out.force(false);
+			} catch (IOException e) {
+				error = e;
+			}
+			boolean compactNow;
+			synchronized (this) {
+				writing = false;
+				if (error == null) {
+					journalBytes += batch.size();
+					durable = Math.max(durable, target);
+				} else {
+					failure = error;
+				}
+				batch.reset();
+				spare = batch;
+				compactNow = failure == null && !closed && journalBytes >= compactBytes;
+				notifyAll();
+			}
+			if (compactNow) {
+				try {
+					compact();
+				} catch (RuntimeException e) {
+					// keep appending to the current journal, and try again later
+				}
+			}
+		}
+	}
+
+	/**
+	 * Private helper method that compacts the journal. Runs with every change
+	 * paused, so the snapshot holds exactly the changes appended so far.
+	 *
+	 * @throws IllegalStateException    if the journal is closed or could not be
+	 *                                  written
+	 * @throws IllegalArgumentException if the new files cannot be written
+	 */
+	private synchronized void compactPaused() {
+		while (writing) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("interrupted");
+			}
+		}
+		if (closed || failure != null) {
+			throw new IllegalStateException("journal closed");
+		}
+		int next = generation + 1;
+		Path partial = directory.resolve(PARTIAL_PREFIX + next + RentalSnapshot.EXTENSION);
+		FileChannel nextChannel = null;
+		try {
+			RentalSnapshot.write(partial.toString(), false);
+			nextChannel = FileChannel.open(directory.resolve(JOURNAL_PREFIX + next + EXTENSION),
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			writeHeader(nextChannel);
+			// the new generation counts from here
+			Files.move(partial, directory.resolve(SNAPSHOT_PREFIX + next + RentalSnapshot.EXTENSION),
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			try {
+				if (nextChannel != null) {
+					nextChannel.close();
+				}
+				Files.deleteIfExists(partial);
+			} catch (IOException ignored) {
+				// left for the next compaction to overwrite
+			}
+			throw new IllegalArgumentException("Unable to compact journal");
+		}
+		FileChannel old = channel;
+		int oldGeneration = generation;
+		channel = nextChannel;
+		generation = next;
+		journalBytes = HEADER_BYTES;
+		pending.reset();
+		durable = appended;
+		notifyAll();
+		try {
+			old.close();
+			Files.deleteIfExists(directory.resolve(JOURNAL_PREFIX + oldGeneration + EXTENSION));
+			Files.deleteIfExists(directory.resolve(SNAPSHOT_PREFIX + oldGeneration + RentalSnapshot.EXTENSION));
+		} catch (IOException e) {
+			// the old files are no longer read and are left behind
+		}
+	}
+
+	/**
+	 * Private helper method that finds the latest generation with a snapshot
+	 *
+	 * @param dir directory the files are kept in
+	 * @return the latest generation, or 0 if there is no snapshot
+	 * @throws IOException if the directory cannot be listed
+	 */
+	private static int latestGeneration(Path dir) throws IOException {
+		int latest = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir,
+				SNAPSHOT_PREFIX + "*" + RentalSnapshot.EXTENSION)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				try {
+					latest = Math.max(latest, Integer.parseInt(
+							name.substring(SNAPSHOT_PREFIX.length(), name.length() - RentalSnapshot.EXTENSION.length())));
+				} catch (NumberFormatException e) {
+					// not one of the journal's snapshots
+				}
+			}
+		}
+		return latest;
+	}
+
+	/**
+	 * Private helper method that applies the records of a journal file to the
+	 * PropertyManager. A record cut short or failing its checksum ends the
+	 * journal, and it is cut off along with anything after it.
+	 *
+	 * @param channel the journal file
+	 * @param manager the PropertyManager
+	 * @throws IOException              if the file cannot be read or written
+	 * @throws IllegalArgumentException if the file is not a journal or a record
+	 *                                  cannot be applied
+	 */
+	private static void replay(FileChannel channel, PropertyManager manager) throws IOException {
+		long size = channel.size();
+		if (size < HEADER_BYTES) { // new, or cut short before its first record
+			channel.truncate(0);
+			writeHeader(channel);
+			return;
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("journal too large");
+		}
+		ByteBuffer data = ByteBuffer.allocate((int) size);
+		channel.position(0);
+		int read = 0;
+		while (data.hasRemaining() && read >= 0) {
+			read = channel.read(data);
+		}
+		if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+			throw new IllegalArgumentException("not a journal");
+		}
+		int at = HEADER_BYTES;
+		CRC32 crc = new CRC32();
+		while (size - at >= FRAME_BYTES) {
+			int length = data.getInt(at);
+			if (length <= 0 || length > size - at - FRAME_BYTES) {
+				break;
+			}
+			crc.reset();
+			crc.update(data.array(), at + 4, length);
+			if ((int) crc.getValue() != data.getInt(at + 4 + length)) {
+				break;
+			}
+			apply(new DataInputStream(new ByteArrayInputStream(data.array(), at + 4, length)), manager);
+			at += FRAME_BYTES + length;
+		}
+		if (at < size) {
+			channel.truncate(at);
+		}
+		channel.position(at);
+	}
+
+	/**
+	 * Private helper method that applies one record to the PropertyManager
+	 *
+	 * @param in      the record
+	 * @param manager the PropertyManager
+	 * @throws IOException              if the record is cut short
+	 * @throws IllegalArgumentException if the record cannot be applied
+	 */
+	private static void apply(DataInputStream in, PropertyManager manager) throws IOException {
+		byte type = in.readByte();
+		try {
+			if (type == CLIENT) {
+				String name = in.readUTF();
+				manager.addNewClient(name, in.readUTF());
+			} else if (type == UNIT) {
+				String kind = RentalSnapshot.kindName(in.readByte());
+				int floor = in.readUnsignedByte();
+				int room = in.readUnsignedByte();
+				manager.addNewUnit(kind, floor + "-" + room, in.readInt());
+			} else if (type == LEASE) {
+				int confirmationNumber = in.readInt();
+				Client client = manager.getClientWithId(in.readUTF());
+				RentalUnit unit = readUnit(in, manager);
+				manager.addLeaseFromFile(client, confirmationNumber, unit, in.readInt(), in.readInt(), in.readInt());
+			} else if (type == CANCEL) {
+				Client client = manager.getClientWithId(in.readUTF());
+				manager.cancelLease(client, in.readInt());
+			} else if (type == REMOVE) {
+				RentalUnit unit = readUnit(in, manager);
+				manager.removeFromService(unit, LocalDate.ofEpochDay(in.readInt()));
+			} else if (type == CLOSE) {
+				manager.closeRentalUnit(readUnit(in, manager));
+			} else if (type == SERVICE) {
+				RentalUnit unit = readUnit(in, manager);
+				if (in.readBoolean()) {
+					manager.returnToService(unit);
+				} else {
+					manager.takeOutOfService(unit);
+				}
+			} else if (type == FLUSH) {
+				manager.flushAllData();
+			} else {
+				throw new IllegalArgumentException("unknown record");
+			}
+		} catch (DuplicateClientException e) {
+			throw new IllegalArgumentException("duplicate client");
+		} catch (DuplicateRoomException e) {
+			throw new IllegalArgumentException("duplicate rental unit");
+		}
+	}
+
+	/**
+	 * Private helper method that reads the location of a rental unit and finds it
+	 *
+	 * @param in      the record, at the location
+	 * @param manager the PropertyManager
+	 * @return the rental unit
+	 * @throws IOException              if the record is cut short
+	 * @throws IllegalArgumentException if there is no rental unit there
+	 */
+	private static RentalUnit readUnit(DataInputStream in, PropertyManager manager) throws IOException {
+		int floor = in.readUnsignedByte();
+		return manager.getUnitAtLocation(floor, in.readUnsignedByte());
+	}
+
+	/**
+	 * Private helper method that writes the location of a rental unit as its floor
+	 * and room
+	 *
+	 * @param out  the record
+	 * @param unit the rental unit
+	 * @throws IOException if the record cannot be written
+	 */
+	private static void writeLocation(DataOutputStream out, RentalUnit unit) throws IOException {
+		out.writeByte(unit.getFloor());
+		out.writeByte(unit.getRoom());
+	}
+
+	/**
+	 * Private helper method that writes the header of a new journal file and
+	 * forces it to the disk
+	 *
+	 * @param channel the empty journal file
+	 * @throws IOException if the file cannot be written
+	 */
+	private static void writeHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+		channel.force(true);
+	}
+
+	/**
+	 * Writes the fields of a record.
+	 *
+	 * @author Anton
+	 */
+	private interface Fields {
+
+		/**
+		 * Writes the fields
+		 *
+		 * @param out the record
+		 * @throws IOException if the record cannot be written
+		 */
+		void writeTo(DataOutputStream out) throws IOException;
+	}
+
+	/**
+	 * Growable buffer of bytes whose contents can be handed out without a copy.
+	 *
+	 * @author Anton
+	 */
+	private static final class RecordBuffer extends ByteArrayOutputStream {
+
+		/**
+		 * Constructor for an empty buffer
+		 */
+		RecordBuffer() {
+			super(1 << 12);
+		}
+
+		/**
+		 * Gives the bytes of the buffer, of which the first size() are written
+		 *
+		 * @return the bytes
+		 */
+		byte[] bytes() {
+			return buf;
+		}
+
+		/**
+		 * Writes an int, high byte first
+		 *
+		 * @param v the int
+		 */
+		void writeInt(int v) {
+			write(v >>> 24);
+			write(v >>> 16);
+			write(v >>> 8);
+			write(v);
+		}
+	}
+}
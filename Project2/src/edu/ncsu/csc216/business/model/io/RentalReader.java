@@ -3,88 +3,1057 @@
  */
 package edu.ncsu.csc216.business.model.io;
 
-import java.io.FileInputStream;
-import java.time.LocalDate;
-import java.util.Scanner;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
 
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalCalendar;
 import edu.ncsu.csc216.business.model.properties.RentalUnit;
 import edu.ncsu.csc216.business.model.stakeholders.Client;
+import edu.ncsu.csc216.business.model.stakeholders.DuplicateClientException;
+import edu.ncsu.csc216.business.model.stakeholders.DuplicateRoomException;
+import edu.ncsu.csc216.business.model.stakeholders.PendingLeases;
 import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
 
 /**
- * Class made to read data from a file and help load it into the program
+ * Class made to read data from a file and help load it into the program. The
+ * file is streamed a line at a time, and each line is read in place by a
+ * LineTokenizer, so the time to load grows in step with the size of the file.
+ * Large files can instead be memory-mapped and read straight from the mapped
+ * bytes, and the client section of a mapped file can be read in parallel.
+ * Leases are held back until the whole file is read and are then added a rental
+ * unit at a time, with each unit sorting its leases once and checking them for
+ * conflicts and capacity in a single sweep. A tolerant load skips the lines
+ * that cannot be loaded instead of giving up, and reports them. A lazy load
+ * reads only the rental units and clients, and leaves the leases of each client
+ * in the mapped file until they are needed, finding them through an index kept
+ * next to the file. Compressed files are told apart by their first bytes and
+ * read by every reader, see BlockCompression.
+ * 
+ * Every reader parses the file with a LineParser, which hands the records of
+ * the file to a RentalFileVisitor. Loading the PropertyManager is the work of
+ * one such visitor, and tools that only need to stream through a file can
+ * supply their own through visitRentalData. RentalSnapshot loads binary
+ * snapshots through the same visitor.
  * 
  * @author Anton
  */
 public class RentalReader {
 
+	/** Size of the buffer the file is read through */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Most bytes of a file mapped at once */
+	private static final int MAP_WINDOW = 1 << 30;
+
+	/** Number of chunks the client section is split into for each thread */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/** Added to the name of a file to name the index of its client lines */
+	static final String INDEX_SUFFIX = ".idx";
+
+	/** First bytes of an index, "WRIX" */
+	private static final int INDEX_MAGIC = 0x57524958;
+
+	/** Version of the index format */
+	private static final int INDEX_VERSION = 1;
+
+	/**
+	 * Bytes before the positions in an index: magic, version, size and time of
+	 * last change of the file, and number of client lines
+	 */
+	private static final int INDEX_HEADER_BYTES = 28;
+
 	/**
 	 * Static method made to read data from a file and load it into the
-	 * PropertyManager class.
+	 * PropertyManager class. Leases that conflict with others or are over capacity
+	 * are loaded as recorded and reported.
 	 * 
 	 * @param filename The name of the file to read
+	 * @return descriptions of the leases that conflict or are over capacity
 	 * @throws IllegalArgumentException If the data from the file could not be read
 	 */
-	public static void readRentalData(String filename) {
+	public static String[] readRentalData(String filename) {
 		try {
-			Scanner fileReader = new Scanner(new FileInputStream(filename));
-			String fileContents = "";
-			PropertyManager manager = PropertyManager.getInstance();
-			manager.flushAllData();
-			boolean finishedUnits = false;
-			Client currentClient = null;
-			while (fileReader.hasNextLine()) {// goes through each line
-				fileContents = fileReader.nextLine();
-				if (fileContents.length() != 0) {// checks if line is empty
-					fileContents = fileContents.trim();
-					if (fileContents.charAt(0) == '#') {// customer reader
-						finishedUnits = true; // confirms that rental units have already been recorded
-						String[] nameId = fileContents.split("\\(");
-						String name = nameId[0].trim().substring(1, nameId[0].length() - 1);
-						nameId[1] = nameId[1].trim();
-						if (nameId[1].indexOf(')') != nameId[1].length() - 1) {
-							throw new IllegalArgumentException();
-						}
-						String id = nameId[1].substring(0, nameId[1].length() - 1);
-						currentClient = manager.addNewClient(name, id);
-					} else if (finishedUnits) { // lease reader
-						if (currentClient == null) {
-							throw new IllegalArgumentException();
-						}
-						String[] leases = fileContents.split("\\|");
-						int confNum = Integer.parseInt(leases[0].trim());
-						String[] startEnd = leases[1].trim().split(" "); // splits dates into start,"to", end
-						LocalDate startD = LocalDate.parse(startEnd[0].trim());
-						LocalDate endD = LocalDate.parse(startEnd[2].trim());
-						int occupants = Integer.parseInt(leases[2].trim());
-						String[] typeFloor = leases[3].split(":");
-						String location = typeFloor[1].trim();
-						RentalUnit rental = manager.getUnitAtLocation(location);
-						manager.addLeaseFromFile(currentClient, confNum, rental, startD, endD, occupants);
-					} else if (!finishedUnits) {// rental units reader
-						String[] typeLocCap = fileContents.split(":|\\|");
-						String type = typeLocCap[0].trim();
-						String location = typeLocCap[1].trim();
-						String[] capAvailability = typeLocCap[2].trim().split(" ");
-						int cap = Integer.parseInt(capAvailability[0].trim());
-						manager.addNewUnit(type, location, cap);
-						if (capAvailability.length > 1) {
-							for (int i = 1; i < capAvailability.length; i++) {
-								if (capAvailability[i].trim().toLowerCase().equals("unavailable")) {
-									manager.getUnitAtLocation(location).takeOutOfService();
-								}
-							}
-						}
-					} else {
-						manager.flushAllData();
-						throw new IllegalArgumentException("invalid order");
-					}
+			ModelLoader loader = new ModelLoader(PropertyManager.getInstance());
+			parseLines(filename, new LineParser(loader));
+			String[] problems = loader.finish();
+			remember(filename);
+			return problems;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unable to load file");
+		}
+	}
+
+	/**
+	 * Static method that reads a file a line at a time and hands its rental
+	 * units, clients and leases to the visitor in the order they appear. Nothing
+	 * is loaded into the PropertyManager and nothing is kept between lines, so
+	 * the memory used does not grow with the size of the file.
+	 * 
+	 * @param filename The name of the file to read
+	 * @param visitor  receives the records of the file
+	 * @throws IllegalArgumentException If the file could not be read, a line is
+	 *                                  not valid, or the visitor rejects a record
+	 */
+	public static void visitRentalData(String filename, RentalFileVisitor visitor) {
+		try {
+			parseLines(filename, new LineParser(visitor));
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unable to load file");
+		}
+	}
+
+	/**
+	 * Static method that reads data from a file and loads it into the
+	 * PropertyManager class like readRentalData, but keeps going past lines that
+	 * cannot be loaded. Each such line is skipped and reported with its number,
+	 * the cause and its text, and everything else in the file is loaded in the
+	 * same pass. The leases listed under a client that could not be loaded are
+	 * skipped as well.
+	 * 
+	 * @param filename The name of the file to read
+	 * @return report of the lines skipped and the leases that conflict or are over
+	 *         capacity
+	 * @throws IllegalArgumentException If the file could not be read
+	 */
+	public static LoadReport readRentalDataTolerant(String filename) {
+		try {
+			LoadReport report = new LoadReport();
+			ModelLoader loader = new ModelLoader(PropertyManager.getInstance());
+			parseLines(filename, new LineParser(loader, report));
+			report.setLeaseProblems(loader.finish());
+			if (report.getDiagnostics().length == 0) {
+				remember(filename);
+			}
+			return report;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unable to load file");
+		}
+	}
+
+	/**
+	 * Static method that reads data from a file and loads it into the
+	 * PropertyManager class like readRentalData, but memory-maps the file and reads
+	 * its lines straight from the mapped bytes. Numbers and dates are decoded
+	 * from the bytes in place, and only the text that is kept, such as names and
+	 * ids, is copied out. Suited to very large files, which are mapped a window of
+	 * at most a gigabyte at a time. Compressed files are streamed as by
+	 * readRentalData.
+	 * 
+	 * @param filename The name of the file to read
+	 * @return descriptions of the leases that conflict or are over capacity
+	 * @throws IllegalArgumentException If the data from the file could not be read
+	 */
+	public static String[] readRentalDataMapped(String filename) {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			if (BlockCompression.detect(channel) != BlockCompression.RAW) {
+				return readRentalData(filename);
+			}
+			ModelLoader loader = new ModelLoader(PropertyManager.getInstance());
+			LineParser parser = new LineParser(loader);
+			long size = channel.size();
+			long windowStart = 0;
+			while (windowStart < size) {
+				long windowSize = Math.min(MAP_WINDOW, size - windowStart);
+				boolean lastWindow = windowStart + windowSize == size;
+				int consumed = loadWindow(channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize),
+						parser, lastWindow);
+				if (consumed == 0) {
+					throw new IllegalArgumentException("line too long");
 				}
+				windowStart += consumed;
+			}
+			String[] problems = loader.finish();
+			remember(filename);
+			return problems;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unable to load file");
+		}
+	}
+
+	/**
+	 * Static method that reads data from a file and loads it into the
+	 * PropertyManager class like readRentalData, reading the client section in
+	 * parallel on the common pool.
+	 * 
+	 * @param filename The name of the file to read
+	 * @return descriptions of the leases that conflict or are over capacity
+	 * @throws IllegalArgumentException If the data from the file could not be read
+	 */
+	public static String[] readRentalDataParallel(String filename) {
+		return readRentalDataParallel(filename, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Static method that reads data from a file and loads it into the
+	 * PropertyManager class like readRentalData, reading the client section in
+	 * parallel. The file is memory-mapped and its rental units are loaded first.
+	 * The client section is then split into chunks, each starting at a client
+	 * line, and the pool reads the chunks at the same time. The clients are added
+	 * in the order of the file, and their leases are added to the rental units a
+	 * floor per task. The result is the same as that of readRentalData. The
+	 * blocks of a block-compressed file are inflated at the same time by the pool
+	 * instead of being mapped. Files too large to map or inflate at once, and
+	 * gzip files, are read by readRentalDataMapped instead.
+	 * 
+	 * @param filename The name of the file to read
+	 * @param pool     runs the reading of the chunks and the adding of the leases
+	 * @return descriptions of the leases that conflict or are over capacity
+	 * @throws IllegalArgumentException If the data from the file could not be read
+	 */
+	public static String[] readRentalDataParallel(String filename, ForkJoinPool pool) {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			int format = BlockCompression.detect(channel);
+			ByteBuffer bytes;
+			if (format == BlockCompression.BLOCKS) {
+				bytes = BlockCompression.readAll(Paths.get(filename), pool, MAP_WINDOW);
+			} else if (format == BlockCompression.RAW && channel.size() <= MAP_WINDOW) {
+				bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} else {
+				bytes = null;
+			}
+			if (bytes == null) {
+				return readRentalDataMapped(filename);
+			}
+			PropertyManager manager = PropertyManager.getInstance();
+			int clientsStart = loadUnits(bytes, new LineParser(new ModelLoader(manager)));
+			int chunkSize = Math.max(1, (bytes.limit() - clientsStart) / (pool.getParallelism() * CHUNKS_PER_THREAD));
+			List<ForkJoinTask<ClientChunk>> reading = new ArrayList<ForkJoinTask<ClientChunk>>();
+			int from = clientsStart;
+			while (from < bytes.limit()) {
+				int to = nextClientLine(bytes, Math.min(bytes.limit(), from + chunkSize));
+				final int first = from;
+				reading.add(pool.submit(() -> readChunk(bytes, first, to)));
+				from = to;
+			}
+			List<ClientChunk> chunks = new ArrayList<ClientChunk>();
+			int leaseCount = 0;
+			for (ForkJoinTask<ClientChunk> task : reading) {
+				ClientChunk chunk = task.join();
+				chunk.addClients(manager);
+				chunks.add(chunk);
+				leaseCount += chunk.leaseCount;
+			}
+			Lease[] leases = new Lease[leaseCount];
+			List<ForkJoinTask<?>> making = new ArrayList<ForkJoinTask<?>>();
+			int offset = 0;
+			for (ClientChunk chunk : chunks) {
+				final int first = offset;
+				making.add(pool.submit(() -> chunk.makeLeases(manager, leases, first)));
+				offset += chunk.leaseCount;
+			}
+			for (ForkJoinTask<?> task : making) {
+				task.join();
 			}
-			fileReader.close();
+			String[] problems = manager.addLeasesFromFile(leases, pool);
+			remember(filename);
+			return problems;
 		} catch (Exception e) {
 			throw new IllegalArgumentException("Unable to load file");
 		}
 	}
 
+	/**
+	 * Static method that reads the rental units and clients of a file into the
+	 * PropertyManager class, leaving the leases to be read the first time they are
+	 * needed. The file is memory-mapped, and where each client's line starts is
+	 * read from an index kept next to the file, named as the file with ".idx"
+	 * added. The index is made by scanning the file if it is missing or out of
+	 * date, and is left out if it cannot be written. Only the client lines are
+	 * read then, so the time to load does not grow with the number of leases.
+	 * 
+	 * The leases of a client are listed straight from the client's lines, while
+	 * anything that looks at the leases of a rental unit or changes leases, such
+	 * as making a reservation, loads every lease first; see
+	 * PropertyManager.loadPendingLeases. A lease line that is not valid is found
+	 * only then, and there is no tolerant lazy load. The leases that conflict or
+	 * are over capacity are only reported to a caller of loadPendingLeases, so a
+	 * caller that shows them should call it when it first needs the leases rather
+	 * than leave that to the methods that load them implicitly. Compressed files,
+	 * and files too large to map at once, are loaded in full as by
+	 * readRentalDataMapped.
+	 * 
+	 * The file must not be changed in place until the leases are loaded, which
+	 * saving it does first. The mapping is dropped once the leases are loaded,
+	 * but stays open until it is garbage collected, and on Windows a mapped file
+	 * cannot be replaced; saving over the file loaded may then fail with "Unable
+	 * to save file" for a while, though saving to another file always works.
+	 * 
+	 * @param filename The name of the file to read
+	 * @return descriptions of the leases that conflict or are over capacity, if
+	 *         they had to be loaded at once
+	 * @throws IllegalArgumentException If the rental units and clients of the file
+	 *                                  could not be read
+	 */
+	public static String[] readRentalDataLazy(String filename) {
+		Path path = Paths.get(filename);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (BlockCompression.detect(channel) != BlockCompression.RAW || channel.size() > MAP_WINDOW) {
+				return readRentalDataMapped(filename);
+			}
+			ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			long modified = Files.getLastModifiedTime(path).toMillis();
+			Path indexPath = Paths.get(filename + INDEX_SUFFIX);
+			int[] blocks = readIndex(indexPath, bytes, modified);
+			if (blocks == null) {
+				blocks = findClientLines(bytes);
+				writeIndex(indexPath, blocks, modified);
+			}
+			PropertyManager manager = PropertyManager.getInstance();
+			LineParser parser = new LineParser(new ModelLoader(manager));
+			if (loadUnits(bytes, parser) != blocks[0]) {
+				throw new IllegalArgumentException("index out of date");
+			}
+			MappedLine line = new MappedLine(bytes);
+			for (int i = 0; i < blocks.length - 1; i++) {
+				parser.parse(line.set(blocks[i], lineEnd(bytes, blocks[i])));
+			}
+			List<Client> list = manager.getClients();
+			Client[] clients = list.toArray(new Client[list.size()]);
+			String[] problems = manager.setPendingLeases(new LazyLeases(filename, bytes, blocks, clients));
+			remember(filename);
+			return problems;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unable to load file");
+		}
+	}
+
+	/**
+	 * Private helper method that remembers the file just loaded as holding what
+	 * the PropertyManager now holds, so saving over it writes only what changes
+	 * 
+	 * @param filename the file
+	 */
+	private static void remember(String filename) {
+		FileLayout.remember(filename, FileLayout.capture(PropertyManager.getInstance()));
+	}
+
+	/**
+	 * Private helper method that loads the rental unit lines at the start of a
+	 * mapped file
+	 * 
+	 * @param bytes  the mapped file
+	 * @param parser parser of the lines
+	 * @return position of the first client line, or the end of the file if there
+	 *         is none
+	 * @throws IllegalArgumentException if a line is not valid
+	 */
+	private static int loadUnits(ByteBuffer bytes, LineParser parser) {
+		MappedLine line = new MappedLine(bytes);
+		int lineStart = 0;
+		while (lineStart < bytes.limit() && !isClientLine(bytes, lineStart)) {
+			int lineEnd = lineEnd(bytes, lineStart);
+			parser.parse(line.set(lineStart, lineEnd));
+			lineStart = Math.min(bytes.limit(), lineEnd + 1);
+		}
+		return lineStart;
+	}
+
+	/**
+	 * Private helper method that reads the clients and leases of a chunk of the
+	 * client section. Runs on a thread of the pool.
+	 * 
+	 * @param bytes the mapped file
+	 * @param from  position of the first line of the chunk, a client line
+	 * @param to    position just after the chunk
+	 * @return the clients and leases read
+	 * @throws IllegalArgumentException if a line is not valid
+	 */
+	private static ClientChunk readChunk(ByteBuffer bytes, int from, int to) {
+		ClientChunk chunk = new ClientChunk();
+		parseRange(bytes, from, to, new LineParser(chunk));
+		return chunk;
+	}
+
+	/**
+	 * Private helper method that parses the lines of a part of a mapped file
+	 * 
+	 * @param bytes  the mapped file
+	 * @param from   position of the first line
+	 * @param to     position just after the last line
+	 * @param parser parser of the lines
+	 * @throws IllegalArgumentException if a line is not valid
+	 */
+	private static void parseRange(ByteBuffer bytes, int from, int to, LineParser parser) {
+		MappedLine line = new MappedLine(bytes);
+		int lineStart = from;
+		while (lineStart < to) {
+			int lineEnd = lineEnd(bytes, lineStart);
+			parser.parse(line.set(lineStart, lineEnd));
+			lineStart = lineEnd + 1;
+		}
+	}
+
+	/**
+	 * Private helper method that finds where each client line of a mapped file
+	 * starts
+	 * 
+	 * @param bytes the mapped file
+	 * @return the position of each client line, followed by the end of the file
+	 */
+	private static int[] findClientLines(ByteBuffer bytes) {
+		int[] found = new int[16];
+		int count = 0;
+		int lineStart = nextClientLine(bytes, 0);
+		while (lineStart < bytes.limit()) {
+			if (count == found.length - 1) {
+				found = Arrays.copyOf(found, found.length * 2);
+			}
+			found[count++] = lineStart;
+			lineStart = nextClientLine(bytes, Math.min(bytes.limit(), lineEnd(bytes, lineStart) + 1));
+		}
+		found[count] = bytes.limit();
+		return Arrays.copyOf(found, count + 1);
+	}
+
+	/**
+	 * Private helper method that reads where each client line of a file starts
+	 * from the file's index
+	 * 
+	 * @param indexPath the index
+	 * @param bytes     the mapped file
+	 * @param modified  time the file was last changed, in milliseconds
+	 * @return the position of each client line, followed by the end of the file,
+	 *         or null if there is no index or it is damaged or out of date
+	 * @throws IOException if the index could not be read
+	 */
+	private static int[] readIndex(Path indexPath, ByteBuffer bytes, long modified) throws IOException {
+		ByteBuffer index;
+		try {
+			index = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		if (index.limit() < INDEX_HEADER_BYTES + Integer.BYTES || index.getInt() != INDEX_MAGIC
+				|| index.getInt() != INDEX_VERSION || index.getLong() != bytes.limit()
+				|| index.getLong() != modified) {
+			return null;
+		}
+		int count = index.getInt();
+		if (count < 0 || index.limit() != INDEX_HEADER_BYTES + Integer.BYTES * (count + 1)) {
+			return null;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(index.array(), 0, index.limit() - Integer.BYTES);
+		if (index.getInt(index.limit() - Integer.BYTES) != (int) crc.getValue()) {
+			return null;
+		}
+		int[] blocks = new int[count + 1];
+		int last = -1;
+		for (int i = 0; i < count; i++) {
+			blocks[i] = index.getInt();
+			if (blocks[i] <= last || blocks[i] >= bytes.limit()
+					|| blocks[i] > 0 && bytes.get(blocks[i] - 1) != '\n' || !isClientLine(bytes, blocks[i])) {
+				return null;
+			}
+			last = blocks[i];
+		}
+		blocks[count] = bytes.limit();
+		return blocks;
+	}
+
+	/**
+	 * Private helper method that writes where each client line of a file starts
+	 * to the file's index. An index that cannot be written is left out, as it is
+	 * only there to save scanning the file.
+	 * 
+	 * @param indexPath the index
+	 * @param blocks    the position of each client line, followed by the end of
+	 *                  the file
+	 * @param modified  time the file was last changed, in milliseconds
+	 */
+	private static void writeIndex(Path indexPath, int[] blocks, long modified) {
+		int count = blocks.length - 1;
+		ByteBuffer index = ByteBuffer.allocate(INDEX_HEADER_BYTES + Integer.BYTES * (count + 1));
+		index.putInt(INDEX_MAGIC).putInt(INDEX_VERSION).putLong(blocks[count]).putLong(modified).putInt(count);
+		for (int i = 0; i < count; i++) {
+			index.putInt(blocks[i]);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(index.array(), 0, index.position());
+		index.putInt((int) crc.getValue());
+		try {
+			Files.write(indexPath, index.array());
+		} catch (IOException e) {
+			// a damaged or missing index is found out and made again next time
+		}
+	}
+
+	/**
+	 * Private helper method that finds the start of the first client line at or
+	 * after a position of a mapped file
+	 * 
+	 * @param bytes    the mapped file
+	 * @param position where to start looking, the start of a line or within one
+	 * @return position of the client line, or the end of the file if there is
+	 *         none
+	 */
+	private static int nextClientLine(ByteBuffer bytes, int position) {
+		int lineStart = position;
+		if (lineStart > 0 && lineStart < bytes.limit() && bytes.get(lineStart - 1) != '\n') {
+			lineStart = Math.min(bytes.limit(), lineEnd(bytes, lineStart) + 1);
+		}
+		while (lineStart < bytes.limit() && !isClientLine(bytes, lineStart)) {
+			lineStart = Math.min(bytes.limit(), lineEnd(bytes, lineStart) + 1);
+		}
+		return lineStart;
+	}
+
+	/**
+	 * Private helper method that checks whether the line starting at a position
+	 * is a client line, whose first character other than blanks is '#'
+	 * 
+	 * @param bytes     the mapped file
+	 * @param lineStart position of the start of the line
+	 * @return true if the line is a client line
+	 */
+	private static boolean isClientLine(ByteBuffer bytes, int lineStart) {
+		for (int i = lineStart; i < bytes.limit(); i++) {
+			byte b = bytes.get(i);
+			if (b != ' ' && b != '\t' && b != '\r') {
+				return b == '#';
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Private helper method that finds the end of the line starting at a position
+	 * 
+	 * @param bytes     the mapped file
+	 * @param lineStart position of the start of the line
+	 * @return position of the line break ending the line, or the end of the file
+	 */
+	private static int lineEnd(ByteBuffer bytes, int lineStart) {
+		int i = lineStart;
+		while (i < bytes.limit() && bytes.get(i) != '\n') {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Private helper method that loads the whole lines of a mapped window of the
+	 * file
+	 * 
+	 * @param window     the mapped bytes
+	 * @param parser     parser of the lines
+	 * @param lastWindow true if the window runs to the end of the file, so its
+	 *                   last line needs no line break
+	 * @return number of bytes loaded, which stops short of a line the window
+	 *         cuts off
+	 * @throws IllegalArgumentException if a line is not valid
+	 */
+	private static int loadWindow(ByteBuffer window, LineParser parser, boolean lastWindow) {
+		MappedLine line = new MappedLine(window);
+		int limit = window.limit();
+		int lineStart = 0;
+		for (int i = 0; i < limit; i++) {
+			if (window.get(i) == '\n') {
+				parser.parse(line.set(lineStart, i));
+				lineStart = i + 1;
+			}
+		}
+		if (lastWindow && lineStart < limit) {
+			parser.parse(line.set(lineStart, limit));
+			lineStart = limit;
+		}
+		return lineStart;
+	}
+
+	/**
+	 * Private helper method that streams the lines of a file through a parser.
+	 * The blocks of a block-compressed file are inflated ahead on the common pool
+	 * and each is parsed straight from its bytes once inflated.
+	 * 
+	 * @param filename The name of the file to read
+	 * @param parser   parser of the lines
+	 * @throws IOException              if the file could not be read
+	 * @throws IllegalArgumentException if a line is not valid
+	 */
+	private static void parseLines(String filename, LineParser parser) throws IOException {
+		Path path = Paths.get(filename);
+		int format = BlockCompression.detect(path);
+		if (format == BlockCompression.BLOCKS) {
+			parseBlocks(path, parser);
+			return;
+		}
+		Reader reader = format == BlockCompression.GZIP ? new InputStreamReader(BlockCompression.open(path))
+				: new FileReader(filename);
+		try (BufferedReader fileReader = new BufferedReader(reader, BUFFER_SIZE)) {
+			String line = fileReader.readLine();
+			while (line != null) {// goes through each line
+				parser.parse(line);
+				line = fileReader.readLine();
+			}
+		}
+	}
+
+	/**
+	 * Private helper method that parses the lines of a block-compressed file a
+	 * block at a time, while the blocks after it are being inflated
+	 * 
+	 * @param path   the file
+	 * @param parser parser of the lines
+	 * @throws IOException              if the file could not be read
+	 * @throws IllegalArgumentException if the file is damaged or a line is not
+	 *                                  valid
+	 */
+	private static void parseBlocks(Path path, LineParser parser) throws IOException {
+		try (BlockCompression.BlockReader blocks = new BlockCompression.BlockReader(path,
+				ForkJoinPool.commonPool())) {
+			ByteBuffer rest = ByteBuffer.allocate(0);
+			ByteBuffer block = blocks.next();
+			while (block != null) {
+				if (rest.hasRemaining()) { // a line longer than a block goes on
+					block = ByteBuffer.allocate(rest.remaining() + block.remaining()).put(rest).put(block).flip();
+				}
+				int consumed = loadWindow(block, parser, false);
+				rest = block.position(consumed);
+				block = blocks.next();
+			}
+			loadWindow(rest.slice(), parser, true);
+		}
+	}
+
+	/**
+	 * Private helper method that checks the values of a lease read from a file
+	 * 
+	 * @param startDay  first day of the lease, in days since 1970-01-01
+	 * @param endDay    last day of the lease, in days since 1970-01-01
+	 * @param occupants number of occupants
+	 * @throws IllegalArgumentException if there are no occupants or a date is out
+	 *                                  of range
+	 */
+	private static void checkLease(int startDay, int endDay, int occupants) {
+		if (occupants <= 0) {
+			throw new IllegalArgumentException("no occupants");
+		}
+		if (!RentalCalendar.isInRange(startDay) || !RentalCalendar.isInRange(endDay)) {
+			throw new IllegalArgumentException("date out of range");
+		}
+	}
+
+	/**
+	 * Visitor that loads the records of a file into the PropertyManager. Rental
+	 * units and clients are added as they are read, while leases are held back
+	 * until the whole file is read.
+	 * 
+	 * @author Anton
+	 */
+	static final class ModelLoader implements RentalFileVisitor {
+
+		/** The PropertyManager being loaded */
+		private final PropertyManager manager;
+
+		/** Client the following leases belong to */
+		private Client currentClient;
+
+		/** Leases read so far, added once the whole file is read */
+		private final List<Lease> leases = new ArrayList<Lease>();
+
+		/**
+		 * Constructor for a loader, which empties the PropertyManager
+		 * 
+		 * @param manager the PropertyManager being loaded
+		 */
+		ModelLoader(PropertyManager manager) {
+			this.manager = manager;
+			manager.flushAllData();
+		}
+
+		/**
+		 * Adds the rental unit, taking it out of service if it is unavailable.
+		 * 
+		 * @param kind      kind of the rental unit
+		 * @param location  location of the rental unit
+		 * @param capacity  capacity of the rental unit
+		 * @param inService false if the rental unit is unavailable
+		 * @throws IllegalArgumentException if the rental unit is not valid or is
+		 *                                  already loaded
+		 */
+		@Override
+		public void onUnit(String kind, String location, int capacity, boolean inService) {
+			RentalUnit unit;
+			try {
+				unit = manager.addNewUnit(kind, location, capacity);
+			} catch (DuplicateRoomException e) {
+				throw new IllegalArgumentException("duplicate rental unit");
+			}
+			if (!inService) {
+				manager.takeOutOfService(unit);
+			}
+		}
+
+		/**
+		 * Adds the client, which the following leases belong to.
+		 * 
+		 * @param name name of the client
+		 * @param id   id of the client
+		 * @throws IllegalArgumentException if the client is not valid or is
+		 *                                  already loaded
+		 */
+		@Override
+		public void onClient(String name, String id) {
+			try {
+				currentClient = manager.addNewClient(name, id);
+			} catch (DuplicateClientException e) {
+				throw new IllegalArgumentException("duplicate client");
+			}
+		}
+
+		/**
+		 * Makes the lease for the last client and holds it back.
+		 * 
+		 * @param confirmationNumber confirmation number of the lease
+		 * @param startDay           first day of the lease
+		 * @param endDay             last day of the lease
+		 * @param occupants          number of occupants
+		 * @param floor              floor of the rental unit
+		 * @param room               room of the rental unit
+		 * @throws IllegalArgumentException if the lease is not valid or its rental
+		 *                                  unit is not loaded
+		 */
+		@Override
+		public void onLease(int confirmationNumber, int startDay, int endDay, int occupants, int floor, int room) {
+			checkLease(startDay, endDay, occupants);
+			RentalUnit rental = manager.getUnitAtLocation(floor, room);
+			leases.add(new Lease(confirmationNumber, currentClient, rental, startDay, endDay, occupants));
+		}
+
+		/**
+		 * Adds the leases read to their rental units and clients, once the whole
+		 * file is read.
+		 * 
+		 * @return descriptions of the leases that conflict or are over capacity
+		 * @throws IllegalArgumentException if a lease is not valid
+		 */
+		String[] finish() {
+			return manager.addLeasesFromFile(leases.toArray(new Lease[leases.size()]), ForkJoinPool.commonPool());
+		}
+	}
+
+	/**
+	 * The clients and leases read from a chunk of the client section, kept as
+	 * plain values until the clients are added to the PropertyManager.
+	 * 
+	 * @author Anton
+	 */
+	private static final class ClientChunk implements RentalFileVisitor {
+
+		/** Number of values kept for each lease */
+		private static final int LEASE_FIELDS = 7;
+
+		/** Names of the clients, in the order read */
+		private final List<String> names = new ArrayList<String>();
+
+		/** Ids of the clients, in the order read */
+		private final List<String> ids = new ArrayList<String>();
+
+		/**
+		 * Values of the leases, in the order read: the position of the client in
+		 * this chunk, confirmation number, start day, end day, occupants, floor and
+		 * room
+		 */
+		private int[] leaseFields = new int[LEASE_FIELDS * 16];
+
+		/** Number of leases read */
+		private int leaseCount;
+
+		/** The clients once added to the PropertyManager */
+		private Client[] clients;
+
+		/**
+		 * Rejects a rental unit, which cannot follow a client line.
+		 * 
+		 * @param kind      kind of the rental unit
+		 * @param location  location of the rental unit
+		 * @param capacity  capacity of the rental unit
+		 * @param inService false if the rental unit is unavailable
+		 * @throws IllegalArgumentException always
+		 */
+		@Override
+		public void onUnit(String kind, String location, int capacity, boolean inService) {
+			throw new IllegalArgumentException();
+		}
+
+		/**
+		 * Keeps a client line's name and id.
+		 * 
+		 * @param name name of the client
+		 * @param id   id of the client
+		 */
+		@Override
+		public void onClient(String name, String id) {
+			names.add(name);
+			ids.add(id);
+		}
+
+		/**
+		 * Keeps the values of a lease of the last client read.
+		 * 
+		 * @param confirmationNumber confirmation number of the lease
+		 * @param startDay           first day of the lease
+		 * @param endDay             last day of the lease
+		 * @param occupants          number of occupants
+		 * @param floor              floor of the rental unit
+		 * @param room               room of the rental unit
+		 * @throws IllegalArgumentException if there are no occupants or a date is
+		 *                                  out of range
+		 */
+		@Override
+		public void onLease(int confirmationNumber, int startDay, int endDay, int occupants, int floor, int room) {
+			checkLease(startDay, endDay, occupants);
+			if (leaseFields.length < (leaseCount + 1) * LEASE_FIELDS) {
+				leaseFields = Arrays.copyOf(leaseFields, leaseFields.length * 2);
+			}
+			int at = leaseCount * LEASE_FIELDS;
+			leaseFields[at] = names.size() - 1;
+			leaseFields[at + 1] = confirmationNumber;
+			leaseFields[at + 2] = startDay;
+			leaseFields[at + 3] = endDay;
+			leaseFields[at + 4] = occupants;
+			leaseFields[at + 5] = floor;
+			leaseFields[at + 6] = room;
+			leaseCount++;
+		}
+
+		/**
+		 * Adds the clients to the PropertyManager, in the order read.
+		 * 
+		 * @param manager the PropertyManager being loaded
+		 * @throws DuplicateClientException if a client is already loaded
+		 * @throws IllegalArgumentException if a client is not valid
+		 */
+		void addClients(PropertyManager manager) throws DuplicateClientException {
+			clients = new Client[names.size()];
+			for (int i = 0; i < clients.length; i++) {
+				clients[i] = manager.addNewClient(names.get(i), ids.get(i));
+			}
+		}
+
+		/**
+		 * Makes the leases read, once the clients are added.
+		 * 
+		 * @param manager the PropertyManager being loaded
+		 * @param leases  array the leases are put in
+		 * @param offset  position in the array of the first lease of this chunk
+		 * @throws IllegalArgumentException if a lease is for a rental unit that is
+		 *                                  not loaded
+		 */
+		void makeLeases(PropertyManager manager, Lease[] leases, int offset) {
+			for (int i = 0; i < leaseCount; i++) {
+				int at = i * LEASE_FIELDS;
+				RentalUnit rental = manager.getUnitAtLocation(leaseFields[at + 5], leaseFields[at + 6]);
+				leases[offset + i] = new Lease(leaseFields[at + 1], clients[leaseFields[at]], rental,
+						leaseFields[at + 2], leaseFields[at + 3], leaseFields[at + 4]);
+			}
+		}
+	}
+
+	/**
+	 * The leases of a file loaded by readRentalDataLazy, left in the mapped file
+	 * until they are needed. The leases of a client are read from the lines
+	 * between its client line and the next.
+	 * 
+	 * @author Anton
+	 */
+	private static final class LazyLeases implements PendingLeases {
+
+		/** The file */
+		private final String filename;
+
+		/** The mapped file, dropped once the leases are loaded */
+		private volatile ByteBuffer bytes;
+
+		/** Position of each client line, followed by the end of the file */
+		private final int[] blocks;
+
+		/** The clients loaded from the file, in order */
+		private final Client[] clients;
+
+		/**
+		 * Constructor for the leases of a file
+		 * 
+		 * @param filename the file
+		 * @param bytes    the mapped file
+		 * @param blocks   position of each client line, followed by the end of the
+		 *                 file
+		 * @param clients  the clients loaded from the file, in order
+		 */
+		LazyLeases(String filename, ByteBuffer bytes, int[] blocks, Client[] clients) {
+			this.filename = filename;
+			this.bytes = bytes;
+			this.blocks = blocks;
+			this.clients = clients;
+		}
+
+		/**
+		 * Lists the leases of a client from its lines in the file.
+		 * 
+		 * @param clientIndex position of the client in the PropertyManager's list
+		 *                    of clients
+		 * @param client      the client at that position
+		 * @return the rows, or null if the client was not loaded from the file or
+		 *         the leases are loaded already
+		 * @throws IllegalArgumentException if the leases cannot be read
+		 */
+		@Override
+		public String[] listLeases(int clientIndex, Client client) {
+			ByteBuffer mapped = bytes;
+			if (mapped == null || clientIndex >= clients.length || clients[clientIndex] != client) {
+				return null;
+			}
+			try {
+				LeaseBlock block = new LeaseBlock(PropertyManager.getInstance(), client, false);
+				parseRange(mapped, blocks[clientIndex], blocks[clientIndex + 1], new LineParser(block));
+				return block.rows.toArray(new String[block.rows.size()]);
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Unable to load file");
+			}
+		}
+
+		/**
+		 * Loads the leases of every client. If nothing had changed since the file
+		 * was loaded, it is remembered again as holding what the PropertyManager
+		 * holds, so saving over it still writes only what changes afterwards.
+		 * 
+		 * @param manager the PropertyManager
+		 * @return descriptions of the leases that conflict or are over capacity
+		 * @throws IllegalArgumentException if the leases cannot be read
+		 */
+		@Override
+		public String[] load(PropertyManager manager) {
+			try {
+				FileLayout layout = FileLayout.current();
+				boolean unchanged = layout != null && layout.isOf(Paths.get(filename)) && layout.matches(manager);
+				List<Lease> leases = new ArrayList<Lease>();
+				for (int i = 0; i < clients.length; i++) {
+					LeaseBlock block = new LeaseBlock(manager, clients[i], true);
+					parseRange(bytes, blocks[i], blocks[i + 1], new LineParser(block));
+					leases.addAll(block.leases);
+				}
+				String[] problems = manager.addLeasesFromFile(leases.toArray(new Lease[leases.size()]),
+						ForkJoinPool.commonPool());
+				bytes = null; // lets the mapping go before the file is saved over
+				if (unchanged) {
+					remember(filename);
+				}
+				return problems;
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Unable to load file");
+			}
+		}
+	}
+
+	/**
+	 * Visitor of the lines of one client, from its client line up to the next,
+	 * that makes its leases or their rows.
+	 * 
+	 * @author Anton
+	 */
+	private static final class LeaseBlock implements RentalFileVisitor {
+
+		/** The PropertyManager the rental units are found in */
+		private final PropertyManager manager;
+
+		/** The client the leases belong to */
+		private final Client client;
+
+		/** The leases made, or null if only their rows are wanted */
+		private final List<Lease> leases;
+
+		/** Rows of the leases, or null if the leases are made */
+		private final List<String> rows;
+
+		/** Builder of the rows */
+		private final StringBuilder row = new StringBuilder(80);
+
+		/**
+		 * Constructor for a visitor of a client's lines
+		 * 
+		 * @param manager the PropertyManager the rental units are found in
+		 * @param client  the client the leases belong to
+		 * @param make    true to make the leases, false to only list their rows
+		 */
+		LeaseBlock(PropertyManager manager, Client client, boolean make) {
+			this.manager = manager;
+			this.client = client;
+			this.leases = make ? new ArrayList<Lease>() : null;
+			this.rows = make ? null : new ArrayList<String>();
+		}
+
+		/**
+		 * Rejects a rental unit, which cannot follow a client line.
+		 * 
+		 * @param kind      kind of the rental unit
+		 * @param location  location of the rental unit
+		 * @param capacity  capacity of the rental unit
+		 * @param inService false if the rental unit is unavailable
+		 * @throws IllegalArgumentException always
+		 */
+		@Override
+		public void onUnit(String kind, String location, int capacity, boolean inService) {
+			throw new IllegalArgumentException();
+		}
+
+		/**
+		 * Skips the client line, whose client is already loaded.
+		 * 
+		 * @param name name of the client
+		 * @param id   id of the client
+		 * @throws IllegalArgumentException if it is not the client's line
+		 */
+		@Override
+		public void onClient(String name, String id) {
+			if (!id.equals(client.getId())) {
+				throw new IllegalArgumentException("index out of date");
+			}
+		}
+
+		/**
+		 * Makes the lease, or its row of the client's list of leases.
+		 * 
+		 * @param confirmationNumber confirmation number of the lease
+		 * @param startDay           first day of the lease
+		 * @param endDay             last day of the lease
+		 * @param occupants          number of occupants
+		 * @param floor              floor of the rental unit
+		 * @param room               room of the rental unit
+		 * @throws IllegalArgumentException if the lease is not valid or its rental
+		 *                                  unit is not loaded
+		 */
+		@Override
+		public void onLease(int confirmationNumber, int startDay, int endDay, int occupants, int floor, int room) {
+			checkLease(startDay, endDay, occupants);
+			RentalUnit rental = manager.getUnitAtLocation(floor, room);
+			if (rental == null) {
+				throw new IllegalArgumentException("no such rental unit");
+			}
+			if (leases != null) {
+				leases.add(new Lease(confirmationNumber, client, rental, startDay, endDay, occupants));
+			} else {
+				row.setLength(0);
+				rows.add(RowFormatter.appendClientRow(row, confirmationNumber, startDay, endDay, occupants, rental)
+						.toString());
+			}
+		}
+	}
 }
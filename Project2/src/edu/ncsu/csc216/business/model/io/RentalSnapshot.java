@@ -0,0 +1,512 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+import edu.ncsu.csc216.business.model.stakeholders.Client;
+import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
+
+/**
+ * Saves and loads the rental data as a compact binary snapshot, a second format
+ * alongside the text files of RentalReader and RentalWriter. Nothing has to be
+ * parsed: the file is memory-mapped and its fixed-width records are read
+ * straight from the mapped bytes, so the time to load is spent adding the
+ * records to the PropertyManager.
+ *
+ * A snapshot is laid out as, with all numbers big-endian:
+ * <ul>
+ * <li>header: magic number, format version, and the number of rental units,
+ * clients and leases, as ints</li>
+ * <li>a record for each rental unit in sorted order: its kind as a byte ('O',
+ * 'C' or 'H'), 1 if it is in service or else 0 as a byte, its location as a
+ * short of floor * 256 + room, and its capacity as an int</li>
+ * <li>a record for each client in the order added: its number of leases as an
+ * int</li>
+ * <li>a record for each lease, by client and then in the client's order: its
+ * confirmation number, first day and last day in days since 1970-01-01, number
+ * of occupants, and the location of its rental unit as floor * 256 + room, as
+ * ints</li>
+ * <li>string table: the name and then the id of each client, in the order
+ * added, each as a short byte count followed by its bytes in UTF-8</li>
+ * <li>the CRC-32 checksum of everything before it, as an int</li>
+ * </ul>
+ * A snapshot can also be written block-compressed, see BlockCompression, and is
+ * then inflated on the threads of the common pool instead of being mapped.
+ *
+ * @author Anton
+ */
+public class RentalSnapshot {
+
+	/** Extension of snapshot files */
+	public static final String EXTENSION = ".wrs";
+
+	/** First four bytes of every snapshot, "WRSN" */
+	private static final int MAGIC = 0x5752534E;
+
+	/** Version of the layout written */
+	private static final int VERSION = 1;
+
+	/** Bytes in the header */
+	private static final int HEADER_BYTES = 20;
+
+	/** Bytes in the record of a rental unit */
+	private static final int UNIT_BYTES = 8;
+
+	/** Bytes in the record of a client */
+	private static final int CLIENT_BYTES = 4;
+
+	/** Bytes in the record of a lease */
+	private static final int LEASE_BYTES = 20;
+
+	/** Bytes in the checksum */
+	private static final int CHECKSUM_BYTES = 4;
+
+	/** Largest snapshot that can be read, as it is mapped or inflated at once */
+	private static final int MAX_BYTES = Integer.MAX_VALUE;
+
+	/** Longest name or id in bytes */
+	private static final int MAX_STRING_BYTES = 0xFFFF;
+
+	/** Size of the output buffer in bytes */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Static method that writes the data of the PropertyManager to a snapshot.
+	 *
+	 * @param filename The name of the file to write to
+	 * @throws IllegalArgumentException if the file cannot be written to or if the
+	 *                                  filename provided is null or does not have a
+	 *                                  .wrs extension.
+	 */
+	public static void writeSnapshot(String filename) {
+		writeSnapshot(filename, false);
+	}
+
+	/**
+	 * Static method that writes the data of the PropertyManager to a snapshot,
+	 * block-compressed if asked to. Compressed snapshots keep the .wrs extension,
+	 * as they are told apart by their first bytes.
+	 *
+	 * @param filename   The name of the file to write to
+	 * @param compressed true to compress the snapshot
+	 * @throws IllegalArgumentException if the file cannot be written to or if the
+	 *                                  filename provided is null or does not have a
+	 *                                  .wrs extension.
+	 */
+	public static void writeSnapshot(String filename, boolean compressed) {
+		PropertyManager.getInstance().loadPendingLeases();
+		FileLayout saved = FileLayout.capture(PropertyManager.getInstance());
+		write(filename, compressed);
+		FileLayout.remember(filename, saved);
+	}
+
+	/**
+	 * Static method that writes the data of the PropertyManager to a snapshot
+	 * without remembering it as the file last saved, as the journal keeps its
+	 * snapshots apart from the files the user saves.
+	 *
+	 * @param filename   The name of the file to write to
+	 * @param compressed true to compress the snapshot
+	 * @throws IllegalArgumentException if the file cannot be written to or if the
+	 *                                  filename provided is null or does not have a
+	 *                                  .wrs extension.
+	 */
+	static void write(String filename, boolean compressed) {
+		if (filename == null || !filename.endsWith(EXTENSION)) {
+			throw new IllegalArgumentException("invalid name");
+		}
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			PropertyManager manager = PropertyManager.getInstance();
+			List<RentalUnit> units = manager.getRentalUnits();
+			List<Client> clients = manager.getClients();
+			// each client's leases are taken once, so the counts match the records
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			List<Lease>[] leases = new List[clients.size()];
+			int leaseCount = 0;
+			for (int i = 0; i < leases.length; i++) {
+				leases[i] = clients.get(i).getLeases();
+				leaseCount += leases[i].size();
+			}
+
+			BlockCompression.BlockWriter blocks = compressed ? new BlockCompression.BlockWriter(channel, false) : null;
+			ChecksumOutput out = new ChecksumOutput(compressed ? blocks : channel);
+			out.room(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(units.size()).putInt(clients.size())
+					.putInt(leaseCount);
+			for (int i = 0; i < units.size(); i++) {
+				RentalUnit unit = units.get(i);
+				out.room(UNIT_BYTES).put((byte) RowFormatter.kindLabel(unit).charAt(0))
+						.put((byte) (unit.isInService() ? 1 : 0))
+						.putShort((short) packLocation(unit.getFloor(), unit.getRoom())).putInt(unit.getCapacity());
+			}
+			for (int i = 0; i < leases.length; i++) {
+				out.room(CLIENT_BYTES).putInt(leases[i].size());
+			}
+			for (int i = 0; i < leases.length; i++) {
+				for (int j = 0; j < leases[i].size(); j++) {
+					Lease lease = leases[i].get(j);
+					RentalUnit unit = lease.getProperty();
+					out.room(LEASE_BYTES).putInt(lease.getConfirmationNumber()).putInt(lease.getStartDay())
+							.putInt(lease.getEndDay()).putInt(lease.getNumOccupants())
+							.putInt(packLocation(unit.getFloor(), unit.getRoom()));
+				}
+			}
+			for (int i = 0; i < clients.size(); i++) {
+				out.putString(clients.get(i).getName());
+				out.putString(clients.get(i).getId());
+			}
+			out.finish();
+			if (blocks != null) {
+				blocks.close();
+			}
+			channel.force(true);
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+	}
+
+	/**
+	 * Static method that loads a snapshot into the PropertyManager. Leases that
+	 * conflict with others or are over capacity are loaded as recorded and
+	 * reported, as they are for text files.
+	 *
+	 * @param filename The name of the file to read
+	 * @return descriptions of the leases that conflict or are over capacity
+	 * @throws IllegalArgumentException If the file could not be read, is not a
+	 *                                  snapshot of a known version, or fails its
+	 *                                  checksum
+	 */
+	public static String[] readSnapshot(String filename) {
+		String[] problems = read(filename);
+		FileLayout.remember(filename, FileLayout.capture(PropertyManager.getInstance()));
+		return problems;
+	}
+
+	/**
+	 * Static method that loads a snapshot into the PropertyManager like
+	 * readSnapshot, without remembering it as the file last loaded.
+	 *
+	 * @param filename The name of the file to read
+	 * @return descriptions of the leases that conflict or are over capacity
+	 * @throws IllegalArgumentException If the file could not be read, is not a
+	 *                                  snapshot of a known version, or fails its
+	 *                                  checksum
+	 */
+	static String[] read(String filename) {
+		try {
+			ByteBuffer data = map(filename);
+			RentalReader.ModelLoader loader = new RentalReader.ModelLoader(PropertyManager.getInstance());
+			decode(data, loader);
+			return loader.finish();
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unable to load file");
+		}
+	}
+
+	/**
+	 * Static method that hands the rental units, clients and leases of a snapshot
+	 * to the visitor, in the same order as RentalReader.visitRentalData hands
+	 * those of the matching text file. Nothing is loaded into the PropertyManager.
+	 *
+	 * @param filename The name of the file to read
+	 * @param visitor  receives the records of the file
+	 * @throws IllegalArgumentException If the file could not be read, is not a
+	 *                                  valid snapshot, or the visitor rejects a
+	 *                                  record
+	 */
+	public static void visitSnapshot(String filename, RentalFileVisitor visitor) {
+		try {
+			decode(map(filename), visitor);
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unable to load file");
+		}
+	}
+
+	/**
+	 * Tells whether a file is a snapshot by its first bytes, whatever its name.
+	 *
+	 * @param filename The name of the file
+	 * @return true if the file starts with the snapshot magic number, false if not
+	 *         or if it cannot be read
+	 */
+	public static boolean isSnapshot(String filename) {
+		try (InputStream in = BlockCompression.open(Paths.get(filename))) {
+			byte[] start = in.readNBytes(4);
+			return start.length == 4 && ByteBuffer.wrap(start).getInt() == MAGIC;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Private helper method that maps a snapshot, or inflates it if compressed,
+	 * and checks its header, size and checksum
+	 *
+	 * @param filename The name of the file to read
+	 * @return the bytes of the snapshot
+	 * @throws IOException              if the file could not be read
+	 * @throws IllegalArgumentException if the file is not a valid snapshot
+	 */
+	private static ByteBuffer map(String filename) throws IOException {
+		ByteBuffer data;
+		Path path = Paths.get(filename);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			int format = BlockCompression.detect(channel);
+			if (format == BlockCompression.BLOCKS) {
+				data = BlockCompression.readAll(path, ForkJoinPool.commonPool(), MAX_BYTES);
+			} else if (format == BlockCompression.GZIP) {
+				try (InputStream in = BlockCompression.open(path)) {
+					data = ByteBuffer.wrap(in.readAllBytes());
+				}
+			} else if (channel.size() <= MAX_BYTES) {
+				data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} else {
+				data = null;
+			}
+		}
+		if (data == null || data.limit() < HEADER_BYTES + CHECKSUM_BYTES) {
+			throw new IllegalArgumentException("not a snapshot");
+		}
+		if (data.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("not a snapshot");
+		}
+		if (data.getInt(4) != VERSION) {
+			throw new IllegalArgumentException("unknown version");
+		}
+		int checked = data.limit() - CHECKSUM_BYTES;
+		CRC32 crc = new CRC32();
+		ByteBuffer body = data.duplicate();
+		body.limit(checked);
+		crc.update(body);
+		if ((int) crc.getValue() != data.getInt(checked)) {
+			throw new IllegalArgumentException("checksum mismatch");
+		}
+		data.limit(checked);
+		return data;
+	}
+
+	/**
+	 * Private helper method that hands the records of a checked snapshot to a
+	 * visitor
+	 *
+	 * @param data    the snapshot, without its checksum
+	 * @param visitor receives the records
+	 * @throws IllegalArgumentException if the records do not fit the file or a
+	 *                                  record is rejected
+	 */
+	private static void decode(ByteBuffer data, RentalFileVisitor visitor) {
+		int units = data.getInt(8);
+		int clients = data.getInt(12);
+		int leases = data.getInt(16);
+		if (units < 0 || clients < 0 || leases < 0) {
+			throw new IllegalArgumentException("bad counts");
+		}
+		long clientStart = HEADER_BYTES + (long) units * UNIT_BYTES;
+		long leaseStart = clientStart + (long) clients * CLIENT_BYTES;
+		long stringStart = leaseStart + (long) leases * LEASE_BYTES;
+		if (stringStart > data.limit()) {
+			throw new IllegalArgumentException("bad counts");
+		}
+
+		for (int at = HEADER_BYTES; at < clientStart; at += UNIT_BYTES) {
+			int location = data.getShort(at + 2) & 0xFFFF;
+			visitor.onUnit(kindName(data.get(at)), floorOf(location) + "-" + roomOf(location), data.getInt(at + 4),
+					data.get(at + 1) != 0);
+		}
+		ByteBuffer strings = data.duplicate();
+		strings.position((int) stringStart);
+		int lease = (int) leaseStart;
+		int leasesLeft = leases;
+		for (int at = (int) clientStart; at < leaseStart; at += CLIENT_BYTES) {
+			visitor.onClient(getString(strings), getString(strings));
+			int count = data.getInt(at);
+			if (count < 0 || count > leasesLeft) {
+				throw new IllegalArgumentException("bad counts");
+			}
+			leasesLeft -= count;
+			for (int i = 0; i < count; i++, lease += LEASE_BYTES) {
+				int location = data.getInt(lease + 16);
+				visitor.onLease(data.getInt(lease), data.getInt(lease + 4), data.getInt(lease + 8),
+						data.getInt(lease + 12), floorOf(location), roomOf(location));
+			}
+		}
+		if (leasesLeft != 0 || strings.hasRemaining()) {
+			throw new IllegalArgumentException("bad counts");
+		}
+	}
+
+	/**
+	 * Private helper method that reads a string of the string table
+	 *
+	 * @param strings the string table, positioned at the string
+	 * @return the string
+	 * @throws java.nio.BufferUnderflowException if the string runs past the table
+	 */
+	private static String getString(ByteBuffer strings) {
+		int length = strings.getShort() & 0xFFFF;
+		byte[] bytes = new byte[length];
+		strings.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Gives the kind of rental unit written for a kind byte
+	 *
+	 * @param kind the kind byte
+	 * @return the kind, as RentalFileVisitor.onUnit receives it
+	 * @throws IllegalArgumentException if the byte is not a known kind
+	 */
+	static String kindName(byte kind) {
+		switch (kind) {
+		case 'O':
+			return "Office";
+		case 'C':
+			return "Conference Room";
+		case 'H':
+			return "Hotel Suite";
+		default:
+			throw new IllegalArgumentException("unknown kind");
+		}
+	}
+
+	/**
+	 * Private helper method that packs a location into one number
+	 *
+	 * @param floor the floor
+	 * @param room  the room
+	 * @return floor * 256 + room
+	 */
+	private static int packLocation(int floor, int room) {
+		return floor << 8 | room;
+	}
+
+	/**
+	 * Private helper method that gives the floor of a packed location
+	 *
+	 * @param location the packed location
+	 * @return the floor
+	 */
+	private static int floorOf(int location) {
+		return location >>> 8;
+	}
+
+	/**
+	 * Private helper method that gives the room of a packed location
+	 *
+	 * @param location the packed location
+	 * @return the room
+	 */
+	private static int roomOf(int location) {
+		return location & 0xFF;
+	}
+
+	/**
+	 * Buffered output to a channel that keeps the checksum of everything written.
+	 *
+	 * @author Anton
+	 */
+	private static final class ChecksumOutput {
+
+		/** The channel written to */
+		private final WritableByteChannel channel;
+
+		/** Bytes waiting to be written */
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		/** Checksum of the bytes written so far */
+		private final CRC32 crc = new CRC32();
+
+		/**
+		 * Constructor for the output
+		 *
+		 * @param channel the channel written to
+		 */
+		ChecksumOutput(WritableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Makes room in the buffer for a record of the given size
+		 *
+		 * @param bytes size of the record, at most the buffer size
+		 * @return the buffer to put the record in
+		 * @throws IOException if the channel cannot be written to
+		 */
+		ByteBuffer room(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+			return buffer;
+		}
+
+		/**
+		 * Writes a string as its byte count followed by its bytes in UTF-8
+		 *
+		 * @param s the string
+		 * @throws IOException              if the channel cannot be written to
+		 * @throws IllegalArgumentException if the string is too long
+		 */
+		void putString(String s) throws IOException {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			if (bytes.length > MAX_STRING_BYTES) {
+				throw new IllegalArgumentException("string too long");
+			}
+			room(2).putShort((short) bytes.length);
+			for (int at = 0; at < bytes.length;) {
+				int n = Math.min(bytes.length - at, room(1).remaining());
+				buffer.put(bytes, at, n);
+				at += n;
+			}
+		}
+
+		/**
+		 * Writes the checksum after everything written and flushes the buffer
+		 *
+		 * @throws IOException if the channel cannot be written to
+		 */
+		void finish() throws IOException {
+			flush();
+			buffer.putInt((int) crc.getValue());
+			buffer.flip();
+			write();
+		}
+
+		/**
+		 * Adds the buffered bytes to the checksum and writes them
+		 *
+		 * @throws IOException if the channel cannot be written to
+		 */
+		private void flush() throws IOException {
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			write();
+		}
+
+		/**
+		 * Writes the bytes of the flipped buffer and empties it
+		 *
+		 * @throws IOException if the channel cannot be written to
+		 */
+		private void write() throws IOException {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -3,17 +3,55 @@
  */
 package edu.ncsu.csc216.business.model.io;
 
-import java.io.PrintStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+import edu.ncsu.csc216.business.model.stakeholders.Client;
 import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
 
 /**
- * Class made to write data to a file
+ * Class made to write data to a file. The writer walks the published rental
+ * units, clients and leases directly and formats each row straight into one
+ * reused buffer, which is handed to the file whenever it fills up, so saving
+ * builds no listing arrays or row strings and uses the same memory however
+ * large the file is.
+ * 
+ * Saving over the file last loaded or saved only writes what changed since.
+ * The rental units section and the block of lines of each client that is still
+ * up to date are copied from the old file as they are, and the rest is written
+ * anew. The new file is written next to the old one and then moved over it, so
+ * the old file stays whole if saving fails. Files can also be written
+ * block-compressed, see BlockCompression.
  * 
  * @author Anton
  */
 public class RentalWriter {
 
+	/** Size of the output buffer in characters */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Indentation in front of each lease of a client */
+	private static final String LEASE_INDENT = "   ";
+
+	/** Added to the name of the file to name the file written before moving it */
+	private static final String TEMP_SUFFIX = ".tmp";
+
 	/**
 	 * Static method made to write data from the PropertyManager class to a file.
 	 * 
@@ -23,33 +61,299 @@ public class RentalWriter {
 	 *                                  .md extension.
 	 */
 	public static void writeRentalFile(String filename) {
+		writeRentalFile(filename, false);
+	}
+
+	/**
+	 * Static method made to write data from the PropertyManager class to a file,
+	 * block-compressed if asked to. Compressed files keep the .md extension, as
+	 * the readers tell them apart by their first bytes, and are always written in
+	 * full.
+	 * 
+	 * @param filename   The name of the file to write to
+	 * @param compressed true to compress the file
+	 * @throws IllegalArgumentException if the file cannot be written to or if the
+	 *                                  filename provided is null or does not have a
+	 *                                  .md extension.
+	 */
+	public static void writeRentalFile(String filename, boolean compressed) {
 		if (filename == null || filename.length() == 0) {
 			throw new IllegalArgumentException("invalid name");
 		}
 		if (!filename.endsWith(".md")) {
 			throw new IllegalArgumentException("invalid name");
 		}
+		Path temp = Paths.get(filename + TEMP_SUFFIX);
 		try {
-			PrintStream fileWriter = new PrintStream(filename);
-			PropertyManager manager = PropertyManager.getInstance();
-			manager.filterRentalUnits("Any", false);
-			String[] units = manager.listRentalUnits();
-			String[] clients = manager.listClients();
-			for (int i = 0; i < units.length; i++) {// print rental units
-				fileWriter.println(units[i]);
-			}
-			fileWriter.print("\n");
-			for (int i = 0; i < clients.length; i++) {
-				fileWriter.println("#" + clients[i]);
-				String[] leases = manager.listClientLeases(i);
-				for (int j = 0; j < leases.length; j++) {
-					fileWriter.println("   " + leases[j]);
+			Path target = Paths.get(filename);
+			// the leases of a lazy load are read from the file being saved over
+			PropertyManager.getInstance().loadPendingLeases();
+			FileLayout old = FileLayout.current();
+			if (old != null && (compressed || !old.isOf(target)
+					|| BlockCompression.detect(target) != BlockCompression.RAW)) {
+				old = null;
+			}
+			FileLayout saved;
+			try (FileChannel in = old == null ? null : FileChannel.open(target, StandardOpenOption.READ);
+					FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+							StandardOpenOption.TRUNCATE_EXISTING)) {
+				if (compressed) {
+					BlockCompression.BlockWriter blocks = new BlockCompression.BlockWriter(out, true);
+					saved = write(null, null, blocks);
+					blocks.close();
+				} else {
+					saved = write(old, in, out);
 				}
+				out.force(true);
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
 			}
-			fileWriter.close();
+			FileLayout.remember(saved.moveTo(target));
 		} catch (Exception e) {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException ignored) {
+				// the save has failed either way
+			}
 			throw new IllegalArgumentException("Unable to save file");
 		}
 
 	}
+
+	/**
+	 * Static method that tells whether the PropertyManager holds data that has
+	 * not been saved, being neither empty nor exactly what the file last loaded
+	 * or saved holds.
+	 * 
+	 * @return true if there are changes that would be lost without saving
+	 */
+	public static boolean hasUnsavedChanges() {
+		PropertyManager manager = PropertyManager.getInstance();
+		if (manager.getRentalUnits().isEmpty() && manager.getClients().isEmpty()) {
+			return false;
+		}
+		FileLayout layout = FileLayout.current();
+		return layout == null || !layout.matches(manager);
+	}
+
+	/**
+	 * Private helper method that writes the data of the PropertyManager, copying
+	 * what is still up to date from the old file. Each version is read before the
+	 * data it versions, so a change made while saving is written again next time.
+	 * 
+	 * @param old layout of the old file, or null if it is written in full
+	 * @param in  the old file, or null if it is written in full
+	 * @param out the new file
+	 * @return layout of the new file
+	 * @throws IOException if a file cannot be read or written
+	 */
+	private static FileLayout write(FileLayout old, FileChannel in, WritableByteChannel out) throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		long[] was = old == null ? null : old.getOffsets(in);
+		BlockOutput blocks = new BlockOutput(out, in);
+		String newLine = System.lineSeparator();
+		int unitsVersion = manager.getUnitsVersion();
+		if (was != null && old.getUnitsVersion() == unitsVersion) {
+			blocks.copy(0, was[0]);
+		} else {
+			List<RentalUnit> units = manager.getRentalUnits();
+			for (int i = 0; i < units.size(); i++) { // print rental units
+				RowFormatter.appendUnit(blocks.rows(), units.get(i)).append(newLine);
+				blocks.drain(BUFFER_SIZE);
+			}
+			blocks.rows().append('\n');
+		}
+		List<Client> list = manager.getClients();
+		Client[] clients = list.toArray(new Client[list.size()]);
+		int[] versions = new int[clients.length];
+		long[] offsets = new long[clients.length + 1];
+		offsets[0] = blocks.position();
+		for (int i = 0; i < clients.length; i++) {
+			Client client = clients[i];
+			versions[i] = client.getLeaseVersion();
+			if (was != null && old.isClean(i, client, versions[i])) {
+				blocks.copy(was[i], was[i + 1]);
+			} else {
+				RowFormatter.appendClient(blocks.rows().append('#'), client).append(newLine);
+				blocks.drain(BUFFER_SIZE);
+				List<Lease> leases = client.getLeases();
+				for (int j = 0; j < leases.size(); j++) {
+					RowFormatter.appendClientRow(blocks.rows().append(LEASE_INDENT), leases.get(j)).append(newLine);
+					blocks.drain(BUFFER_SIZE);
+				}
+			}
+			offsets[i + 1] = blocks.position();
+		}
+		blocks.finish();
+		return new FileLayout(unitsVersion, clients, versions, offsets);
+	}
+
+	/**
+	 * The new file being written, as rows of text encoded in the default
+	 * character set and ranges of bytes copied from the old file. Neighbouring
+	 * ranges are copied together, and copying is left to the file system where it
+	 * can do it without the bytes passing through here.
+	 * 
+	 * @author Anton
+	 */
+	private static class BlockOutput {
+
+		/** The new file */
+		private final WritableByteChannel out;
+
+		/** The old file */
+		private final FileChannel in;
+
+		/** The buffered rows */
+		private final StringBuilder rows = new StringBuilder(BUFFER_SIZE + 256);
+
+		/** Array the rows are copied into for encoding */
+		private char[] chars = new char[BUFFER_SIZE + 256];
+
+		/** The encoded rows waiting to be written */
+		private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		/** Encoder of the rows, replacing what cannot be encoded as FileWriter does */
+		private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		/** Start of the range of the old file waiting to be copied */
+		private long copyStart;
+
+		/** End of the range of the old file waiting to be copied */
+		private long copyEnd;
+
+		/** Number of bytes of the new file written or waiting to be written */
+		private long position;
+
+		/**
+		 * Constructor for the output
+		 * 
+		 * @param out the new file
+		 * @param in  the old file, or null if there is none
+		 */
+		BlockOutput(WritableByteChannel out, FileChannel in) {
+			this.out = out;
+			this.in = in;
+		}
+
+		/**
+		 * Gives the buffer rows are appended to.
+		 * 
+		 * @return the buffered rows
+		 */
+		StringBuilder rows() {
+			return rows;
+		}
+
+		/**
+		 * Adds a range of the old file, to be copied after everything before it and
+		 * together with the range before it if they meet.
+		 * 
+		 * @param start first byte of the range
+		 * @param end   byte after the range
+		 * @throws IOException if the file cannot be written to
+		 */
+		void copy(long start, long end) throws IOException {
+			drain(0);
+			if (copyEnd != start) {
+				flushCopy();
+				copyStart = start;
+			}
+			copyEnd = end;
+		}
+
+		/**
+		 * Gives the number of bytes written so far, counting those waiting.
+		 * 
+		 * @return the position in the new file
+		 * @throws IOException if the file cannot be written to
+		 */
+		long position() throws IOException {
+			drain(0);
+			return position + copyEnd - copyStart;
+		}
+
+		/**
+		 * Encodes the buffered rows once there are at least the given number of
+		 * characters, after copying the range of the old file before them, and
+		 * empties the buffer.
+		 * 
+		 * @param limit fewest characters worth encoding
+		 * @throws IOException if the file cannot be written to
+		 */
+		void drain(int limit) throws IOException {
+			int length = rows.length();
+			if (length < limit || length == 0) {
+				return;
+			}
+			flushCopy();
+			if (length > chars.length) {
+				chars = new char[length];
+			}
+			rows.getChars(0, length, chars, 0);
+			rows.setLength(0);
+			CharBuffer text = CharBuffer.wrap(chars, 0, length);
+			while (true) {
+				int before = bytes.position();
+				CoderResult result = encoder.encode(text, bytes, true);
+				position += bytes.position() - before;
+				if (!result.isOverflow()) {
+					break;
+				}
+				writeBytes();
+			}
+			encoder.reset();
+		}
+
+		/**
+		 * Writes everything still waiting.
+		 * 
+		 * @throws IOException if the file cannot be written to
+		 */
+		void finish() throws IOException {
+			drain(0);
+			flushCopy();
+			writeBytes();
+		}
+
+		/**
+		 * Private helper method that copies the waiting range of the old file, if
+		 * any, after writing the encoded rows before it
+		 * 
+		 * @throws IOException if a file cannot be read or written
+		 */
+		private void flushCopy() throws IOException {
+			if (copyStart == copyEnd) {
+				return;
+			}
+			writeBytes();
+			while (copyStart < copyEnd) {
+				long copied = in.transferTo(copyStart, copyEnd - copyStart, out);
+				if (copied <= 0) {
+					throw new IOException("old file changed");
+				}
+				copyStart += copied;
+				position += copied;
+			}
+			copyStart = 0;
+			copyEnd = 0;
+		}
+
+		/**
+		 * Private helper method that writes the encoded rows
+		 * 
+		 * @throws IOException if the file cannot be written to
+		 */
+		private void writeBytes() throws IOException {
+			bytes.flip();
+			while (bytes.hasRemaining()) {
+				out.write(bytes);
+			}
+			bytes.clear();
+		}
+	}
 }
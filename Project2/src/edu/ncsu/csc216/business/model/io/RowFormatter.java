@@ -0,0 +1,402 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import java.time.LocalDate;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.ConferenceRoom;
+import edu.ncsu.csc216.business.model.properties.HotelSuite;
+import edu.ncsu.csc216.business.model.properties.Office;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+import edu.ncsu.csc216.business.model.stakeholders.Client;
+
+/**
+ * Formats the fixed width rows used by the listings and the rental data files.
+ * Every row is appended straight into a StringBuilder supplied by the caller,
+ * so a caller that reuses its builder formats rows without any temporary
+ * Strings. The column layout is fixed:
+ *
+ * <pre>
+ * unit:        Office:            1-28 | 100  Unavailable
+ * client row:  000607 | 2020-02-01 to 2020-06-30 |   6 | Office:            5-10
+ * unit row:    000607 | 2020-02-01 to 2020-06-30 |   6 | James Tetterton (jc1012)
+ * client:      James Tetterton (jc1012)
+ * </pre>
+ *
+ * @author Anton
+ */
+public class RowFormatter {
+
+	/** Width of the confirmation number column */
+	private static final int CONF_WIDTH = 6;
+
+	/** Width of the kind label in front of a location */
+	private static final int LABEL_WIDTH = 16;
+
+	/** Width of the location column */
+	private static final int LOCATION_WIDTH = 7;
+
+	/** Width of the occupants and capacity columns */
+	private static final int COUNT_WIDTH = 3;
+
+	/** Width of the occupants and unit column of a client row */
+	private static final int CLIENT_TAIL_WIDTH = 29;
+
+	/** Separator between columns */
+	private static final String SEPARATOR = " | ";
+
+	/** Notation added to rental units that are not in service */
+	private static final String UNAVAILABLE = "  Unavailable";
+
+	/** Builder reused by each thread for the String returning methods */
+	private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(80));
+
+	/**
+	 * Constructor is private, only static methods are provided
+	 */
+	private RowFormatter() {
+	}
+
+	/**
+	 * Appends the description of a rental unit, ex: Office: 1-28 | 100
+	 *
+	 * @param sb   builder being appended to
+	 * @param unit the rental unit
+	 * @return the builder
+	 */
+	public static StringBuilder appendUnit(StringBuilder sb, RentalUnit unit) {
+		return appendUnit(sb, unit, unit.isInService());
+	}
+
+	/**
+	 * Appends a rental unit as a row of the list of rental units, as it is
+	 * listed while in or out of service
+	 *
+	 * @param sb        builder being appended to
+	 * @param unit      the rental unit
+	 * @param inService true for the row of the unit in service
+	 * @return the builder
+	 */
+	public static StringBuilder appendUnit(StringBuilder sb, RentalUnit unit, boolean inService) {
+		appendUnitTag(sb, unit);
+		sb.append(SEPARATOR);
+		appendPadded(sb, unit.getCapacity(), COUNT_WIDTH);
+		if (!inService) {
+			sb.append(UNAVAILABLE);
+		}
+		return sb;
+	}
+
+	/**
+	 * Appends a lease as a row of its client's list of leases
+	 *
+	 * @param sb    builder being appended to
+	 * @param lease the lease
+	 * @return the builder
+	 */
+	public static StringBuilder appendClientRow(StringBuilder sb, Lease lease) {
+		return appendClientRow(sb, lease.getConfirmationNumber(), lease.getStartDay(), lease.getEndDay(),
+				lease.getNumOccupants(), lease.getProperty());
+	}
+
+	/**
+	 * Appends a lease, given by its values, as a row of its client's list of
+	 * leases
+	 *
+	 * @param sb                 builder being appended to
+	 * @param confirmationNumber confirmation number of the lease
+	 * @param startDay           first day of the lease, in days since 1970-01-01
+	 * @param endDay             last day of the lease, in days since 1970-01-01
+	 * @param occupants          number of occupants
+	 * @param unit               the leased rental unit
+	 * @return the builder
+	 */
+	public static StringBuilder appendClientRow(StringBuilder sb, int confirmationNumber, int startDay, int endDay,
+			int occupants, RentalUnit unit) {
+		appendConfirmationNumber(sb, confirmationNumber);
+		sb.append(SEPARATOR);
+		appendDate(sb, startDay);
+		sb.append(" to ");
+		appendDate(sb, endDay);
+		sb.append(" |");
+		// the occupants and the unit are right justified together
+		int tail = digits(occupants) + SEPARATOR.length() + LABEL_WIDTH + LOCATION_WIDTH;
+		appendSpaces(sb, 1 + CLIENT_TAIL_WIDTH - tail);
+		sb.append(occupants).append(SEPARATOR);
+		return appendUnitTag(sb, unit);
+	}
+
+	/**
+	 * Appends a lease as a row of its rental unit's list of leases
+	 *
+	 * @param sb    builder being appended to
+	 * @param lease the lease
+	 * @return the builder
+	 */
+	public static StringBuilder appendUnitRow(StringBuilder sb, Lease lease) {
+		appendLeasePrefix(sb, lease);
+		sb.append(SEPARATOR);
+		appendPadded(sb, lease.getNumOccupants(), COUNT_WIDTH);
+		sb.append(SEPARATOR);
+		return appendClient(sb, lease.getClient());
+	}
+
+	/**
+	 * Appends a client, ex: James Tetterton (jc1012)
+	 *
+	 * @param sb     builder being appended to
+	 * @param client the client
+	 * @return the builder
+	 */
+	public static StringBuilder appendClient(StringBuilder sb, Client client) {
+		return sb.append(client.getName()).append(" (").append(client.getId()).append(')');
+	}
+
+	/**
+	 * Appends the kind and location of a rental unit, ex: Conference Room: 20-15
+	 *
+	 * @param sb   builder being appended to
+	 * @param unit the rental unit
+	 * @return the builder
+	 */
+	public static StringBuilder appendUnitTag(StringBuilder sb, RentalUnit unit) {
+		String label = kindLabel(unit);
+		sb.append(label);
+		appendSpaces(sb, LABEL_WIDTH - label.length());
+		appendSpaces(sb, LOCATION_WIDTH - digits(unit.getFloor()) - 1 - digits(unit.getRoom()));
+		return sb.append(unit.getFloor()).append('-').append(unit.getRoom());
+	}
+
+	/**
+	 * Appends a confirmation number zero padded to six digits
+	 *
+	 * @param sb     builder being appended to
+	 * @param number the confirmation number
+	 * @return the builder
+	 */
+	public static StringBuilder appendConfirmationNumber(StringBuilder sb, int number) {
+		for (int i = digits(number); i < CONF_WIDTH; i++) {
+			sb.append('0');
+		}
+		return sb.append(number);
+	}
+
+	/**
+	 * Appends a date in the format yyyy-mm-dd
+	 *
+	 * @param sb   builder being appended to
+	 * @param date the date
+	 * @return the builder
+	 */
+	public static StringBuilder appendDate(StringBuilder sb, LocalDate date) {
+		return appendDate(sb, date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+	}
+
+	/**
+	 * Appends a date given in days since 1970-01-01 in the format yyyy-mm-dd,
+	 * without creating a LocalDate.
+	 *
+	 * @param sb       builder being appended to
+	 * @param epochDay the date in days since 1970-01-01
+	 * @return the builder
+	 */
+	public static StringBuilder appendDate(StringBuilder sb, int epochDay) {
+		// civil calendar from day count, using 400 year eras starting March 1st
+		int z = epochDay + 719468;
+		int era = (z >= 0 ? z : z - 146096) / 146097;
+		int dayOfEra = z - era * 146097;
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int shiftedMonth = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+		int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+		int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return appendDate(sb, year, month, day);
+	}
+
+	/**
+	 * Formats a rental unit description as a String
+	 *
+	 * @param unit the rental unit
+	 * @return the description
+	 */
+	public static String unit(RentalUnit unit) {
+		return appendUnit(builder(), unit).toString();
+	}
+
+	/**
+	 * Formats a rental unit as a row of the list of rental units, as it is listed
+	 * while in or out of service
+	 *
+	 * @param unit      the rental unit
+	 * @param inService true for the row of the unit in service
+	 * @return the row
+	 */
+	public static String unit(RentalUnit unit, boolean inService) {
+		return appendUnit(builder(), unit, inService).toString();
+	}
+
+	/**
+	 * Formats a lease as a row of its client's list of leases
+	 *
+	 * @param lease the lease
+	 * @return the row
+	 */
+	public static String clientRow(Lease lease) {
+		return appendClientRow(builder(), lease).toString();
+	}
+
+	/**
+	 * Formats a lease as a row of its rental unit's list of leases
+	 *
+	 * @param lease the lease
+	 * @return the row
+	 */
+	public static String unitRow(Lease lease) {
+		return appendUnitRow(builder(), lease).toString();
+	}
+
+	/**
+	 * Formats a client as a String
+	 *
+	 * @param client the client
+	 * @return the client as name (id)
+	 */
+	public static String client(Client client) {
+		return appendClient(builder(), client).toString();
+	}
+
+	/**
+	 * Formats the kind and location of a rental unit as a String
+	 *
+	 * @param unit the rental unit
+	 * @return the kind and location
+	 */
+	public static String unitTag(RentalUnit unit) {
+		return appendUnitTag(builder(), unit).toString();
+	}
+
+	/**
+	 * Formats a confirmation number zero padded to six digits
+	 *
+	 * @param number the confirmation number
+	 * @return the padded confirmation number
+	 */
+	public static String confirmationNumber(int number) {
+		return appendConfirmationNumber(builder(), number).toString();
+	}
+
+	/**
+	 * Gives the label written in front of the location of a rental unit
+	 *
+	 * @param unit the rental unit
+	 * @return the kind label, including the colon
+	 */
+	public static String kindLabel(RentalUnit unit) {
+		if (unit instanceof Office) {
+			return "Office:";
+		} else if (unit instanceof HotelSuite) {
+			return "Hotel Suite:";
+		} else if (unit instanceof ConferenceRoom) {
+			return "Conference Room:";
+		}
+		return "";
+	}
+
+	/**
+	 * Private helper method that appends the confirmation number and dates of a
+	 * lease
+	 *
+	 * @param sb    builder being appended to
+	 * @param lease the lease
+	 */
+	private static void appendLeasePrefix(StringBuilder sb, Lease lease) {
+		appendConfirmationNumber(sb, lease.getConfirmationNumber());
+		sb.append(SEPARATOR);
+		appendDate(sb, lease.getStartDay());
+		sb.append(" to ");
+		appendDate(sb, lease.getEndDay());
+	}
+
+	/**
+	 * Private helper method that appends a four digit year, month and day
+	 *
+	 * @param sb    builder being appended to
+	 * @param year  the year
+	 * @param month the month of the year
+	 * @param day   the day of the month
+	 * @return the builder
+	 */
+	private static StringBuilder appendDate(StringBuilder sb, int year, int month, int day) {
+		sb.append(year).append('-');
+		appendTwoDigits(sb, month);
+		sb.append('-');
+		return appendTwoDigits(sb, day);
+	}
+
+	/**
+	 * Private helper method that appends a number right justified in a column
+	 *
+	 * @param sb     builder being appended to
+	 * @param number the number
+	 * @param width  width of the column
+	 */
+	private static void appendPadded(StringBuilder sb, int number, int width) {
+		appendSpaces(sb, width - digits(number));
+		sb.append(number);
+	}
+
+	/**
+	 * Private helper method that appends a number below 100 as two digits
+	 *
+	 * @param sb     builder being appended to
+	 * @param number the number
+	 * @return the builder
+	 */
+	private static StringBuilder appendTwoDigits(StringBuilder sb, int number) {
+		return sb.append((char) ('0' + number / 10)).append((char) ('0' + number % 10));
+	}
+
+	/**
+	 * Private helper method that appends the given number of spaces
+	 *
+	 * @param sb    builder being appended to
+	 * @param count number of spaces, nothing is appended if not positive
+	 */
+	private static void appendSpaces(StringBuilder sb, int count) {
+		for (int i = 0; i < count; i++) {
+			sb.append(' ');
+		}
+	}
+
+	/**
+	 * Private helper method that counts the characters of a number
+	 *
+	 * @param number the number
+	 * @return number of characters needed to write the number
+	 */
+	private static int digits(int number) {
+		if (number < 0) {
+			return 1 + digits(-number);
+		}
+		int count = 1;
+		while (number >= 10) {
+			number /= 10;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Private helper method that gives this thread's cleared builder
+	 *
+	 * @return empty builder
+	 */
+	private static StringBuilder builder() {
+		StringBuilder sb = BUILDER.get();
+		sb.setLength(0);
+		return sb;
+	}
+}
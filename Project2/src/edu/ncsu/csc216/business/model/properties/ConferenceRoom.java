@@ -4,11 +4,9 @@
 package edu.ncsu.csc216.business.model.properties;
 
 import java.time.LocalDate;
-import java.time.Period;
 
 import edu.ncsu.csc216.business.list_utils.SortedList;
 import edu.ncsu.csc216.business.model.contracts.Lease;
-import edu.ncsu.csc216.business.model.stakeholders.Client;
 
 /**
  * Stores data and methods for a Conference room. A child class of RentalUnit.
@@ -24,6 +22,9 @@ public class ConferenceRoom extends RentalUnit {
 	/** Maximum allowed duration for conference room reservation */
 	public static final int MAX_DURATION = 6;
 
+	/** Days of the calendar held by a lease */
+	private final DayBitmap booked = new DayBitmap();
+
 	/**
 	 * Constructor for Conference Room
 	 * 
@@ -41,157 +42,112 @@ public class ConferenceRoom extends RentalUnit {
 	}
 
 	/**
-	 * Reserves a lease for this Conference room. And returns the lease that was
-	 * just added
+	 * Computes the last day of a conference room lease, which lasts the given
+	 * number of days including the first.
 	 * 
-	 * @param c             Client that the lease is being reserved for
-	 * @param d             starting date of reservation
-	 * @param leaseDuration duration of reservation in days, weeks, or months
-	 * @param occupants     amount of occupants
-	 * @return The newly created lease
-	 * @throws RentalOutOfServiceException if the rental unit is currently out of
-	 *                                     service and not available for lease.
-	 * @throws RentalDateException         if the start date or computed end dates
-	 *                                     are not valid, which could be from
-	 *                                     conflict with another lease, or dates out
-	 *                                     of range.
-	 * @throws RentalCapacityException     if the rental unit cannot hold the number
-	 *                                     of occupants over the dates of the
-	 *                                     proposed lease.
+	 * @param startDay first day of the lease, in days since 1970-01-01
+	 * @param duration duration of the lease in days
+	 * @return last day of the lease, in days since 1970-01-01
 	 */
 	@Override
-	public Lease reserve(Client c, LocalDate d, int leaseDuration, int occupants)
-			throws RentalOutOfServiceException, RentalDateException, RentalCapacityException {
-		// Checking for exceptions
-		super.checkLeaseConditions(c, d, leaseDuration, occupants); // Throws IllegalArgument and RentalOutOfService
-		LocalDate endD = d.plusDays(leaseDuration - 1);
-		this.checkDates(d, endD); // throw RentalDateException
-		// creates new lease
-		Lease newLease = new Lease(c, this, d, endD, occupants);
-		try {
-			checkLeaseConflict(newLease); // check for conflict with other leases in list throws RentalDateException
-		} catch (RentalDateException e) {
-			Lease.resetConfirmationNumbering(newLease.getConfirmationNumber());
-			throw new RentalDateException();
-		}
-		if (occupants > this.getCapacity()) {
-			throw new RentalCapacityException();
-		}
-		this.addLease(newLease);
-		return newLease;
+	protected int endDayFor(int startDay, int duration) {
+		return startDay + duration - 1;
 	}
 
 	/**
-	 * Finds an existing lease for this conference room and returns its value.
+	 * Checks that no other lease holds any of the days of the new lease and that
+	 * the room can hold the occupants.
 	 * 
-	 * @param confNumber Lease confirmation number
-	 * @param c          Client that the lease is being reserved for
-	 * @param startD     Lease starting date
-	 * @param endD       Lease ending date
-	 * @param occupants  amount of occupants
-	 * @return the lease that was found
-	 * @throws RentalDateException     if the start date or computed end dates are
-	 *                                 not valid, which could be from conflict with
-	 *                                 another lease, dates improper for the given
-	 *                                 type of rental unit, or dates out of range.
-	 * @throws RentalCapacityException if the rental unit cannot hold the number of
-	 *                                 occupants over the dates of the proposed
-	 *                                 lease.
+	 * @param startDay  first day of the lease, in days since 1970-01-01
+	 * @param endDay    last day of the lease, in days since 1970-01-01
+	 * @param occupants amount of occupants
+	 * @return SUCCESS, CONFLICT or OVER_CAPACITY
 	 */
 	@Override
-	public Lease recordExistingLease(int confNumber, Client c, LocalDate startD, LocalDate endD, int occupants)
-			throws RentalDateException, RentalCapacityException {
-		checkDates(startD, endD); // throw RentalDateException
-		Lease newLease = new Lease(confNumber, c, this, startD, endD, occupants);
-		try {
-			checkLeaseConflict(newLease); // check for conflict with other leases in list throws RentalDateException
-		} catch (RentalDateException e) {
-			Lease.resetConfirmationNumbering(newLease.getConfirmationNumber());
-			throw new RentalDateException();
+	protected ReservationStatus checkAvailability(int startDay, int endDay, int occupants) {
+		if (booked.anySet(startDay, endDay)) {
+			return ReservationStatus.CONFLICT;
 		}
 		if (occupants > this.getCapacity()) {
-			throw new RentalCapacityException();
+			return ReservationStatus.OVER_CAPACITY;
 		}
-		this.addLease(newLease);
-		return newLease;
+		return ReservationStatus.SUCCESS;
 	}
 
 	/**
-	 * Removes the conference room from service starting on the given date and
-	 * removes all leases with their start dates on or after the cutoff date
+	 * Marks the days of a lease as held
 	 * 
-	 * @param date starting date of rental unit closure
-	 * @return the list of leases that were removed due to rental unit closure
+	 * @param lease the lease being added
 	 */
-	public SortedList<Lease> removeFromServiceStarting(LocalDate date) {
-		SortedList<Lease> returnList = super.removeFromServiceStarting(date);
-		for (int i = 0; i < myLeases.size(); i++) {
-			// checks for leases with end dates on or after the cutoff date
-			if (myLeases.get(i).getEnd().isAfter(date) || myLeases.get(i).getEnd().isEqual(date)) {
-				myLeases.get(i).setEndDateEarlier(date.minusDays(1)); // sets end date to day before cutoff date
-			}
-		}
-		return returnList;
+	@Override
+	protected void recordOccupancy(Lease lease) {
+		booked.set(lease.getStartDay(), lease.getEndDay());
+	}
+
+	/**
+	 * Marks every day as free
+	 */
+	@Override
+	protected void clearOccupancy() {
+		booked.clear();
 	}
 
 	/**
-	 * Returns the description of this conference room as a String
+	 * Gets the first day of a lease
 	 * 
-	 * @return the Conference room description
+	 * @param lease the lease
+	 * @return the start day
 	 */
-	public String getDescription() {
-		String retStr = this.getFloor() + "-" + this.getRoom() + " | ";
-		retStr = String.format("Conference Room: %9s", retStr);
-		retStr = String.format(retStr + "%3s", this.getCapacity());
-		if (!this.isInService()) {
-			retStr += "  Unavailable";
-		}
-		return retStr;
+	@Override
+	protected int firstSlot(Lease lease) {
+		return lease.getStartDay();
 	}
 
 	/**
-	 * Checks if the dates fall between Jan 1, 2020 - Dec, 31 2029 and checks if the
-	 * start date is before the end date. Also checks that start date and end date
-	 * are not more than 7 days apart. Throws exception if the above conditions are
-	 * not met
+	 * Gets the last day of a lease
 	 * 
-	 * @param startD Start date
-	 * @param endD   End date
-	 * @throws RentalDateException if the above conditions are not met
+	 * @param lease the lease
+	 * @return the end day
 	 */
 	@Override
-	public void checkDates(LocalDate startD, LocalDate endD) throws RentalDateException {
-		super.checkDates(startD, endD);
-		Period interval = Period.between(startD, endD);
-		if (interval.getDays() > MAX_DURATION) {
-			throw new RentalDateException("duration exceeds limit");
-		}
+	protected int lastSlot(Lease lease) {
+		return lease.getEndDay();
 	}
 
 	/**
-	 * Private helper method to check for conflict of a new lease with leases
-	 * already made.
+	 * Removes all leases with their start dates on or after the cutoff date, and
+	 * ends the leases running past it on the day before
 	 * 
-	 * @param newLease new Lease being checked for conflict
-	 * @throws RentalDateException if a conflict exists
+	 * @param date starting date of rental unit closure
+	 * @return the list of leases that were removed due to rental unit closure
 	 */
-	private void checkLeaseConflict(Lease newLease) throws RentalDateException {
+	@Override
+	protected SortedList<Lease> removeLeasesStarting(LocalDate date) {
+		SortedList<Lease> returnList = super.removeLeasesStarting(date);
 		for (int i = 0; i < myLeases.size(); i++) {
-			Lease l = myLeases.get(i);
-			// if starts or end dates are equal or of start date is equal to end date and
-			// vice versa
-			if (l.getStart().isEqual(newLease.getStart()) || l.getEnd().isEqual(newLease.getEnd())
-					|| l.getEnd().isEqual(newLease.getStart()) || l.getStart().isEqual(newLease.getEnd())) {
-				throw new RentalDateException();
-			}
-			// checks if new lease start date is between the old lease start and end dates
-			if (l.getStart().isBefore(newLease.getStart()) && l.getEnd().isAfter(newLease.getStart())) {
-				throw new RentalDateException();
-			}
-			// checks if new lease end date is between the old lease start and end dates
-			if (l.getStart().isBefore(newLease.getEnd()) && l.getEnd().isAfter(newLease.getEnd())) {
-				throw new RentalDateException();
+			// checks for leases with end dates on or after the cutoff date
+			if (myLeases.get(i).getEndDay() >= date.toEpochDay()) {
+				myLeases.get(i).setEndDateEarlier(date.minusDays(1)); // sets end date to day before cutoff date
 			}
 		}
+		return returnList;
+	}
+
+	/**
+	 * Checks if the days fall between Jan 1, 2020 - Dec, 31 2029, that the start
+	 * day is not after the end day, and that the lease is no more than 7 days
+	 * long.
+	 * 
+	 * @param startDay Start day, in days since 1970-01-01
+	 * @param endDay   End day, in days since 1970-01-01
+	 * @return SUCCESS, or the rule the days break
+	 */
+	@Override
+	protected ReservationStatus checkDays(int startDay, int endDay) {
+		ReservationStatus status = super.checkDays(startDay, endDay);
+		if (status == ReservationStatus.SUCCESS && endDay - startDay > MAX_DURATION) {
+			status = ReservationStatus.DURATION_LIMIT;
+		}
+		return status;
 	}
 }
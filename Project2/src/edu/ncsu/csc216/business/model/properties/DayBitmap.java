@@ -0,0 +1,77 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.properties;
+
+import java.util.Arrays;
+
+/**
+ * One bit for each day of the rental calendar, set when the day is booked.
+ * Lets a rental unit that holds one lease at a time test a range of days for a
+ * conflict by looking at a few words instead of walking its list of leases.
+ * Days outside of the calendar are ignored.
+ *
+ * @author Anton
+ */
+final class DayBitmap {
+
+	/** Number of days in the calendar */
+	private static final int DAYS = RentalCalendar.LAST_DAY - RentalCalendar.FIRST_DAY + 1;
+
+	/** The bits, day FIRST_DAY + i is bit i */
+	private final long[] words = new long[(DAYS + 63) >>> 6];
+
+	/**
+	 * Marks the days from the first to the last given day, both included, as
+	 * booked.
+	 *
+	 * @param fromDay first day, in days since 1970-01-01
+	 * @param toDay   last day, in days since 1970-01-01
+	 */
+	void set(int fromDay, int toDay) {
+		int from = Math.max(fromDay - RentalCalendar.FIRST_DAY, 0);
+		int to = Math.min(toDay - RentalCalendar.FIRST_DAY, DAYS - 1);
+		for (int i = from; i <= to; i++) {
+			words[i >>> 6] |= 1L << i;
+		}
+	}
+
+	/**
+	 * Determines if any of the days from the first to the last given day, both
+	 * included, are booked.
+	 *
+	 * @param fromDay first day, in days since 1970-01-01
+	 * @param toDay   last day, in days since 1970-01-01
+	 * @return true if any day in the range is booked
+	 */
+	boolean anySet(int fromDay, int toDay) {
+		int from = Math.max(fromDay - RentalCalendar.FIRST_DAY, 0);
+		int to = Math.min(toDay - RentalCalendar.FIRST_DAY, DAYS - 1);
+		if (from > to) {
+			return false;
+		}
+		int first = from >>> 6;
+		int last = to >>> 6;
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> (63 - (to & 63));
+		if (first == last) {
+			return (words[first] & firstMask & lastMask) != 0;
+		}
+		if ((words[first] & firstMask) != 0 || (words[last] & lastMask) != 0) {
+			return true;
+		}
+		for (int w = first + 1; w < last; w++) {
+			if (words[w] != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Marks every day as free
+	 */
+	void clear() {
+		Arrays.fill(words, 0L);
+	}
+}
@@ -10,7 +10,6 @@ import java.time.temporal.TemporalAdjusters;
 import edu.ncsu.csc216.business.list_utils.SortedLinkedListWithIterator;
 import edu.ncsu.csc216.business.list_utils.SortedList;
 import edu.ncsu.csc216.business.model.contracts.Lease;
-import edu.ncsu.csc216.business.model.stakeholders.Client;
 
 /**
  * Stores data and methods for a Hotel Suite.
@@ -23,6 +22,9 @@ public class HotelSuite extends RentalUnit {
 	/** The maximum capacity allowed for the Hotel Room */
 	public static final int MAX_CAPACITY = 2;
 
+	/** Nights of the calendar held by a lease, a lease holds every day but its last */
+	private final DayBitmap booked = new DayBitmap();
+
 	/**
 	 * Constructor for hotel suite without a provided capacity
 	 * 
@@ -47,125 +49,96 @@ public class HotelSuite extends RentalUnit {
 	}
 
 	/**
-	 * Reserves a lease for this hotel suite
+	 * Computes the last day of a hotel suite lease, which ends on the Sunday the
+	 * given number of weeks after it starts.
 	 * 
-	 * @param c             Client that the lease is being reserved for
-	 * @param d             starting date of reservation
-	 * @param leaseDuration duration of reservation in days, weeks, or months
-	 * @param occupants     amount of occupants
-	 * @return The newly created lease
-	 * @throws RentalOutOfServiceException if the rental unit is currently out of
-	 *                                     service and not available for lease.
-	 * @throws RentalDateException         if the start date or computed end dates
-	 *                                     are not valid, which could be from
-	 *                                     conflict with another lease, dates the
-	 *                                     start and end dates are not Sundays or if
-	 *                                     the non-Sunday dates in the lease overlap
-	 *                                     with another lease, or dates out of
-	 *                                     range.
-	 * @throws RentalCapacityException     if the rental unit cannot hold the number
-	 *                                     of occupants over the dates of the
-	 *                                     proposed lease.
+	 * @param startDay first day of the lease, in days since 1970-01-01
+	 * @param duration duration of the lease in weeks
+	 * @return last day of the lease, in days since 1970-01-01
 	 */
 	@Override
-	public Lease reserve(Client c, LocalDate d, int leaseDuration, int occupants)
-			throws RentalOutOfServiceException, RentalDateException, RentalCapacityException {
-		// Checking for exceptions
-		super.checkLeaseConditions(c, d, leaseDuration, occupants); // Throws IllegalArgument and RentalOutOfService
-		LocalDate endD = d.plusWeeks(leaseDuration);
-		this.checkDates(d, endD); // throw RentalDateException
-		// creates new lease
-		Lease newLease = new Lease(c, this, d, endD, occupants);
-		try {
-			checkLeaseConflict(newLease); // check for conflict with other leases in list throws RentalDateException
-		} catch (RentalDateException e) {
-			Lease.resetConfirmationNumbering(newLease.getConfirmationNumber());
-			throw new RentalDateException();
-		}
-		if (occupants > this.getCapacity()) {
-			throw new RentalCapacityException();
-		}
-		this.addLease(newLease);
-		return newLease;
+	protected int endDayFor(int startDay, int duration) {
+		return startDay + 7 * duration;
 	}
 
 	/**
-	 * Finds an existing lease for this hotel suite and returns its value.
+	 * Checks that no other lease holds any of the nights of the new lease and that
+	 * the suite can hold the occupants. A lease may start on the Sunday another
+	 * lease ends.
 	 * 
-	 * @param confNumber Lease confirmation number
-	 * @param c          Client that the lease is being reserved for
-	 * @param startD     Lease starting date
-	 * @param endD       Lease ending date
-	 * @param occupants  amount of occupants
-	 * @return the lease that was found
-	 * @throws RentalDateException     if the start date or computed end dates are
-	 *                                 not valid, which could be from conflict with
-	 *                                 another lease, dates improper for the given
-	 *                                 type of rental unit, or dates out of range.
-	 * @throws RentalCapacityException if the rental unit cannot hold the number of
-	 *                                 occupants over the dates of the proposed
-	 *                                 lease.
+	 * @param startDay  first day of the lease, in days since 1970-01-01
+	 * @param endDay    last day of the lease, in days since 1970-01-01
+	 * @param occupants amount of occupants
+	 * @return SUCCESS, CONFLICT or OVER_CAPACITY
 	 */
 	@Override
-	public Lease recordExistingLease(int confNumber, Client c, LocalDate startD, LocalDate endD, int occupants)
-			throws RentalDateException, RentalCapacityException {
-		checkDates(startD, endD); // throw RentalDateException
-		Lease newLease = new Lease(confNumber, c, this, startD, endD, occupants);
-		try {
-			checkLeaseConflict(newLease); // check for conflict with other leases in list throws RentalDateException
-		} catch (RentalDateException e) {
-			Lease.resetConfirmationNumbering(newLease.getConfirmationNumber());
-			throw new RentalDateException();
+	protected ReservationStatus checkAvailability(int startDay, int endDay, int occupants) {
+		if (booked.anySet(startDay, endDay - 1)) {
+			return ReservationStatus.CONFLICT;
 		}
 		if (occupants > this.getCapacity()) {
-			throw new RentalCapacityException();
+			return ReservationStatus.OVER_CAPACITY;
 		}
-		this.addLease(newLease);
-		return newLease;
+		return ReservationStatus.SUCCESS;
 	}
 
 	/**
-	 * Private helper method to check for conflict of a new lease with leases
-	 * already made.
+	 * Marks the nights of a lease as held
 	 * 
-	 * @param newLease new Lease being checked for conflict
-	 * @throws RentalDateException if a conflict exists
+	 * @param lease the lease being added
 	 */
-	private void checkLeaseConflict(Lease newLease) throws RentalDateException {
-		for (int i = 0; i < myLeases.size(); i++) {
-			Lease l = myLeases.get(i);
-			// if starts or end dates are equal or of start date is equal to end date and
-			// vice versa
-			if (l.getStart().isEqual(newLease.getStart()) || l.getEnd().isEqual(newLease.getEnd())) {
-				throw new RentalDateException();
-			}
-			// checks if new lease start date is between the old lease start and end dates
-			if (l.getStart().isBefore(newLease.getStart()) && l.getEnd().isAfter(newLease.getStart())) {
-				throw new RentalDateException();
-			}
-			// checks if new lease end date is between the old lease start and end dates
-			if (l.getStart().isBefore(newLease.getEnd()) && l.getEnd().isAfter(newLease.getEnd())) {
-				throw new RentalDateException();
-			}
-		}
+	@Override
+	protected void recordOccupancy(Lease lease) {
+		booked.set(lease.getStartDay(), lease.getEndDay() - 1);
+	}
+
+	/**
+	 * Marks every night as free
+	 */
+	@Override
+	protected void clearOccupancy() {
+		booked.clear();
+	}
+
+	/**
+	 * Gets the first night of a lease
+	 * 
+	 * @param lease the lease
+	 * @return the start day
+	 */
+	@Override
+	protected int firstSlot(Lease lease) {
+		return lease.getStartDay();
+	}
+
+	/**
+	 * Gets the last night of a lease, the night before it ends
+	 * 
+	 * @param lease the lease
+	 * @return the day before the end day
+	 */
+	@Override
+	protected int lastSlot(Lease lease) {
+		return lease.getEndDay() - 1;
 	}
 
 	/**
-	 * Removes the hotel suite from service starting on the given date and removes
-	 * all leases with their start dates on or after the cutoff date
+	 * Removes all leases with their start dates on or after the cutoff date, moved
+	 * up to a Sunday, and ends the leases running past it on the Sunday before
 	 * 
 	 * @param date starting date of rental unit closure
 	 * @return the list of leases that were removed due to rental unit closure
 	 */
-	public SortedList<Lease> removeFromServiceStarting(LocalDate date) {
+	@Override
+	protected SortedList<Lease> removeLeasesStarting(LocalDate date) {
 		SortedList<Lease> returnList = new SortedLinkedListWithIterator<Lease>();
 		if (date.getDayOfWeek().equals(DayOfWeek.SUNDAY)) {
-			returnList = super.removeFromServiceStarting(date);
+			returnList = super.removeLeasesStarting(date);
 		} else {
-			returnList = super.removeFromServiceStarting(date.with(TemporalAdjusters.next(DayOfWeek.SUNDAY)));
+			returnList = super.removeLeasesStarting(date.with(TemporalAdjusters.next(DayOfWeek.SUNDAY)));
 			for (int i = 0; i < myLeases.size(); i++) {
 				// checks for leases with end dates on or after the cutoff date
-				if (myLeases.get(i).getEnd().isAfter(date)) {
+				if (myLeases.get(i).getEndDay() > date.toEpochDay()) {
 					// sets end date to Sunday before cutoff date
 					myLeases.get(i).setEndDateEarlier(date.with(TemporalAdjusters.previous(DayOfWeek.SUNDAY)));
 					// checks dates and remove lease if it falls on same day
@@ -173,46 +146,35 @@ public class HotelSuite extends RentalUnit {
 						checkDates(myLeases.get(i).getStart(), myLeases.get(i).getEnd());
 					} catch (RentalDateException e) {
 						myLeases.remove(i);
+						leasesChanged();
 					}
 				}
 			}
 		}
-		this.takeOutOfService();
 		return returnList;
 	}
 
 	/**
-	 * Returns the description of this hotel suite as a String
-	 * 
-	 * @return the hotel suite description
-	 */
-	public String getDescription() {
-		String retStr = this.getFloor() + "-" + this.getRoom() + " | ";
-		retStr = String.format("Hotel Suite: %13s", retStr);
-		retStr = String.format(retStr + "%3s", this.getCapacity());
-		if (!this.isInService()) {
-			retStr += "  Unavailable";
-		}
-		return retStr;
-	}
-
-	/**
-	 * Checks if the dates fall between Jan 1, 2020 - Dec, 31 2029 and checks if the
-	 * start date is before the end date. Throws exception if the above conditions
-	 * are not met
+	 * Checks if the days fall between Jan 1, 2020 - Dec, 31 2029, that the start
+	 * day is not after the end day, that both days are Sundays and that the lease
+	 * does not start and end on the same day.
 	 * 
-	 * @param startD Start date
-	 * @param endD   End date
-	 * @throws RentalDateException if the above conditions are not met
+	 * @param startDay Start day, in days since 1970-01-01
+	 * @param endDay   End day, in days since 1970-01-01
+	 * @return SUCCESS, or the rule the days break
 	 */
 	@Override
-	public void checkDates(LocalDate startD, LocalDate endD) throws RentalDateException {
-		super.checkDates(startD, endD);
-		if (startD.getDayOfWeek() != DayOfWeek.SUNDAY || endD.getDayOfWeek() != DayOfWeek.SUNDAY) {
-			throw new RentalDateException("invalid day of week");
+	protected ReservationStatus checkDays(int startDay, int endDay) {
+		ReservationStatus status = super.checkDays(startDay, endDay);
+		if (status != ReservationStatus.SUCCESS) {
+			return status;
+		}
+		if (!RentalCalendar.isSunday(startDay) || !RentalCalendar.isSunday(endDay)) {
+			return ReservationStatus.NOT_SUNDAY;
 		}
-		if (startD.isEqual(endD)) {
-			throw new RentalDateException("lease cannot start and end on same day");
+		if (startDay == endDay) {
+			return ReservationStatus.SAME_DAY;
 		}
+		return ReservationStatus.SUCCESS;
 	}
 }
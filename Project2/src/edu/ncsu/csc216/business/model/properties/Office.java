@@ -4,13 +4,11 @@
 package edu.ncsu.csc216.business.model.properties;
 
 import java.time.LocalDate;
-import java.time.Month;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
 
 import edu.ncsu.csc216.business.list_utils.SortedList;
 import edu.ncsu.csc216.business.model.contracts.Lease;
-import edu.ncsu.csc216.business.model.stakeholders.Client;
 
 /**
  * Stores data and methods for an office rental. Child class of RentalUnit.
@@ -47,87 +45,100 @@ public class Office extends RentalUnit {
 	}
 
 	/**
-	 * Reserves a lease for this office
+	 * Computes the last day of an office lease, which ends the day before the same
+	 * day of the month the given number of months later.
 	 * 
-	 * @param c             Client that the lease is being reserved for
-	 * @param d             starting date of reservation
-	 * @param leaseDuration duration of reservation in days, weeks, or months
-	 * @param occupants     amount of occupants
-	 * @return The newly created lease
-	 * @throws RentalOutOfServiceException if the rental unit is currently out of
-	 *                                     service and not available for lease.
-	 * @throws RentalDateException         if the start date or computed end dates
-	 *                                     are not valid, which could be from
-	 *                                     conflict with another lease or the start
-	 *                                     date is not the first day of the month
-	 *                                     and the end date is not the last day of a
-	 *                                     month, or dates out of range.
-	 * @throws RentalCapacityException     if the rental unit cannot hold the number
-	 *                                     of occupants over the dates of the
-	 *                                     proposed lease.
+	 * @param startDay first day of the lease, in days since 1970-01-01
+	 * @param duration duration of the lease in months
+	 * @return last day of the lease, in days since 1970-01-01
 	 */
 	@Override
-	public Lease reserve(Client c, LocalDate d, int leaseDuration, int occupants)
-			throws RentalOutOfServiceException, RentalDateException, RentalCapacityException {
-		// Checking for exceptions
-		super.checkLeaseConditions(c, d, leaseDuration, occupants); // Throws IllegalArgument and RentalOutOfService
-		LocalDate endD = d.plusMonths(leaseDuration);
-		endD = endD.minusDays(1);
-		this.checkDates(d, endD); // throw RentalDateException
-		// creates new lease
-		Lease newLease = new Lease(c, this, d, endD, occupants);
-		// add occupancy to calendar and check for capacity breach
-		int duration = leaseDuration;
-		LocalDate date = d;
-		for (int i = 0; i < duration; i++) {
-			if (occupants > remainingCapacityFor(date)) {
-				throw new RentalCapacityException();
-			}
-			int year = date.getYear() - 2020;
-			int month = date.getMonthValue() - 1;
-			calendar[year][month] += occupants;
-			date = date.plusMonths(1);
+	protected int endDayFor(int startDay, int duration) {
+		if (!RentalCalendar.isInRange(startDay)) {
+			return startDay; // rejected by checkDays either way
+		}
+		int month = RentalCalendar.monthIndex(startDay);
+		if (duration > RentalCalendar.MONTHS - month) {
+			return RentalCalendar.LAST_DAY + 1; // ends after the calendar
 		}
-		this.addLease(newLease);
-		return newLease;
+		int dayOfMonth = startDay - RentalCalendar.monthStart(month);
+		return RentalCalendar.monthStart(month + duration) + dayOfMonth - 1;
 	}
 
 	/**
-	 * Finds an existing lease for this office and returns its value.
+	 * Checks that every month of the lease has room for the occupants.
 	 * 
-	 * @param confNumber Lease confirmation number
-	 * @param c          Client that the lease is being reserved for
-	 * @param startD     Lease starting date
-	 * @param endD       Lease ending date
-	 * @param occupants  amount of occupants
-	 * @return the lease that was found
-	 * @throws RentalDateException     if the start date or computed end dates are
-	 *                                 not valid, which could be from conflict with
-	 *                                 another lease, dates improper for the given
-	 *                                 type of rental unit, or dates out of range.
-	 * @throws RentalCapacityException if the rental unit cannot hold the number of
-	 *                                 occupants over the dates of the proposed
-	 *                                 lease.
+	 * @param startDay  first day of the lease, in days since 1970-01-01
+	 * @param endDay    last day of the lease, in days since 1970-01-01
+	 * @param occupants amount of occupants
+	 * @return SUCCESS or OVER_CAPACITY
 	 */
 	@Override
-	public Lease recordExistingLease(int confNumber, Client c, LocalDate startD, LocalDate endD, int occupants)
-			throws RentalDateException, RentalCapacityException {
-		checkDates(startD, endD); // throw RentalDateException
-		Lease newLease = new Lease(confNumber, c, this, startD, endD, occupants);
-		// add occupancy to calendar and check for capacity breach
-		int duration = getMonthsDuration(startD, endD);
-		LocalDate date = startD;
-		for (int i = 0; i < duration; i++) {
-			if (occupants > remainingCapacityFor(date)) {
-				throw new RentalCapacityException();
+	protected ReservationStatus checkAvailability(int startDay, int endDay, int occupants) {
+		int last = RentalCalendar.monthIndex(endDay);
+		for (int m = RentalCalendar.monthIndex(startDay); m <= last; m++) {
+			if (occupants > this.getCapacity() - calendar[m / CAL_COLS][m % CAL_COLS]) {
+				return ReservationStatus.OVER_CAPACITY;
 			}
-			int year = date.getYear() - 2020;
-			int month = date.getMonthValue() - 1;
-			calendar[year][month] += occupants;
-			date = date.plusMonths(1);
 		}
-		this.addLease(newLease);
-		return newLease;
+		return ReservationStatus.SUCCESS;
+	}
+
+	/**
+	 * Adds the occupants of a new lease to every month of the office calendar it
+	 * covers.
+	 * 
+	 * @param lease the lease being added
+	 */
+	@Override
+	protected void recordOccupancy(Lease lease) {
+		if (!RentalCalendar.isInRange(lease.getStartDay()) || !RentalCalendar.isInRange(lease.getEndDay())) {
+			return;
+		}
+		int last = RentalCalendar.monthIndex(lease.getEndDay());
+		for (int m = RentalCalendar.monthIndex(lease.getStartDay()); m <= last; m++) {
+			calendar[m / CAL_COLS][m % CAL_COLS] += lease.getNumOccupants();
+		}
+	}
+
+	/**
+	 * Empties the office calendar
+	 */
+	@Override
+	protected void clearOccupancy() {
+		calendar = new int[CAL_ROWS][CAL_COLS];
+	}
+
+	/**
+	 * Gets the first month of the office calendar a lease covers
+	 * 
+	 * @param lease the lease
+	 * @return index of the month
+	 */
+	@Override
+	protected int firstSlot(Lease lease) {
+		return RentalCalendar.monthIndex(lease.getStartDay());
+	}
+
+	/**
+	 * Gets the last month of the office calendar a lease covers
+	 * 
+	 * @param lease the lease
+	 * @return index of the month
+	 */
+	@Override
+	protected int lastSlot(Lease lease) {
+		return RentalCalendar.monthIndex(lease.getEndDay());
+	}
+
+	/**
+	 * Offices are shared by leases as long as the occupants fit every month.
+	 * 
+	 * @return true
+	 */
+	@Override
+	protected boolean sharesSlots() {
+		return true;
 	}
 
 	/**
@@ -140,35 +151,36 @@ public class Office extends RentalUnit {
 	 *                                  12/31/2029
 	 */
 	protected int remainingCapacityFor(LocalDate date) {
-		LocalDate startValid = LocalDate.of(2020, Month.JANUARY, 1);
-		LocalDate endValid = LocalDate.of(2029, Month.DECEMBER, 31);
-		if (date.isBefore(startValid) || date.isAfter(endValid)) {
+		int day = (int) date.toEpochDay();
+		if (!RentalCalendar.isInRange(day)) {
 			throw new IllegalArgumentException("invalid date");
 		}
-		int year = date.getYear() - 2020;
-		int month = date.getMonthValue() - 1;
-		int remainingCap = this.getCapacity() - calendar[year][month];
+		refreshOccupancy();
+		int month = RentalCalendar.monthIndex(day);
+		int remainingCap = this.getCapacity() - calendar[month / CAL_COLS][month % CAL_COLS];
 		return remainingCap;
 	}
 
 	/**
-	 * Removes the office from service starting on the given date and removes all
-	 * leases with the start dates on or after the cutoff date
+	 * Removes all leases with the start dates on or after the first of the month
+	 * of the cutoff date, and ends the leases running past it at the end of the
+	 * month before
 	 * 
 	 * @param date starting date of office closure
 	 * @return the list of leases that were removed due to office closure
 	 */
-	public SortedList<Lease> removeFromServiceStarting(LocalDate date) {
+	@Override
+	protected SortedList<Lease> removeLeasesStarting(LocalDate date) {
 		SortedList<Lease> returnList;
 		if (date.getDayOfMonth() == 1) {
-			returnList = super.removeFromServiceStarting(date);
+			returnList = super.removeLeasesStarting(date);
 		} else {
-			returnList = super.removeFromServiceStarting(date.with(TemporalAdjusters.firstDayOfMonth()));
+			returnList = super.removeLeasesStarting(date.with(TemporalAdjusters.firstDayOfMonth()));
 		}
 		int size = myLeases.size();
 		for (int i = 0; i < size; i++) {
 			// checks for leases with end dates on or after the cutoff date
-			if (myLeases.get(i).getEnd().isAfter(date)) {
+			if (myLeases.get(i).getEndDay() > date.toEpochDay()) {
 				// sets end date to last day of month before cutoff
 				myLeases.get(i)
 						.setEndDateEarlier(date.minus(1, ChronoUnit.MONTHS).with(TemporalAdjusters.lastDayOfMonth()));
@@ -178,58 +190,30 @@ public class Office extends RentalUnit {
 					checkDates(myLeases.get(i).getStart(), myLeases.get(i).getEnd());
 				} catch (RentalDateException e) {
 					myLeases.remove(i);
+					leasesChanged();
 				}
 			}
 		}
-		this.takeOutOfService();
 		return returnList;
 	}
 
 	/**
-	 * Returns the number of months between the provided dates.
+	 * Checks if the days fall between Jan 1, 2020 - Dec, 31 2029, that the start
+	 * day is not after the end day, and that the lease starts on the first day of a
+	 * month and ends on the last day of a month.
 	 * 
-	 * @param startD the starting date
-	 * @param endD   the ending date
-	 * @return the number of months between the two dates
+	 * @param startDay Start day, in days since 1970-01-01
+	 * @param endDay   End day, in days since 1970-01-01
+	 * @return SUCCESS, or the rule the days break
 	 */
-	protected static int getMonthsDuration(LocalDate startD, LocalDate endD) {
-		int ret = 1;
-		int yearDiff = endD.getYear() - startD.getYear();
-		int monthDiff = endD.getMonthValue() - startD.getMonthValue();
-		ret += CAL_COLS * yearDiff + monthDiff;
-		return ret;
-	}
-
-	/**
-	 * Returns the description of this office as a String
-	 * 
-	 * @return the hotel suite description
-	 */
-	public String getDescription() {
-		String retStr = this.getFloor() + "-" + this.getRoom() + " | ";
-		retStr = String.format("Office: %18s", retStr);
-		retStr = String.format(retStr + "%3s", this.getCapacity());
-		if (!this.isInService()) {
-			retStr += "  Unavailable";
-		}
-		return retStr;
-	}
-
-	/**
-	 * Checks if the dates fall between Jan 1, 2020 - Dec, 31 2029 and checks if the
-	 * start date is before the end date. Throws exception if the above conditions
-	 * are not met
-	 * 
-	 * @param startD Start date
-	 * @param endD   End date
-	 * @throws RentalDateException if the above conditions are not met
-	 */
-	public void checkDates(LocalDate startD, LocalDate endD) throws RentalDateException {
-		super.checkDates(startD, endD);
-		// check if dates are first of month
-		if (startD.getDayOfMonth() != 1 || endD.getDayOfMonth() != endD.lengthOfMonth()) {
-			throw new RentalDateException();
+	@Override
+	protected ReservationStatus checkDays(int startDay, int endDay) {
+		ReservationStatus status = super.checkDays(startDay, endDay);
+		if (status == ReservationStatus.SUCCESS
+				&& (!RentalCalendar.isFirstOfMonth(startDay) || !RentalCalendar.isLastOfMonth(endDay))) {
+			status = ReservationStatus.NOT_WHOLE_MONTHS;
 		}
+		return status;
 	}
 
 }
@@ -0,0 +1,113 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.properties;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+/**
+ * Precomputed calendar for the years that rental units can be leased in
+ * (January 1, 2020 through December 31, 2029). Dates are handled as day numbers
+ * (days since 1970-01-01, as given by LocalDate.toEpochDay()) so that
+ * reservations can be validated without creating LocalDate objects.
+ *
+ * @author Anton
+ */
+public final class RentalCalendar {
+
+	/** First day a lease may use */
+	public static final int FIRST_DAY = (int) LocalDate.of(2020, Month.JANUARY, 1).toEpochDay();
+
+	/** Last day a lease may use */
+	public static final int LAST_DAY = (int) LocalDate.of(2029, Month.DECEMBER, 31).toEpochDay();
+
+	/** Number of months in the calendar */
+	public static final int MONTHS = 120;
+
+	/** Day number of the first day of each month, plus the day after the last month */
+	private static final int[] MONTH_START = new int[MONTHS + 1];
+
+	/** Month index (months since January 2020) of each day in the calendar */
+	private static final byte[] MONTH_OF_DAY = new byte[LAST_DAY - FIRST_DAY + 1];
+
+	static {
+		LocalDate month = LocalDate.of(2020, Month.JANUARY, 1);
+		for (int m = 0; m <= MONTHS; m++) {
+			MONTH_START[m] = (int) month.toEpochDay();
+			month = month.plusMonths(1);
+		}
+		for (int m = 0; m < MONTHS; m++) {
+			for (int day = MONTH_START[m]; day < MONTH_START[m + 1]; day++) {
+				MONTH_OF_DAY[day - FIRST_DAY] = (byte) m;
+			}
+		}
+	}
+
+	/**
+	 * Constructor is private, only static methods are provided
+	 */
+	private RentalCalendar() {
+	}
+
+	/**
+	 * Determines if a day is within the calendar
+	 *
+	 * @param day day number
+	 * @return true if the day is between January 1, 2020 and December 31, 2029
+	 */
+	public static boolean isInRange(int day) {
+		return day >= FIRST_DAY && day <= LAST_DAY;
+	}
+
+	/**
+	 * Gives the month index of a day within the calendar
+	 *
+	 * @param day day number, must be in range
+	 * @return months since January 2020
+	 */
+	public static int monthIndex(int day) {
+		return MONTH_OF_DAY[day - FIRST_DAY];
+	}
+
+	/**
+	 * Gives the first day of a month of the calendar. Index MONTHS gives January 1,
+	 * 2030, the day after the calendar ends.
+	 *
+	 * @param monthIndex months since January 2020, from 0 to MONTHS
+	 * @return day number of the first day of that month
+	 */
+	public static int monthStart(int monthIndex) {
+		return MONTH_START[monthIndex];
+	}
+
+	/**
+	 * Determines if a day is the first day of its month
+	 *
+	 * @param day day number, must be in range
+	 * @return true if the day is the first of its month
+	 */
+	public static boolean isFirstOfMonth(int day) {
+		return MONTH_START[monthIndex(day)] == day;
+	}
+
+	/**
+	 * Determines if a day is the last day of its month
+	 *
+	 * @param day day number, must be in range
+	 * @return true if the day is the last of its month
+	 */
+	public static boolean isLastOfMonth(int day) {
+		return MONTH_START[monthIndex(day) + 1] == day + 1;
+	}
+
+	/**
+	 * Determines if a day is a Sunday. Day 0 (1970-01-01) was a Thursday.
+	 *
+	 * @param day day number
+	 * @return true if the day is a Sunday
+	 */
+	public static boolean isSunday(int day) {
+		return Math.floorMod(day + 4, 7) == 0;
+	}
+}
@@ -1,11 +1,20 @@
 package edu.ncsu.csc216.business.model.properties;
 
 import java.time.LocalDate;
-import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
 
+import edu.ncsu.csc216.business.list_utils.SimpleListIterator;
 import edu.ncsu.csc216.business.list_utils.SortedLinkedListWithIterator;
 import edu.ncsu.csc216.business.list_utils.SortedList;
 import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.io.RowFormatter;
 import edu.ncsu.csc216.business.model.stakeholders.Client;
 
 /**
@@ -28,8 +37,14 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	/** Minimum room number allowed in the building */
 	private static final int MIN_ROOM = 10;
 
+	/**
+	 * Optimistic attempts made by tryReserveOptimistically before it waits for
+	 * the write lock instead
+	 */
+	private static final int OPTIMISTIC_TRIES = 8;
+
 	/** Is the rental unit in service or not */
-	private boolean inService;
+	private volatile boolean inService;
 
 	/** Rental unit floor */
 	private int floor;
@@ -40,6 +55,38 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	/** Rental Unit capacity */
 	private int capacity;
 
+	/** Cached description of this rental unit in service, null until built */
+	private volatile String inServiceDescription;
+
+	/** Cached description of this rental unit out of service, null until built */
+	private volatile String outOfServiceDescription;
+
+	/**
+	 * True when leases were removed or shortened since the occupancy index was
+	 * built, so it has to be rebuilt before it is used again
+	 */
+	private volatile boolean occupancyStale;
+
+	/**
+	 * Guards the leases, the occupancy index and the service of the rental unit.
+	 * Every change holds its write lock, and its stamp changes with every change,
+	 * so a reservation can check availability without locking and then commit
+	 * only if nothing changed.
+	 */
+	private final StampedLock changes = new StampedLock();
+
+	/**
+	 * Number of times leases were cut off by taking this rental unit out of
+	 * service
+	 */
+	private volatile int removals;
+
+	/**
+	 * Copy of myLeases published after every change, so that listings can be read
+	 * without the lock that guards the leases
+	 */
+	private volatile Lease[] leaseSnapshot = new Lease[0];
+
 	/**
 	 * A Linked list that contains all of the leases for this rental unit sorted in
 	 * order
@@ -47,13 +94,16 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	protected SortedLinkedListWithIterator<Lease> myLeases = new SortedLinkedListWithIterator<Lease>();
 
 	/**
-	 * Abstract method intended to reserve a lease
+	 * Reserves a lease for this rental unit. A wrapper around tryReserve that
+	 * reports failed reservations as exceptions.
 	 * 
 	 * @param c             Client that the lease is being reserved for
 	 * @param d             starting date of reservation
 	 * @param leaseDuration duration of reservation in days, weeks, or months
 	 * @param occupants     amount of occupants
 	 * @return The newly created lease
+	 * @throws IllegalArgumentException    if any parameters are null or
+	 *                                     duration/occupants is less than 1
 	 * @throws RentalOutOfServiceException if the rental unit is currently out of
 	 *                                     service and not available for lease.
 	 * @throws RentalDateException         if the start date or computed end dates
@@ -65,18 +115,149 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 *                                     of occupants over the dates of the
 	 *                                     proposed lease.
 	 */
-	public abstract Lease reserve(Client c, LocalDate d, int leaseDuration, int occupants)
-			throws RentalOutOfServiceException, RentalDateException, RentalCapacityException;
+	public Lease reserve(Client c, LocalDate d, int leaseDuration, int occupants)
+			throws RentalOutOfServiceException, RentalDateException, RentalCapacityException {
+		ReservationResult result = tryReserve(c, d, leaseDuration, occupants);
+		if (!result.isSuccess()) {
+			throwFor(result.getStatus());
+		}
+		return result.getLease();
+	}
+
+	/**
+	 * Attempts to reserve a lease for this rental unit. Nothing is thrown for a
+	 * reservation that cannot be made; the reason is given by the status of the
+	 * result instead. The lease, and its confirmation number, are only created
+	 * once the reservation is known to succeed.
+	 * 
+	 * @param c             Client that the lease is being reserved for
+	 * @param d             starting date of reservation
+	 * @param leaseDuration duration of reservation in days, weeks, or months
+	 * @param occupants     amount of occupants
+	 * @return result holding the new lease, or the reason the reservation failed
+	 */
+	public ReservationResult tryReserve(Client c, LocalDate d, int leaseDuration, int occupants) {
+		ReservationStatus status = checkConditions(c, d, leaseDuration, occupants);
+		if (status != ReservationStatus.SUCCESS) {
+			return ReservationResult.failure(status);
+		}
+		int startDay = (int) d.toEpochDay();
+		int endDay = endDayFor(startDay, leaseDuration);
+		long stamp = changes.writeLock();
+		try {
+			return reserveLocked(c, startDay, endDay, occupants);
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Attempts to reserve a lease for this rental unit without locking while
+	 * availability is checked. The check runs against a stamp of the rental unit,
+	 * and the lease is committed only if the stamp can be turned into the write
+	 * lock, which fails if any other change was made meanwhile; the check is then
+	 * made again. Requests for different days of a busy rental unit therefore do
+	 * not wait for each other while they check, only for the short commit. After a
+	 * few failed attempts the write lock is taken outright, so a request cannot be
+	 * starved.
+	 * 
+	 * @param c             Client that the lease is being reserved for
+	 * @param d             starting date of reservation
+	 * @param leaseDuration duration of reservation in days, weeks, or months
+	 * @param occupants     amount of occupants
+	 * @return result holding the new lease, or the reason the reservation failed
+	 */
+	public ReservationResult tryReserveOptimistically(Client c, LocalDate d, int leaseDuration, int occupants) {
+		ReservationStatus status = checkConditions(c, d, leaseDuration, occupants);
+		if (status != ReservationStatus.SUCCESS) {
+			return ReservationResult.failure(status);
+		}
+		int startDay = (int) d.toEpochDay();
+		int endDay = endDayFor(startDay, leaseDuration);
+		status = checkDays(startDay, endDay);
+		if (status != ReservationStatus.SUCCESS) {
+			return ReservationResult.failure(status);
+		}
+		for (int i = 0; i < OPTIMISTIC_TRIES; i++) {
+			refreshOccupancy();
+			long stamp = changes.tryOptimisticRead();
+			if (stamp == 0) { // a change is in progress
+				Thread.onSpinWait();
+				continue;
+			}
+			boolean inService = this.inService;
+			boolean stale = occupancyStale;
+			status = checkAvailability(startDay, endDay, occupants);
+			if (!changes.validate(stamp) || stale) {
+				continue;
+			}
+			if (!inService) {
+				return ReservationResult.failure(ReservationStatus.OUT_OF_SERVICE);
+			}
+			if (status != ReservationStatus.SUCCESS) {
+				return ReservationResult.failure(status);
+			}
+			stamp = changes.tryConvertToWriteLock(stamp);
+			if (stamp != 0) {
+				try {
+					return commit(c, startDay, endDay, occupants);
+				} finally {
+					changes.unlockWrite(stamp);
+				}
+			}
+		}
+		long stamp = changes.writeLock();
+		try {
+			return reserveLocked(c, startDay, endDay, occupants);
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Determines whether a lease could be reserved for this rental unit right now,
+	 * without reserving it. Nothing is changed by this check and no confirmation
+	 * number is used, so it can be called as often as needed, for example to quote
+	 * availability while a request is being filled in.
+	 * 
+	 * @param d             starting date of reservation
+	 * @param leaseDuration duration of reservation in days, weeks, or months
+	 * @param occupants     amount of occupants
+	 * @return SUCCESS if reserve would succeed, otherwise the reason it would fail
+	 */
+	public ReservationStatus canReserve(LocalDate d, int leaseDuration, int occupants) {
+		ReservationStatus status = checkRequestConditions(d, leaseDuration, occupants);
+		if (status != ReservationStatus.SUCCESS) {
+			return status;
+		}
+		int startDay = (int) d.toEpochDay();
+		int endDay = endDayFor(startDay, leaseDuration);
+		refreshOccupancy();
+		long stamp = changes.tryOptimisticRead();
+		if (stamp != 0 && !occupancyStale) {
+			status = checkRequest(startDay, endDay, occupants);
+			if (changes.validate(stamp)) {
+				return status;
+			}
+		}
+		stamp = changes.writeLock();
+		try {
+			rebuildIfStale();
+			return checkRequest(startDay, endDay, occupants);
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
 
 	/**
-	 * Abstract method used to find an existing lease and return its value.
+	 * Records an existing lease, as read from a file, for this rental unit.
 	 * 
 	 * @param confNumber Lease confirmation number
 	 * @param c          Client that the lease is being reserved for
 	 * @param startD     Lease starting date
 	 * @param endD       Lease ending date
 	 * @param occupants  amount of occupants
-	 * @return the lease that was found
+	 * @return the lease that was recorded
 	 * @throws RentalDateException     if the start date or computed end dates are
 	 *                                 not valid, which could be from conflict with
 	 *                                 another lease, dates improper for the given
@@ -85,8 +266,183 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 *                                 occupants over the dates of the proposed
 	 *                                 lease.
 	 */
-	public abstract Lease recordExistingLease(int confNumber, Client c, LocalDate startD, LocalDate endD, int occupants)
-			throws RentalDateException, RentalCapacityException;
+	public Lease recordExistingLease(int confNumber, Client c, LocalDate startD, LocalDate endD, int occupants)
+			throws RentalDateException, RentalCapacityException {
+		int startDay = (int) startD.toEpochDay();
+		int endDay = (int) endD.toEpochDay();
+		long stamp = changes.writeLock();
+		try {
+			rebuildIfStale();
+			ReservationStatus status = checkRequest(startDay, endDay, occupants);
+			if (status == ReservationStatus.OVER_CAPACITY) {
+				throw new RentalCapacityException();
+			}
+			if (status != ReservationStatus.SUCCESS) {
+				throw newDateException(status);
+			}
+			Lease newLease = new Lease(confNumber, c, this, startDay, endDay, occupants);
+			if (this.insertLease(newLease)) {
+				Lease.claimConfirmationNumber(confNumber);
+			}
+			return newLease;
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Private helper method that checks a request and reserves it. The caller
+	 * holds the write lock.
+	 * 
+	 * @param c         Client that the lease is being reserved for
+	 * @param startDay  first day of the lease, in days since 1970-01-01
+	 * @param endDay    last day of the lease, in days since 1970-01-01
+	 * @param occupants amount of occupants
+	 * @return result holding the new lease, or the reason the reservation failed
+	 */
+	private ReservationResult reserveLocked(Client c, int startDay, int endDay, int occupants) {
+		if (!this.inService) {
+			return ReservationResult.failure(ReservationStatus.OUT_OF_SERVICE);
+		}
+		rebuildIfStale();
+		ReservationStatus status = checkRequest(startDay, endDay, occupants);
+		if (status != ReservationStatus.SUCCESS) {
+			return ReservationResult.failure(status);
+		}
+		return commit(c, startDay, endDay, occupants);
+	}
+
+	/**
+	 * Private helper method that creates and adds a lease already known to fit.
+	 * The caller holds the write lock.
+	 * 
+	 * @param c         Client that the lease is being reserved for
+	 * @param startDay  first day of the lease, in days since 1970-01-01
+	 * @param endDay    last day of the lease, in days since 1970-01-01
+	 * @param occupants amount of occupants
+	 * @return result holding the new lease
+	 */
+	private ReservationResult commit(Client c, int startDay, int endDay, int occupants) {
+		Lease newLease = new Lease(c, this, startDay, endDay, occupants);
+		this.insertLease(newLease);
+		return ReservationResult.success(newLease);
+	}
+
+	/**
+	 * Computes the last day of a lease of the given duration for this kind of
+	 * rental unit.
+	 * 
+	 * @param startDay first day of the lease, in days since 1970-01-01
+	 * @param duration duration of the lease in days, weeks, or months
+	 * @return last day of the lease, in days since 1970-01-01
+	 */
+	protected abstract int endDayFor(int startDay, int duration);
+
+	/**
+	 * Checks against the occupancy index that the rental unit has room for a lease
+	 * over the given days, which have already passed checkDays. Nothing is changed
+	 * by this check.
+	 * 
+	 * @param startDay  first day of the lease, in days since 1970-01-01
+	 * @param endDay    last day of the lease, in days since 1970-01-01
+	 * @param occupants amount of occupants
+	 * @return SUCCESS, CONFLICT or OVER_CAPACITY
+	 */
+	protected abstract ReservationStatus checkAvailability(int startDay, int endDay, int occupants);
+
+	/**
+	 * Adds the occupancy of a lease to the occupancy index of this rental unit.
+	 * 
+	 * @param lease the lease being added
+	 */
+	protected abstract void recordOccupancy(Lease lease);
+
+	/**
+	 * Empties the occupancy index of this rental unit.
+	 */
+	protected abstract void clearOccupancy();
+
+	/**
+	 * Gets the first slot of the occupancy index held by a lease, such as its
+	 * first day or first month. Slots grow with the start day of the lease.
+	 * 
+	 * @param lease the lease
+	 * @return the first slot held
+	 */
+	protected abstract int firstSlot(Lease lease);
+
+	/**
+	 * Gets the last slot of the occupancy index held by a lease, which is before
+	 * the first slot if the lease holds none.
+	 * 
+	 * @param lease the lease
+	 * @return the last slot held
+	 */
+	protected abstract int lastSlot(Lease lease);
+
+	/**
+	 * Determines whether leases may share a slot as long as their occupants fit
+	 * within the capacity together. Otherwise a slot holds a single lease.
+	 * 
+	 * @return true if slots are shared
+	 */
+	protected boolean sharesSlots() {
+		return false;
+	}
+
+	/**
+	 * Called after leases were removed or shortened. Marks the occupancy index as
+	 * out of date, so it is rebuilt from the leases the next time it is used, and
+	 * publishes a new copy of the leases for listings.
+	 */
+	protected void leasesChanged() {
+		occupancyStale = true;
+		publishLeases();
+	}
+
+	/**
+	 * Private helper method that publishes a copy of the current leases
+	 */
+	private void publishLeases() {
+		Lease[] leases = new Lease[myLeases.size()];
+		SimpleListIterator<Lease> it = myLeases.iterator();
+		for (int i = 0; i < leases.length && it.hasNext(); i++) {
+			leases[i] = it.next();
+		}
+		leaseSnapshot = leases;
+	}
+
+	/**
+	 * Rebuilds the occupancy index from the leases if leases were removed or
+	 * shortened since it was last built.
+	 */
+	protected void refreshOccupancy() {
+		if (!occupancyStale) {
+			return;
+		}
+		long stamp = changes.writeLock();
+		try {
+			rebuildIfStale();
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Private helper method that rebuilds the occupancy index if it is out of
+	 * date. The caller holds the write lock.
+	 */
+	private void rebuildIfStale() {
+		if (!occupancyStale) {
+			return;
+		}
+		clearOccupancy();
+		SimpleListIterator<Lease> it = myLeases.iterator();
+		while (it.hasNext()) {
+			recordOccupancy(it.next());
+		}
+		occupancyStale = false;
+	}
 
 	/**
 	 * Constructor for the rental unit
@@ -170,7 +526,12 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 * Returns a rental unit back to service
 	 */
 	public void returnToService() {
-		this.inService = true;
+		long stamp = changes.writeLock();
+		try {
+			setInService(true);
+		} finally {
+			changes.unlockWrite(stamp);
+		}
 	}
 
 	/**
@@ -186,7 +547,23 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 * Remove a rental unit from service
 	 */
 	public void takeOutOfService() {
-		this.inService = false;
+		long stamp = changes.writeLock();
+		try {
+			setInService(false);
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Private helper method that changes whether the rental unit is in service.
+	 * Called while the write lock is held, so that a reservation that saw the
+	 * rental unit in service fails to validate and looks again.
+	 * 
+	 * @param inService true if the rental unit is in service
+	 */
+	private void setInService(boolean inService) {
+		this.inService = inService;
 	}
 
 	/**
@@ -199,15 +576,29 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 * @throws RentalDateException if the above conditions are not met
 	 */
 	public void checkDates(LocalDate startD, LocalDate endD) throws RentalDateException {
-		LocalDate startValid = LocalDate.of(2020, Month.JANUARY, 1);
-		LocalDate endValid = LocalDate.of(2029, Month.DECEMBER, 31);
-		if (startD.isBefore(startValid) || endD.isBefore(startValid) || startD.isAfter(endValid)
-				|| endD.isAfter(endValid)) {
-			throw new RentalDateException("invalid date");
+		ReservationStatus status = checkDays((int) startD.toEpochDay(), (int) endD.toEpochDay());
+		if (status != ReservationStatus.SUCCESS) {
+			throw newDateException(status);
 		}
-		if (!(startD.isBefore(endD) || startD.isEqual(endD))) {
-			throw new RentalDateException("end date before start date");
+	}
+
+	/**
+	 * Checks if the days fall between Jan 1, 2020 - Dec, 31 2029 and checks if the
+	 * start day is not after the end day. Subclasses add the rules for their kind
+	 * of rental unit.
+	 * 
+	 * @param startDay Start day, in days since 1970-01-01
+	 * @param endDay   End day, in days since 1970-01-01
+	 * @return SUCCESS, or the rule the days break
+	 */
+	protected ReservationStatus checkDays(int startDay, int endDay) {
+		if (!RentalCalendar.isInRange(startDay) || !RentalCalendar.isInRange(endDay)) {
+			return ReservationStatus.DATE_OUT_OF_RANGE;
+		}
+		if (startDay > endDay) {
+			return ReservationStatus.END_BEFORE_START;
 		}
+		return ReservationStatus.SUCCESS;
 	}
 
 	/**
@@ -225,12 +616,101 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 */
 	protected void checkLeaseConditions(Client c, LocalDate d, int duration, int occupants)
 			throws RentalOutOfServiceException, IllegalArgumentException {
-		if (c == null || d == null || duration < 1 || occupants < 1) {
-			throw new IllegalArgumentException("invalid input");
+		ReservationStatus status = checkConditions(c, d, duration, occupants);
+		if (status == ReservationStatus.INVALID_INPUT) {
+			throw new IllegalArgumentException(status.getMessage());
+		}
+		if (status == ReservationStatus.OUT_OF_SERVICE) {
+			throw new RentalOutOfServiceException(status.getMessage());
+		}
+	}
+
+	/**
+	 * Private helper method that checks the lease conditions without throwing
+	 * 
+	 * @param c         Client requesting the lease
+	 * @param d         starting date
+	 * @param duration  lease duration
+	 * @param occupants amount of occupants
+	 * @return SUCCESS, INVALID_INPUT or OUT_OF_SERVICE
+	 */
+	private ReservationStatus checkConditions(Client c, LocalDate d, int duration, int occupants) {
+		if (c == null) {
+			return ReservationStatus.INVALID_INPUT;
+		}
+		return checkRequestConditions(d, duration, occupants);
+	}
+
+	/**
+	 * Private helper method that checks the conditions of a request that do not
+	 * depend on the client
+	 * 
+	 * @param d         starting date
+	 * @param duration  lease duration
+	 * @param occupants amount of occupants
+	 * @return SUCCESS, INVALID_INPUT or OUT_OF_SERVICE
+	 */
+	private ReservationStatus checkRequestConditions(LocalDate d, int duration, int occupants) {
+		if (d == null || duration < 1 || occupants < 1) {
+			return ReservationStatus.INVALID_INPUT;
 		}
 		if (!this.isInService()) {
-			throw new RentalOutOfServiceException("not in service");
+			return ReservationStatus.OUT_OF_SERVICE;
 		}
+		return ReservationStatus.SUCCESS;
+	}
+
+	/**
+	 * Private helper method that checks the days of a request and then the room
+	 * left for it in the occupancy index, which the caller has brought up to date
+	 * 
+	 * @param startDay  first day of the lease, in days since 1970-01-01
+	 * @param endDay    last day of the lease, in days since 1970-01-01
+	 * @param occupants amount of occupants
+	 * @return SUCCESS, or the reason the request cannot be met
+	 */
+	private ReservationStatus checkRequest(int startDay, int endDay, int occupants) {
+		ReservationStatus status = checkDays(startDay, endDay);
+		if (status == ReservationStatus.SUCCESS) {
+			status = checkAvailability(startDay, endDay, occupants);
+		}
+		return status;
+	}
+
+	/**
+	 * Private helper method that throws the exception matching a failed
+	 * reservation status
+	 * 
+	 * @param status the status of the failed reservation
+	 * @throws RentalOutOfServiceException if the unit is out of service
+	 * @throws RentalDateException         if the dates are the problem
+	 * @throws RentalCapacityException     if the capacity is the problem
+	 */
+	private static void throwFor(ReservationStatus status)
+			throws RentalOutOfServiceException, RentalDateException, RentalCapacityException {
+		if (status == ReservationStatus.OUT_OF_SERVICE) {
+			throw new RentalOutOfServiceException(status.getMessage());
+		}
+		if (status.isDateProblem()) {
+			throw newDateException(status);
+		}
+		if (status == ReservationStatus.OVER_CAPACITY) {
+			throw new RentalCapacityException();
+		}
+		throw new IllegalArgumentException(status.getMessage());
+	}
+
+	/**
+	 * Private helper method that creates the RentalDateException for a status
+	 * 
+	 * @param status status of the date problem
+	 * @return the exception, with the default message if the status has none
+	 */
+	private static RentalDateException newDateException(ReservationStatus status) {
+		if (status.getMessage() == null) {
+			return new RentalDateException();
+		}
+		return new RentalDateException(status.getMessage());
 	}
 
 	/**
@@ -241,6 +721,26 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 * @return the list of leases that were removed due to rental unit closure
 	 */
 	public SortedList<Lease> removeFromServiceStarting(LocalDate d) {
+		long stamp = changes.writeLock();
+		try {
+			SortedList<Lease> returnList = removeLeasesStarting(d);
+			setInService(false); // the write lock is not reentrant
+			removals++;
+			return returnList;
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Removes all leases with the start dates on or after the cutoff date. Called
+	 * by removeFromServiceStarting while it holds the write lock; subclasses
+	 * adjust the cutoff and shorten leases running past it.
+	 * 
+	 * @param d cutoff date
+	 * @return the list of leases that were removed
+	 */
+	protected SortedList<Lease> removeLeasesStarting(LocalDate d) {
 		SortedList<Lease> returnList;
 		int dateIndex = this.cutoffIndex(d);
 		if (dateIndex == -1) {
@@ -248,7 +748,7 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 		} else {
 			returnList = myLeases.truncate(dateIndex);
 		}
-		this.takeOutOfService();
+		this.leasesChanged();
 		return returnList;
 	}
 
@@ -261,9 +761,10 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 */
 	protected int cutoffIndex(LocalDate d) {
 		int ret = -1;
-		for (int i = 0; i < myLeases.size(); i++) {
-			Lease l = myLeases.get(i);
-			if (!l.getStart().isBefore(d)) {
+		int day = (int) d.toEpochDay();
+		SimpleListIterator<Lease> it = myLeases.iterator();
+		for (int i = 0; it.hasNext(); i++) {
+			if (it.next().getStartDay() >= day) {
 				ret = i;
 				break;
 			}
@@ -280,11 +781,17 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 *                                  confirmation number
 	 */
 	public Lease cancelLeaseByNumber(int number) {
-		for (int i = 0; i < myLeases.size(); i++) {
-			if (myLeases.get(i).getConfirmationNumber() == number) {
-				Lease l = myLeases.remove(i);
-				return l;
+		long stamp = changes.writeLock();
+		try {
+			for (int i = 0; i < myLeases.size(); i++) {
+				if (myLeases.get(i).getConfirmationNumber() == number) {
+					Lease l = myLeases.remove(i);
+					this.leasesChanged();
+					return l;
+				}
 			}
+		} finally {
+			changes.unlockWrite(stamp);
 		}
 		throw new IllegalArgumentException("No such lease");
 	}
@@ -297,46 +804,258 @@ public abstract class RentalUnit implements Comparable<RentalUnit> {
 	 *                                  unit
 	 */
 	public void addLease(Lease l) {
+		long stamp = changes.writeLock();
+		try {
+			insertLease(l);
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Private helper method that adds a lease to the list of leases and the
+	 * occupancy index. The caller holds the write lock.
+	 * 
+	 * @param l the lease that needs to be added
+	 * @return true if the lease was added, false if the rental unit is out of
+	 *         service
+	 * @throws IllegalArgumentException if the lease is made for a different rental
+	 *                                  unit
+	 */
+	private boolean insertLease(Lease l) {
 		if (!inService) {
-			return;
+			return false;
 		}
 		// works only if rental unit is in service
+		appendLease(l);
+		return true;
+	}
+
+	/**
+	 * Adds a lease read from a file to this unit's list of leases. Unlike addLease,
+	 * the lease is added even if the rental unit is out of service, since a file
+	 * lists the leases a unit kept when it was taken out of service. The lease is
+	 * taken as it was recorded and is not checked against the other leases.
+	 * 
+	 * @param l the lease read from the file
+	 * @throws IllegalArgumentException if the lease is made for a different rental
+	 *                                  unit
+	 */
+	public void addLeaseFromFile(Lease l) {
+		long stamp = changes.writeLock();
+		try {
+			appendLease(l);
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Adds many leases read from a file to this unit's list of leases at once, in
+	 * or out of service, like addLeaseFromFile. The leases are sorted together
+	 * with the leases already held, and a single sweep over the sorted leases
+	 * finds every new lease that conflicts with another one or that fills the
+	 * rental unit beyond its capacity. The leases are added either way, as they
+	 * were recorded, and the problems are returned for the caller to report.
+	 * 
+	 * @param leases the leases read from the file
+	 * @return descriptions of the leases that conflict or are over capacity
+	 * @throws IllegalArgumentException if a lease is made for a different rental
+	 *                                  unit
+	 */
+	public String[] addLeasesFromFile(Lease[] leases) {
+		Lease[] added = leases.clone();
+		for (Lease l : added) {
+			if (l.getProperty().getFloor() != this.floor || l.getProperty().getRoom() != this.room) {
+				throw new IllegalArgumentException("Lease is not for this rental unit");
+			}
+		}
+		Arrays.sort(added);
+		long stamp = changes.writeLock();
+		try {
+			Lease[] all = new Lease[leaseSnapshot.length + added.length];
+			System.arraycopy(leaseSnapshot, 0, all, 0, leaseSnapshot.length);
+			System.arraycopy(added, 0, all, leaseSnapshot.length, added.length);
+			Arrays.sort(all);
+			Set<Lease> held = Collections.newSetFromMap(new IdentityHashMap<Lease, Boolean>());
+			held.addAll(Arrays.asList(leaseSnapshot));
+			List<String> problems = sweep(all, held);
+			if (myLeases.isEmpty()) {
+				myLeases.appendSorted(added);
+			} else {
+				for (Lease l : added) {
+					myLeases.add(l);
+				}
+			}
+			if (!occupancyStale) {
+				for (Lease l : added) {
+					recordOccupancy(l);
+				}
+			}
+			publishLeases();
+			return problems.toArray(new String[problems.size()]);
+		} finally {
+			changes.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Private helper method that sweeps over sorted leases in order of their first
+	 * slot, keeping the leases that still hold a slot, and describes each new
+	 * lease that does not fit next to them. A held lease that does not fit next
+	 * to the leases still holding a slot has the new ones among them described,
+	 * as they started first. Each new lease is described at most once.
+	 * 
+	 * @param sorted the leases, sorted
+	 * @param held   the leases that were already held, which are not described
+	 * @return descriptions of the new leases that conflict or are over capacity
+	 */
+	private List<String> sweep(Lease[] sorted, Set<Lease> held) {
+		List<String> problems = new ArrayList<String>();
+		Set<Lease> described = Collections.newSetFromMap(new IdentityHashMap<Lease, Boolean>());
+		PriorityQueue<Lease> holding = new PriorityQueue<Lease>(
+				(a, b) -> Integer.compare(lastSlot(a), lastSlot(b)));
+		int occupants = 0;
+		for (Lease l : sorted) {
+			int first = firstSlot(l);
+			if (lastSlot(l) < first) {
+				continue;
+			}
+			while (!holding.isEmpty() && lastSlot(holding.peek()) < first) {
+				occupants -= holding.poll().getNumOccupants();
+			}
+			String problem = null;
+			if (!sharesSlots() && !holding.isEmpty()) {
+				problem = " conflicts with another lease";
+			} else if (occupants + l.getNumOccupants() > this.capacity) {
+				problem = " is over capacity";
+			}
+			if (problem != null && !held.contains(l)) {
+				describe(problems, described, l, problem);
+			} else if (problem != null) {
+				Lease[] earlier = holding.toArray(new Lease[holding.size()]);
+				Arrays.sort(earlier);
+				for (Lease e : earlier) {
+					if (!held.contains(e)) {
+						describe(problems, described, e, problem);
+					}
+				}
+			}
+			holding.add(l);
+			occupants += l.getNumOccupants();
+		}
+		return problems;
+	}
+
+	/**
+	 * Private helper method that describes a new lease that does not fit, unless
+	 * it has been described already
+	 * 
+	 * @param problems  descriptions of the leases that do not fit
+	 * @param described the leases described so far
+	 * @param l         the lease
+	 * @param problem   what is wrong with the lease
+	 */
+	private static void describe(List<String> problems, Set<Lease> described, Lease l, String problem) {
+		if (described.add(l)) {
+			problems.add(l.getClientRow() + problem);
+		}
+	}
+
+	/**
+	 * Private helper method that adds a lease to the list of leases and the
+	 * occupancy index whether or not the rental unit is in service. The caller
+	 * holds the write lock.
+	 * 
+	 * @param l the lease that needs to be added
+	 * @throws IllegalArgumentException if the lease is made for a different rental
+	 *                                  unit
+	 */
+	private void appendLease(Lease l) {
 		if (l.getProperty().getFloor() != this.floor || l.getProperty().getRoom() != this.room) {
 			throw new IllegalArgumentException("Lease is not for this rental unit");
 		}
 		myLeases.add(l);
+		if (!occupancyStale) {
+			recordOccupancy(l);
+		}
+		publishLeases();
 	}
 
 	/**
 	 * Gives a list of leases for this rental unit as and array of Strings, with
 	 * each string representing a different lease ex: 000607 | 2020-02-01 to
-	 * 2020-06-30 | 6 | James Tetterton (jc1012)
+	 * 2020-06-30 | 6 | James Tetterton (jc1012). Reads the last published copy of
+	 * the leases, so it never waits for a change in progress.
 	 *
 	 * @return the list of leases as a String array
 	 */
 	public String[] listLeases() {
-		String[] leases = new String[myLeases.size()];
-		for (int i = 0; i < myLeases.size(); i++) {
-			Lease l = myLeases.get(i);
-			String[] data = l.leaseData();
-			leases[i] = data[0] + " | " + data[1] + " | ";
-			leases[i] = String.format(leases[i] + "%3s | " + data[4] + " (" + data[5] + ")", data[2]);
+		Lease[] snapshot = leaseSnapshot;
+		String[] leases = new String[snapshot.length];
+		for (int i = 0; i < leases.length; i++) {
+			leases[i] = snapshot[i].getUnitRow();
 		}
 		return leases;
 	}
 
 	/**
-	 * Gets this rental units description as a String
+	 * Determines whether the given lease is still held by this rental unit, as of
+	 * the last published copy of the leases.
+	 * 
+	 * @param l the lease
+	 * @return true if this rental unit holds that very lease
+	 */
+	public boolean holdsLease(Lease l) {
+		for (Lease held : leaseSnapshot) {
+			if (held == l) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the number of times leases were cut off by taking this rental unit out
+	 * of service. A caller that finds it changed across a reservation knows the
+	 * new lease may have been cut off before the client was told about it.
+	 * 
+	 * @return number of removals from service
+	 */
+	public int getRemovalCount() {
+		return removals;
+	}
+
+	/**
+	 * Gives an iterator over the leases of this rental unit in sorted order.
+	 * 
+	 * @return lease iterator
+	 */
+	public SimpleListIterator<Lease> leaseIterator() {
+		return myLeases.iterator();
+	}
+
+	/**
+	 * Gets this rental units description as a String. The description for each
+	 * service state is built once from values that never change, and the one for
+	 * the current state is picked on every call, so a description built while the
+	 * service changes can never be stored for the wrong state.
 	 * 
 	 * @return a String in the format floor, room, capacity and when needed the
 	 *         Unavailable notation
 	 */
 	public String getDescription() {
-		String retStr = this.getFloor() + "-" + this.getRoom() + " | " + this.getCapacity();
-		if (!this.isInService()) {
-			retStr += "  Unavailable";
+		boolean now = inService;
+		String ret = now ? inServiceDescription : outOfServiceDescription;
+		if (ret == null) {
+			ret = RowFormatter.unit(this, now);
+			if (now) {
+				inServiceDescription = ret;
+			} else {
+				outOfServiceDescription = ret;
+			}
 		}
-		return retStr;
+		return ret;
 	}
 
 	/**
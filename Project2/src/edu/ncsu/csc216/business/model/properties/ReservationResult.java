@@ -0,0 +1,93 @@
+/**
+ * 
+ */
+package edu.ncsu.csc216.business.model.properties;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+
+/**
+ * Result of RentalUnit.tryReserve: the status of the attempt and, on success,
+ * the lease that was created. Failed attempts share one result per status, so
+ * a rejected reservation allocates nothing.
+ * 
+ * @author Anton
+ */
+public final class ReservationResult {
+
+	/** Shared results for every status other than SUCCESS */
+	private static final ReservationResult[] FAILURES = new ReservationResult[ReservationStatus.values().length];
+
+	static {
+		for (ReservationStatus status : ReservationStatus.values()) {
+			FAILURES[status.ordinal()] = new ReservationResult(status, null);
+		}
+	}
+
+	/** Status of the reservation attempt */
+	private final ReservationStatus status;
+
+	/** The created lease, null if the reservation failed */
+	private final Lease lease;
+
+	/**
+	 * Constructor for the result
+	 * 
+	 * @param status status of the attempt
+	 * @param lease  created lease, or null
+	 */
+	private ReservationResult(ReservationStatus status, Lease lease) {
+		this.status = status;
+		this.lease = lease;
+	}
+
+	/**
+	 * Gives the result of a successful reservation
+	 * 
+	 * @param lease the lease that was created
+	 * @return successful result holding the lease
+	 */
+	public static ReservationResult success(Lease lease) {
+		return new ReservationResult(ReservationStatus.SUCCESS, lease);
+	}
+
+	/**
+	 * Gives the shared result of a failed reservation
+	 * 
+	 * @param status reason the reservation failed
+	 * @return failed result
+	 * @throws IllegalArgumentException if status is SUCCESS
+	 */
+	public static ReservationResult failure(ReservationStatus status) {
+		if (status == ReservationStatus.SUCCESS) {
+			throw new IllegalArgumentException("success needs a lease");
+		}
+		return FAILURES[status.ordinal()];
+	}
+
+	/**
+	 * Getter method for the status of the attempt
+	 * 
+	 * @return the status
+	 */
+	public ReservationStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Getter method for the created lease
+	 * 
+	 * @return the lease, or null if the reservation failed
+	 */
+	public Lease getLease() {
+		return lease;
+	}
+
+	/**
+	 * Determines if the reservation was made
+	 * 
+	 * @return true if the reservation succeeded
+	 */
+	public boolean isSuccess() {
+		return status == ReservationStatus.SUCCESS;
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * 
+ */
+package edu.ncsu.csc216.business.model.properties;
+
+/**
+ * Outcome of an attempt to reserve a rental unit. Every outcome other than
+ * SUCCESS matches one of the exceptions thrown by RentalUnit.reserve and
+ * carries the message that exception would have.
+ * 
+ * @author Anton
+ */
+public enum ReservationStatus {
+
+	/** The reservation can be or was made */
+	SUCCESS(null),
+
+	/** A parameter is missing, or the duration or number of occupants is below 1 */
+	INVALID_INPUT("invalid input"),
+
+	/** The rental unit is out of service */
+	OUT_OF_SERVICE("not in service"),
+
+	/** A date falls outside of January 1, 2020 - December 31, 2029 */
+	DATE_OUT_OF_RANGE("invalid date"),
+
+	/** The end date is before the start date */
+	END_BEFORE_START("end date before start date"),
+
+	/** An office lease does not run from the first to the last day of a month */
+	NOT_WHOLE_MONTHS(null),
+
+	/** A hotel suite lease does not start and end on a Sunday */
+	NOT_SUNDAY("invalid day of week"),
+
+	/** A hotel suite lease starts and ends on the same day */
+	SAME_DAY("lease cannot start and end on same day"),
+
+	/** A conference room lease is longer than a week */
+	DURATION_LIMIT("duration exceeds limit"),
+
+	/** The dates conflict with another lease for the rental unit */
+	CONFLICT(null),
+
+	/** The rental unit cannot hold the occupants over the dates */
+	OVER_CAPACITY(null);
+
+	/** Message of the matching exception, null for its default message */
+	private final String message;
+
+	/**
+	 * Constructor for the status
+	 * 
+	 * @param message message of the matching exception, null for the default
+	 */
+	ReservationStatus(String message) {
+		this.message = message;
+	}
+
+	/**
+	 * Gets the message of the exception matching this status
+	 * 
+	 * @return the message, or null if the exception's default message is used
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * Determines if this status is a problem with the dates of the reservation,
+	 * reported by reserve as a RentalDateException.
+	 * 
+	 * @return true if the dates are the problem
+	 */
+	public boolean isDateProblem() {
+		return this == DATE_OUT_OF_RANGE || this == END_BEFORE_START || this == NOT_WHOLE_MONTHS
+				|| this == NOT_SUNDAY || this == SAME_DAY || this == DURATION_LIMIT || this == CONFLICT;
+	}
+}
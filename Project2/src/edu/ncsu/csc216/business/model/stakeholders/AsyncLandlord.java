@@ -0,0 +1,149 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.stakeholders;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+
+/**
+ * The behaviors of a Landlord, with each call returning right away and its
+ * result delivered through a CompletableFuture. A call that fails completes its
+ * future exceptionally with the exception the matching Landlord method throws
+ * (for example DuplicateClientException or IllegalArgumentException), so a
+ * front end can wait for results without blocking its own thread.
+ *
+ * @author Anton
+ */
+public interface AsyncLandlord {
+
+	/**
+	 * Adds a new client with the given name and id to the client database.
+	 *
+	 * @param name Name of the new client
+	 * @param id   Unique id of the new client
+	 * @return future of the new Client, failing with DuplicateClientException or
+	 *         IllegalArgumentException
+	 */
+	CompletableFuture<Client> addNewClient(String name, String id);
+
+	/**
+	 * Adds a new RentalUnit with the given parameters to the system.
+	 *
+	 * @param kind     Type of RentalUnit (starts with 'O' for office, 'C' for
+	 *                 conference room, 'H' for hotel suite)
+	 * @param location String of the form FF-RR, where FF is the floor, and RR is
+	 *                 the room.
+	 * @param capacity Number of people the unit can accommodate on any single day
+	 * @return future of the new RentalUnit, failing with DuplicateRoomException or
+	 *         IllegalArgumentException
+	 */
+	CompletableFuture<RentalUnit> addNewUnit(String kind, String location, int capacity);
+
+	/**
+	 * Sets filters for rental units so that only those that match the filters are
+	 * considered.
+	 *
+	 * @param kindFilter      filters by kind of rental unit
+	 * @param inServiceFilter filters rental units that are not in service
+	 * @return future completed once the filters are in place
+	 */
+	CompletableFuture<Void> filterRentalUnits(String kindFilter, boolean inServiceFilter);
+
+	/**
+	 * Creates a new lease with information based on the given parameters.
+	 *
+	 * @param clientIndex   Index of the client in the Landlord's customer base
+	 * @param propertyIndex Index of the rental unit in the Landlord's filtered list
+	 *                      of rental units
+	 * @param start         Start date for the lease
+	 * @param duration      Duration of the lease (units depending on rental unit
+	 *                      type)
+	 * @param people        Number of occupants the lease is for
+	 * @return future of the created lease, failing with IllegalArgumentException
+	 */
+	CompletableFuture<Lease> createLease(int clientIndex, int propertyIndex, LocalDate start, int duration,
+			int people);
+
+	/**
+	 * Cancels the lease in the given position on the client's list of leases.
+	 *
+	 * @param clientIndex Index of the client whose lease is to be cancelled
+	 * @param leaseIndex  Position of the lease in the client's list
+	 * @return future completed once the lease is cancelled, failing with
+	 *         IllegalArgumentException
+	 */
+	CompletableFuture<Void> cancelClientsLease(int clientIndex, int leaseIndex);
+
+	/**
+	 * Cancels all leases for a rental unit on or after a particular date.
+	 *
+	 * @param propertyIndex Index for the rental unit (subject to filtering)
+	 * @param start         Date for starting cancellations
+	 * @return future of the RentalUnit that was removed, failing with
+	 *         IllegalArgumentException
+	 */
+	CompletableFuture<RentalUnit> removeFromService(int propertyIndex, LocalDate start);
+
+	/**
+	 * Removes the rental unit at the given index and cancels all of its leases.
+	 *
+	 * @param propertyIndex Index for the rental unit to be closed (subject to
+	 *                      filtering)
+	 * @return future completed once the rental unit is closed, failing with
+	 *         IllegalArgumentException
+	 */
+	CompletableFuture<Void> closeRentalUnit(int propertyIndex);
+
+	/**
+	 * Returns the rental unit at the given position to service.
+	 *
+	 * @param propertyIndex Position/index of the rental unit (subject to filtering)
+	 * @return future completed once the rental unit is in service, failing with
+	 *         IllegalArgumentException
+	 */
+	CompletableFuture<Void> returnToService(int propertyIndex);
+
+	/**
+	 * Gets the descriptions of all clients.
+	 *
+	 * @return future of an array of strings, where each string describes a client
+	 */
+	CompletableFuture<String[]> listClients();
+
+	/**
+	 * Gets the leases for a particular client.
+	 *
+	 * @param clientIndex Index of the targeted client
+	 * @return future of an array of strings in which each string describes a lease
+	 *         for the client, failing with IllegalArgumentException
+	 */
+	CompletableFuture<String[]> listClientLeases(int clientIndex);
+
+	/**
+	 * Gets the rental units that meet the filters currently in place.
+	 *
+	 * @return future of an array of strings in which each string describes a
+	 *         rental unit
+	 */
+	CompletableFuture<String[]> listRentalUnits();
+
+	/**
+	 * Gets the leases for the rental unit at this index in the filtered list.
+	 *
+	 * @param propertyIndex Index of the targeted rental unit (subject to filtering)
+	 * @return future of an array of strings in which each string describes a lease
+	 *         for the rental unit, failing with IllegalArgumentException
+	 */
+	CompletableFuture<String[]> listLeasesForRentalUnit(int propertyIndex);
+
+	/**
+	 * Removes all data and resets the reservation confirmation numbering to 0.
+	 *
+	 * @return future completed once the data is removed
+	 */
+	CompletableFuture<Void> flushAllData();
+}
@@ -3,6 +3,11 @@
  */
 package edu.ncsu.csc216.business.model.stakeholders;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
 import edu.ncsu.csc216.business.list_utils.SimpleArrayList;
 import edu.ncsu.csc216.business.model.contracts.Lease;
 
@@ -22,6 +27,18 @@ public class Client {
 	/** list of leases associated with the client */
 	private SimpleArrayList<Lease> myLeases = new SimpleArrayList<Lease>();
 
+	/**
+	 * Copy of myLeases published after every change, so that listings can be read
+	 * without taking leasesLock
+	 */
+	private volatile Lease[] leaseSnapshot = new Lease[0];
+
+	/** Version of the leases, moved on every time they are published */
+	private volatile int leaseVersion;
+
+	/** Lock the PropertyManager holds while reading or changing myLeases */
+	private final ReentrantLock leasesLock = new ReentrantLock();
+
 	/**
 	 * Constructor which uses the provided name and id to make a new Client object
 	 * 
@@ -157,22 +174,52 @@ public class Client {
 			throw new IllegalArgumentException("Lease does not belong to client");
 		}
 		this.myLeases.add(lease);
+		publishLeases();
+	}
+
+	/**
+	 * Adds a range of leases read from a file to the end of this client's list of
+	 * leases at once, publishing the leases once rather than once per lease, so
+	 * adding k leases takes time in proportion to k.
+	 * 
+	 * @param leases array holding the leases, none of them held by this client
+	 * @param from   position of the first lease to add
+	 * @param to     position just after the last lease to add
+	 * @throws IllegalArgumentException if a lease does not belong to this client,
+	 *                                  in which case none are added
+	 */
+	public void addLeasesFromFile(Lease[] leases, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (leases[i] == null || !this.equals(leases[i].getClient())) {
+				throw new IllegalArgumentException("Lease does not belong to client");
+			}
+		}
+		this.myLeases.appendAll(leases, from, to);
+		publishLeases();
+	}
+
+	/**
+	 * Gets the leases of this client in the order they were added, as last
+	 * published. The list is a read-only view of the published leases.
+	 * 
+	 * @return read-only list of the leases
+	 */
+	public List<Lease> getLeases() {
+		return Collections.unmodifiableList(Arrays.asList(leaseSnapshot));
 	}
 
 	/**
 	 * Returns an array of Strings with each String representing a lease attached to
-	 * this client
+	 * this client. Reads the last published copy of the leases, so it never waits
+	 * for a change in progress.
 	 * 
 	 * @return array of Leases as a String
 	 */
 	public String[] listLeases() {
-		String[] ret = new String[this.myLeases.size()];
-		for (int i = 0; i < this.myLeases.size(); i++) {
-			Lease l = myLeases.get(i);
-			String[] data = l.leaseData();
-			ret[i] = data[0] + " | " + data[1] + " |";
-			String insert = data[2] + " | " + data[3];
-			ret[i] = String.format(ret[i] + " %29s", insert);
+		Lease[] leases = leaseSnapshot;
+		String[] ret = new String[leases.length];
+		for (int i = 0; i < leases.length; i++) {
+			ret[i] = leases[i].getClientRow();
 		}
 		return ret;
 	}
@@ -187,12 +234,67 @@ public class Client {
 	public Lease cancelLeaseAt(int index) {
 		try {
 			Lease ret = this.myLeases.remove(index);
+			publishLeases();
 			return ret;
 		} catch (IndexOutOfBoundsException e) {
 			throw new IllegalArgumentException();
 		}
 	}
 
+	/**
+	 * Gets the lease at the given position of this client's list of leases.
+	 * 
+	 * @param index position of the lease
+	 * @return the lease, or null if there is no lease at that position
+	 */
+	Lease getLeaseAt(int index) {
+		if (index < 0 || index >= myLeases.size()) {
+			return null;
+		}
+		return myLeases.get(index);
+	}
+
+	/**
+	 * Marks this client's leases as changed after one of them was shortened in
+	 * place, which leaves the list itself as it was. Called while the leases lock
+	 * is held.
+	 */
+	void leaseShortened() {
+		leaseVersion++;
+	}
+
+	/**
+	 * Private helper method that publishes a copy of the current leases
+	 */
+	private void publishLeases() {
+		Lease[] leases = new Lease[myLeases.size()];
+		for (int i = 0; i < leases.length; i++) {
+			leases[i] = myLeases.get(i);
+		}
+		leaseSnapshot = leases;
+		leaseVersion++; // only changed under leasesLock
+	}
+
+	/**
+	 * Gets the version of this client's leases, which changes every time a lease
+	 * is added, cancelled or shortened. The version changes only after the leases
+	 * are published, so leases read after the version are at least as new as it.
+	 * 
+	 * @return the current version of the leases
+	 */
+	public int getLeaseVersion() {
+		return leaseVersion;
+	}
+
+	/**
+	 * Gets the lock guarding this client's list of leases.
+	 * 
+	 * @return the lock
+	 */
+	ReentrantLock getLeasesLock() {
+		return leasesLock;
+	}
+
 	/**
 	 * Cancels lease with the given confirmation number.
 	 * 
@@ -0,0 +1,235 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.stakeholders;
+
+import java.time.LocalDate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+
+/**
+ * Runs the calls of an AsyncLandlord on a Landlord, such as the
+ * PropertyManager, using the given executor. A single thread executor keeps
+ * calls in the order they were made, which matters for index based calls that
+ * follow a filter change. An executor with many threads, or one starting a
+ * virtual thread per task, lets independent calls overlap.
+ *
+ * @author Anton
+ */
+public class ExecutorLandlord implements AsyncLandlord {
+
+	/** The Landlord the calls are run on */
+	private final Landlord landlord;
+
+	/** Runs the calls */
+	private final Executor executor;
+
+	/**
+	 * Constructor for the adapter
+	 *
+	 * @param landlord the Landlord the calls are run on
+	 * @param executor runs the calls
+	 * @throws IllegalArgumentException if either parameter is null
+	 */
+	public ExecutorLandlord(Landlord landlord, Executor executor) {
+		if (landlord == null || executor == null) {
+			throw new IllegalArgumentException();
+		}
+		this.landlord = landlord;
+		this.executor = executor;
+	}
+
+	/**
+	 * Runs Landlord.addNewClient on the executor.
+	 *
+	 * @param name Name of the new client
+	 * @param id   Unique id of the new client
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<Client> addNewClient(String name, String id) {
+		return call(() -> landlord.addNewClient(name, id));
+	}
+
+	/**
+	 * Runs Landlord.addNewUnit on the executor.
+	 *
+	 * @param kind     Type of RentalUnit
+	 * @param location String of the form FF-RR
+	 * @param capacity Number of people the unit can accommodate
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<RentalUnit> addNewUnit(String kind, String location, int capacity) {
+		return call(() -> landlord.addNewUnit(kind, location, capacity));
+	}
+
+	/**
+	 * Runs Landlord.filterRentalUnits on the executor.
+	 *
+	 * @param kindFilter      filters by kind of rental unit
+	 * @param inServiceFilter filters rental units that are not in service
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<Void> filterRentalUnits(String kindFilter, boolean inServiceFilter) {
+		return call(() -> {
+			landlord.filterRentalUnits(kindFilter, inServiceFilter);
+			return null;
+		});
+	}
+
+	/**
+	 * Runs Landlord.createLease on the executor.
+	 *
+	 * @param clientIndex   Index of the client
+	 * @param propertyIndex Index of the rental unit (subject to filtering)
+	 * @param start         Start date
+	 * @param duration      Duration of the lease
+	 * @param people        Number of occupants the lease is for
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<Lease> createLease(int clientIndex, int propertyIndex, LocalDate start, int duration,
+			int people) {
+		return call(() -> landlord.createLease(clientIndex, propertyIndex, start, duration, people));
+	}
+
+	/**
+	 * Runs Landlord.cancelClientsLease on the executor.
+	 *
+	 * @param clientIndex Index of the client
+	 * @param leaseIndex  Position of the lease in the client's list
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<Void> cancelClientsLease(int clientIndex, int leaseIndex) {
+		return call(() -> {
+			landlord.cancelClientsLease(clientIndex, leaseIndex);
+			return null;
+		});
+	}
+
+	/**
+	 * Runs Landlord.removeFromService on the executor.
+	 *
+	 * @param propertyIndex Index of the rental unit (subject to filtering)
+	 * @param start         Start date
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<RentalUnit> removeFromService(int propertyIndex, LocalDate start) {
+		return call(() -> landlord.removeFromService(propertyIndex, start));
+	}
+
+	/**
+	 * Runs Landlord.closeRentalUnit on the executor.
+	 *
+	 * @param propertyIndex Index of the rental unit (subject to filtering)
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<Void> closeRentalUnit(int propertyIndex) {
+		return call(() -> {
+			landlord.closeRentalUnit(propertyIndex);
+			return null;
+		});
+	}
+
+	/**
+	 * Runs Landlord.returnToService on the executor.
+	 *
+	 * @param propertyIndex Index of the rental unit (subject to filtering)
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<Void> returnToService(int propertyIndex) {
+		return call(() -> {
+			landlord.returnToService(propertyIndex);
+			return null;
+		});
+	}
+
+	/**
+	 * Runs Landlord.listClients on the executor.
+	 *
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<String[]> listClients() {
+		return call(landlord::listClients);
+	}
+
+	/**
+	 * Runs Landlord.listClientLeases on the executor.
+	 *
+	 * @param clientIndex Index of the client
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<String[]> listClientLeases(int clientIndex) {
+		return call(() -> landlord.listClientLeases(clientIndex));
+	}
+
+	/**
+	 * Runs Landlord.listRentalUnits on the executor.
+	 *
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<String[]> listRentalUnits() {
+		return call(landlord::listRentalUnits);
+	}
+
+	/**
+	 * Runs Landlord.listLeasesForRentalUnit on the executor.
+	 *
+	 * @param propertyIndex Index of the rental unit (subject to filtering)
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<String[]> listLeasesForRentalUnit(int propertyIndex) {
+		return call(() -> landlord.listLeasesForRentalUnit(propertyIndex));
+	}
+
+	/**
+	 * Runs Landlord.flushAllData on the executor.
+	 *
+	 * @return future of the result
+	 */
+	@Override
+	public CompletableFuture<Void> flushAllData() {
+		return call(() -> {
+			landlord.flushAllData();
+			return null;
+		});
+	}
+
+	/**
+	 * Private helper method that runs a call on the executor. The future fails
+	 * with the exception the call threw itself rather than a wrapper around it.
+	 *
+	 * @param <T>    type of the call's result
+	 * @param action the call
+	 * @return future of the call's result
+	 */
+	private <T> CompletableFuture<T> call(Callable<T> action) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		try {
+			executor.execute(() -> {
+				try {
+					result.complete(action.call());
+				} catch (Exception e) {
+					result.completeExceptionally(e);
+				}
+			});
+		} catch (RuntimeException e) { // rejected by the executor
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,39 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.stakeholders;
+
+/**
+ * The leases of a file loaded lazily, which the PropertyManager has not read
+ * yet. The rental units and clients of the file are loaded at once, and the
+ * leases are only read when something needs them: the leases of one client can
+ * be listed on their own, while anything that looks at the leases of a rental
+ * unit, or changes leases, has every pending lease loaded first.
+ *
+ * @author Anton
+ */
+public interface PendingLeases {
+
+	/**
+	 * Lists the leases of a client as rows of the client's list of leases,
+	 * without loading them.
+	 *
+	 * @param clientIndex position of the client in the PropertyManager's list of
+	 *                    clients
+	 * @param client      the client at that position
+	 * @return the rows, in the order the client would list them, or null if the
+	 *         client was not loaded with these leases
+	 * @throws IllegalArgumentException if the leases cannot be read
+	 */
+	String[] listLeases(int clientIndex, Client client);
+
+	/**
+	 * Loads every pending lease into the PropertyManager, as a file's leases are
+	 * loaded.
+	 *
+	 * @param manager the PropertyManager
+	 * @return descriptions of the leases that conflict or are over capacity
+	 * @throws IllegalArgumentException if the leases cannot be read
+	 */
+	String[] load(PropertyManager manager);
+}
@@ -6,17 +6,42 @@ package edu.ncsu.csc216.business.model.stakeholders;
 
 import java.time.LocalDate;
 import java.time.Month;
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import edu.ncsu.csc216.business.list_utils.SimpleArrayList;
+import edu.ncsu.csc216.business.list_utils.SimpleListIterator;
 import edu.ncsu.csc216.business.list_utils.SortedLinkedListWithIterator;
 import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.io.RowFormatter;
 import edu.ncsu.csc216.business.model.properties.*;
 
 /**
  * Stores and manages all the data associated with the property such as clients,
  * leases, and rental units.
  * 
+ * The PropertyManager is safe to use from several threads at once. Its locks
+ * are always taken in this order, and each is optional:
+ * <ol>
+ * <li>unitsLock, guarding the list of rental units</li>
+ * <li>the floor lock of a rental unit, guarding the leases and service of every
+ * rental unit on that floor</li>
+ * <li>clientsLock, guarding the list of clients</li>
+ * <li>the leases lock of a client, guarding that client's list of leases</li>
+ * </ol>
+ * Reservations and cancellations for units on different floors take different
+ * floor locks and share only read locks, so they do not wait on each other.
+ * The listing methods take no locks at all: every change publishes new copies
+ * of what they read through volatile fields, so polling a listing never holds
+ * up a change.
+ * 
  * @author Anton
  */
 public class PropertyManager implements Landlord {
@@ -27,21 +52,67 @@ public class PropertyManager implements Landlord {
 	/** The latest date for a lease allowed */
 	private static final LocalDate LATEST_DATE = LocalDate.of(2029, Month.DECEMBER, 31);
 
-	/** Filters the type of rental unit to filter Rental Units by */
-	private String kindFilter = "A";
-
-	/** Determines whether to filter out rental units that are not in service */
-	private boolean inServiceFilter = false;
-
-	/** List of all clients using Wolf Rentals Services */
-	private SimpleArrayList<Client> customerBase = new SimpleArrayList<Client>();
-
 	/** List of all rental units in Wolf Rental Services */
 	private SortedLinkedListWithIterator<RentalUnit> rooms = new SortedLinkedListWithIterator<RentalUnit>();
 
 	/** Singleton instance variable */
 	private static PropertyManager instance;
 
+	/** Counts changes to the rental units so that views know when to refilter */
+	private final AtomicInteger unitsVersion = new AtomicInteger();
+
+	/** Highest floor a rental unit can be on */
+	private static final int MAX_FLOOR = 45;
+
+	/** Room numbers on a floor, used to index the rental units by location */
+	private static final int ROOMS_PER_FLOOR = 100;
+
+	/** Rental units indexed by floor * ROOMS_PER_FLOOR + room */
+	private RentalUnit[] unitsByLocation = new RentalUnit[(MAX_FLOOR + 1) * ROOMS_PER_FLOOR];
+
+	/** Clients by id */
+	private HashMap<String, Client> clientsById = new HashMap<String, Client>();
+
+	/** Guards the list of rental units */
+	private final ReentrantReadWriteLock unitsLock = new ReentrantReadWriteLock();
+
+	/** One lock per floor, guarding the leases and service of its rental units */
+	private final ReentrantLock[] floorLocks = new ReentrantLock[MAX_FLOOR + 1];
+
+	/** Guards the list of clients */
+	private final ReentrantReadWriteLock clientsLock = new ReentrantReadWriteLock();
+
+	/** Copy of the rental units, published after every change to the list */
+	private volatile RentalUnit[] unitSnapshot = new RentalUnit[0];
+
+	/**
+	 * All clients using Wolf Rentals Services, in the order they were added, with
+	 * their listing rows. Published anew after every change to the list.
+	 */
+	private volatile ClientListing customerBase = ClientListing.EMPTY;
+
+	/** View used by the index based Landlord methods */
+	private final RentalUnitView defaultView = new RentalUnitView(this);
+
+	/** Hears about every change, or null if nothing is listening */
+	private volatile RentalChangeListener listener;
+
+	/** Leases of a file loaded lazily that are not read yet, or null if there are none */
+	private volatile PendingLeases pendingLeases;
+
+	/** Held while the pending leases are being loaded, before any other lock */
+	private final ReentrantLock pendingLock = new ReentrantLock();
+
+	/**
+	 * Constructor for the PropertyManager, which is only created through
+	 * getInstance
+	 */
+	private PropertyManager() {
+		for (int i = 0; i < floorLocks.length; i++) {
+			floorLocks[i] = new ReentrantLock();
+		}
+	}
+
 	/**
 	 * Adds a new client with the given name and id to the client list
 	 * 
@@ -61,12 +132,20 @@ public class PropertyManager implements Landlord {
 	@Override
 	public Client addNewClient(String name, String id) throws DuplicateClientException {
 		Client newClient = new Client(name, id); // throws illegalArgument if invalid params for client
-		for (int i = 0; i < customerBase.size(); i++) {// checks for duplicate clients
-			if (newClient.equals(customerBase.get(i))) {
+		clientsLock.writeLock().lock();
+		try {
+			if (clientsById.containsKey(newClient.getId())) {// checks for duplicate clients
 				throw new DuplicateClientException();
 			}
+			clientsById.put(newClient.getId(), newClient);
+			customerBase = customerBase.append(newClient);
+			RentalChangeListener l = listener;
+			if (l != null) {
+				l.clientAdded(newClient);
+			}
+		} finally {
+			clientsLock.writeLock().unlock();
 		}
-		customerBase.add(newClient);
 		return newClient;
 	}
 
@@ -98,12 +177,22 @@ public class PropertyManager implements Landlord {
 		} else {
 			throw new IllegalArgumentException("invalid kind");
 		}
-		for (int i = 0; i < rooms.size(); i++) {
-			if (rooms.get(i).equals(newUnit)) {
+		unitsLock.writeLock().lock();
+		try {
+			int slot = locationSlot(newUnit.getFloor(), newUnit.getRoom());
+			if (unitsByLocation[slot] != null) {
 				throw new DuplicateRoomException();
 			}
+			rooms.add(newUnit);
+			unitsByLocation[slot] = newUnit;
+			publishUnits();
+			RentalChangeListener l = listener;
+			if (l != null) {
+				l.unitAdded(newUnit);
+			}
+		} finally {
+			unitsLock.writeLock().unlock();
 		}
-		rooms.add(newUnit);
 		return newUnit;
 	}
 
@@ -121,52 +210,241 @@ public class PropertyManager implements Landlord {
 	 */
 	public void addLeaseFromFile(Client c, int confNumber, RentalUnit r, LocalDate startD, LocalDate endD,
 			int numOccupants) {
-		if (!this.customerBase.contains(c) || !this.rooms.contains(r)) {
+		if (startD.isBefore(EARLIEST_DATE) || startD.isAfter(LATEST_DATE) || endD.isBefore(EARLIEST_DATE)
+				|| endD.isAfter(LATEST_DATE)) {
 			throw new IllegalArgumentException();
 		}
-		if (numOccupants <= 0) {
+		addLeaseFromFile(c, confNumber, r, (int) startD.toEpochDay(), (int) endD.toEpochDay(), numOccupants);
+	}
+
+	/**
+	 * Adds lease with provided information to the system, taking the dates as day
+	 * numbers.
+	 * 
+	 * @param c            client
+	 * @param confNumber   clients confirmation number
+	 * @param r            rental unit
+	 * @param startDay     starting date, in days since 1970-01-01
+	 * @param endDay       ending date, in days since 1970-01-01
+	 * @param numOccupants number of occupants
+	 * @throws IllegalArgumentException if the attempt to add a lease from this file
+	 *                                  causes inconsistencies.
+	 */
+	public void addLeaseFromFile(Client c, int confNumber, RentalUnit r, int startDay, int endDay,
+			int numOccupants) {
+		if (numOccupants <= 0 || c == null || r == null) {
 			throw new IllegalArgumentException();
 		}
-		if (startD.isBefore(EARLIEST_DATE) || startD.isAfter(LATEST_DATE) || endD.isBefore(EARLIEST_DATE)
-				|| endD.isAfter(LATEST_DATE)) {
+		if (!RentalCalendar.isInRange(startDay) || !RentalCalendar.isInRange(endDay)) {
 			throw new IllegalArgumentException();
 		}
+		unitsLock.readLock().lock();
 		try {
-			Lease l = new Lease(confNumber, c, r, startD, endD, numOccupants);
-			for (int i = 0; i < rooms.size(); i++) {
-				if (rooms.get(i).equals(r)) {
-					if (!rooms.get(i).isInService()) { // if not in service
-						rooms.get(i).returnToService();
-						rooms.get(i).addLease(l);
-						rooms.get(i).takeOutOfService();
-					} else {
-						rooms.get(i).addLease(l);
+			RentalUnit rental = findUnit(r.getFloor(), r.getRoom());
+			if (rental == null) {
+				throw new IllegalArgumentException();
+			}
+			ReentrantLock floorLock = floorLock(rental);
+			floorLock.lock();
+			try {
+				clientsLock.readLock().lock();
+				try {
+					Client client = findClient(c);
+					if (client == null) {
+						throw new IllegalArgumentException();
+					}
+					Lease l = new Lease(confNumber, c, r, startDay, endDay, numOccupants);
+					rental.addLeaseFromFile(l);
+					client.getLeasesLock().lock();
+					try {
+						client.addNewLease(l);
+						Lease.claimConfirmationNumber(confNumber);
+						// heard in the order of the client's list
+						RentalChangeListener heard = listener;
+						if (heard != null) {
+							heard.leaseAdded(l);
+						}
+					} finally {
+						client.getLeasesLock().unlock();
 					}
+				} finally {
+					clientsLock.readLock().unlock();
 				}
+			} finally {
+				floorLock.unlock();
 			}
-			for (int i = 0; i < customerBase.size(); i++) {
-				if (customerBase.get(i).equals(c)) {
-					customerBase.get(i).addNewLease(l);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException();
+		} finally {
+			unitsLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds many leases read from a file at once, deferring the checks against the
+	 * other leases until all of them are in hand. The leases are grouped by rental
+	 * unit, keeping the order they are given in, and the pool handles each floor
+	 * as a task of its own, so rental units on different floors are filled in
+	 * parallel. Each rental unit sorts its leases once and checks them in a single
+	 * sweep. Each client then receives its leases in the order they are given in.
+	 * Leases that conflict or are over capacity are added as they were recorded,
+	 * like addLeaseFromFile does, and are reported all together.
+	 * 
+	 * @param leases leases made for this PropertyManager's clients and rental
+	 *               units
+	 * @param pool   runs the tasks adding leases to the rental units
+	 * @return descriptions of the leases that conflict or are over capacity, by
+	 *         rental unit in order of location
+	 * @throws IllegalArgumentException if a lease is for a client or rental unit
+	 *                                  that is not this PropertyManager's, has no
+	 *                                  occupants, or has dates out of range
+	 */
+	public String[] addLeasesFromFile(Lease[] leases, ForkJoinPool pool) {
+		List<String> problems = new ArrayList<String>();
+		unitsLock.readLock().lock();
+		try {
+			Lease[] grouped = groupByUnit(leases);
+			List<ForkJoinTask<List<String>>> tasks = new ArrayList<ForkJoinTask<List<String>>>();
+			int from = 0;
+			while (from < grouped.length) {
+				int floor = grouped[from].getProperty().getFloor();
+				int to = from;
+				while (to < grouped.length && grouped[to].getProperty().getFloor() == floor) {
+					to++;
 				}
+				final int first = from;
+				final int last = to;
+				tasks.add(pool.submit(() -> addFloorFromFile(grouped, first, last)));
+				from = to;
 			}
-		} catch (Exception e) {
-			throw new IllegalArgumentException();
+			for (ForkJoinTask<List<String>> task : tasks) {
+				problems.addAll(task.join());
+			}
+		} finally {
+			unitsLock.readLock().unlock();
+		}
+		clientsLock.readLock().lock();
+		try {
+			int i = 0;
+			while (i < leases.length) {
+				Client client = leases[i].getClient();
+				RentalChangeListener l = listener;
+				int end = i;
+				while (end < leases.length && leases[end].getClient() == client) {
+					end++;
+				}
+				client.getLeasesLock().lock();
+				try {
+					client.addLeasesFromFile(leases, i, end); // published once per client
+					for (; i < end; i++) {
+						Lease.claimConfirmationNumber(leases[i].getConfirmationNumber());
+						if (l != null) {
+							l.leaseAdded(leases[i]);
+						}
+					}
+				} finally {
+					client.getLeasesLock().unlock();
+				}
+			}
+		} finally {
+			clientsLock.readLock().unlock();
+		}
+		return problems.toArray(new String[problems.size()]);
+	}
+
+	/**
+	 * Private helper method that adds the leases of one floor, grouped by rental
+	 * unit, to their rental units under the floor lock. Runs as a task of the pool
+	 * while the caller holds unitsLock.
+	 * 
+	 * @param grouped leases grouped by rental unit
+	 * @param from    position of the floor's first lease
+	 * @param to      position just after the floor's last lease
+	 * @return descriptions of the leases that conflict or are over capacity
+	 */
+	private List<String> addFloorFromFile(Lease[] grouped, int from, int to) {
+		List<String> problems = new ArrayList<String>();
+		ReentrantLock floorLock = floorLock(grouped[from].getProperty());
+		floorLock.lock();
+		try {
+			int first = from;
+			while (first < to) {
+				RentalUnit unit = grouped[first].getProperty();
+				int last = first;
+				while (last < to && grouped[last].getProperty() == unit) {
+					last++;
+				}
+				for (String problem : unit.addLeasesFromFile(Arrays.copyOfRange(grouped, first, last))) {
+					problems.add(problem);
+				}
+				first = last;
+			}
+		} finally {
+			floorLock.unlock();
+		}
+		return problems;
+	}
+
+	/**
+	 * Private helper method that checks leases read from a file and groups them by
+	 * rental unit in order of location, keeping the order they are given in
+	 * within a rental unit. The caller holds unitsLock.
+	 * 
+	 * @param leases the leases
+	 * @return the leases, grouped by rental unit
+	 * @throws IllegalArgumentException if a lease is for a client or rental unit
+	 *                                  that is not this PropertyManager's, has no
+	 *                                  occupants, or has dates out of range
+	 */
+	private Lease[] groupByUnit(Lease[] leases) {
+		int[] start = new int[unitsByLocation.length + 1];
+		clientsLock.readLock().lock();
+		try {
+			for (Lease l : leases) {
+				if (l == null || l.getNumOccupants() <= 0 || !RentalCalendar.isInRange(l.getStartDay())
+						|| !RentalCalendar.isInRange(l.getEndDay())) {
+					throw new IllegalArgumentException();
+				}
+				RentalUnit r = l.getProperty();
+				if (findUnit(r.getFloor(), r.getRoom()) != r || findClient(l.getClient()) != l.getClient()) {
+					throw new IllegalArgumentException();
+				}
+				start[locationSlot(r.getFloor(), r.getRoom()) + 1]++;
+			}
+		} finally {
+			clientsLock.readLock().unlock();
+		}
+		for (int i = 1; i < start.length; i++) {
+			start[i] += start[i - 1];
 		}
+		Lease[] grouped = new Lease[leases.length];
+		for (Lease l : leases) {
+			grouped[start[locationSlot(l.getProperty().getFloor(), l.getProperty().getRoom())]++] = l;
+		}
+		return grouped;
 	}
 
 	/**
 	 * Sets filters for rental units so that only those that match the filters are
-	 * considered.
+	 * considered by the index based methods of this PropertyManager. Other
+	 * RentalUnitViews are not affected.
 	 * 
 	 * @param kindFilter      filters by kind of rental unit
 	 * @param inServiceFilter filters rental units that are not in service
 	 */
 	@Override
 	public void filterRentalUnits(String kindFilter, boolean inServiceFilter) {
-		kindFilter = kindFilter.trim();
-		String filter = Character.toString(kindFilter.charAt(0)).toUpperCase();
-		this.kindFilter = filter;
-		this.inServiceFilter = inServiceFilter;
+		defaultView.filterRentalUnits(kindFilter, inServiceFilter);
+	}
+
+	/**
+	 * Creates a new view of the rental units with its own filters, independent of
+	 * the filters used by the index based methods of this PropertyManager.
+	 * 
+	 * @return a new view with no filters in place
+	 */
+	public RentalUnitView newView() {
+		return new RentalUnitView(this);
 	}
 
 	/**
@@ -185,16 +463,193 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public Lease createLease(int clientIndex, int propertyIndex, LocalDate start, int duration, int people) {
-		SortedLinkedListWithIterator<RentalUnit> filtered = this.getFilteredRoomList();
-		try {
-			Client c = customerBase.get(clientIndex);
-			RentalUnit r = filtered.get(propertyIndex);
-			Lease l = r.reserve(c, start, duration, people);
-			customerBase.get(clientIndex).addNewLease(l);
-			return l;
-		} catch (Exception e) {
+		return defaultView.createLease(clientIndex, propertyIndex, start, duration, people);
+	}
+
+	/**
+	 * Creates a new lease for the client at the given index and the given rental
+	 * unit.
+	 * 
+	 * @param clientIndex Index of the client in the Landlord's customer base
+	 * @param r           the rental unit being leased
+	 * @param start       Start date for the lease
+	 * @param duration    Duration of the lease (units depending on rental unit
+	 *                    type)
+	 * @param people      Number of occupants the lease is for
+	 * @return the created lease
+	 * @throws IllegalArgumentException if the parameters do not constitute valid
+	 *                                  lease data
+	 */
+	public Lease createLease(int clientIndex, RentalUnit r, LocalDate start, int duration, int people) {
+		ReservationResult result = tryCreateLease(clientIndex, r, start, duration, people);
+		if (!result.isSuccess()) {
 			throw new IllegalArgumentException();
 		}
+		return result.getLease();
+	}
+
+	/**
+	 * Attempts to create a new lease for the client at the given index and the
+	 * given rental unit. Nothing is thrown for a lease that cannot be made; the
+	 * reason is given by the status of the result instead, so callers checking
+	 * many requests do not pay for exceptions.
+	 * 
+	 * @param clientIndex Index of the client in the Landlord's customer base
+	 * @param r           the rental unit being leased
+	 * @param start       Start date for the lease
+	 * @param duration    Duration of the lease (units depending on rental unit
+	 *                    type)
+	 * @param people      Number of occupants the lease is for
+	 * @return result holding the created lease, or the reason it was not created
+	 */
+	public ReservationResult tryCreateLease(int clientIndex, RentalUnit r, LocalDate start, int duration,
+			int people) {
+		if (r == null) {
+			return ReservationResult.failure(ReservationStatus.INVALID_INPUT);
+		}
+		loadPendingLeases();
+		unitsLock.readLock().lock();
+		try {
+			if (findUnit(r.getFloor(), r.getRoom()) != r) { // closed meanwhile
+				return ReservationResult.failure(ReservationStatus.INVALID_INPUT);
+			}
+			ReentrantLock floorLock = floorLock(r);
+			floorLock.lock();
+			try {
+				clientsLock.readLock().lock();
+				try {
+					if (clientIndex >= customerBase.size || clientIndex < 0) {
+						return ReservationResult.failure(ReservationStatus.INVALID_INPUT);
+					}
+					Client c = customerBase.clients[clientIndex];
+					ReservationResult result = r.tryReserve(c, start, duration, people);
+					if (result.isSuccess()) {
+						c.getLeasesLock().lock();
+						try {
+							c.addNewLease(result.getLease());
+							// heard in the order of the client's list
+							RentalChangeListener l = listener;
+							if (l != null) {
+								l.leaseAdded(result.getLease());
+							}
+						} finally {
+							c.getLeasesLock().unlock();
+						}
+					}
+					return result;
+				} finally {
+					clientsLock.readLock().unlock();
+				}
+			} finally {
+				floorLock.unlock();
+			}
+		} finally {
+			unitsLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Attempts to create a new lease like tryCreateLease, but without the floor
+	 * lock. The rental unit checks availability optimistically and commits only if
+	 * no other change reached it meanwhile, so requests for different days of the
+	 * same busy rental unit do not queue behind each other. Suited to rental units
+	 * that take many requests at once, such as popular conference rooms.
+	 * 
+	 * @param clientIndex Index of the client in the Landlord's customer base
+	 * @param r           the rental unit being leased
+	 * @param start       Start date for the lease
+	 * @param duration    Duration of the lease (units depending on rental unit
+	 *                    type)
+	 * @param people      Number of occupants the lease is for
+	 * @return result holding the created lease, or the reason it was not created
+	 */
+	public ReservationResult tryCreateLeaseOptimistically(int clientIndex, RentalUnit r, LocalDate start,
+			int duration, int people) {
+		if (r == null) {
+			return ReservationResult.failure(ReservationStatus.INVALID_INPUT);
+		}
+		loadPendingLeases();
+		unitsLock.readLock().lock();
+		try {
+			if (findUnit(r.getFloor(), r.getRoom()) != r) { // closed meanwhile
+				return ReservationResult.failure(ReservationStatus.INVALID_INPUT);
+			}
+			clientsLock.readLock().lock();
+			try {
+				if (clientIndex >= customerBase.size || clientIndex < 0) {
+					return ReservationResult.failure(ReservationStatus.INVALID_INPUT);
+				}
+				Client c = customerBase.clients[clientIndex];
+				int removals = r.getRemovalCount();
+				ReservationResult result = r.tryReserveOptimistically(c, start, duration, people);
+				if (!result.isSuccess()) {
+					return result;
+				}
+				Lease lease = result.getLease();
+				c.getLeasesLock().lock();
+				try {
+					c.addNewLease(lease);
+					// taken out of service before the client had the lease, so the
+					// lease was not cancelled on the client's side
+					if (r.getRemovalCount() != removals && !r.holdsLease(lease)) {
+						removeLease(c, lease);
+						return ReservationResult.failure(ReservationStatus.OUT_OF_SERVICE);
+					}
+					RentalChangeListener l = listener;
+					if (l != null) {
+						l.leaseAdded(lease);
+					}
+				} finally {
+					c.getLeasesLock().unlock();
+				}
+				return result;
+			} finally {
+				clientsLock.readLock().unlock();
+			}
+		} finally {
+			unitsLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Private helper method that removes that very lease from a client's list.
+	 * The caller holds the client's lock.
+	 * 
+	 * @param c     the client
+	 * @param lease the lease to remove
+	 */
+	private void removeLease(Client c, Lease lease) {
+		for (int i = 0; c.getLeaseAt(i) != null; i++) {
+			if (c.getLeaseAt(i) == lease) {
+				c.cancelLeaseAt(i);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Determines whether a lease could be created for the given rental unit,
+	 * without creating it. Nothing is changed and no confirmation number is used.
+	 * 
+	 * @param r        the rental unit being asked about
+	 * @param start    Start date for the lease
+	 * @param duration Duration of the lease (units depending on rental unit type)
+	 * @param people   Number of occupants the lease is for
+	 * @return SUCCESS if the lease could be created, otherwise the reason it
+	 *         could not
+	 */
+	public ReservationStatus canReserve(RentalUnit r, LocalDate start, int duration, int people) {
+		if (r == null) {
+			return ReservationStatus.INVALID_INPUT;
+		}
+		loadPendingLeases();
+		ReentrantLock floorLock = floorLock(r);
+		floorLock.lock();
+		try {
+			return r.canReserve(start, duration, people);
+		} finally {
+			floorLock.unlock();
+		}
 	}
 
 	/**
@@ -206,17 +661,123 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public void cancelClientsLease(int clientIndex, int leaseIndex) {
-		if (clientIndex >= customerBase.size() || clientIndex < 0) {
-			throw new IllegalArgumentException();
+		loadPendingLeases();
+		while (true) {
+			// find the lease first, as its rental unit's lock comes before the client's
+			Client c = getClient(clientIndex);
+			Lease l;
+			c.getLeasesLock().lock();
+			try {
+				l = c.getLeaseAt(leaseIndex);
+			} finally {
+				c.getLeasesLock().unlock();
+			}
+			if (l == null) {
+				throw new IllegalArgumentException();
+			}
+			unitsLock.readLock().lock();
+			try {
+				RentalUnit rental = getManagedUnit(l.getProperty());
+				ReentrantLock floorLock = floorLock(rental);
+				floorLock.lock();
+				try {
+					clientsLock.readLock().lock();
+					c.getLeasesLock().lock();
+					try {
+						if (customerBase.size <= clientIndex || customerBase.clients[clientIndex] != c
+								|| c.getLeaseAt(leaseIndex) != l) {
+							continue; // changed while no lock was held, look again
+						}
+						cancel(c, leaseIndex, rental);
+						return;
+					} finally {
+						c.getLeasesLock().unlock();
+						clientsLock.readLock().unlock();
+					}
+				} finally {
+					floorLock.unlock();
+				}
+			} finally {
+				unitsLock.readLock().unlock();
+			}
 		}
-		Client c = this.customerBase.get(clientIndex);
-		if (leaseIndex >= c.listLeases().length || leaseIndex < 0) {
+	}
+
+	/**
+	 * Cancels the lease with the given confirmation number on the client's list
+	 * of leases.
+	 * 
+	 * @param client             the client whose lease is to be cancelled
+	 * @param confirmationNumber confirmation number of the lease
+	 * @throws IllegalArgumentException if the client is not one of this
+	 *                                  PropertyManager's clients or holds no lease
+	 *                                  with that number
+	 */
+	public void cancelLease(Client client, int confirmationNumber) {
+		if (client == null) {
 			throw new IllegalArgumentException();
 		}
+		loadPendingLeases();
+		while (true) {
+			Client c = getClientWithId(client.getId());
+			Lease l = null;
+			for (Lease held : c.getLeases()) {
+				if (held.getConfirmationNumber() == confirmationNumber) {
+					l = held;
+				}
+			}
+			if (l == null) {
+				throw new IllegalArgumentException();
+			}
+			unitsLock.readLock().lock();
+			try {
+				RentalUnit rental = getManagedUnit(l.getProperty());
+				ReentrantLock floorLock = floorLock(rental);
+				floorLock.lock();
+				try {
+					clientsLock.readLock().lock();
+					c.getLeasesLock().lock();
+					try {
+						int leaseIndex = 0;
+						while (c.getLeaseAt(leaseIndex) != null && c.getLeaseAt(leaseIndex) != l) {
+							leaseIndex++;
+						}
+						if (findClient(c) != c || c.getLeaseAt(leaseIndex) == null) {
+							continue; // changed while no lock was held, look again
+						}
+						cancel(c, leaseIndex, rental);
+						return;
+					} finally {
+						c.getLeasesLock().unlock();
+						clientsLock.readLock().unlock();
+					}
+				} finally {
+					floorLock.unlock();
+				}
+			} finally {
+				unitsLock.readLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Private helper method that cancels a lease on both the client's and the
+	 * rental unit's side and frees its confirmation number. The caller holds every
+	 * lock up to the client's.
+	 * 
+	 * @param c          the client
+	 * @param leaseIndex position of the lease in the client's list
+	 * @param rental     the lease's rental unit
+	 */
+	private void cancel(Client c, int leaseIndex, RentalUnit rental) {
 		Lease l = c.cancelLeaseAt(leaseIndex);
-		RentalUnit rental = l.getProperty();
 		int confNum = l.getConfirmationNumber();
-		this.rooms.get(rooms.indexOf(rental)).cancelLeaseByNumber(confNum); // cancel lease at rental unit
+		rental.cancelLeaseByNumber(confNum); // cancel lease at rental unit
+		Lease.releaseConfirmationNumber(confNum);
+		RentalChangeListener heard = listener;
+		if (heard != null) {
+			heard.leaseCancelled(l);
+		}
 	}
 
 	/**
@@ -232,30 +793,97 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public RentalUnit removeFromService(int propertyIndex, LocalDate start) {
-		SortedLinkedListWithIterator<RentalUnit> filteredList = this.getFilteredRoomList();
-		if (propertyIndex >= filteredList.size() || propertyIndex < 0) {
-			throw new IllegalArgumentException("index outside of list");
-		}
-		String location = filteredList.get(propertyIndex).getFloor() + "-" + filteredList.get(propertyIndex).getRoom();
-		RentalUnit ret = this.getUnitAtLocation(location);
-		SortedLinkedListWithIterator<Lease> leases = (SortedLinkedListWithIterator<Lease>) ret
-				.removeFromServiceStarting(start);
-		if (leases != null) {
-			for (int i = 0; i < customerBase.size(); i++) {// iterates through customerBase
-				String[] customerLeases = customerBase.get(i).listLeases();
-				for (int j = 0; j < customerLeases.length; j++) {// iterates through each customers leases
-					Scanner getConf = new Scanner(customerLeases[j]);
-					int confNum = getConf.nextInt();
-					for (int k = 0; k < leases.size(); k++) {
-						if (leases.get(k).getConfirmationNumber() == confNum) {
-							customerBase.get(i).cancelLeaseWithNumber(confNum);
-						}
+		return defaultView.removeFromService(propertyIndex, start);
+	}
+
+	/**
+	 * Cancels all leases for the given rental unit on or after a particular date.
+	 * The remaining leases should still be valid.
+	 * 
+	 * @param unit  the rental unit being removed from service
+	 * @param start Date for starting cancellations
+	 * @return the RentalUnit that was removed
+	 * @throws IllegalArgumentException if the rental unit is not one of this
+	 *                                  PropertyManager's rental units
+	 */
+	public RentalUnit removeFromService(RentalUnit unit, LocalDate start) {
+		loadPendingLeases();
+		unitsLock.readLock().lock();
+		try {
+			RentalUnit ret = this.getManagedUnit(unit);
+			ReentrantLock floorLock = floorLock(ret);
+			floorLock.lock();
+			try {
+				Lease[] running = leasesRunningFrom(ret, (int) start.toEpochDay());
+				int[] ends = new int[running.length];
+				for (int i = 0; i < running.length; i++) {
+					ends[i] = running[i].getEndDay();
+				}
+				SortedLinkedListWithIterator<Lease> leases = (SortedLinkedListWithIterator<Lease>) ret
+						.removeFromServiceStarting(start);
+				unitsVersion.incrementAndGet();
+				if (leases != null) {
+					cancelForClients(leases.iterator());
+				}
+				markShortened(running, ends);
+				RentalChangeListener l = listener;
+				if (l != null) {
+					l.removedFromService(ret, start);
+				}
+			} finally {
+				floorLock.unlock();
+			}
+			return ret;
+		} finally {
+			unitsLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Private helper method that finds the leases of a rental unit that run on or
+	 * past a day, which taking the unit out of service from that day may shorten.
+	 * Called while the unit's floor lock is held.
+	 * 
+	 * @param unit the rental unit
+	 * @param day  the day, in days since 1970-01-01
+	 * @return the leases
+	 */
+	private static Lease[] leasesRunningFrom(RentalUnit unit, int day) {
+		List<Lease> running = new ArrayList<Lease>();
+		SimpleListIterator<Lease> it = unit.leaseIterator();
+		while (it.hasNext()) {
+			Lease l = it.next();
+			if (l.getEndDay() >= day) {
+				running.add(l);
+			}
+		}
+		return running.toArray(new Lease[running.size()]);
+	}
+
+	/**
+	 * Private helper method that marks the leases of each client whose lease was
+	 * shortened as changed, so that saving writes the new end date
+	 * 
+	 * @param running leases that may have been shortened
+	 * @param ends    last day of each of those leases beforehand
+	 */
+	private void markShortened(Lease[] running, int[] ends) {
+		clientsLock.readLock().lock();
+		try {
+			for (int i = 0; i < running.length; i++) {
+				Client client = findClient(running[i].getClient());
+				if (client != null && running[i].getEndDay() != ends[i]) {
+					client.getLeasesLock().lock();
+					try {
+						client.leaseShortened();
+					} finally {
+						client.getLeasesLock().unlock();
 					}
-					getConf.close();
 				}
 			}
+		} finally {
+			clientsLock.readLock().unlock();
 		}
-		return ret;
 	}
 
 	/**
@@ -270,30 +898,69 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public void closeRentalUnit(int propertyIndex) {
-		SortedLinkedListWithIterator<RentalUnit> filteredList = this.getFilteredRoomList();
-		if (propertyIndex >= filteredList.size() || propertyIndex < 0) {
-			throw new IllegalArgumentException("index outside of list");
-		}
-		String location = filteredList.get(propertyIndex).getFloor() + "-" + filteredList.get(propertyIndex).getRoom();
-		RentalUnit ret = this.getUnitAtLocation(location);
-		String[] rentalClients = ret.listLeases();
-		for (int i = 0; i < rentalClients.length; i++) {
-			Scanner stringScan = new Scanner(rentalClients[i]);
-			int confNumRental = stringScan.nextInt();
-			for (int j = 0; j < customerBase.size(); j++) {
-				String[] customerLeases = customerBase.get(j).listLeases();
-				for (int k = 0; k < customerLeases.length; k++) {
-					Scanner scan = new Scanner(customerLeases[k]);
-					int confNumCustomer = scan.nextInt();
-					if (confNumCustomer == confNumRental) {
-						customerBase.get(j).cancelLeaseWithNumber(confNumCustomer);
+		defaultView.closeRentalUnit(propertyIndex);
+	}
+
+	/**
+	 * Removes the given rental unit from the Landlord's database and cancels all
+	 * leases for that rental unit.
+	 * 
+	 * @param unit the rental unit to be closed
+	 * @throws IllegalArgumentException if the rental unit is not one of this
+	 *                                  PropertyManager's rental units
+	 */
+	public void closeRentalUnit(RentalUnit unit) {
+		loadPendingLeases();
+		unitsLock.writeLock().lock();
+		try {
+			RentalUnit ret = this.getManagedUnit(unit);
+			ReentrantLock floorLock = floorLock(ret);
+			floorLock.lock();
+			try {
+				cancelForClients(ret.leaseIterator());
+				rooms.remove(rooms.indexOf(ret));
+				unitsByLocation[locationSlot(ret.getFloor(), ret.getRoom())] = null;
+				publishUnits();
+				RentalChangeListener l = listener;
+				if (l != null) {
+					l.unitClosed(ret);
+				}
+			} finally {
+				floorLock.unlock();
+			}
+		} finally {
+			unitsLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Private helper method that cancels leases of a rental unit on the clients'
+	 * side and frees their confirmation numbers. The caller holds the floor lock of
+	 * the rental unit.
+	 * 
+	 * @param leases the leases being cancelled
+	 */
+	private void cancelForClients(SimpleListIterator<Lease> leases) {
+		clientsLock.readLock().lock();
+		try {
+			while (leases.hasNext()) {
+				Lease l = leases.next();
+				Client client = findClient(l.getClient());
+				if (client != null) {
+					client.getLeasesLock().lock();
+					try {
+						client.cancelLeaseWithNumber(l.getConfirmationNumber());
+					} catch (IllegalArgumentException e) {
+						// the client no longer holds this lease
+					} finally {
+						client.getLeasesLock().unlock();
 					}
-					scan.close();
 				}
+				Lease.releaseConfirmationNumber(l.getConfirmationNumber());
 			}
-			stringScan.close();
+		} finally {
+			clientsLock.readLock().unlock();
 		}
-		rooms.remove(rooms.indexOf(ret));
 	}
 
 	/**
@@ -308,12 +975,64 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public void returnToService(int propertyIndex) {
-		if (propertyIndex >= rooms.size() || propertyIndex < 0) {
-			throw new IllegalArgumentException();
+		defaultView.returnToService(propertyIndex);
+	}
+
+	/**
+	 * Returns the given rental unit to service. Does nothing if the rental unit is
+	 * already in service.
+	 * 
+	 * @param unit the rental unit being returned to service
+	 * @throws IllegalArgumentException if the rental unit is not one of this
+	 *                                  PropertyManager's rental units
+	 */
+	public void returnToService(RentalUnit unit) {
+		changeService(unit, true);
+	}
+
+	/**
+	 * Takes the given rental unit out of service without cancelling any of its
+	 * leases. Used when loading rental units that are marked unavailable.
+	 * 
+	 * @param unit the rental unit being taken out of service
+	 * @throws IllegalArgumentException if the rental unit is not one of this
+	 *                                  PropertyManager's rental units
+	 */
+	public void takeOutOfService(RentalUnit unit) {
+		changeService(unit, false);
+	}
+
+	/**
+	 * Private helper method that changes whether a rental unit is in service
+	 * 
+	 * @param unit      the rental unit
+	 * @param inService true to return it to service, false to take it out
+	 * @throws IllegalArgumentException if the rental unit is not one of this
+	 *                                  PropertyManager's rental units
+	 */
+	private void changeService(RentalUnit unit, boolean inService) {
+		unitsLock.readLock().lock();
+		try {
+			RentalUnit managed = this.getManagedUnit(unit);
+			ReentrantLock floorLock = floorLock(managed);
+			floorLock.lock();
+			try {
+				if (inService) {
+					managed.returnToService();
+				} else {
+					managed.takeOutOfService();
+				}
+				unitsVersion.incrementAndGet();
+				RentalChangeListener l = listener;
+				if (l != null) {
+					l.serviceChanged(managed, inService);
+				}
+			} finally {
+				floorLock.unlock();
+			}
+		} finally {
+			unitsLock.readLock().unlock();
 		}
-		String location = this.getFilteredRoomList().get(propertyIndex).getFloor() + "-"
-				+ this.getFilteredRoomList().get(propertyIndex).getRoom();
-		this.getUnitAtLocation(location).returnToService();
 	}
 
 	/**
@@ -323,11 +1042,30 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public String[] listClients() {
-		String[] retStr = new String[customerBase.size()];
-		for (int i = 0; i < customerBase.size(); i++) {
-			retStr[i] = customerBase.get(i).getName() + " (" + customerBase.get(i).getId() + ")";
-		}
-		return retStr;
+		ClientListing listing = customerBase;
+		return Arrays.copyOf(listing.rows, listing.size);
+	}
+
+	/**
+	 * Gets all the clients in the order they were added, as last published. The
+	 * list is a read-only view of the published clients, so walking it copies
+	 * nothing and never waits for a change in progress.
+	 * 
+	 * @return read-only list of the clients
+	 */
+	public List<Client> getClients() {
+		ClientListing listing = customerBase;
+		return Collections.unmodifiableList(Arrays.asList(listing.clients).subList(0, listing.size));
+	}
+
+	/**
+	 * Gets all rental units in sorted order, whatever the filter, as last
+	 * published. The list is a read-only view of the published rental units.
+	 * 
+	 * @return read-only list of the rental units
+	 */
+	public List<RentalUnit> getRentalUnits() {
+		return Collections.unmodifiableList(Arrays.asList(unitSnapshot));
 	}
 
 	/**
@@ -342,11 +1080,40 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public String[] listClientLeases(int clientIndex) {
-		if (clientIndex >= customerBase.size() || clientIndex < 0) {
+		ClientListing listing = customerBase;
+		if (clientIndex >= listing.size || clientIndex < 0) {
 			throw new IllegalArgumentException();
 		}
-		String[] leases = customerBase.get(clientIndex).listLeases();
-		return leases;
+		PendingLeases pending = pendingLeases;
+		if (pending != null) {
+			String[] rows = pending.listLeases(clientIndex, listing.clients[clientIndex]);
+			if (rows != null) {
+				return rows;
+			}
+		}
+		return listing.clients[clientIndex].listLeases();
+	}
+
+	/**
+	 * Gets the rental units that meet the filters currently in place, in the
+	 * order listRentalUnits lists them.
+	 * 
+	 * @return the filtered rental units
+	 */
+	public RentalUnit[] getFilteredRentalUnits() {
+		return defaultView.getRentalUnits();
+	}
+
+	/**
+	 * What are the leases for the given rental unit?
+	 * 
+	 * @param unit the rental unit
+	 * @return an array of strings in which each string describes a lease for the
+	 *         rental unit
+	 */
+	public String[] listLeasesForRentalUnit(RentalUnit unit) {
+		loadPendingLeases();
+		return unit.listLeases();
 	}
 
 	/**
@@ -359,66 +1126,7 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public String[] listRentalUnits() {
-		String[] retStr;
-		if (!kindFilter.equals("A") || inServiceFilter) {
-			SortedLinkedListWithIterator<RentalUnit> filtered = getFilteredRoomList();
-			retStr = new String[filtered.size()];
-			for (int i = 0; i < filtered.size(); i++) {
-				retStr[i] = filtered.get(i).getDescription();
-			}
-		} else {
-			retStr = new String[rooms.size()];
-			for (int i = 0; i < rooms.size(); i++) {
-				retStr[i] = rooms.get(i).getDescription();
-			}
-		}
-		return retStr;
-	}
-
-	/**
-	 * Private helper method that returns a SortedLinkedList of rental units which
-	 * is filtered according to the state of inServiceFilter and kindFilter.
-	 * 
-	 * @return filtered list of RentalUnits
-	 */
-	private SortedLinkedListWithIterator<RentalUnit> getFilteredRoomList() {
-		SortedLinkedListWithIterator<RentalUnit> filtered = new SortedLinkedListWithIterator<RentalUnit>();
-		if (kindFilter.equals("C") || kindFilter.equals("H") || kindFilter.equals("O")) {
-			for (int i = 0; i < rooms.size(); i++) {// creates new sorted list of filtered units
-				RentalUnit rental = rooms.get(i);
-				if (this.inServiceFilter) {
-					if (rental.isInService() && kindFilter.equals("C") && rental instanceof ConferenceRoom) {
-						filtered.add(rental);
-					}
-					if (rental.isInService() && kindFilter.equals("H") && rental instanceof HotelSuite) {
-						filtered.add(rental);
-					}
-					if (rental.isInService() && kindFilter.equals("O") && rental instanceof Office) {
-						filtered.add(rental);
-					}
-				} else {
-					if (kindFilter.equals("C") && rental instanceof ConferenceRoom) {
-						filtered.add(rental);
-					}
-					if (kindFilter.equals("H") && rental instanceof HotelSuite) {
-						filtered.add(rental);
-					}
-					if (kindFilter.equals("O") && rental instanceof Office) {
-						filtered.add(rental);
-					}
-				}
-			}
-		} else if (inServiceFilter) {
-			for (int i = 0; i < rooms.size(); i++) {
-				RentalUnit rental = rooms.get(i);
-				if (rental.isInService()) {
-					filtered.add(rental);
-				}
-			}
-		} else {
-			return rooms;
-		}
-		return filtered;
+		return defaultView.listRentalUnits();
 	}
 
 	/**
@@ -434,12 +1142,7 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public String[] listLeasesForRentalUnit(int propertyIndex) {
-		if (propertyIndex >= rooms.size() || propertyIndex < 0) {
-			throw new IllegalArgumentException();
-		}
-		SortedLinkedListWithIterator<RentalUnit> filtered = getFilteredRoomList();
-		String[] retStr = filtered.get(propertyIndex).listLeases();
-		return retStr;
+		return defaultView.listLeasesForRentalUnit(propertyIndex);
 	}
 
 	/**
@@ -455,18 +1158,275 @@ public class PropertyManager implements Landlord {
 		if (floorRoom == null || floorRoom.length != 2) {
 			throw new IllegalArgumentException("invalid location string");
 		}
+		int floorR;
+		int roomR;
 		try {// check floor and room for validity and construct object
-			int floorR = Integer.parseInt(floorRoom[0]);
-			int roomR = Integer.parseInt(floorRoom[1]);
-			for (int i = 0; i < rooms.size(); i++) {
-				if (floorR == rooms.get(i).getFloor() && roomR == rooms.get(i).getRoom()) {
-					return rooms.get(i);
-				}
-			}
+			floorR = Integer.parseInt(floorRoom[0]);
+			roomR = Integer.parseInt(floorRoom[1]);
 		} catch (NumberFormatException e) {
 			throw new IllegalArgumentException("invalid location string");
 		}
-		throw new IllegalArgumentException("unit not found");
+		return getUnitAtLocation(floorR, roomR);
+	}
+
+	/**
+	 * Returns the rental unit on the given floor and room.
+	 * 
+	 * @param floor floor of the rental unit
+	 * @param room  room of the rental unit
+	 * @return rental unit at the specified location
+	 * @throws IllegalArgumentException if the rental unit could not be found
+	 */
+	public RentalUnit getUnitAtLocation(int floor, int room) {
+		RentalUnit unit;
+		unitsLock.readLock().lock();
+		try {
+			unit = findUnit(floor, room);
+		} finally {
+			unitsLock.readLock().unlock();
+		}
+		if (unit == null) {
+			throw new IllegalArgumentException("unit not found");
+		}
+		return unit;
+	}
+
+	/**
+	 * Returns the client with the given id.
+	 * 
+	 * @param id id of the client
+	 * @return the client with that id
+	 * @throws IllegalArgumentException if there is no client with that id
+	 */
+	public Client getClientWithId(String id) {
+		Client c;
+		clientsLock.readLock().lock();
+		try {
+			c = clientsById.get(id);
+		} finally {
+			clientsLock.readLock().unlock();
+		}
+		if (c == null) {
+			throw new IllegalArgumentException("client not found");
+		}
+		return c;
+	}
+
+	/**
+	 * Sets what hears about every change made from now on, replacing any listener
+	 * set before.
+	 * 
+	 * @param listener hears about every change, or null to stop listening
+	 */
+	public void setChangeListener(RentalChangeListener listener) {
+		if (listener != null) {
+			loadPendingLeases(); // the listener hears about the leases as they are loaded
+		}
+		unitsLock.writeLock().lock();
+		clientsLock.writeLock().lock();
+		try {
+			this.listener = listener;
+		} finally {
+			clientsLock.writeLock().unlock();
+			unitsLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Hands over the leases of a file loaded lazily, to be loaded the first time
+	 * something needs them. They are loaded at once if a listener is set, as it
+	 * must hear about every lease.
+	 * 
+	 * @param leases the leases not loaded yet
+	 * @return descriptions of the leases that conflict or are over capacity, if
+	 *         they were loaded at once
+	 * @throws IllegalArgumentException if the leases are loaded at once and cannot
+	 *                                  be read
+	 */
+	public String[] setPendingLeases(PendingLeases leases) {
+		pendingLock.lock();
+		try {
+			pendingLeases = leases;
+		} finally {
+			pendingLock.unlock();
+		}
+		if (listener != null) {
+			return loadPendingLeases();
+		}
+		return new String[0];
+	}
+
+	/**
+	 * Loads the leases of a file loaded lazily, if they are not loaded yet. Every
+	 * method that looks at the leases of a rental unit or changes leases calls
+	 * this first, as does saving the data.
+	 * 
+	 * @return descriptions of the leases that conflict or are over capacity, or
+	 *         none if there were no leases to load
+	 * @throws IllegalArgumentException if the leases cannot be read, in which case
+	 *                                  they are left pending, so that saving fails
+	 *                                  rather than leave them out
+	 */
+	public String[] loadPendingLeases() {
+		if (pendingLeases == null && !pendingLock.isLocked()) {
+			return new String[0];
+		}
+		pendingLock.lock();
+		try {
+			PendingLeases leases = pendingLeases;
+			if (leases == null) { // loaded meanwhile
+				return new String[0];
+			}
+			String[] problems = leases.load(this);
+			pendingLeases = null;
+			return problems;
+		} finally {
+			pendingLock.unlock();
+		}
+	}
+
+	/**
+	 * Runs the action while no change can be made, so that it sees all the data in
+	 * one consistent state, such as when saving it alongside the changes heard by
+	 * a listener. Listings can still be read meanwhile. The action must not change
+	 * anything itself.
+	 * 
+	 * @param action the action to run
+	 */
+	public void runWithChangesPaused(Runnable action) {
+		unitsLock.writeLock().lock();
+		clientsLock.writeLock().lock();
+		try {
+			action.run();
+		} finally {
+			clientsLock.writeLock().unlock();
+			unitsLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Private helper method that finds this PropertyManager's rental unit equal to
+	 * the given one.
+	 * 
+	 * @param unit the rental unit being searched for
+	 * @return the managed rental unit
+	 * @throws IllegalArgumentException if there is no such rental unit
+	 */
+	private RentalUnit getManagedUnit(RentalUnit unit) {
+		RentalUnit managed = null;
+		if (unit != null) {
+			managed = findUnit(unit.getFloor(), unit.getRoom());
+		}
+		if (managed == null) {
+			throw new IllegalArgumentException("unit not found");
+		}
+		return managed;
+	}
+
+	/**
+	 * Private helper method that finds the rental unit at a location. The caller
+	 * holds unitsLock.
+	 * 
+	 * @param floor floor of the rental unit
+	 * @param room  room of the rental unit
+	 * @return the rental unit, or null if there is none at that location
+	 */
+	private RentalUnit findUnit(int floor, int room) {
+		if (floor < 0 || floor > MAX_FLOOR || room < 0 || room >= ROOMS_PER_FLOOR) {
+			return null;
+		}
+		return unitsByLocation[locationSlot(floor, room)];
+	}
+
+	/**
+	 * Private helper method that gives the index of a location in unitsByLocation
+	 * 
+	 * @param floor floor of the rental unit
+	 * @param room  room of the rental unit
+	 * @return index of the location
+	 */
+	private static int locationSlot(int floor, int room) {
+		return floor * ROOMS_PER_FLOOR + room;
+	}
+
+	/**
+	 * Private helper method that finds this PropertyManager's client equal to the
+	 * given one. The caller holds clientsLock.
+	 * 
+	 * @param c the client being searched for
+	 * @return the managed client, or null if there is none
+	 */
+	private Client findClient(Client c) {
+		if (c == null) {
+			return null;
+		}
+		return clientsById.get(c.getId());
+	}
+
+	/**
+	 * Private helper method that gets the client at an index of the customer base
+	 * 
+	 * @param clientIndex index of the client
+	 * @return the client
+	 * @throws IllegalArgumentException if clientIndex does not correspond to any
+	 *                                  client
+	 */
+	private Client getClient(int clientIndex) {
+		clientsLock.readLock().lock();
+		try {
+			if (clientIndex >= customerBase.size || clientIndex < 0) {
+				throw new IllegalArgumentException();
+			}
+			return customerBase.clients[clientIndex];
+		} finally {
+			clientsLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Private helper method that gives the lock of the floor a rental unit is on
+	 * 
+	 * @param unit the rental unit
+	 * @return the floor lock
+	 */
+	private ReentrantLock floorLock(RentalUnit unit) {
+		return floorLocks[unit.getFloor()];
+	}
+
+	/**
+	 * Gets the version of the rental units, which changes every time a rental unit
+	 * is added, closed or has its service changed. The version changes only after
+	 * the change is published, so rental units read after the version are at
+	 * least as new as it.
+	 * 
+	 * @return the current rental units version
+	 */
+	public int getUnitsVersion() {
+		return unitsVersion.get();
+	}
+
+	/**
+	 * Gets all rental units in sorted order, as last published. The array is
+	 * shared and must not be changed.
+	 * 
+	 * @return array of the rental units
+	 */
+	RentalUnit[] getUnits() {
+		return unitSnapshot;
+	}
+
+	/**
+	 * Private helper method that publishes a copy of the rental units and moves
+	 * to a new version. The caller holds the write lock of unitsLock.
+	 */
+	private void publishUnits() {
+		RentalUnit[] units = new RentalUnit[rooms.size()];
+		SimpleListIterator<RentalUnit> it = rooms.iterator();
+		for (int i = 0; i < units.length && it.hasNext(); i++) {
+			units[i] = it.next();
+		}
+		unitSnapshot = units;
+		unitsVersion.incrementAndGet();
 	}
 
 	/**
@@ -475,9 +1435,26 @@ public class PropertyManager implements Landlord {
 	 */
 	@Override
 	public void flushAllData() {
-		Lease.resetConfirmationNumbering(0);
-		customerBase = new SimpleArrayList<Client>();
-		rooms = new SortedLinkedListWithIterator<RentalUnit>();
+		pendingLock.lock();
+		unitsLock.writeLock().lock();
+		clientsLock.writeLock().lock();
+		try {
+			pendingLeases = null;
+			Lease.resetConfirmationNumbering(0);
+			customerBase = ClientListing.EMPTY;
+			clientsById = new HashMap<String, Client>();
+			rooms = new SortedLinkedListWithIterator<RentalUnit>();
+			unitsByLocation = new RentalUnit[(MAX_FLOOR + 1) * ROOMS_PER_FLOOR];
+			publishUnits();
+			RentalChangeListener l = listener;
+			if (l != null) {
+				l.dataFlushed();
+			}
+		} finally {
+			clientsLock.writeLock().unlock();
+			unitsLock.writeLock().unlock();
+			pendingLock.unlock();
+		}
 	}
 
 	/**
@@ -485,11 +1462,67 @@ public class PropertyManager implements Landlord {
 	 * 
 	 * @return Instance variable
 	 */
-	public static PropertyManager getInstance() {
+	public static synchronized PropertyManager getInstance() {
 		if (instance == null) {
 			instance = new PropertyManager();
 		}
 		return instance;
 	}
 
+	/**
+	 * The clients and their listing rows, as one immutable step of the client
+	 * list. Clients are only ever added at the end, so a new listing shares the
+	 * arrays of the one before and fills the next free slot, which no earlier
+	 * listing reads; the arrays are copied only when they run out of room. Adding
+	 * a client therefore costs the same however many clients there are.
+	 * 
+	 * @author Anton
+	 */
+	private static final class ClientListing {
+
+		/** Listing without any clients */
+		static final ClientListing EMPTY = new ClientListing(new Client[0], new String[0], 0);
+
+		/** The clients, of which the first size are listed */
+		final Client[] clients;
+
+		/** Listing rows of the clients */
+		final String[] rows;
+
+		/** Number of clients listed */
+		final int size;
+
+		/**
+		 * Constructor for a listing
+		 * 
+		 * @param clients the clients
+		 * @param rows    their listing rows
+		 * @param size    number of clients listed
+		 */
+		ClientListing(Client[] clients, String[] rows, int size) {
+			this.clients = clients;
+			this.rows = rows;
+			this.size = size;
+		}
+
+		/**
+		 * Gives the listing with the client added at the end. Only one thread
+		 * may append at a time.
+		 * 
+		 * @param c the client
+		 * @return the new listing
+		 */
+		ClientListing append(Client c) {
+			Client[] newClients = clients;
+			String[] newRows = rows;
+			if (size == clients.length) {
+				int capacity = Math.max(8, size * 2);
+				newClients = Arrays.copyOf(clients, capacity);
+				newRows = Arrays.copyOf(rows, capacity);
+			}
+			newClients[size] = c;
+			newRows[size] = RowFormatter.client(c);
+			return new ClientListing(newClients, newRows, size + 1);
+		}
+	}
 }
@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.stakeholders;
+
+import java.time.LocalDate;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+
+/**
+ * Hears about every change made to a PropertyManager, once the change has
+ * succeeded. Each method is called while the PropertyManager still holds the
+ * locks of the change, so changes that depend on each other are heard in the
+ * order they were made, and applying the changes again in the order heard
+ * rebuilds the same data. A listener must therefore be quick and must not call
+ * back into the PropertyManager.
+ *
+ * Changes are described by things that stay put, such as client ids, rental
+ * unit locations and confirmation numbers, rather than by positions in listings
+ * that move as data is added.
+ *
+ * @author Anton
+ */
+public interface RentalChangeListener {
+
+	/**
+	 * Hears that a client was added.
+	 *
+	 * @param client the new client
+	 */
+	void clientAdded(Client client);
+
+	/**
+	 * Hears that a rental unit was added.
+	 *
+	 * @param unit the new rental unit
+	 */
+	void unitAdded(RentalUnit unit);
+
+	/**
+	 * Hears that a lease was added to its client and rental unit, whether made as
+	 * a new reservation or loaded as recorded.
+	 *
+	 * @param lease the new lease
+	 */
+	void leaseAdded(Lease lease);
+
+	/**
+	 * Hears that a client's lease was cancelled. Leases cancelled by taking a
+	 * rental unit out of service or closing it are not heard one by one.
+	 *
+	 * @param lease the cancelled lease
+	 */
+	void leaseCancelled(Lease lease);
+
+	/**
+	 * Hears that a rental unit was removed from service, cancelling its leases on
+	 * or after the start date.
+	 *
+	 * @param unit  the rental unit
+	 * @param start date cancellations started from
+	 */
+	void removedFromService(RentalUnit unit, LocalDate start);
+
+	/**
+	 * Hears that a rental unit was closed, cancelling all of its leases.
+	 *
+	 * @param unit the closed rental unit
+	 */
+	void unitClosed(RentalUnit unit);
+
+	/**
+	 * Hears that a rental unit was returned to service, or taken out of service
+	 * without cancelling any leases as is done when loading a file.
+	 *
+	 * @param unit      the rental unit
+	 * @param inService true if it was returned to service
+	 */
+	void serviceChanged(RentalUnit unit, boolean inService);
+
+	/**
+	 * Hears that all data was removed and the confirmation numbering was reset.
+	 */
+	void dataFlushed();
+}
@@ -0,0 +1,388 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.stakeholders;
+
+import java.time.LocalDate;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.ConferenceRoom;
+import edu.ncsu.csc216.business.model.properties.HotelSuite;
+import edu.ncsu.csc216.business.model.properties.Office;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+import edu.ncsu.csc216.business.model.properties.ReservationResult;
+import edu.ncsu.csc216.business.model.properties.ReservationStatus;
+
+/**
+ * A filtered view of the rental units of a PropertyManager. Every caller (GUI
+ * window, writer, batch tool) can hold its own view, so changing the filter of
+ * one view never changes or invalidates what another view sees. The filtered
+ * list is cached and only rebuilt when the filter of this view changes or the
+ * PropertyManager reports a change to its rental units.
+ *
+ * @author Anton
+ */
+public class RentalUnitView {
+
+	/** The PropertyManager that this view looks at */
+	private final PropertyManager manager;
+
+	/** The current filter and filtered rental units of this view */
+	private volatile Snapshot snapshot;
+
+	/**
+	 * Constructor for a view with no filters in place.
+	 *
+	 * @param manager the PropertyManager this view looks at
+	 */
+	RentalUnitView(PropertyManager manager) {
+		this.manager = manager;
+		this.snapshot = new Snapshot("A", false, -1, null, null);
+	}
+
+	/**
+	 * Sets filters for rental units so that only those that match the filters are
+	 * considered by this view.
+	 *
+	 * @param kindFilter      filters by kind of rental unit
+	 * @param inServiceFilter filters rental units that are not in service
+	 */
+	public void filterRentalUnits(String kindFilter, boolean inServiceFilter) {
+		kindFilter = kindFilter.trim();
+		String filter = Character.toString(kindFilter.charAt(0)).toUpperCase();
+		this.snapshot = new Snapshot(filter, inServiceFilter, -1, null, null);
+	}
+
+	/**
+	 * Gets the kind filter currently in place for this view.
+	 *
+	 * @return first letter of the kind of rental unit being filtered for
+	 */
+	public String getKindFilter() {
+		return snapshot.kindFilter;
+	}
+
+	/**
+	 * Determines whether this view filters out rental units that are not in
+	 * service.
+	 *
+	 * @return true if rental units not in service are filtered out
+	 */
+	public boolean isInServiceFilter() {
+		return snapshot.inServiceFilter;
+	}
+
+	/**
+	 * Gets the rental unit at the given position in this view's filtered list.
+	 *
+	 * @param propertyIndex position of the rental unit (subject to filtering)
+	 * @return the rental unit at that position
+	 * @throws IllegalArgumentException if propertyIndex is not a valid index for
+	 *                                  the rental units currently under
+	 *                                  consideration
+	 */
+	public RentalUnit getRentalUnit(int propertyIndex) {
+		RentalUnit[] filtered = getFilteredUnits();
+		if (propertyIndex >= filtered.length || propertyIndex < 0) {
+			throw new IllegalArgumentException("index outside of list");
+		}
+		return filtered[propertyIndex];
+	}
+
+	/**
+	 * Gets the rental units that meet the filters of this view, in the order
+	 * listRentalUnits lists them.
+	 *
+	 * @return the filtered rental units
+	 */
+	public RentalUnit[] getRentalUnits() {
+		return getFilteredUnits().clone();
+	}
+
+	/**
+	 * Gives the number of rental units that meet the filters of this view.
+	 *
+	 * @return number of filtered rental units
+	 */
+	public int size() {
+		return getFilteredUnits().length;
+	}
+
+	/**
+	 * What are the rental units that meet the filters of this view?
+	 *
+	 * @return an array of strings in which each string describes a rental unit that
+	 *         meets all filters in place.
+	 */
+	public String[] listRentalUnits() {
+		return current().rows.clone();
+	}
+
+	/**
+	 * What are the leases for the rental unit at this particular index in the
+	 * filtered list of rental units?
+	 *
+	 * @param propertyIndex Index of the targeted rental unit (subject to filtering)
+	 * @return an array of strings in which each string describes a lease for the
+	 *         targeted rental unit.
+	 * @throws IllegalArgumentException if propertyIndex is not a valid index for
+	 *                                  the rental units currently under
+	 *                                  consideration
+	 */
+	public String[] listLeasesForRentalUnit(int propertyIndex) {
+		return manager.listLeasesForRentalUnit(getRentalUnit(propertyIndex));
+	}
+
+	/**
+	 * Creates a new lease for the client and the rental unit at the given
+	 * position of this view.
+	 *
+	 * @param clientIndex   Index of the client in the PropertyManager's customer
+	 *                      base
+	 * @param propertyIndex Index of the rental unit in this view's filtered list
+	 * @param start         Start date for the lease
+	 * @param duration      Duration of the lease (units depending on rental unit
+	 *                      type)
+	 * @param people        Number of occupants the lease is for
+	 * @return the created lease
+	 * @throws IllegalArgumentException if the parameters do not constitute valid
+	 *                                  lease data
+	 */
+	public Lease createLease(int clientIndex, int propertyIndex, LocalDate start, int duration, int people) {
+		return manager.createLease(clientIndex, getRentalUnit(propertyIndex), start, duration, people);
+	}
+
+	/**
+	 * Attempts to create a new lease for the client and the rental unit at the
+	 * given position of this view, reporting failure through the result instead of
+	 * an exception.
+	 *
+	 * @param clientIndex   Index of the client in the PropertyManager's customer
+	 *                      base
+	 * @param propertyIndex Index of the rental unit in this view's filtered list
+	 * @param start         Start date for the lease
+	 * @param duration      Duration of the lease (units depending on rental unit
+	 *                      type)
+	 * @param people        Number of occupants the lease is for
+	 * @return result holding the created lease, or the reason it was not created
+	 */
+	public ReservationResult tryCreateLease(int clientIndex, int propertyIndex, LocalDate start, int duration,
+			int people) {
+		RentalUnit[] filtered = getFilteredUnits();
+		if (propertyIndex >= filtered.length || propertyIndex < 0) {
+			return ReservationResult.failure(ReservationStatus.INVALID_INPUT);
+		}
+		return manager.tryCreateLease(clientIndex, filtered[propertyIndex], start, duration, people);
+	}
+
+	/**
+	 * Attempts to create a new lease for the client and the rental unit at the
+	 * given position of this view, checking availability optimistically instead
+	 * of locking the rental unit's floor.
+	 *
+	 * @param clientIndex   Index of the client in the PropertyManager's customer
+	 *                      base
+	 * @param propertyIndex Index of the rental unit in this view's filtered list
+	 * @param start         Start date for the lease
+	 * @param duration      Duration of the lease (units depending on rental unit
+	 *                      type)
+	 * @param people        Number of occupants the lease is for
+	 * @return result holding the created lease, or the reason it was not created
+	 */
+	public ReservationResult tryCreateLeaseOptimistically(int clientIndex, int propertyIndex, LocalDate start,
+			int duration, int people) {
+		RentalUnit[] filtered = getFilteredUnits();
+		if (propertyIndex >= filtered.length || propertyIndex < 0) {
+			return ReservationResult.failure(ReservationStatus.INVALID_INPUT);
+		}
+		return manager.tryCreateLeaseOptimistically(clientIndex, filtered[propertyIndex], start, duration, people);
+	}
+
+	/**
+	 * Determines whether a lease could be created for the rental unit at the given
+	 * position of this view, without creating it.
+	 *
+	 * @param propertyIndex Index of the rental unit in this view's filtered list
+	 * @param start         Start date for the lease
+	 * @param duration      Duration of the lease (units depending on rental unit
+	 *                      type)
+	 * @param people        Number of occupants the lease is for
+	 * @return SUCCESS if the lease could be created, otherwise the reason it
+	 *         could not
+	 */
+	public ReservationStatus canReserve(int propertyIndex, LocalDate start, int duration, int people) {
+		RentalUnit[] filtered = getFilteredUnits();
+		if (propertyIndex >= filtered.length || propertyIndex < 0) {
+			return ReservationStatus.INVALID_INPUT;
+		}
+		return manager.canReserve(filtered[propertyIndex], start, duration, people);
+	}
+
+	/**
+	 * Cancels all leases for the rental unit at the given position of this view on
+	 * or after a particular date.
+	 *
+	 * @param propertyIndex Index for the rental unit (subject to filtering)
+	 * @param start         Date for starting cancellations
+	 * @return the RentalUnit that was removed
+	 * @throws IllegalArgumentException if propertyIndex is not a valid index for
+	 *                                  the rental units currently under
+	 *                                  consideration
+	 */
+	public RentalUnit removeFromService(int propertyIndex, LocalDate start) {
+		return manager.removeFromService(getRentalUnit(propertyIndex), start);
+	}
+
+	/**
+	 * Closes the rental unit at the given position of this view and cancels all of
+	 * its leases.
+	 *
+	 * @param propertyIndex Index for the rental unit to be closed (subject to
+	 *                      filtering)
+	 * @throws IllegalArgumentException if propertyIndex is not a valid index for
+	 *                                  the rental units currently under
+	 *                                  consideration
+	 */
+	public void closeRentalUnit(int propertyIndex) {
+		manager.closeRentalUnit(getRentalUnit(propertyIndex));
+	}
+
+	/**
+	 * Returns the rental unit at the given position of this view to service.
+	 *
+	 * @param propertyIndex Position/index of the rental unit (subject to filtering)
+	 * @throws IllegalArgumentException if propertyIndex is not a valid index for
+	 *                                  the rental units currently under
+	 *                                  consideration
+	 */
+	public void returnToService(int propertyIndex) {
+		manager.returnToService(getRentalUnit(propertyIndex));
+	}
+
+	/**
+	 * Returns the cached filtered rental units, rebuilding them first if the
+	 * filter or the rental units of the PropertyManager changed since they were
+	 * last built.
+	 *
+	 * @return rental units meeting the filters of this view, in sorted order
+	 */
+	private RentalUnit[] getFilteredUnits() {
+		return current().units;
+	}
+
+	/**
+	 * Returns the current snapshot, rebuilding it first if the filter or the
+	 * rental units of the PropertyManager changed since it was last built. No lock
+	 * is taken, the rental units are read from the copy the PropertyManager
+	 * publishes.
+	 *
+	 * @return snapshot of the filtered rental units and their descriptions
+	 */
+	private Snapshot current() {
+		Snapshot current = snapshot;
+		int version = manager.getUnitsVersion();
+		if (current.units != null && current.version == version) {
+			return current;
+		}
+		RentalUnit[] filtered = buildFilteredUnits(current.kindFilter, current.inServiceFilter);
+		String[] rows = new String[filtered.length];
+		for (int i = 0; i < filtered.length; i++) {
+			rows[i] = filtered[i].getDescription();
+		}
+		Snapshot rebuilt = new Snapshot(current.kindFilter, current.inServiceFilter, version, filtered, rows);
+		if (snapshot == current) {// do not overwrite a filter that was set meanwhile
+			snapshot = rebuilt;
+		}
+		return rebuilt;
+	}
+
+	/**
+	 * Private helper method that builds the array of rental units meeting the
+	 * given filters.
+	 *
+	 * @param kindFilter      first letter of the kind of rental unit
+	 * @param inServiceFilter whether units that are not in service are left out
+	 * @return filtered rental units in sorted order
+	 */
+	private RentalUnit[] buildFilteredUnits(String kindFilter, boolean inServiceFilter) {
+		RentalUnit[] units = manager.getUnits();
+		RentalUnit[] all = new RentalUnit[units.length];
+		int count = 0;
+		for (RentalUnit rental : units) {
+			if (inServiceFilter && !rental.isInService()) {
+				continue;
+			}
+			if (matchesKind(kindFilter, rental)) {
+				all[count++] = rental;
+			}
+		}
+		if (count == all.length) {
+			return all;
+		}
+		RentalUnit[] filtered = new RentalUnit[count];
+		System.arraycopy(all, 0, filtered, 0, count);
+		return filtered;
+	}
+
+	/**
+	 * Private helper method to determine if a rental unit is of the kind being
+	 * filtered for. Any filter other than C, H or O lets every kind through.
+	 *
+	 * @param kindFilter first letter of the kind of rental unit
+	 * @param rental     the rental unit being checked
+	 * @return true if the rental unit passes the kind filter
+	 */
+	private static boolean matchesKind(String kindFilter, RentalUnit rental) {
+		if (kindFilter.equals("C")) {
+			return rental instanceof ConferenceRoom;
+		}
+		if (kindFilter.equals("H")) {
+			return rental instanceof HotelSuite;
+		}
+		if (kindFilter.equals("O")) {
+			return rental instanceof Office;
+		}
+		return true;
+	}
+
+	/**
+	 * Immutable pairing of a filter with the rental units it produced, so that
+	 * threads sharing a view always see a filter and a list that belong together.
+	 *
+	 * @author Anton
+	 */
+	private static class Snapshot {
+
+		/** Filters the type of rental unit to filter Rental Units by */
+		private final String kindFilter;
+
+		/** Determines whether to filter out rental units that are not in service */
+		private final boolean inServiceFilter;
+
+		/** Version of the PropertyManager's rental units the list was built from */
+		private final int version;
+
+		/** The filtered rental units, or null if not built yet */
+		private final RentalUnit[] units;
+
+		/** Descriptions of the filtered rental units, or null if not built yet */
+		private final String[] rows;
+
+		/**
+		 * Constructor for the snapshot
+		 *
+		 * @param kindFilter      kind filter
+		 * @param inServiceFilter in service filter
+		 * @param version         rental units version the list was built from
+		 * @param units           filtered rental units
+		 * @param rows            descriptions of the filtered rental units
+		 */
+		Snapshot(String kindFilter, boolean inServiceFilter, int version, RentalUnit[] units, String[] rows) {
+			this.kindFilter = kindFilter;
+			this.inServiceFilter = inServiceFilter;
+			this.version = version;
+			this.units = units;
+			this.rows = rows;
+		}
+	}
+}
@@ -0,0 +1,425 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.stakeholders;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+
+/**
+ * Opt-in front end for a PropertyManager that applies every change from one
+ * writer thread. Changes are queued as commands in a bounded queue, and the
+ * writer thread takes them out in batches and applies them strictly in the
+ * order they were queued, completing each caller's future with the result.
+ * Because only the writer thread ever changes the PropertyManager, the locks
+ * inside it are never contended, and the same commands queued in the same
+ * order always give the same result. Listings are read straight from the
+ * snapshots the PropertyManager publishes and never wait for the queue.
+ *
+ * The index based methods use a RentalUnitView of their own, whose filter is
+ * set through the queue as well so that it applies to exactly the commands
+ * queued after it.
+ *
+ * @author Anton
+ */
+public class SingleWriterLandlord implements AsyncLandlord, AutoCloseable {
+
+	/** Queue capacity used by the single argument constructor */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/** Most commands the writer takes out of the queue at once */
+	private static final int MAX_BATCH = 64;
+
+	/** Milliseconds a caller waits for room in the queue before checking for close */
+	private static final long OFFER_WAIT_MS = 50;
+
+	/** The PropertyManager being changed */
+	private final PropertyManager manager;
+
+	/** View used by the index based methods */
+	private final RentalUnitView view;
+
+	/** Commands waiting for the writer */
+	private final BlockingQueue<Command<?>> queue;
+
+	/** The writer thread */
+	private final Thread writer;
+
+	/** Set once close has been called, after which no commands are accepted */
+	private volatile boolean closed;
+
+	/**
+	 * Constructor for a front end with a queue of the default capacity
+	 *
+	 * @param manager the PropertyManager to change
+	 */
+	public SingleWriterLandlord(PropertyManager manager) {
+		this(manager, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor for a front end, which starts its writer thread
+	 *
+	 * @param manager  the PropertyManager to change
+	 * @param capacity most commands that can wait in the queue, callers queuing
+	 *                 more wait for room
+	 * @throws IllegalArgumentException if manager is null or capacity is not
+	 *                                  positive
+	 */
+	public SingleWriterLandlord(PropertyManager manager, int capacity) {
+		if (manager == null || capacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.manager = manager;
+		this.view = manager.newView();
+		this.queue = new ArrayBlockingQueue<Command<?>>(capacity);
+		this.writer = new Thread(this::runWriter, "landlord-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * Queues adding a new client.
+	 *
+	 * @param name Name of the new client
+	 * @param id   Unique id of the new client
+	 * @return future completed with the new Client, or with
+	 *         DuplicateClientException or IllegalArgumentException
+	 */
+	@Override
+	public CompletableFuture<Client> addNewClient(String name, String id) {
+		return submit(() -> manager.addNewClient(name, id));
+	}
+
+	/**
+	 * Queues adding a new rental unit.
+	 *
+	 * @param kind     Type of RentalUnit
+	 * @param location String of the form FF-RR
+	 * @param capacity Number of people the unit can accommodate on any single day
+	 * @return future completed with the new RentalUnit, or with
+	 *         DuplicateRoomException or IllegalArgumentException
+	 */
+	@Override
+	public CompletableFuture<RentalUnit> addNewUnit(String kind, String location, int capacity) {
+		return submit(() -> manager.addNewUnit(kind, location, capacity));
+	}
+
+	/**
+	 * Queues setting the filters of this front end's view.
+	 *
+	 * @param kindFilter      filters by kind of rental unit
+	 * @param inServiceFilter filters rental units that are not in service
+	 * @return future completed once the filter is in place
+	 */
+	@Override
+	public CompletableFuture<Void> filterRentalUnits(String kindFilter, boolean inServiceFilter) {
+		return submit(() -> {
+			view.filterRentalUnits(kindFilter, inServiceFilter);
+			return null;
+		});
+	}
+
+	/**
+	 * Queues creating a new lease.
+	 *
+	 * @param clientIndex   Index of the client in the customer base
+	 * @param propertyIndex Index of the rental unit in this front end's filtered
+	 *                      list
+	 * @param start         Start date for the lease
+	 * @param duration      Duration of the lease
+	 * @param people        Number of occupants the lease is for
+	 * @return future completed with the created lease, or with
+	 *         IllegalArgumentException
+	 */
+	@Override
+	public CompletableFuture<Lease> createLease(int clientIndex, int propertyIndex, LocalDate start, int duration,
+			int people) {
+		return submit(() -> view.createLease(clientIndex, propertyIndex, start, duration, people));
+	}
+
+	/**
+	 * Queues cancelling the lease in the given position on the client's list.
+	 *
+	 * @param clientIndex Index of the client whose lease is to be cancelled
+	 * @param leaseIndex  Position of the lease in the client's list
+	 * @return future completed once the lease is cancelled, or with
+	 *         IllegalArgumentException
+	 */
+	@Override
+	public CompletableFuture<Void> cancelClientsLease(int clientIndex, int leaseIndex) {
+		return submit(() -> {
+			manager.cancelClientsLease(clientIndex, leaseIndex);
+			return null;
+		});
+	}
+
+	/**
+	 * Queues removing a rental unit from service.
+	 *
+	 * @param propertyIndex Index for the rental unit (subject to filtering)
+	 * @param start         Date for starting cancellations
+	 * @return future completed with the rental unit, or with
+	 *         IllegalArgumentException
+	 */
+	@Override
+	public CompletableFuture<RentalUnit> removeFromService(int propertyIndex, LocalDate start) {
+		return submit(() -> view.removeFromService(propertyIndex, start));
+	}
+
+	/**
+	 * Queues closing a rental unit.
+	 *
+	 * @param propertyIndex Index for the rental unit to be closed (subject to
+	 *                      filtering)
+	 * @return future completed once the rental unit is closed, or with
+	 *         IllegalArgumentException
+	 */
+	@Override
+	public CompletableFuture<Void> closeRentalUnit(int propertyIndex) {
+		return submit(() -> {
+			view.closeRentalUnit(propertyIndex);
+			return null;
+		});
+	}
+
+	/**
+	 * Queues returning a rental unit to service.
+	 *
+	 * @param propertyIndex Position/index of the rental unit (subject to filtering)
+	 * @return future completed once the rental unit is in service, or with
+	 *         IllegalArgumentException
+	 */
+	@Override
+	public CompletableFuture<Void> returnToService(int propertyIndex) {
+		return submit(() -> {
+			view.returnToService(propertyIndex);
+			return null;
+		});
+	}
+
+	/**
+	 * Queues removing all data.
+	 *
+	 * @return future completed once the data is removed
+	 */
+	@Override
+	public CompletableFuture<Void> flushAllData() {
+		return submit(() -> {
+			manager.flushAllData();
+			return null;
+		});
+	}
+
+	/**
+	 * Gets all the clients, as of the last change applied. The listing is read
+	 * right away, without going through the queue.
+	 *
+	 * @return completed future of an array of strings, where each string
+	 *         describes a client
+	 */
+	@Override
+	public CompletableFuture<String[]> listClients() {
+		return read(manager::listClients);
+	}
+
+	/**
+	 * Gets the leases of a client, as of the last change applied. The listing is
+	 * read right away, without going through the queue.
+	 *
+	 * @param clientIndex Index of the targeted client
+	 * @return completed future of an array of strings in which each string
+	 *         describes a lease, failed with IllegalArgumentException if the
+	 *         clientIndex does not correspond to any client
+	 */
+	@Override
+	public CompletableFuture<String[]> listClientLeases(int clientIndex) {
+		return read(() -> manager.listClientLeases(clientIndex));
+	}
+
+	/**
+	 * Gets the rental units meeting this front end's filter, as of the last change
+	 * applied. The listing is read right away, without going through the queue.
+	 *
+	 * @return completed future of an array of strings in which each string
+	 *         describes a rental unit
+	 */
+	@Override
+	public CompletableFuture<String[]> listRentalUnits() {
+		return read(view::listRentalUnits);
+	}
+
+	/**
+	 * Gets the leases of a rental unit, as of the last change applied. The listing
+	 * is read right away, without going through the queue.
+	 *
+	 * @param propertyIndex Index of the targeted rental unit (subject to filtering)
+	 * @return completed future of an array of strings in which each string
+	 *         describes a lease, failed with IllegalArgumentException if
+	 *         propertyIndex is not a valid index
+	 */
+	@Override
+	public CompletableFuture<String[]> listLeasesForRentalUnit(int propertyIndex) {
+		return read(() -> view.listLeasesForRentalUnit(propertyIndex));
+	}
+
+	/**
+	 * Stops accepting commands, lets the writer apply every command already
+	 * queued and waits for it to finish. If interrupted while waiting, returns
+	 * with the interrupt flag set, and the writer still finishes on its own.
+	 */
+	@Override
+	public synchronized void close() {
+		boolean interrupted = false;
+		if (!closed) {
+			closed = true;
+			while (true) { // the stop command must be queued, or the writer never ends
+				try {
+					queue.put(new Command<Void>(null));
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		try {
+			if (!interrupted) {
+				writer.join();
+			}
+		} catch (InterruptedException e) {
+			interrupted = true;
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Private helper method that queues a command, waiting for room if the queue
+	 * is full. A command queued while close is running may land after the writer
+	 * has stopped, so once closed it is taken back out and failed here, unless
+	 * the writer took it first.
+	 *
+	 * @param <T>    type of the command's result
+	 * @param action the change to apply
+	 * @return future completed once the writer has applied the change
+	 */
+	private <T> CompletableFuture<T> submit(Callable<T> action) {
+		Command<T> command = new Command<T>(action);
+		if (closed) {
+			command.result.completeExceptionally(new IllegalStateException("closed"));
+			return command.result;
+		}
+		try {
+			while (!queue.offer(command, OFFER_WAIT_MS, TimeUnit.MILLISECONDS)) {
+				if (closed) {
+					command.result.completeExceptionally(new IllegalStateException("closed"));
+					return command.result;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			command.result.completeExceptionally(e);
+			return command.result;
+		}
+		if (closed && queue.remove(command)) {
+			command.result.completeExceptionally(new IllegalStateException("closed"));
+		}
+		return command.result;
+	}
+
+	/**
+	 * Private helper method that reads a listing on the calling thread
+	 *
+	 * @param listing the listing to read
+	 * @return future completed with the listing or the exception it threw
+	 */
+	private CompletableFuture<String[]> read(Callable<String[]> listing) {
+		Command<String[]> command = new Command<String[]>(listing);
+		command.apply();
+		return command.result;
+	}
+
+	/**
+	 * Private helper method run by the writer thread. Takes commands out of the
+	 * queue in batches and applies them in order until told to stop.
+	 */
+	private void runWriter() {
+		List<Command<?>> batch = new ArrayList<Command<?>>(MAX_BATCH);
+		while (true) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				continue; // only close stops the writer
+			}
+			queue.drainTo(batch, MAX_BATCH - 1);
+			for (int i = 0; i < batch.size(); i++) {
+				if (batch.get(i).action == null) {
+					failRemaining(batch.subList(i + 1, batch.size()));
+					return;
+				}
+				batch.get(i).apply();
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Private helper method that fails commands queued after close, which can
+	 * only happen to callers racing with close
+	 *
+	 * @param rest commands of the current batch that follow the stop command
+	 */
+	private void failRemaining(List<Command<?>> rest) {
+		queue.drainTo(rest);
+		for (Command<?> command : rest) {
+			command.result.completeExceptionally(new IllegalStateException("closed"));
+		}
+	}
+
+	/**
+	 * A queued change and the future of its caller. A command without an action
+	 * tells the writer to stop.
+	 *
+	 * @param <T> type of the change's result
+	 * @author Anton
+	 */
+	private static class Command<T> {
+
+		/** The change to apply, null to stop the writer */
+		private final Callable<T> action;
+
+		/** Future of the caller */
+		private final CompletableFuture<T> result = new CompletableFuture<T>();
+
+		/**
+		 * Constructor for a command
+		 *
+		 * @param action the change to apply, null to stop the writer
+		 */
+		Command(Callable<T> action) {
+			this.action = action;
+		}
+
+		/**
+		 * Applies the change and completes the future with its result or the
+		 * exception it threw
+		 */
+		void apply() {
+			try {
+				result.complete(action.call());
+			} catch (Exception e) {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+}
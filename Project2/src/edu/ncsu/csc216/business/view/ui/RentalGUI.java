@@ -15,6 +15,13 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -37,15 +44,23 @@ import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
 import javax.swing.SpringLayout;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import edu.ncsu.csc216.business.model.io.LoadDiagnostic;
+import edu.ncsu.csc216.business.model.io.LoadReport;
 import edu.ncsu.csc216.business.model.io.RentalReader;
+import edu.ncsu.csc216.business.model.io.RentalSnapshot;
 import edu.ncsu.csc216.business.model.io.RentalWriter;
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+import edu.ncsu.csc216.business.model.stakeholders.AsyncLandlord;
+import edu.ncsu.csc216.business.model.stakeholders.Client;
 import edu.ncsu.csc216.business.model.stakeholders.DuplicateClientException;
 import edu.ncsu.csc216.business.model.stakeholders.DuplicateRoomException;
-import edu.ncsu.csc216.business.model.stakeholders.Landlord;
+import edu.ncsu.csc216.business.model.stakeholders.ExecutorLandlord;
 import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
 import edu.ncsu.csc216.business.view.ui.utils.CalendarPicker;
 import edu.ncsu.csc216.business.view.ui.utils.SpringUtilities;
@@ -62,6 +77,8 @@ public class RentalGUI extends JFrame implements ActionListener {
 	private static final long serialVersionUID = 1L;
 	/** Title for top of GUI. */
 	private static final String APP_TITLE = "Wolf High-Rise Rentals";
+	/** Most lease problems listed after loading a file */
+	private static final int MAX_PROBLEMS_SHOWN = 20;
 
 	// Menu strings and components
 	/** Text for the File Menu. */
@@ -219,7 +236,19 @@ public class RentalGUI extends JFrame implements ActionListener {
 	
 	// Backend and file I/O
 	/** Back end manager (gets data from the GUI and provides resulting data to the GUI) */
-	private Landlord mgr = PropertyManager.getInstance();
+	private PropertyManager mgr = PropertyManager.getInstance();
+	/** Runs the slower changes off the event thread, one at a time and in order */
+	private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "rental-gui-worker");
+		t.setDaemon(true);
+		return t;
+	});
+	/** Back end manager used for the changes that run on the worker */
+	private AsyncLandlord asyncMgr = new ExecutorLandlord(mgr, worker);
+	/** Rental units in the order they are listed, as of the last refresh */
+	private RentalUnit[] shownUnits = new RentalUnit[0];
+	/** Leases of the selected client in the order they are listed, as of the last refresh */
+	private Lease[] shownClientLeases = new Lease[0];
 	/** Name of the file with rental data most recently used during the current run */
 	private String mostRecentFileName = null;
 
@@ -511,8 +540,9 @@ public class RentalGUI extends JFrame implements ActionListener {
 	 */
 	private void doFiltering() {
 		new FilterDialog(this);
-		mgr.filterRentalUnits(displaySpecificKindOnly, displayAvailableOnly);
-		this.refreshAllRentalUnits();
+		whenDone(asyncMgr.filterRentalUnits(displaySpecificKindOnly, displayAvailableOnly), () -> {
+			this.refreshAllRentalUnits();
+		});
 	}
 	
 	/**
@@ -524,9 +554,11 @@ public class RentalGUI extends JFrame implements ActionListener {
 			throw new IllegalArgumentException(
 					"Must select a rental unit to close.");
 		else {
-			mgr.closeRentalUnit(index);
-			this.refreshAllRentalUnits();
-			this.refreshLeasesForSelectedClient();
+			RentalUnit unit = shownUnits[index]; // the list may change before the worker gets to it
+			whenDone(onWorker(() -> mgr.closeRentalUnit(unit)), () -> {
+				this.refreshAllRentalUnits();
+				this.refreshLeasesForSelectedClient();
+			});
 		}
 	}
 
@@ -540,8 +572,10 @@ public class RentalGUI extends JFrame implements ActionListener {
 					"Must select a rental unit to return to service.");
 		}
 		else {
-			mgr.returnToService(index);
-			this.refreshAllRentalUnits();
+			RentalUnit unit = shownUnits[index];
+			whenDone(onWorker(() -> mgr.returnToService(unit)), () -> {
+				this.refreshAllRentalUnits();
+			});
 		}
 	}
 
@@ -553,16 +587,18 @@ public class RentalGUI extends JFrame implements ActionListener {
 		if (index < 0) 
 			throw new IllegalArgumentException(
 					"Must select a rental unit to remove from service.");
-		LocalDate start = null;
+		LocalDate start;
 		try {
 			start = dateFrom(txtNoServiceDate.getText());
 		} catch (Exception e) {
 			throw new IllegalArgumentException("Select a date to stop the service.");
 		}
-		mgr.removeFromService(index, start);
-		txtNoServiceDate.setText("");
-		this.refreshAllRentalUnits();
-		this.refreshLeasesForSelectedClient();
+		RentalUnit unit = shownUnits[index];
+		whenDone(onWorker(() -> mgr.removeFromService(unit, start)), () -> {
+			txtNoServiceDate.setText("");
+			this.refreshAllRentalUnits();
+			this.refreshLeasesForSelectedClient();
+		});
 	}
 	
 	/*
@@ -621,9 +657,12 @@ public class RentalGUI extends JFrame implements ActionListener {
 		int leaseIndex = lstClientLeases.getSelectedIndex();
 		int clientIndex = lstClients.getSelectedIndex();
 		if (clientIndex >= 0 && leaseIndex >= 0) {
-			mgr.cancelClientsLease(clientIndex, leaseIndex);
-			this.refreshLeasesForSelectedClient();
-			this.refreshLeasesForSelectedRentalUnit();
+			Client client = mgr.getClients().get(clientIndex);
+			int confirmationNumber = shownClientLeases[leaseIndex].getConfirmationNumber();
+			whenDone(onWorker(() -> mgr.cancelLease(client, confirmationNumber)), () -> {
+				this.refreshLeasesForSelectedClient();
+				this.refreshLeasesForSelectedRentalUnit();
+			});
 		}
 		else 
 			popupError("Must pick a lease to cancel on the client's list.",
@@ -634,9 +673,9 @@ public class RentalGUI extends JFrame implements ActionListener {
 	 * Creates a new lease.
 	 */
 	private void doCreateLease() {
-		LocalDate start = null;
-		int duration = 0;
-		int occupants = 0;
+		LocalDate start;
+		int duration;
+		int occupants;
 		int clientPsn = lstClients.getSelectedIndex();
 		int rentalUnitPsn = lstRentalUnits.getSelectedIndex();
 		if (clientPsn < 0 || rentalUnitPsn < 0)
@@ -653,16 +692,44 @@ public class RentalGUI extends JFrame implements ActionListener {
 		} catch (Exception e) {
 			throw new IllegalArgumentException("Select a start date for the lease.");
 		}
-		try {
-			mgr.createLease(clientPsn, rentalUnitPsn, start, duration, occupants);
+		// clients are only ever added, so the client's position stays the same
+		RentalUnit unit = shownUnits[rentalUnitPsn];
+		whenDone(onWorker(() -> mgr.createLease(clientPsn, unit, start, duration, occupants)), () -> {
 			txtStartDate.setText("");
 			txtDuration.setText("");
 			txtPartySize.setText("");
 			refreshLeasesForSelectedClient();
 			refreshLeasesForSelectedRentalUnit();
-		} catch (Exception e) {
-			throw new IllegalArgumentException(e.getMessage());
-		}
+		});
+	}
+
+	/**
+	 * Runs a change on the worker, after the changes queued before it. Changes
+	 * are given the rental unit, client or lease picked on the event thread, not
+	 * its position, as the lists can change before the worker runs them.
+	 * @param change the change
+	 * @return future of the change
+	 */
+	private CompletableFuture<Void> onWorker(Runnable change) {
+		return CompletableFuture.runAsync(change, worker);
+	}
+
+	/**
+	 * Runs the given update on the event thread once a change made through the
+	 * worker is done, or shows the reason if the change failed.
+	 * @param change future of the change
+	 * @param update what to refresh after the change succeeds
+	 */
+	private void whenDone(CompletableFuture<?> change, Runnable update) {
+		change.whenComplete((result, exc) -> SwingUtilities.invokeLater(() -> {
+			if (exc == null) {
+				update.run();
+			} else {
+				Throwable cause = exc instanceof CompletionException && exc.getCause() != null
+						? exc.getCause() : exc;
+				popupError(cause.getMessage(), "Data Error");
+			}
+		}));
 	}
 
 	/**
@@ -685,21 +752,30 @@ public class RentalGUI extends JFrame implements ActionListener {
 
 
 	/**
-	 * Loads rental data a from file.
+	 * Loads rental data a from file, either a text file or a binary snapshot.
 	 */
 	private void doLoadFile() {
 		saveFirst();
 		clearAllDataDisplay();
 		try {
-			JFileChooser chooser = new JFileChooser("./");
-			FileNameExtensionFilter filterExt = new FileNameExtensionFilter("Rental data files (md)", "md");
-			chooser.setFileFilter(filterExt);
-			chooser.setMultiSelectionEnabled(false);
+			JFileChooser chooser = newFileChooser();
 			int returnVal = chooser.showOpenDialog(this);
 			if (returnVal == JFileChooser.APPROVE_OPTION) {
 				String pick = chooser.getSelectedFile().getAbsolutePath();
-				RentalReader.readRentalData(pick);
+				List<String> problems = new ArrayList<String>();
+				if (RentalSnapshot.isSnapshot(pick)) {
+					problems.addAll(Arrays.asList(RentalSnapshot.readSnapshot(pick)));
+				} else {
+					LoadReport report = RentalReader.readRentalDataTolerant(pick);
+					for (LoadDiagnostic diagnostic : report.getDiagnostics()) {
+						problems.add(diagnostic.toString());
+					}
+					problems.addAll(Arrays.asList(report.getLeaseProblems()));
+				}
 				mostRecentFileName = pick;
+				if (!problems.isEmpty()) {
+					warnProblems(problems);
+				}
 			}
 			mgr.filterRentalUnits("All", false);
 			refreshAllRentalUnits();
@@ -708,25 +784,61 @@ public class RentalGUI extends JFrame implements ActionListener {
 			JOptionPane.showMessageDialog(this, "Error opening file.", "Opening Error", JOptionPane.ERROR_MESSAGE);
 		}
 	}
+
+	/**
+	 * Lists the lines of a loaded file that were skipped and the leases that
+	 * conflict or are over capacity.
+	 * 
+	 * @param problems descriptions of the problems
+	 */
+	private void warnProblems(List<String> problems) {
+		StringBuilder message = new StringBuilder("Loaded with problems:");
+		for (int i = 0; i < Math.min(problems.size(), MAX_PROBLEMS_SHOWN); i++) {
+			message.append('\n').append(problems.get(i));
+		}
+		if (problems.size() > MAX_PROBLEMS_SHOWN) {
+			message.append("\n... and ").append(problems.size() - MAX_PROBLEMS_SHOWN).append(" more");
+		}
+		JOptionPane.showMessageDialog(this, message.toString(), "Load Problems", JOptionPane.WARNING_MESSAGE);
+	}
+
+	/**
+	 * Makes a chooser for rental data files, offering text files and binary
+	 * snapshots.
+	 * 
+	 * @return the file chooser
+	 */
+	private JFileChooser newFileChooser() {
+		JFileChooser chooser = new JFileChooser("./");
+		FileNameExtensionFilter textFiles = new FileNameExtensionFilter("Rental data files (md)", "md");
+		chooser.addChoosableFileFilter(new FileNameExtensionFilter("Rental snapshots (wrs)",
+				RentalSnapshot.EXTENSION.substring(1)));
+		chooser.addChoosableFileFilter(textFiles);
+		chooser.setFileFilter(textFiles);
+		chooser.setMultiSelectionEnabled(false);
+		return chooser;
+	}
 		
 	/**
-	 * Saves rental data to a file.
+	 * Saves rental data to a file, as a binary snapshot if the name ends in .wrs
+	 * and as text if it ends in .md.
 	 */
 	private void doSaveFile() {
 		try {
-			JFileChooser chooser = new JFileChooser("./");
-			FileNameExtensionFilter filterExt = new FileNameExtensionFilter("Rental data files (md)", "md");
-			chooser.setFileFilter(filterExt);
-			chooser.setMultiSelectionEnabled(false);
+			JFileChooser chooser = newFileChooser();
 			if (mostRecentFileName != null)
 				chooser.setSelectedFile(new File(mostRecentFileName));
 			int returnVal = chooser.showSaveDialog(this);
 			if (returnVal == JFileChooser.APPROVE_OPTION) {
-				if (!chooser.getSelectedFile().getName().endsWith(".md")) {
+				String name = chooser.getSelectedFile().getName();
+				if (name.endsWith(RentalSnapshot.EXTENSION)) {
+					RentalSnapshot.writeSnapshot(chooser.getSelectedFile().getAbsolutePath());
+				} else if (name.endsWith(".md")) {
+					RentalWriter.writeRentalFile(chooser.getSelectedFile().getAbsolutePath());
+				} else {
 					throw new IllegalArgumentException();
 				}
 				mostRecentFileName = chooser.getSelectedFile().getAbsolutePath();
-				RentalWriter.writeRentalFile(mostRecentFileName);
 			}
 		} catch (IllegalArgumentException e) {
 			JOptionPane.showMessageDialog(this, "File not saved.", "Saving Error", JOptionPane.ERROR_MESSAGE);
@@ -749,7 +861,7 @@ public class RentalGUI extends JFrame implements ActionListener {
 	}
 	
 	private void saveFirst() {
-		if (mgr.listClients().length > 0 || mgr.listRentalUnits().length > 0) {
+		if (RentalWriter.hasUnsavedChanges()) {
             int result = JOptionPane.showConfirmDialog(this, "Do you want to save the current data?", 
             		"Save Data?", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
             if (result == JOptionPane.YES_OPTION)
@@ -807,9 +919,9 @@ public class RentalGUI extends JFrame implements ActionListener {
 	private void refreshAllRentalUnits() {
 		lstRentalUnits.clearSelection();
 		dlmRentalUnits.clear();
-		String[] theUnits = mgr.listRentalUnits();
-		for (String s: theUnits)
-			dlmRentalUnits.addElement(s);
+		shownUnits = mgr.getFilteredRentalUnits();
+		for (RentalUnit unit : shownUnits)
+			dlmRentalUnits.addElement(unit.getDescription());
 		// Now clear the associated rental unit display
 		lstRentalUnitLeases.clearSelection();
 		dlmRentalUnitLeases.clear();
@@ -822,7 +934,7 @@ public class RentalGUI extends JFrame implements ActionListener {
 		dlmRentalUnitLeases.clear();
 		int whichUnit = lstRentalUnits.getSelectedIndex();
 		if (whichUnit >= 0) {
-			String[] rentalLeases = mgr.listLeasesForRentalUnit(whichUnit);
+			String[] rentalLeases = mgr.listLeasesForRentalUnit(shownUnits[whichUnit]);
 			for (String c : rentalLeases) {
 				dlmRentalUnitLeases.addElement(c);
 			}
@@ -849,10 +961,11 @@ public class RentalGUI extends JFrame implements ActionListener {
 	private void refreshLeasesForSelectedClient() {
 		dlmClientLeases.clear();
 		int whichClient = lstClients.getSelectedIndex();
+		shownClientLeases = new Lease[0];
 		if (whichClient >= 0) {
-			String[] clientRes = mgr.listClientLeases(whichClient);
-			for (String c : clientRes) {
-				dlmClientLeases.addElement(c);
+			shownClientLeases = mgr.getClients().get(whichClient).getLeases().toArray(shownClientLeases);
+			for (Lease lease : shownClientLeases) {
+				dlmClientLeases.addElement(lease.getClientRow());
 			} 
 		}
 	}
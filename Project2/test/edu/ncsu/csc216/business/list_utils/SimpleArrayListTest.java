@@ -117,6 +117,37 @@ public class SimpleArrayListTest {
 		assertEquals(stringOne, simpList.remove(0));
 		assertEquals(0, simpList.size());
 	}
+
+	/**
+	 * Test appending a range of elements at once
+	 */
+	@Test
+	public void testAppendAll() {
+		SimpleArrayList<String> simpList = new SimpleArrayList<String>(1);
+		simpList.add(stringOne);
+		String[] more = new String[30];
+		for (int i = 0; i < more.length; i++) {
+			more[i] = "More " + i;
+		}
+		simpList.appendAll(more, 2, 30);
+		assertEquals(29, simpList.size());
+		assertEquals(stringOne, simpList.get(0));
+		assertEquals("More 2", simpList.get(1));
+		assertEquals("More 29", simpList.get(28));
+
+		try {
+			simpList.appendAll(new String[] { stringTwo, null }, 0, 2);
+			fail();
+		} catch (NullPointerException e) {
+			assertEquals(29, simpList.size());
+		}
+		try {
+			simpList.appendAll(more, 20, 31);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			assertEquals(29, simpList.size());
+		}
+	}
 	
 	
 
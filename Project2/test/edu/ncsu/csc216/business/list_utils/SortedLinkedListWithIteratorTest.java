@@ -193,4 +193,47 @@ public class SortedLinkedListWithIteratorTest {
 		assertEquals(stringThree, list.get(0));
 	}
 
+	/**
+	 * Tests appending elements in sorted order and building a list from sorted
+	 * elements
+	 */
+	@Test
+	public void testAppendInOrder() {
+		SortedLinkedListWithIterator<String> list = new SortedLinkedListWithIterator<String>();
+		list.appendSorted(new String[] { "Bat", "Cat", "Hat" });
+		list.add("Mat");
+		list.add("Apple");
+		list.add("Dog");
+		assertEquals(6, list.size());
+		assertEquals("[Apple, Bat, Cat, Dog, Hat, Mat]", list.toString());
+		assertEquals("Mat", list.get(5));
+		assertEquals("Mat", list.remove(5));
+		list.add("Zoo"); // appended after the new last element
+		assertEquals("Zoo", list.get(5));
+
+		SortedLinkedListWithIterator<String> rest = (SortedLinkedListWithIterator<String>) list.truncate(4);
+		list.add("Egg");
+		rest.add("Rat");
+		assertEquals("[Apple, Bat, Cat, Dog, Egg]", list.toString());
+		assertEquals("[Hat, Rat, Zoo]", rest.toString());
+
+		try {
+			list.appendSorted(new String[] { "Fox", "Ant" });
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Elements are not in sorted order", e.getMessage());
+		}
+		try {
+			list.appendSorted(new String[] { "Ant" });
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals(5, list.size());
+		}
+		try {
+			list.add("Egg");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Element already contained in the list", e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,100 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.contracts;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+/**
+ * Testing the ConfirmationNumberAllocator class
+ *
+ * @author Anton
+ *
+ */
+public class ConfirmationNumberAllocatorTest {
+
+	/**
+	 * Test handing out, claiming and releasing numbers
+	 */
+	@Test
+	public void testAllocate() {
+		ConfirmationNumberAllocator numbers = new ConfirmationNumberAllocator(100);
+		assertEquals(0, numbers.allocate());
+		assertEquals(1, numbers.allocate());
+		numbers.claim(5);
+		assertEquals(6, numbers.allocate());
+		// claiming a number behind the cursor does not move it
+		numbers.claim(3);
+		assertEquals(7, numbers.allocate());
+		assertTrue(numbers.isInUse(3));
+		numbers.release(3);
+		assertFalse(numbers.isInUse(3));
+
+		// numbers still in use are skipped after wrapping around
+		numbers.claim(99);
+		assertEquals(2, numbers.allocate());
+		assertEquals(3, numbers.allocate());
+		assertEquals(4, numbers.allocate());
+		assertEquals(8, numbers.allocate());
+
+		numbers.reset(50);
+		assertFalse(numbers.isInUse(0));
+		assertEquals(50, numbers.allocate());
+
+		try {
+			numbers.claim(100);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertNull(e.getMessage());
+		}
+	}
+
+	/**
+	 * Test that an allocator with every number in use refuses to hand one out
+	 */
+	@Test
+	public void testFull() {
+		ConfirmationNumberAllocator numbers = new ConfirmationNumberAllocator(70);
+		for (int i = 0; i < 70; i++) {
+			assertEquals(i, numbers.allocate());
+		}
+		try {
+			numbers.allocate();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("no confirmation numbers left", e.getMessage());
+		}
+		numbers.release(42);
+		assertEquals(42, numbers.allocate());
+	}
+
+	/**
+	 * Test that threads allocating at the same time never get the same number
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	@Test
+	public void testConcurrentAllocate() throws InterruptedException {
+		final ConfirmationNumberAllocator numbers = new ConfirmationNumberAllocator(40000);
+		final AtomicIntegerArray handedOut = new AtomicIntegerArray(40000);
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					handedOut.incrementAndGet(numbers.allocate());
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int i = 0; i < 40000; i++) {
+			assertEquals(1, handedOut.get(i));
+		}
+	}
+}
@@ -44,6 +44,11 @@ public class LeaseTest {
 		assertEquals(start, l.getStart());
 		assertEquals(end, l.getEnd());
 		assertEquals(occupants, l.getNumOccupants());
+		assertEquals(start.toEpochDay(), l.getStartDay());
+		assertEquals(end.toEpochDay(), l.getEndDay());
+		Lease later = new Lease(3, client, rental, start.plusDays(1), end, occupants);
+		assertTrue(l.compareTo(later) < 0);
+		assertTrue(later.compareTo(l) > 0);
 		
 		String[] leaseData = l.leaseData();
 		assertEquals("000015", leaseData[0]);
@@ -53,8 +58,14 @@ public class LeaseTest {
 		assertEquals("Anton", leaseData[4]);
 		assertEquals("AN@346", leaseData[5]);
 		
+		assertEquals("000015 | 2020-03-05 to 2020-03-10 |  20 | Conference Room:  20-15", l.getClientRow());
+		assertEquals("000015 | 2020-03-05 to 2020-03-10 |  20 | Anton (AN@346)", l.getUnitRow());
+		assertSame(l.getClientRow(), l.getClientRow());
+
 		l.setEndDateEarlier(LocalDate.of(2020, Month.MARCH, 7));
 		assertEquals(LocalDate.of(2020, Month.MARCH, 7), l.getEnd());
+		assertEquals("000015 | 2020-03-05 to 2020-03-07 |  20 | Conference Room:  20-15", l.getClientRow());
+		assertEquals("000015 | 2020-03-05 to 2020-03-07 |  20 | Anton (AN@346)", l.getUnitRow());
 		
 		try {
 			l.setEndDateEarlier(LocalDate.of(2020, Month.MARCH, 8));
@@ -78,4 +89,27 @@ public class LeaseTest {
 		}
 	}
 
+	/**
+	 * Test that a given confirmation number is only taken once it is claimed
+	 */
+	@Test
+	public void testClaimConfirmationNumber() {
+		Lease.resetConfirmationNumbering(0);
+		Lease rejected = new Lease(0, client, rental, start, end, occupants);
+		assertEquals(0, rejected.getConfirmationNumber());
+		assertEquals(0, new Lease(client, rental, start, end, occupants).getConfirmationNumber());
+
+		new Lease(confNumber, client, rental, start, end, occupants);
+		Lease.claimConfirmationNumber(confNumber);
+		assertEquals(confNumber + 1, new Lease(client, rental, start, end, occupants).getConfirmationNumber());
+
+		try {
+			new Lease(1000000, client, rental, start, end, occupants);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertNull(e.getMessage());
+		}
+		Lease.resetConfirmationNumbering(0);
+	}
+
 }
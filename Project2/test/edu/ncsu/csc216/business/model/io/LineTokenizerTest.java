@@ -0,0 +1,95 @@
+/**
+ * 
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+import org.junit.Test;
+
+/**
+ * Testing the LineTokenizer class
+ * 
+ * @author Anton
+ *
+ */
+public class LineTokenizerTest {
+
+	/**
+	 * Test reading the fields of each kind of line
+	 */
+	@Test
+	public void testLines() {
+		LineTokenizer tokens = new LineTokenizer();
+		tokens.reset("Hotel Suite:      37-10 |   2  Unavailable  ");
+		assertEquals("Hotel Suite", tokens.nextUntil(':'));
+		assertEquals("37-10", tokens.nextUntil('|'));
+		assertEquals(2, tokens.nextInt());
+		assertEquals("Unavailable", tokens.nextWord());
+		assertTrue(tokens.atEnd());
+
+		tokens.reset("#Sandy Shelton Biggs (hb2$32)");
+		assertEquals('#', tokens.peek());
+		tokens.expect('#');
+		assertEquals("Sandy Shelton Biggs", tokens.nextUntil('('));
+		assertEquals("hb2$32", tokens.nextUntil(')'));
+		assertTrue(tokens.atEnd());
+
+		tokens.reset("   000012 | 2020-09-17 to 2020-09-23 |  15 | Conference Room:  37-14");
+		assertEquals(12, tokens.nextInt());
+		tokens.expect('|');
+		assertEquals(LocalDate.of(2020, Month.SEPTEMBER, 17).toEpochDay(), tokens.nextDay());
+		tokens.expectWord("to");
+		assertEquals(LocalDate.of(2020, Month.SEPTEMBER, 23).toEpochDay(), tokens.nextDay());
+		tokens.expect('|');
+		assertEquals(15, tokens.nextInt());
+		tokens.expect('|');
+		tokens.skipPast(':');
+		assertEquals(37, tokens.nextInt());
+		tokens.expect('-');
+		assertEquals(14, tokens.nextInt());
+		assertTrue(tokens.atEnd());
+
+		tokens.reset("   ");
+		assertTrue(tokens.atEnd());
+	}
+
+	/**
+	 * Test that lines of the wrong shape are rejected
+	 */
+	@Test
+	public void testInvalid() {
+		LineTokenizer tokens = new LineTokenizer();
+		tokens.reset("2020-02-30");
+		try {
+			tokens.nextDay();
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("invalid date", e.getMessage());
+		}
+		tokens.reset("9999999999");
+		try {
+			tokens.nextInt();
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("number too large", e.getMessage());
+		}
+		tokens.reset("Office 1-28 | 100");
+		try {
+			tokens.nextUntil(':');
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("expected :", e.getMessage());
+		}
+		tokens.reset("x");
+		try {
+			tokens.nextInt();
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("expected a number", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,40 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
+
+/**
+ * Lists everything a PropertyManager holds, for the tests of reading and
+ * writing the data to compare before and after.
+ *
+ * @author Anton
+ */
+final class Listings {
+
+	/**
+	 * Not meant to be constructed
+	 */
+	private Listings() {
+	}
+
+	/**
+	 * Lists the rental units, the clients and the leases of every client. The
+	 * filter of the rental units is cleared first.
+	 *
+	 * @param manager the PropertyManager
+	 * @return the rental units, the clients and then the leases of each client
+	 */
+	static String[][] listAll(PropertyManager manager) {
+		manager.filterRentalUnits("Any", false);
+		String[] clients = manager.listClients();
+		String[][] ret = new String[clients.length + 2][];
+		ret[0] = manager.listRentalUnits();
+		ret[1] = clients;
+		for (int i = 0; i < clients.length; i++) {
+			ret[i + 2] = manager.listClientLeases(i);
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.Month;
+
+import org.junit.Test;
+
+import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
+
+/**
+ * Testing the RentalJournal class
+ *
+ * @author Anton
+ *
+ */
+public class RentalJournalTest {
+
+	/**
+	 * Test that changes kept in the journal are applied again on opening it, and
+	 * after compacting it into a snapshot
+	 *
+	 * @throws Exception if the files cannot be made or the journal is interrupted
+	 */
+	@Test
+	public void testReplay() throws Exception {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		Path dir = Files.createTempDirectory("journal");
+		try {
+			RentalJournal journal = RentalJournal.open(dir.toString());
+			assertEquals(0, journal.getGeneration());
+			manager.addNewClient("Anton N", "AN@123");
+			manager.addNewClient("Billy Grub", "GruB#3");
+			manager.addNewUnit("Conf Room", "2-30", 15);
+			manager.addNewUnit("Hotel Suite", "2-14", 2);
+			manager.addNewUnit("Office", "8-44", 100);
+			manager.filterRentalUnits("Any", false);
+			manager.createLease(0, 1, LocalDate.of(2020, Month.MARCH, 20), 2, 10);
+			manager.createLease(1, 1, LocalDate.of(2020, Month.MARCH, 25), 2, 5);
+			manager.createLease(1, 0, LocalDate.of(2020, Month.APRIL, 5), 3, 1);
+			manager.createLease(0, 2, LocalDate.of(2021, Month.JANUARY, 1), 3, 40);
+			manager.cancelClientsLease(1, 0);
+			manager.removeFromService(2, LocalDate.of(2021, Month.FEBRUARY, 1));
+			manager.closeRentalUnit(0);
+			journal.sync();
+			String[][] expected = Listings.listAll(manager);
+			journal.close();
+
+			manager.flushAllData();
+			journal = RentalJournal.open(dir.toString());
+			assertArrayEquals(expected, Listings.listAll(manager));
+
+			journal.compact();
+			assertEquals(1, journal.getGeneration());
+			assertFalse(Files.exists(dir.resolve("journal-0.wrj")));
+			manager.returnToService(1);
+			journal.sync();
+			expected = Listings.listAll(manager);
+			journal.close();
+
+			manager.flushAllData();
+			journal = RentalJournal.open(dir.toString());
+			assertEquals(1, journal.getGeneration());
+			assertArrayEquals(expected, Listings.listAll(manager));
+			journal.close();
+		} finally {
+			deleteAll(dir);
+		}
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that a record cut short by a crash is dropped, keeping the records
+	 * before it
+	 *
+	 * @throws Exception if the files cannot be made or the journal is interrupted
+	 */
+	@Test
+	public void testTornRecord() throws Exception {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		Path dir = Files.createTempDirectory("journal");
+		try {
+			RentalJournal journal = RentalJournal.open(dir.toString());
+			manager.addNewClient("Anton N", "AN@123");
+			journal.sync();
+			journal.close();
+			long kept = Files.size(dir.resolve("journal-0.wrj"));
+			Files.write(dir.resolve("journal-0.wrj"), new byte[] { 0, 0, 0, 40, 1, 0 }, StandardOpenOption.APPEND);
+
+			manager.flushAllData();
+			journal = RentalJournal.open(dir.toString());
+			assertArrayEquals(new String[] { "Anton N (AN@123)" }, manager.listClients());
+			assertEquals(kept, Files.size(dir.resolve("journal-0.wrj")));
+			journal.close();
+
+			try {
+				RentalJournal.open(dir.toString(), 0);
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertNull(e.getMessage());
+			}
+		} finally {
+			deleteAll(dir);
+		}
+		manager.flushAllData();
+	}
+
+	/**
+	 * Private helper method that deletes a directory and the files in it
+	 *
+	 * @param dir the directory
+	 * @throws IOException if a file cannot be deleted
+	 */
+	private void deleteAll(Path dir) throws IOException {
+		File[] files = dir.toFile().listFiles();
+		if (files != null) {
+			for (File file : files) {
+				Files.delete(file.toPath());
+			}
+		}
+		Files.delete(dir);
+	}
+}
@@ -5,8 +5,21 @@ package edu.ncsu.csc216.business.model.io;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
 import org.junit.Test;
 
+import edu.ncsu.csc216.business.model.stakeholders.DuplicateClientException;
 import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
 
 /**
@@ -97,6 +110,348 @@ public class RentalReaderTest {
 		manager.flushAllData();
 	}
 	
+	/**
+	 * Test that the memory-mapped reader loads the same data as the streaming
+	 * reader, from the example file and from what RentalWriter writes
+	 *
+	 * @throws IOException if the temporary file cannot be created
+	 */
+	@Test
+	public void testMappedReader() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		RentalReader.readRentalData("test-files/example.md");
+		String[][] expected = Listings.listAll(manager);
+
+		RentalReader.readRentalDataMapped("test-files/example.md");
+		assertArrayEquals(expected, Listings.listAll(manager));
+
+		File written = File.createTempFile("mapped", ".md");
+		try {
+			RentalWriter.writeRentalFile(written.getPath());
+			RentalReader.readRentalDataMapped(written.getPath());
+			assertArrayEquals(expected, Listings.listAll(manager));
+		} finally {
+			written.delete();
+		}
+
+		try {
+			RentalReader.readRentalDataMapped("test-files/no_such_file.md");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Unable to load file", e.getMessage());
+		}
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that reading the client section in parallel loads the same data as
+	 * reading the file a line at a time
+	 */
+	@Test
+	public void testParallelReader() {
+		PropertyManager manager = PropertyManager.getInstance();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (String file : new String[] { "test-files/example.md", "test-files/test_file.md" }) {
+				String[] problems = RentalReader.readRentalData(file);
+				String[][] expected = Listings.listAll(manager);
+				assertArrayEquals(problems, RentalReader.readRentalDataParallel(file, pool));
+				assertArrayEquals(expected, Listings.listAll(manager));
+			}
+			// the office over capacity in test_file.md is loaded and reported
+			String[] problems = RentalReader.readRentalData("test-files/test_file.md");
+			assertEquals(1, problems.length);
+			assertEquals("000011 | 2020-10-01 to 2020-12-31 |  10 | Office:           10-10 is over capacity",
+					problems[0]);
+			try {
+				RentalReader.readRentalDataParallel("test-files/no_such_file.md", pool);
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("Unable to load file", e.getMessage());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that a lazy load lists the same clients and leases as reading the file
+	 * a line at a time, loads the leases once a rental unit's leases are needed,
+	 * and keeps the index of the client lines next to the file
+	 *
+	 * @throws IOException if the temporary files cannot be written
+	 */
+	@Test
+	public void testLazyReader() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		File file = File.createTempFile("lazy", ".md");
+		File index = new File(file.getPath() + RentalReader.INDEX_SUFFIX);
+		try {
+			for (String source : new String[] { "test-files/example.md", "test-files/test_file.md" }) {
+				Files.copy(new File(source).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				String[] problems = RentalReader.readRentalData(file.getPath());
+				String[][] expected = Listings.listAll(manager);
+				String[] unitLeases = manager.listLeasesForRentalUnit(2);
+
+				index.delete();
+				assertEquals(0, RentalReader.readRentalDataLazy(file.getPath()).length);
+				assertTrue(index.exists());
+				assertArrayEquals(expected, Listings.listAll(manager));
+				assertFalse(RentalWriter.hasUnsavedChanges());
+				assertArrayEquals(problems, manager.loadPendingLeases());
+				assertArrayEquals(expected, Listings.listAll(manager));
+				assertFalse(RentalWriter.hasUnsavedChanges());
+
+				// the index is read back, and a damaged one is made again
+				RentalReader.readRentalDataLazy(file.getPath());
+				assertArrayEquals(unitLeases, manager.listLeasesForRentalUnit(2));
+				assertArrayEquals(expected, Listings.listAll(manager));
+				Files.write(index.toPath(), new byte[] { 1, 2, 3 });
+				RentalReader.readRentalDataLazy(file.getPath());
+				assertArrayEquals(expected, Listings.listAll(manager));
+				assertTrue(index.length() > 3);
+			}
+
+			// a new lease is numbered after those of the file, which are loaded first
+			RentalReader.readRentalData("test-files/example.md");
+			manager.filterRentalUnits("Any", false);
+			int expectedNumber = manager.createLease(0, 2, LocalDate.of(2021, 1, 1), 3, 1).getConfirmationNumber();
+			Files.copy(new File("test-files/example.md").toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			RentalReader.readRentalDataLazy(file.getPath());
+			manager.filterRentalUnits("Any", false);
+			assertEquals(expectedNumber,
+					manager.createLease(0, 2, LocalDate.of(2021, 1, 1), 3, 1).getConfirmationNumber());
+
+			// a bad lease line is found when the leases are loaded, and saving fails
+			Files.write(file.toPath(), Arrays.asList("Office:            2-56 |  27", "#Amanda Smith (a12#smL)",
+					"   000004 | 2020-05-30 to 2020-06-03 |   4 | Office:            9-99"));
+			RentalReader.readRentalDataLazy(file.getPath());
+			assertEquals(1, manager.listClients().length);
+			try {
+				manager.listLeasesForRentalUnit(0);
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("Unable to load file", e.getMessage());
+			}
+			try {
+				RentalWriter.writeRentalFile(file.getPath());
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("Unable to save file", e.getMessage());
+			}
+
+			try {
+				RentalReader.readRentalDataLazy("test-files/no_such_file.md");
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("Unable to load file", e.getMessage());
+			}
+		} finally {
+			file.delete();
+			index.delete();
+		}
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that a tolerant load skips bad lines, reports each of them and loads
+	 * everything else
+	 *
+	 * @throws IOException if the temporary file cannot be written
+	 */
+	@Test
+	public void testTolerantReader() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		File file = File.createTempFile("tolerant", ".md");
+		try {
+			Files.write(file.toPath(), Arrays.asList("Office:            2-56 |  27",
+					"Office:            2-56 |  30", "Conference Room:   2-34 | many",
+					"Conference Room:  38-67 |  20", "", "#Amanda Smith (a12#smL)",
+					"   000004 | 2020-05-30 to 2020-06-03 |   4 | Conference Room:  38-67",
+					"   000005 | 2020-13-30 to 2020-06-03 |   4 | Conference Room:  38-67",
+					"   000006 | 2020-06-30 to 2020-07-03 |   4 | Conference Room:   9-99",
+					"#Amanda Smith (a12#smL)", "   000007 | 2020-08-01 to 2020-08-02 |   4 | Conference Room:  38-67",
+					"#James Tetterton (jc1012)",
+					"   000009 | 2020-10-01 to 2020-12-31 |  10 | Office:            2-56",
+					"   000010 | 2020-10-01 to 2020-12-31 |  20 | Office:            2-56"));
+			LoadReport report = RentalReader.readRentalDataTolerant(file.getPath());
+			assertFalse(report.isClean());
+			assertEquals(7, report.getLinesLoaded());
+			LoadDiagnostic[] diagnostics = report.getDiagnostics();
+			assertEquals(6, diagnostics.length);
+			assertEquals(2, diagnostics[0].getLineNumber());
+			assertEquals("duplicate rental unit", diagnostics[0].getCause());
+			assertEquals("line 3: expected a number: Conference Room:   2-34 | many", diagnostics[1].toString());
+			assertEquals(8, diagnostics[2].getLineNumber());
+			assertEquals("invalid date", diagnostics[2].getCause());
+			assertEquals("unit not found", diagnostics[3].getCause());
+			assertEquals("duplicate client", diagnostics[4].getCause());
+			assertEquals("no client for lease", diagnostics[5].getCause());
+			assertEquals("   000007 | 2020-08-01 to 2020-08-02 |   4 | Conference Room:  38-67",
+					diagnostics[5].getText());
+			assertArrayEquals(new String[] {
+					"000010 | 2020-10-01 to 2020-12-31 |  20 | Office:            2-56 is over capacity" },
+					report.getLeaseProblems());
+
+			manager.filterRentalUnits("Any", false);
+			assertEquals(2, manager.listRentalUnits().length);
+			assertEquals(2, manager.listClients().length);
+			assertEquals(1, manager.listClientLeases(0).length);
+			assertEquals(2, manager.listClientLeases(1).length);
+
+			try {
+				RentalReader.readRentalData(file.getPath());
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("Unable to load file", e.getMessage());
+			}
+		} finally {
+			file.delete();
+		}
+		assertTrue(RentalReader.readRentalDataTolerant("test-files/example.md").isClean());
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that visiting a file hands over every record in file order and leaves
+	 * the PropertyManager alone
+	 */
+	@Test
+	public void testVisitor() {
+		PropertyManager manager = PropertyManager.getInstance();
+		RentalReader.readRentalData("test-files/test_file.md");
+		String[][] loaded = Listings.listAll(manager);
+
+		final int[] counts = new int[4];
+		final StringBuilder firstLease = new StringBuilder();
+		RentalReader.visitRentalData("test-files/example.md", new RentalFileVisitor() {
+			@Override
+			public void onUnit(String kind, String location, int capacity, boolean inService) {
+				assertEquals(0, counts[1]);
+				counts[0]++;
+				if (!inService) {
+					assertEquals("37-10", location);
+					counts[3]++;
+				}
+			}
+
+			@Override
+			public void onClient(String name, String id) {
+				counts[1]++;
+			}
+
+			@Override
+			public void onLease(int confirmationNumber, int startDay, int endDay, int occupants, int floor,
+					int room) {
+				if (counts[2]++ == 0) {
+					firstLease.append(confirmationNumber).append(' ').append(LocalDate.ofEpochDay(startDay))
+							.append(' ').append(occupants).append(' ').append(floor).append('-').append(room);
+				}
+			}
+		});
+		assertArrayEquals(new int[] { 19, 18, 12, 1 }, counts);
+		assertEquals("4 2020-05-30 4 38-67", firstLease.toString());
+		assertArrayEquals(loaded, Listings.listAll(manager));
+
+		try {
+			RentalReader.visitRentalData("test-files/example.md", new RentalFileVisitor() {
+				@Override
+				public void onUnit(String kind, String location, int capacity, boolean inService) {
+					// every rental unit is taken
+				}
+
+				@Override
+				public void onClient(String name, String id) {
+					throw new IllegalArgumentException("rejected");
+				}
+
+				@Override
+				public void onLease(int confirmationNumber, int startDay, int endDay, int occupants, int floor,
+						int room) {
+					fail();
+				}
+			});
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Unable to load file", e.getMessage());
+		}
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that every reader loads a block-compressed file of several blocks, and
+	 * a gzip file, the same as the plain file, and refuses a damaged block
+	 *
+	 * @throws IOException if the temporary files cannot be written
+	 */
+	@Test
+	public void testCompressedReaders() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		String[] problems = RentalReader.readRentalData("test-files/test_file.md");
+		for (int i = 0; i < 20000; i++) {
+			try {
+				manager.addNewClient("Client Number " + i + " Of Many With A Long Name", "id" + i);
+			} catch (DuplicateClientException e) {
+				fail();
+			}
+		}
+		String[][] expected = Listings.listAll(manager);
+
+		File plain = File.createTempFile("plain", ".md");
+		File compressed = File.createTempFile("compressed", ".md");
+		File gzip = File.createTempFile("gzip", ".md");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			RentalWriter.writeRentalFile(plain.getPath());
+			RentalWriter.writeRentalFile(compressed.getPath(), true);
+			assertEquals(BlockCompression.BLOCKS, BlockCompression.detect(compressed.toPath()));
+			assertTrue(plain.length() > BlockCompression.BLOCK_SIZE);
+			assertTrue(compressed.length() < plain.length() / 4);
+			try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzip))) {
+				Files.copy(plain.toPath(), out);
+			}
+			assertEquals(BlockCompression.GZIP, BlockCompression.detect(gzip.toPath()));
+
+			for (File file : new File[] { compressed, gzip }) {
+				assertArrayEquals(problems, RentalReader.readRentalData(file.getPath()));
+				assertArrayEquals(expected, Listings.listAll(manager));
+				assertArrayEquals(problems, RentalReader.readRentalDataMapped(file.getPath()));
+				assertArrayEquals(expected, Listings.listAll(manager));
+				assertArrayEquals(problems, RentalReader.readRentalDataParallel(file.getPath(), pool));
+				assertArrayEquals(expected, Listings.listAll(manager));
+				assertEquals(0, RentalReader.readRentalDataTolerant(file.getPath()).getDiagnostics().length);
+				assertArrayEquals(expected, Listings.listAll(manager));
+			}
+
+			try (RandomAccessFile file = new RandomAccessFile(compressed, "rw")) {
+				file.seek(file.length() / 2);
+				int b = file.read();
+				file.seek(file.length() / 2);
+				file.write(b ^ 1);
+			}
+			try {
+				RentalReader.readRentalDataParallel(compressed.getPath(), pool);
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("Unable to load file", e.getMessage());
+			}
+			try {
+				RentalReader.readRentalData(compressed.getPath());
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("Unable to load file", e.getMessage());
+			}
+		} finally {
+			pool.shutdown();
+			plain.delete();
+			compressed.delete();
+			gzip.delete();
+		}
+		manager.flushAllData();
+	}
+
 	/**
 	 * Recreating failing TS tests
 	 */
@@ -0,0 +1,148 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+import edu.ncsu.csc216.business.model.stakeholders.PropertyManager;
+
+/**
+ * Testing the RentalSnapshot class
+ *
+ * @author Anton
+ *
+ */
+public class RentalSnapshotTest {
+
+	/**
+	 * Test that a snapshot loads the same data, and reports the same lease
+	 * problems, as the text file it was saved from
+	 *
+	 * @throws IOException if the temporary file cannot be made
+	 */
+	@Test
+	public void testRoundTrip() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		String[] problems = RentalReader.readRentalData("test-files/test_file.md");
+		String[][] expected = Listings.listAll(manager);
+
+		File snapshot = File.createTempFile("snapshot", RentalSnapshot.EXTENSION);
+		try {
+			RentalSnapshot.writeSnapshot(snapshot.getPath());
+			assertTrue(RentalSnapshot.isSnapshot(snapshot.getPath()));
+			assertFalse(RentalSnapshot.isSnapshot("test-files/test_file.md"));
+
+			manager.flushAllData();
+			assertArrayEquals(problems, RentalSnapshot.readSnapshot(snapshot.getPath()));
+			assertArrayEquals(expected, Listings.listAll(manager));
+
+			final int[] counts = new int[3];
+			RentalSnapshot.visitSnapshot(snapshot.getPath(), new RentalFileVisitor() {
+				@Override
+				public void onUnit(String kind, String location, int capacity, boolean inService) {
+					counts[0]++;
+				}
+
+				@Override
+				public void onClient(String name, String id) {
+					counts[1]++;
+				}
+
+				@Override
+				public void onLease(int confirmationNumber, int startDay, int endDay, int occupants, int floor,
+						int room) {
+					counts[2]++;
+				}
+			});
+			assertEquals(expected[0].length, counts[0]);
+			assertEquals(expected[1].length, counts[1]);
+			int leases = 0;
+			for (int i = 2; i < expected.length; i++) {
+				leases += expected[i].length;
+			}
+			assertEquals(leases, counts[2]);
+		} finally {
+			snapshot.delete();
+		}
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that a block-compressed snapshot is told apart by its first bytes and
+	 * loads the same data as a plain one
+	 *
+	 * @throws IOException if the temporary file cannot be made
+	 */
+	@Test
+	public void testCompressed() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		String[] problems = RentalReader.readRentalData("test-files/test_file.md");
+		String[][] expected = Listings.listAll(manager);
+
+		File snapshot = File.createTempFile("compressed", RentalSnapshot.EXTENSION);
+		try {
+			RentalSnapshot.writeSnapshot(snapshot.getPath(), true);
+			assertTrue(RentalSnapshot.isSnapshot(snapshot.getPath()));
+			manager.flushAllData();
+			assertArrayEquals(problems, RentalSnapshot.readSnapshot(snapshot.getPath()));
+			assertArrayEquals(expected, Listings.listAll(manager));
+		} finally {
+			snapshot.delete();
+		}
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that damaged snapshots and bad names are refused, leaving nothing half
+	 * loaded
+	 *
+	 * @throws IOException if the temporary file cannot be made or changed
+	 */
+	@Test
+	public void testDamaged() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		RentalReader.readRentalData("test-files/example.md");
+
+		try {
+			RentalSnapshot.writeSnapshot("test-files/snapshot.md");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("invalid name", e.getMessage());
+		}
+
+		File snapshot = File.createTempFile("damaged", RentalSnapshot.EXTENSION);
+		try {
+			RentalSnapshot.writeSnapshot(snapshot.getPath());
+			try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+				file.seek(file.length() / 2);
+				int b = file.read();
+				file.seek(file.length() / 2);
+				file.write(b ^ 1);
+			}
+			try {
+				RentalSnapshot.readSnapshot(snapshot.getPath());
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("Unable to load file", e.getMessage());
+			}
+			assertEquals(19, manager.newView().size());
+
+			try {
+				RentalSnapshot.readSnapshot("test-files/example.md");
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("Unable to load file", e.getMessage());
+			}
+		} finally {
+			snapshot.delete();
+		}
+		manager.flushAllData();
+	}
+}
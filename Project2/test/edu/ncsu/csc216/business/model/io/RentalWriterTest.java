@@ -7,8 +7,11 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 import org.junit.Test;
@@ -89,6 +92,131 @@ public class RentalWriterTest {
 		manager.flushAllData();
 	}
 	
+	/**
+	 * Test that a file larger than the output buffer is written row for row the
+	 * same as the listings, and that the user's filter is left alone
+	 * 
+	 * @throws IOException if the written file cannot be read back
+	 */
+	@Test
+	public void testLargeFile() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		try {
+			manager.addNewUnit("Conf Room", "3-10", 25);
+			manager.addNewUnit("Office", "4-12", 50);
+		} catch (DuplicateRoomException e) {
+			fail();
+		}
+		for (int i = 0; i < 2000; i++) {
+			try {
+				manager.addNewClient("Client " + i, "id" + i);
+			} catch (DuplicateClientException e) {
+				fail();
+			}
+			manager.createLease(i, 0, LocalDate.of(2020, Month.JANUARY, 1).plusDays(i), 1, 1 + i % 25);
+		}
+		manager.filterRentalUnits("Office", false);
+
+		File written = new File("test-files/act_large.md");
+		RentalWriter.writeRentalFile(written.getPath());
+		List<String> lines = Files.readAllLines(written.toPath());
+		written.delete();
+
+		assertEquals(2 + 1 + 2000 * 2, lines.size());
+		assertEquals("Conference Room:   3-10 |  25", lines.get(0));
+		assertEquals("Office:            4-12 |  50", lines.get(1));
+		assertEquals("", lines.get(2));
+		String[] clients = manager.listClients();
+		for (int i = 0; i < clients.length; i++) {
+			assertEquals("#" + clients[i], lines.get(3 + 2 * i));
+			assertEquals("   " + manager.listClientLeases(i)[0], lines.get(4 + 2 * i));
+		}
+		assertEquals(1, manager.listRentalUnits().length);
+		manager.filterRentalUnits("Any", false);
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that saving over the file last saved writes the same file as saving in
+	 * full, and that only changes made since loading or saving count as unsaved
+	 * 
+	 * @throws IOException if the written files cannot be read back
+	 */
+	@Test
+	public void testIncrementalSave() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		assertFalse(RentalWriter.hasUnsavedChanges());
+		RentalReader.readRentalData("test-files/example.md");
+		assertFalse(RentalWriter.hasUnsavedChanges());
+
+		File incremental = new File("test-files/act_incremental.md");
+		File full = new File("test-files/act_full.md");
+		try {
+			RentalWriter.writeRentalFile(incremental.getPath());
+			assertFalse(RentalWriter.hasUnsavedChanges());
+
+			manager.filterRentalUnits("Any", false);
+			manager.createLease(1, 2, LocalDate.of(2021, Month.JANUARY, 1), 3, 1);
+			assertTrue(RentalWriter.hasUnsavedChanges());
+			RentalWriter.writeRentalFile(incremental.getPath());
+			assertFalse(RentalWriter.hasUnsavedChanges());
+
+			try {
+				manager.addNewClient("Zed Last", "zed1");
+				manager.addNewUnit("Office", "9-99", 20);
+			} catch (DuplicateClientException | DuplicateRoomException e) {
+				fail();
+			}
+			manager.cancelClientsLease(0, 0);
+			RentalWriter.writeRentalFile(incremental.getPath());
+			assertFalse(new File(incremental.getPath() + ".tmp").exists());
+
+			RentalWriter.writeRentalFile(full.getPath());
+			assertArrayEquals(Files.readAllBytes(full.toPath()), Files.readAllBytes(incremental.toPath()));
+		} finally {
+			incremental.delete();
+			full.delete();
+		}
+		manager.flushAllData();
+		assertFalse(RentalWriter.hasUnsavedChanges());
+	}
+
+	/**
+	 * Test that saving over the loaded file after taking a rental unit out of
+	 * service writes the leases it shortened with their new end dates
+	 *
+	 * @throws IOException if the files cannot be written or read
+	 */
+	@Test
+	public void testSaveAfterShortening() throws IOException {
+		PropertyManager manager = PropertyManager.getInstance();
+		File incremental = new File("test-files/act_shortened.md");
+		File full = new File("test-files/act_shortened_full.md");
+		try {
+			Files.write(incremental.toPath(), Arrays.asList("Conference Room:   2-30 |  15", "",
+					"#Anton Nikulsin (AN@123)", "   000000 | 2020-03-20 to 2020-03-25 |  13 | Conference Room:   2-30",
+					"#Billy Grub (GruB#3)"));
+			RentalReader.readRentalData(incremental.getPath());
+			manager.filterRentalUnits("Any", false);
+			manager.removeFromService(0, LocalDate.of(2020, Month.MARCH, 22));
+			assertEquals("000000 | 2020-03-20 to 2020-03-21 |  13 | Conference Room:   2-30",
+					manager.listClientLeases(0)[0]);
+			assertTrue(RentalWriter.hasUnsavedChanges());
+			RentalWriter.writeRentalFile(incremental.getPath());
+
+			RentalWriter.writeRentalFile(full.getPath());
+			assertArrayEquals(Files.readAllBytes(full.toPath()), Files.readAllBytes(incremental.toPath()));
+			assertTrue(Files.readAllLines(incremental.toPath()).contains(
+					"   000000 | 2020-03-20 to 2020-03-21 |  13 | Conference Room:   2-30"));
+		} finally {
+			incremental.delete();
+			full.delete();
+		}
+		manager.flushAllData();
+	}
+
 	/**
 	 * Helper method to compare two files for the same contents
 	 * 
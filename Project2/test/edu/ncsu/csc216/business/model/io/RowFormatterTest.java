@@ -0,0 +1,65 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.io;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+import org.junit.Test;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.HotelSuite;
+import edu.ncsu.csc216.business.model.properties.Office;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+import edu.ncsu.csc216.business.model.stakeholders.Client;
+
+/**
+ * Tests for the RowFormatter class
+ *
+ * @author Anton
+ *
+ */
+public class RowFormatterTest {
+
+	/** Client for the test leases */
+	private final Client client = new Client("James Tetterton", "jc1012");
+
+	/**
+	 * Test formatting rental units
+	 */
+	@Test
+	public void testUnit() {
+		RentalUnit office = new Office("45-99", 150);
+		assertEquals("Office:           45-99 | 150", RowFormatter.unit(office));
+		office.takeOutOfService();
+		assertEquals("Office:           45-99 | 150  Unavailable", RowFormatter.unit(office));
+		assertEquals("Hotel Suite:       1-10 |   2", RowFormatter.unit(new HotelSuite("1-10", 2)));
+	}
+
+	/**
+	 * Test formatting leases and clients
+	 */
+	@Test
+	public void testLeaseRows() {
+		RentalUnit office = new Office("5-10", 150);
+		Lease lease = new Lease(607, client, office, LocalDate.of(2020, Month.FEBRUARY, 1),
+				LocalDate.of(2020, Month.JUNE, 30), 6);
+		assertEquals("000607 | 2020-02-01 to 2020-06-30 |   6 | Office:            5-10", RowFormatter.clientRow(lease));
+		assertEquals("000607 | 2020-02-01 to 2020-06-30 |   6 | James Tetterton (jc1012)",
+				RowFormatter.unitRow(lease));
+		lease = new Lease(999999, client, office, LocalDate.of(2020, Month.FEBRUARY, 1),
+				LocalDate.of(2020, Month.JUNE, 30), 150);
+		assertEquals("999999 | 2020-02-01 to 2020-06-30 | 150 | Office:            5-10", RowFormatter.clientRow(lease));
+		assertEquals("James Tetterton (jc1012)", RowFormatter.client(client));
+		assertEquals("000000", RowFormatter.confirmationNumber(0));
+
+		StringBuilder sb = new StringBuilder("#");
+		RowFormatter.appendClient(sb, client).append(" ");
+		RowFormatter.appendDate(sb, LocalDate.of(2029, Month.DECEMBER, 1));
+		assertEquals("#James Tetterton (jc1012) 2029-12-01", sb.toString());
+		Lease.resetConfirmationNumbering(0);
+	}
+}
@@ -7,6 +7,7 @@ import static org.junit.Assert.*;
 
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -200,4 +201,112 @@ public class ConferenceRoomTest {
 		throw new RentalOutOfServiceException();
 	}
 
+	/**
+	 * Tests that canReserve finds conflicts with booked days
+	 */
+	@Test
+	public void testCanReserve() {
+		RentalUnit conf = new ConferenceRoom("11-70", 20);
+		LocalDate monday = LocalDate.of(2021, Month.MARCH, 1);
+		assertTrue(conf.tryReserve(client, monday, 3, 10).isSuccess());
+		assertEquals(ReservationStatus.CONFLICT, conf.canReserve(monday.plusDays(2), 1, 1));
+		assertEquals(ReservationStatus.CONFLICT, conf.canReserve(monday.minusDays(6), 7, 1));
+		assertEquals(ReservationStatus.SUCCESS, conf.canReserve(monday.minusDays(6), 6, 1));
+		assertEquals(ReservationStatus.SUCCESS, conf.canReserve(monday.plusDays(3), 7, 20));
+		assertEquals(ReservationStatus.DURATION_LIMIT, conf.canReserve(monday.plusDays(3), 8, 1));
+		assertEquals(ReservationStatus.OVER_CAPACITY, conf.canReserve(monday.plusDays(3), 1, 21));
+
+		// days after a removal date are free again when back in service
+		conf.removeFromServiceStarting(monday.plusDays(1));
+		conf.returnToService();
+		assertEquals(ReservationStatus.SUCCESS, conf.canReserve(monday.plusDays(1), 2, 1));
+		assertEquals(ReservationStatus.CONFLICT, conf.canReserve(monday, 1, 1));
+		assertEquals(1, conf.listLeases().length);
+	}
+
+	/**
+	 * Tests that threads reserving the same days optimistically book each day
+	 * exactly once
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	@Test
+	public void testReserveOptimistically() throws InterruptedException {
+		final RentalUnit conf = new ConferenceRoom("11-80", 20);
+		final AtomicInteger booked = new AtomicInteger();
+		final AtomicInteger conflicts = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				LocalDate day = LocalDate.of(2021, Month.JANUARY, 1);
+				for (int i = 0; i < 365; i++) {
+					ReservationResult result = conf.tryReserveOptimistically(client, day.plusDays(i), 1, 5);
+					if (result.isSuccess()) {
+						booked.incrementAndGet();
+					} else if (result.getStatus() == ReservationStatus.CONFLICT) {
+						conflicts.incrementAndGet();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(365, booked.get());
+		assertEquals(365 * 3, conflicts.get());
+		assertEquals(365, conf.listLeases().length);
+		assertEquals(ReservationStatus.CONFLICT, conf.canReserve(LocalDate.of(2021, Month.JULY, 4), 1, 1));
+
+		// the same rules as tryReserve apply
+		assertEquals(ReservationStatus.DURATION_LIMIT,
+				conf.tryReserveOptimistically(client, LocalDate.of(2022, Month.MARCH, 1), 8, 1).getStatus());
+		conf.removeFromServiceStarting(LocalDate.of(2021, Month.JULY, 1));
+		assertEquals(ReservationStatus.OUT_OF_SERVICE,
+				conf.tryReserveOptimistically(client, LocalDate.of(2022, Month.MARCH, 1), 1, 1).getStatus());
+		conf.returnToService();
+		assertTrue(conf.tryReserveOptimistically(client, LocalDate.of(2021, Month.JULY, 4), 1, 1).isSuccess());
+		for (String row : conf.listLeases()) {
+			Lease.releaseConfirmationNumber(Integer.parseInt(row.substring(0, 6)));
+		}
+	}
+
+	/**
+	 * Test that leases added from a file at once are sorted and that every
+	 * conflict and capacity problem among them is reported
+	 */
+	@Test
+	public void testAddLeasesFromFile() {
+		RentalUnit conf = new ConferenceRoom("11-81", 20);
+		conf.takeOutOfService();
+		LocalDate may = LocalDate.of(2020, Month.MAY, 4);
+		LocalDate june = LocalDate.of(2020, Month.JUNE, 1);
+		Lease late = new Lease(900001, client, conf, may, may.plusDays(2), 5);
+		Lease early = new Lease(900002, client, conf, startDate, endDate, 5);
+		Lease overlap = new Lease(900003, client, conf, endDate, endDate, 5);
+		Lease crowded = new Lease(900004, client, conf, june, june, 21);
+		String[] problems = conf.addLeasesFromFile(new Lease[] { late, crowded, overlap, early });
+		assertEquals(2, problems.length);
+		assertEquals(overlap.getClientRow() + " conflicts with another lease", problems[0]);
+		assertEquals(crowded.getClientRow() + " is over capacity", problems[1]);
+
+		String[] leases = conf.listLeases();
+		assertEquals(4, leases.length);
+		assertEquals(early.getUnitRow(), leases[0]);
+		assertEquals(overlap.getUnitRow(), leases[1]);
+		assertEquals(late.getUnitRow(), leases[2]);
+		assertEquals(crowded.getUnitRow(), leases[3]);
+
+		// leases already held are swept together with the new ones
+		Lease again = new Lease(900005, client, conf, may.plusDays(1), may.plusDays(1), 1);
+		problems = conf.addLeasesFromFile(new Lease[] { again });
+		assertArrayEquals(new String[] { again.getClientRow() + " conflicts with another lease" }, problems);
+
+		// a new lease starting before a held lease that it overlaps
+		Lease before = new Lease(900006, client, conf, may.minusDays(3), may, 1);
+		problems = conf.addLeasesFromFile(new Lease[] { before });
+		assertArrayEquals(new String[] { before.getClientRow() + " conflicts with another lease" }, problems);
+		assertEquals(6, conf.listLeases().length);
+		Lease.resetConfirmationNumbering(0);
+	}
 }
@@ -165,4 +165,79 @@ public class HotelSuiteTest {
 		}
 		suiteOne.removeFromServiceStarting(LocalDate.of(2025, Month.FEBRUARY, 20));
 	}
+
+	/**
+	 * Tests the statuses given by tryReserve
+	 */
+	@Test
+	public void testTryReserve() {
+		RentalUnit suite = new HotelSuite("12-20", 2);
+		// Sunday, March 1 2020 for four weeks
+		ReservationResult result = suite.tryReserve(client, LocalDate.of(2020, Month.MARCH, 1), 4, 2);
+		assertTrue(result.isSuccess());
+		assertEquals(LocalDate.of(2020, Month.MARCH, 29), result.getLease().getEnd());
+
+		// a lease held entirely inside another one conflicts
+		result = suite.tryReserve(client, LocalDate.of(2020, Month.MARCH, 8), 1, 1);
+		assertFalse(result.isSuccess());
+		assertEquals(ReservationStatus.CONFLICT, result.getStatus());
+		assertNull(result.getLease());
+
+		// a lease may start on the Sunday the other lease ends
+		assertTrue(suite.tryReserve(client, LocalDate.of(2020, Month.MARCH, 29), 1, 1).isSuccess());
+
+		assertEquals(ReservationStatus.NOT_SUNDAY,
+				suite.tryReserve(client, LocalDate.of(2020, Month.MAY, 4), 1, 1).getStatus());
+		assertEquals(ReservationStatus.OVER_CAPACITY,
+				suite.tryReserve(client, LocalDate.of(2020, Month.MAY, 3), 1, 3).getStatus());
+		assertEquals(ReservationStatus.DATE_OUT_OF_RANGE,
+				suite.tryReserve(client, LocalDate.of(2029, Month.DECEMBER, 30), 1, 1).getStatus());
+		assertEquals(ReservationStatus.INVALID_INPUT, suite.tryReserve(null, startDate, 1, 1).getStatus());
+		assertEquals(2, suite.listLeases().length);
+
+		suite.takeOutOfService();
+		assertEquals(ReservationStatus.OUT_OF_SERVICE, suite.tryReserve(client, startDate, 1, 1).getStatus());
+		try {
+			suite.reserve(client, LocalDate.of(2020, Month.MARCH, 8), 1, 1);
+			fail();
+		} catch (RentalOutOfServiceException e) {
+			assertEquals("not in service", e.getMessage());
+		} catch (RentalDateException e) {
+			fail();
+		} catch (RentalCapacityException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Test that recording an existing lease on a rental unit out of service
+	 * leaves its confirmation number free
+	 */
+	@Test
+	public void testRecordExistingLeaseOutOfService() {
+		Lease.resetConfirmationNumbering(500);
+		RentalUnit suite = new HotelSuite("12-16", 2);
+		suite.takeOutOfService();
+		try {
+			suite.recordExistingLease(500, client, startDate, endDate, 1);
+		} catch (RentalDateException e) {
+			fail();
+		} catch (RentalCapacityException e) {
+			fail();
+		}
+		assertEquals(0, suite.listLeases().length);
+		assertEquals(500, new Lease(client, suite, startDate, endDate, 1).getConfirmationNumber());
+
+		suite.returnToService();
+		try {
+			suite.recordExistingLease(600, client, startDate, endDate, 1);
+		} catch (RentalDateException e) {
+			fail();
+		} catch (RentalCapacityException e) {
+			fail();
+		}
+		assertEquals(1, suite.listLeases().length);
+		assertEquals(601, new Lease(client, suite, startDate, endDate, 1).getConfirmationNumber());
+		Lease.resetConfirmationNumbering(0);
+	}
 }
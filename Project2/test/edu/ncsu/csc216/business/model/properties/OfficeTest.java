@@ -115,4 +115,52 @@ public class OfficeTest {
 		assertEquals("000001 | 2020-04-01 to 2020-04-30 | 149 | Anton (AN@123)", officeOne.listLeases()[1]);
 	}
 
+	/**
+	 * Tests that canReserve changes nothing and follows cancelled leases
+	 */
+	@Test
+	public void testCanReserve() {
+		RentalUnit office = new Office("12-20", 100);
+		Lease.resetConfirmationNumbering(500);
+		assertEquals(ReservationStatus.SUCCESS, office.canReserve(startDate, 3, 100));
+		assertEquals(ReservationStatus.NOT_WHOLE_MONTHS, office.canReserve(LocalDate.of(2020, Month.APRIL, 2), 3, 1));
+		assertEquals(ReservationStatus.DATE_OUT_OF_RANGE, office.canReserve(LocalDate.of(2029, Month.DECEMBER, 1), 2, 1));
+		assertEquals(ReservationStatus.INVALID_INPUT, office.canReserve(startDate, 0, 1));
+		assertEquals(0, office.listLeases().length);
+
+		ReservationResult result = office.tryReserve(client, startDate, 3, 60);
+		assertTrue(result.isSuccess());
+		assertEquals(500, result.getLease().getConfirmationNumber());
+		assertEquals(ReservationStatus.OVER_CAPACITY, office.canReserve(LocalDate.of(2020, Month.JUNE, 1), 2, 50));
+		assertEquals(ReservationStatus.SUCCESS, office.canReserve(LocalDate.of(2020, Month.JULY, 1), 2, 50));
+
+		// the months of a cancelled lease are free again
+		office.cancelLeaseByNumber(500);
+		assertEquals(ReservationStatus.SUCCESS, office.canReserve(LocalDate.of(2020, Month.JUNE, 1), 2, 100));
+		assertEquals(501, office.tryReserve(client, startDate, 1, 1).getLease().getConfirmationNumber());
+
+		office.takeOutOfService();
+		assertEquals(ReservationStatus.OUT_OF_SERVICE, office.canReserve(startDate, 1, 1));
+		Lease.resetConfirmationNumbering(0);
+	}
+
+	/**
+	 * Test that a new lease from a file that starts before a held lease is
+	 * reported once if the two together are over capacity
+	 */
+	@Test
+	public void testAddLeasesFromFileBeforeHeld() {
+		RentalUnit office = new Office("12-21", 100);
+		Lease held = new Lease(900010, client, office, LocalDate.of(2020, Month.MAY, 1),
+				LocalDate.of(2020, Month.JULY, 31), 60);
+		assertEquals(0, office.addLeasesFromFile(new Lease[] { held }).length);
+
+		Lease early = new Lease(900011, client, office, startDate, LocalDate.of(2020, Month.MAY, 31), 50);
+		Lease fits = new Lease(900012, client, office, LocalDate.of(2020, Month.MARCH, 1),
+				LocalDate.of(2020, Month.MARCH, 31), 50);
+		String[] problems = office.addLeasesFromFile(new Lease[] { early, fits });
+		assertArrayEquals(new String[] { early.getClientRow() + " is over capacity" }, problems);
+		assertEquals(3, office.listLeases().length);
+		Lease.resetConfirmationNumbering(0);
+	}
 }
@@ -66,6 +66,7 @@ public class ClientTest {
 	public void testClientLeases() {
 		Client c = new Client("Anton Nikulsin", "An@#Ni$23");
 		Lease l = new Lease(2002, c, rental, start, end, 10);
+		Lease.claimConfirmationNumber(2002); // numbering continues after a lease added from a file
 		Lease l3 = new Lease(109, c, rental, LocalDate.of(2020, Month.MAY, 5), LocalDate.of(2020, Month.MAY, 11), 10);
 		Lease l2 = new Lease(c, rental, LocalDate.of(2020, Month.MAY, 5), LocalDate.of(2020, Month.MAY, 11), 10);
 		c.addNewLease(l);
@@ -91,4 +92,29 @@ public class ClientTest {
 		Client c2 = new Client("Anton", "An@#Ni$23");
 		assertTrue(c.equals(c2));
 	}
+
+	/**
+	 * Tests adding many leases read from a file at once
+	 */
+	@Test
+	public void testAddLeasesFromFile() {
+		Client c = new Client("Anton Nikulsin", "An@#Ni$23");
+		Client other = new Client("Billy Grub", "GruB#3");
+		Lease[] leases = new Lease[] { new Lease(7, other, rental, start, end, 1),
+				new Lease(5, c, rental, start, end, 2), new Lease(6, c, rental, start, end, 3) };
+		int version = c.getLeaseVersion();
+		c.addLeasesFromFile(leases, 1, 3);
+		assertEquals(version + 1, c.getLeaseVersion());
+		assertEquals(2, c.listLeases().length);
+		assertEquals("000005 | 2020-03-05 to 2020-03-10 |   2 | Conference Room:  20-15", c.listLeases()[0]);
+		assertSame(leases[2], c.getLeases().get(1));
+
+		try {
+			c.addLeasesFromFile(leases, 0, 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Lease does not belong to client", e.getMessage());
+			assertEquals(2, c.listLeases().length);
+		}
+	}
 }
@@ -0,0 +1,81 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.stakeholders;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+
+/**
+ * Testing the ExecutorLandlord class
+ *
+ * @author Anton
+ *
+ */
+public class ExecutorLandlordTest {
+
+	/**
+	 * Test that calls run on the executor and fail with the Landlord's own
+	 * exceptions
+	 *
+	 * @throws Exception if a future fails unexpectedly
+	 */
+	@Test
+	public void testCalls() throws Exception {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		AsyncLandlord landlord = new ExecutorLandlord(manager, executor);
+		try {
+			CompletableFuture<Client> client = landlord.addNewClient("Anton N", "AN@123");
+			CompletableFuture<RentalUnit> unit = landlord.addNewUnit("Conf Room", "2-30", 15);
+			CompletableFuture.allOf(client, unit).get();
+			landlord.filterRentalUnits("All", false).get();
+			Lease lease = landlord.createLease(0, 0, LocalDate.of(2020, Month.MARCH, 20), 2, 10).get();
+			assertEquals("000000 | 2020-03-20 to 2020-03-21 |  10 | Anton N (AN@123)", lease.getUnitRow());
+			assertEquals(1, landlord.listClientLeases(0).get().length);
+
+			try {
+				landlord.addNewClient("Anton", "AN@123").get();
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof DuplicateClientException);
+			}
+			try {
+				landlord.listLeasesForRentalUnit(3).get();
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IllegalArgumentException);
+			}
+
+			executor.shutdown();
+			try {
+				landlord.flushAllData().get();
+				fail();
+			} catch (ExecutionException e) {
+				assertNotNull(e.getCause());
+			}
+		} finally {
+			executor.shutdownNow();
+			manager.flushAllData();
+		}
+
+		try {
+			new ExecutorLandlord(manager, null);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertNull(e.getMessage());
+		}
+	}
+}
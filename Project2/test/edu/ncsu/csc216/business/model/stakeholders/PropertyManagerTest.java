@@ -7,11 +7,14 @@ import static org.junit.Assert.*;
 
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.junit.Test;
 
 import edu.ncsu.csc216.business.model.properties.ConferenceRoom;
 import edu.ncsu.csc216.business.model.properties.RentalUnit;
+import edu.ncsu.csc216.business.model.properties.ReservationResult;
+import edu.ncsu.csc216.business.model.properties.ReservationStatus;
 
 /**
  * Testing the PropertyManager class
@@ -141,4 +144,193 @@ public class PropertyManagerTest {
 		pm.flushAllData();
 	}
 
+	/**
+	 * Test reserving and cancelling from several threads at once
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	@Test
+	public void testConcurrentReservations() throws InterruptedException {
+		final PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		final RentalUnit[] units = new RentalUnit[4];
+		try {
+			manager.addNewClient("Anton N", "AN@123");
+			manager.addNewClient("Billy Grub", "GruB#3");
+			for (int i = 0; i < units.length; i++) {
+				units[i] = manager.addNewUnit("Conf Room", (i + 1) + "-10", 25);
+			}
+		} catch (DuplicateClientException e) {
+			fail();
+		} catch (DuplicateRoomException e) {
+			fail();
+		}
+		// every thread books each day of 2021 in its own room, then cancels half
+		Thread[] threads = new Thread[units.length];
+		for (int t = 0; t < threads.length; t++) {
+			final RentalUnit unit = units[t];
+			final int clientIndex = t % 2;
+			threads[t] = new Thread(() -> {
+				LocalDate day = LocalDate.of(2021, Month.JANUARY, 1);
+				for (int i = 0; i < 365; i++) {
+					manager.createLease(clientIndex, unit, day.plusDays(i), 1, 1);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (RentalUnit unit : units) {
+			assertEquals(365, manager.listLeasesForRentalUnit(unit).length);
+		}
+		assertEquals(730, manager.listClientLeases(0).length);
+		assertEquals(730, manager.listClientLeases(1).length);
+
+		for (int t = 0; t < threads.length; t++) {
+			final int clientIndex = t % 2;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 365; i++) {
+					manager.cancelClientsLease(clientIndex, 0);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		int left = 0;
+		for (RentalUnit unit : units) {
+			left += manager.listLeasesForRentalUnit(unit).length;
+		}
+		assertEquals(0, left);
+		assertEquals(0, manager.listClientLeases(0).length);
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that listings are independent copies that follow every change
+	 */
+	@Test
+	public void testListingSnapshots() {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		RentalUnit conf = null;
+		try {
+			manager.addNewClient("Anton N", "AN@123");
+			conf = manager.addNewUnit("Conf Room", "2-30", 15);
+		} catch (DuplicateClientException e) {
+			fail();
+		} catch (DuplicateRoomException e) {
+			fail();
+		}
+		String[] clients = manager.listClients();
+		clients[0] = "changed";
+		assertEquals("Anton N (AN@123)", manager.listClients()[0]);
+		String[] units = manager.listRentalUnits();
+		units[0] = "changed";
+		assertEquals("Conference Room:   2-30 |  15", manager.listRentalUnits()[0]);
+
+		manager.createLease(0, 0, startDate, 2, 10);
+		assertEquals(1, manager.listClientLeases(0).length);
+		assertEquals(1, manager.listLeasesForRentalUnit(0).length);
+		assertEquals(1, manager.listLeasesForRentalUnit(conf).length);
+		manager.cancelClientsLease(0, 0);
+		assertEquals(0, manager.listClientLeases(0).length);
+		assertEquals(0, manager.listLeasesForRentalUnit(0).length);
+
+		manager.closeRentalUnit(0);
+		assertEquals(0, manager.listRentalUnits().length);
+		manager.flushAllData();
+		assertEquals(0, manager.listClients().length);
+	}
+
+	/**
+	 * Test creating leases optimistically, through the PropertyManager and a view
+	 */
+	@Test
+	public void testCreateLeaseOptimistically() {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		RentalUnit conf = null;
+		try {
+			manager.addNewClient("Anton N", "AN@123");
+			conf = manager.addNewUnit("Conf Room", "2-30", 15);
+		} catch (DuplicateClientException e) {
+			fail();
+		} catch (DuplicateRoomException e) {
+			fail();
+		}
+		ReservationResult result = manager.tryCreateLeaseOptimistically(0, conf, startDate, 2, 10);
+		assertTrue(result.isSuccess());
+		assertEquals(1, manager.listClientLeases(0).length);
+		assertEquals(result.getLease().getClientRow(), manager.listClientLeases(0)[0]);
+		assertEquals(1, manager.listLeasesForRentalUnit(conf).length);
+
+		// the same days are taken
+		assertEquals(ReservationStatus.CONFLICT,
+				manager.tryCreateLeaseOptimistically(0, conf, startDate.plusDays(1), 1, 1).getStatus());
+		assertEquals(ReservationStatus.INVALID_INPUT,
+				manager.tryCreateLeaseOptimistically(1, conf, endDate, 1, 1).getStatus());
+		assertEquals(1, manager.listClientLeases(0).length);
+
+		RentalUnitView view = manager.newView();
+		assertTrue(view.tryCreateLeaseOptimistically(0, 0, endDate, 1, 1).isSuccess());
+		assertEquals(ReservationStatus.CONFLICT, view.tryCreateLeaseOptimistically(0, 0, endDate, 1, 1).getStatus());
+		assertEquals(ReservationStatus.INVALID_INPUT,
+				view.tryCreateLeaseOptimistically(0, 1, endDate, 1, 1).getStatus());
+		assertEquals(2, manager.listClientLeases(0).length);
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that a lease cut off by taking the rental unit out of service before
+	 * the client had it is taken back from the client
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	@Test
+	public void testCreateLeaseOptimisticallyRemovedMeanwhile() throws InterruptedException {
+		final PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		Client anton = null;
+		RentalUnit conf = null;
+		try {
+			anton = manager.addNewClient("Anton N", "AN@123");
+			conf = manager.addNewUnit("Conf Room", "2-30", 15);
+		} catch (DuplicateClientException e) {
+			fail();
+		} catch (DuplicateRoomException e) {
+			fail();
+		}
+		final RentalUnit unit = conf;
+		final ReservationResult[] result = new ReservationResult[1];
+		Thread create = new Thread(() -> {
+			result[0] = manager.tryCreateLeaseOptimistically(0, unit, startDate, 2, 10);
+		});
+		Thread remove = new Thread(() -> manager.removeFromService(unit, startDate));
+		// holding the client's leases keeps the new lease between the rental unit
+		// and the client until the rental unit has been taken out of service and
+		// the removal waits to cancel the client's side
+		ReentrantLock leasesLock = anton.getLeasesLock();
+		leasesLock.lock();
+		try {
+			create.start();
+			while (!leasesLock.hasQueuedThread(create)) {
+				Thread.sleep(1);
+			}
+			remove.start();
+			while (!leasesLock.hasQueuedThread(remove)) {
+				Thread.sleep(1);
+			}
+		} finally {
+			leasesLock.unlock();
+		}
+		create.join();
+		remove.join();
+		assertEquals(ReservationStatus.OUT_OF_SERVICE, result[0].getStatus());
+		assertEquals(0, manager.listClientLeases(0).length);
+		assertEquals(0, manager.listLeasesForRentalUnit(unit).length);
+		manager.flushAllData();
+	}
 }
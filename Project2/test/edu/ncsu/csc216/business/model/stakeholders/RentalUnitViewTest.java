@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.stakeholders;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+import org.junit.Test;
+
+import edu.ncsu.csc216.business.model.properties.RentalUnit;
+
+/**
+ * Testing the RentalUnitView class
+ *
+ * @author Anton
+ *
+ */
+public class RentalUnitViewTest {
+
+	/**
+	 * Test that views keep their own filters
+	 */
+	@Test
+	public void testIndependentFilters() {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		try {
+			manager.addNewUnit("Office", "1-28", 100);
+			manager.addNewUnit("Hotel Suite", "2-14", 2);
+			manager.addNewUnit("Conf Room", "2-30", 15);
+		} catch (DuplicateRoomException e) {
+			fail();
+		}
+		RentalUnitView hotels = manager.newView();
+		RentalUnitView all = manager.newView();
+		hotels.filterRentalUnits("Hotel Suite", false);
+		manager.filterRentalUnits("Conference Room", false);
+
+		assertEquals(1, hotels.size());
+		assertEquals("Hotel Suite:       2-14 |   2", hotels.listRentalUnits()[0]);
+		assertEquals(3, all.size());
+		assertEquals(1, manager.listRentalUnits().length);
+		assertEquals("Conference Room:   2-30 |  15", manager.listRentalUnits()[0]);
+
+		// a new unit shows up in every view that it passes the filter of
+		try {
+			manager.addNewUnit("Hotel Suite", "1-10", 1);
+		} catch (DuplicateRoomException e) {
+			fail();
+		}
+		assertEquals(2, hotels.size());
+		assertEquals("Hotel Suite:       1-10 |   1", hotels.listRentalUnits()[0]);
+		assertEquals(4, all.size());
+		assertEquals(1, manager.listRentalUnits().length);
+
+		// service changes made through one view are seen by the others
+		hotels.filterRentalUnits("Hotel Suite", true);
+		all.removeFromService(2, LocalDate.of(2020, Month.JANUARY, 5));
+		assertEquals(1, hotels.size());
+		assertEquals("Hotel Suite:       1-10 |   1", hotels.listRentalUnits()[0]);
+		assertEquals("Hotel Suite:       2-14 |   2  Unavailable", all.listRentalUnits()[2]);
+		RentalUnit[] units = all.getRentalUnits();
+		assertEquals(4, units.length);
+		assertSame(all.getRentalUnit(2), units[2]);
+		assertEquals(all.listRentalUnits()[2], units[2].getDescription());
+		assertSame(manager.getFilteredRentalUnits()[0], manager.getUnitAtLocation("2-30"));
+
+		try {
+			hotels.getRentalUnit(1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("index outside of list", e.getMessage());
+		}
+		manager.filterRentalUnits("Any", false);
+		manager.flushAllData();
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ *
+ */
+package edu.ncsu.csc216.business.model.stakeholders;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import edu.ncsu.csc216.business.model.contracts.Lease;
+
+/**
+ * Testing the SingleWriterLandlord class
+ *
+ * @author Anton
+ *
+ */
+public class SingleWriterLandlordTest {
+
+	/**
+	 * Test that queued commands are applied in order and complete their futures
+	 *
+	 * @throws Exception if a future fails unexpectedly or the writer is
+	 *                   interrupted
+	 */
+	@Test
+	public void testCommands() throws Exception {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		SingleWriterLandlord landlord = new SingleWriterLandlord(manager, 4);
+		landlord.addNewClient("Anton N", "AN@123");
+		landlord.addNewUnit("Conf Room", "2-30", 15);
+		landlord.addNewUnit("Hotel Suite", "2-14", 2);
+		landlord.filterRentalUnits("Conference", false);
+		CompletableFuture<Lease> lease = landlord.createLease(0, 0, LocalDate.of(2020, Month.MARCH, 20), 2, 10);
+		CompletableFuture<Client> duplicate = landlord.addNewClient("Anton", "AN@123");
+		CompletableFuture<Lease> invalid = landlord.createLease(0, 1, LocalDate.of(2020, Month.MARCH, 20), 2, 10);
+
+		assertEquals("000000 | 2020-03-20 to 2020-03-21 |  10 | Anton N (AN@123)", lease.get().getUnitRow());
+		try {
+			duplicate.get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof DuplicateClientException);
+		}
+		try {
+			invalid.get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+		assertEquals(1, landlord.listRentalUnits().get().length);
+		assertEquals(1, landlord.listClientLeases(0).get().length);
+		assertEquals(2, manager.newView().size());
+
+		landlord.cancelClientsLease(0, 0).get();
+		assertEquals(0, landlord.listLeasesForRentalUnit(0).get().length);
+
+		landlord.close();
+		try {
+			landlord.flushAllData().get();
+			fail();
+		} catch (ExecutionException e) {
+			assertEquals("closed", e.getCause().getMessage());
+		}
+		manager.flushAllData();
+	}
+
+	/**
+	 * Test that every command queued while close runs is either applied or
+	 * failed, so no caller waits forever
+	 *
+	 * @throws Exception if a future does not complete in time or a thread is
+	 *                   interrupted
+	 */
+	@Test
+	public void testCloseWhileQueuing() throws Exception {
+		PropertyManager manager = PropertyManager.getInstance();
+		manager.flushAllData();
+		SingleWriterLandlord landlord = new SingleWriterLandlord(manager, 2);
+		List<CompletableFuture<Client>> futures = new ArrayList<CompletableFuture<Client>>();
+		List<Thread> callers = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			final int caller = t;
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 200; i++) {
+					CompletableFuture<Client> future = landlord.addNewClient("Client " + caller, "c" + caller + "x" + i);
+					synchronized (futures) {
+						futures.add(future);
+					}
+				}
+			});
+			callers.add(thread);
+			thread.start();
+		}
+		landlord.close();
+		for (Thread thread : callers) {
+			thread.join();
+		}
+		int applied = 0;
+		for (CompletableFuture<Client> future : futures) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+				applied++;
+			} catch (ExecutionException e) {
+				assertEquals("closed", e.getCause().getMessage());
+			}
+		}
+		assertEquals(800, futures.size());
+		assertEquals(applied, manager.listClients().length);
+		manager.flushAllData();
+	}
+}